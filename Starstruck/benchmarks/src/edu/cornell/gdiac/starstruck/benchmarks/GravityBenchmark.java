@@ -0,0 +1,61 @@
+package edu.cornell.gdiac.starstruck.benchmarks;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import edu.cornell.gdiac.starstruck.Gravity.VectorWorld;
+import edu.cornell.gdiac.starstruck.LevelModel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gravity queries at random points of a level, with the baked field and with the exact sum.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GravityBenchmark {
+    /** Number of query points per invocation */
+    private static final int POINTS = 1024;
+
+    @Param({"main/tutorial1.json", "sombrero/levelTwo.json", "circinus/level1.json"})
+    public String level;
+
+    private VectorWorld vectorWorld;
+    private Vector2[] points;
+    private Vector2 force = new Vector2();
+
+    @Setup
+    public void setup() {
+        LevelModel model = Headless.loadLevel(level);
+        vectorWorld = model.getVectorWorld();
+        Rectangle bounds = model.getBounds();
+        RandomXS128 random = new RandomXS128(42);
+        points = new Vector2[POINTS];
+        for (int ii = 0; ii < POINTS; ii++) {
+            points[ii] = new Vector2(bounds.x + random.nextFloat() * bounds.width,
+                                     bounds.y + random.nextFloat() * bounds.height);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void getForce(Blackhole bh) {
+        for (int ii = 0; ii < POINTS; ii++) {
+            bh.consume(vectorWorld.getForce(points[ii], force).x);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void getExactForce(Blackhole bh) {
+        for (int ii = 0; ii < POINTS; ii++) {
+            bh.consume(vectorWorld.getExactForce(points[ii], force).x);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package edu.cornell.gdiac.starstruck.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import edu.cornell.gdiac.starstruck.GameController;
+import edu.cornell.gdiac.starstruck.LevelData;
+import edu.cornell.gdiac.starstruck.LevelModel;
+import edu.cornell.gdiac.starstruck.desktop.HeadlessGL;
+import edu.cornell.gdiac.util.JsonAssetManager;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Shared setup for the benchmarks that need libGDX.
+ *
+ * Starts the headless backend with a GL context that does nothing, and loads the game assets
+ * once per JVM, so levels can be populated exactly as in the game.  The benchmarks must run
+ * from the assets directory (the jmh task does this).
+ */
+public class Headless {
+    /** Size of the canvas the levels are simulated for */
+    public static final int WIDTH = 1280, HEIGHT = 720;
+
+    /** The controller that loaded the assets */
+    private static GameController controller;
+
+    /**
+     * Starts libGDX and loads the assets, if this has not been done yet.
+     *
+     * @return a headless controller with all assets loaded
+     */
+    public static synchronized GameController init() {
+        if (controller != null) {
+            return controller;
+        }
+
+        final CountDownLatch ready = new CountDownLatch(1);
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = -1; // Never render; the benchmarks drive the game themselves
+        new HeadlessApplication(new ApplicationAdapter() {
+            public void create() {
+                Gdx.gl = Gdx.gl20 = HeadlessGL.create();
+                ready.countDown();
+            }
+        }, config);
+        try {
+            ready.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+
+        JsonAssetManager manager = JsonAssetManager.getInstance();
+        controller = new GameController();
+        controller.preLoadContent(manager);
+        manager.finishLoading();
+        controller.loadContent(manager);
+        controller.setHeadless(WIDTH, HEIGHT);
+        return controller;
+    }
+
+    /**
+     * Returns the level in the given file, read as the game reads it.
+     *
+     * @param file The level file, relative to assets/levels
+     * @return the level in the given file
+     */
+    public static LevelData readLevel(String file) {
+        return LevelData.load(Gdx.files.internal("levels/" + file));
+    }
+
+    /**
+     * Returns a new level populated from the given file.
+     *
+     * @param file The level file, relative to assets/levels
+     * @return a new level populated from the given file
+     */
+    public static LevelModel loadLevel(String file) {
+        init();
+        LevelModel level = new LevelModel();
+        level.populate(readLevel(file));
+        return level;
+    }
+}
@@ -0,0 +1,49 @@
+package edu.cornell.gdiac.starstruck.benchmarks;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.JsonReader;
+import edu.cornell.gdiac.starstruck.LevelData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a level file, as JSON and in binary form.  Both files are read from memory, so
+ * only the parsing is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelLoadBenchmark {
+    @Param({"main/tutorial1.json", "whirlpool/boss.json", "milky/levelThree.json",
+            "sombrero/levelboss.json", "circinus/level1.json"})
+    public String level;
+
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setup() throws IOException {
+        Headless.init();
+        json = Gdx.files.internal("levels/" + level).readBytes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LevelData.fromJson(new JsonReader().parse(new ByteArrayInputStream(json))).write(out);
+        binary = out.toByteArray();
+    }
+
+    @Benchmark
+    public LevelData json() {
+        return LevelData.fromJson(new JsonReader().parse(new ByteArrayInputStream(json)));
+    }
+
+    @Benchmark
+    public LevelData binary() throws IOException {
+        return LevelData.read(new ByteArrayInputStream(binary));
+    }
+}
@@ -0,0 +1,73 @@
+package edu.cornell.gdiac.starstruck.benchmarks;
+
+import edu.cornell.gdiac.util.PooledList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding, removing and iterating a PooledList, the container of all game objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PooledListBenchmark {
+    @Param({"16", "256", "4096"})
+    public int size;
+
+    private Integer[] values;
+    private PooledList<Integer> list;
+
+    @Setup
+    public void setup() {
+        values = new Integer[size];
+        list = new PooledList<Integer>();
+        for (int ii = 0; ii < size; ii++) {
+            values[ii] = ii;
+            list.add(values[ii]);
+        }
+    }
+
+    @Benchmark
+    public int addPoll() {
+        for (int ii = 0; ii < size; ii++) {
+            list.add(values[ii]);
+        }
+        int sum = 0;
+        for (int ii = 0; ii < size; ii++) {
+            sum += list.poll();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int iterate() {
+        int sum = 0;
+        for (Integer value : list) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int removeInPlace() {
+        // Removes every other entry through the entry iterator, as postUpdate does, then puts them back
+        int removed = 0;
+        Iterator<PooledList<Integer>.Entry> iterator = list.entryIterator();
+        while (iterator.hasNext()) {
+            PooledList<Integer>.Entry entry = iterator.next();
+            if ((entry.getValue() & 1) == 1) {
+                entry.remove();
+                removed++;
+            }
+        }
+        for (int ii = 1; ii < size; ii += 2) {
+            list.add(values[ii]);
+        }
+        return removed;
+    }
+}
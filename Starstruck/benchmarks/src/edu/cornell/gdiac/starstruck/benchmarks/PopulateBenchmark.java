@@ -0,0 +1,49 @@
+package edu.cornell.gdiac.starstruck.benchmarks;
+
+import edu.cornell.gdiac.starstruck.LevelData;
+import edu.cornell.gdiac.starstruck.LevelModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LevelModel.populate for every level in the level select screen.  The level is read as the
+ * game reads it (the binary file if it is up to date), but reading it is not measured, and
+ * the level is disposed between invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PopulateBenchmark {
+    @Param({"main/tutorial1.json", "main/tutorial2.json", "main/tutorial3.json",
+            "main/whirlpoolDemo2.json", "main/milkyDemo2.json",
+            "whirlpool/levelOne.json", "whirlpool/oldTutorial.json", "whirlpool/boss.json",
+            "milky/level1.json", "milky/levelOne.json", "milky/levelTwo.json", "milky/levelThree.json",
+            "sombrero/levelOne.json", "sombrero/levelTwo.json", "sombrero/levelThree.json",
+            "sombrero/levelboss.json", "circinus/level1.json"})
+    public String level;
+
+    private LevelData data;
+    private LevelModel model;
+
+    @Setup
+    public void setup() {
+        Headless.init();
+        data = Headless.readLevel(level);
+        model = new LevelModel();
+    }
+
+    @TearDown(Level.Invocation)
+    public void reset() {
+        model.reset();
+    }
+
+    @Benchmark
+    public LevelModel populate() {
+        model.populate(data);
+        return model;
+    }
+}
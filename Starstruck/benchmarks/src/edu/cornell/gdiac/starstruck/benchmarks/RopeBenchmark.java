@@ -0,0 +1,50 @@
+package edu.cornell.gdiac.starstruck.benchmarks;
+
+import com.badlogic.gdx.math.Vector2;
+import edu.cornell.gdiac.starstruck.Obstacles.Rope;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-step rope queries and reeling on the rope of a level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RopeBenchmark {
+    @Param({"main/tutorial1.json", "sombrero/levelboss.json"})
+    public String level;
+
+    private Rope rope;
+    private float[] packed;
+    private Vector2 dir = new Vector2();
+    private Vector2 offset = new Vector2();
+
+    @Setup
+    public void setup() {
+        rope = Headless.loadLevel(level).getRope();
+        packed = new float[2 * rope.getVertexCount()];
+    }
+
+    @Benchmark
+    public Vector2[] getVertices() {
+        return rope.getVertices();
+    }
+
+    @Benchmark
+    public int getVerticesPacked() {
+        return rope.getVertices(packed);
+    }
+
+    @Benchmark
+    public Vector2 reel() {
+        // Reeling without space only sets velocities, so repeating it does not change the rope
+        dir.set(1, 0);
+        rope.reel(false, dir, offset, false);
+        return dir;
+    }
+}
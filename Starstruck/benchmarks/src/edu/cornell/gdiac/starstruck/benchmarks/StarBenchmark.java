@@ -0,0 +1,77 @@
+package edu.cornell.gdiac.starstruck.benchmarks;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import edu.cornell.gdiac.starstruck.LevelModel;
+import edu.cornell.gdiac.starstruck.Obstacles.Star;
+import edu.cornell.gdiac.starstruck.Obstacles.StarEnclosure;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the stars of a level enclosed by a rope polygon, as GameController does each step.
+ *
+ * collect tests every star with Star.collect, as the game did before StarEnclosure.  enclosed
+ * copies the polygon into the level's StarEnclosure and queries its grid, as it does now.
+ *
+ * The rope of a freshly loaded level is straight and encloses nothing, so the polygon is a
+ * circle around the middle of the level with as many vertices as the rope.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StarBenchmark {
+    @Param({"sombrero/levelTwo.json", "circinus/level1.json"})
+    public String level;
+
+    private ArrayList<Star> stars;
+    private Vector2[] vertices;
+    private StarEnclosure enclosure;
+    private float[] packed;
+    private Array<Star> enclosed = new Array<Star>();
+
+    @Setup
+    public void setup() {
+        LevelModel model = Headless.loadLevel(level);
+        stars = model.getStars();
+        enclosure = model.getStarEnclosure();
+
+        Rectangle bounds = model.getBounds();
+        float radius = Math.min(bounds.width, bounds.height) / 3;
+        int count = model.getRope().getVertexCount();
+        vertices = new Vector2[count];
+        packed = new float[2 * count];
+        for (int ii = 0; ii < count; ii++) {
+            float angle = MathUtils.PI2 * ii / (count - 1);
+            vertices[ii] = new Vector2(bounds.x + bounds.width / 2 + radius * MathUtils.cos(angle),
+                                       bounds.y + bounds.height / 2 + radius * MathUtils.sin(angle));
+            packed[2 * ii] = vertices[ii].x;
+            packed[2 * ii + 1] = vertices[ii].y;
+        }
+    }
+
+    @Benchmark
+    public int collect() {
+        int collected = 0;
+        for (Star s : stars) {
+            if (s.collect(vertices)) {
+                collected++;
+            }
+        }
+        return collected;
+    }
+
+    @Benchmark
+    public int enclosed() {
+        enclosure.update(packed, vertices.length);
+        enclosed.clear();
+        return enclosure.findEnclosed(enclosed).size;
+    }
+}
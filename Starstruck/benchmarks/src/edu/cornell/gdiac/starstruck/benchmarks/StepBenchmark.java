@@ -0,0 +1,53 @@
+package edu.cornell.gdiac.starstruck.benchmarks;
+
+import com.badlogic.gdx.physics.box2d.World;
+import edu.cornell.gdiac.starstruck.GameController;
+import edu.cornell.gdiac.starstruck.WorldController;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One physics step of the portal test level and the densest levels in the game: the bare
+ * Box2D step of the level the controller is playing, and the full headless game step, run by
+ * WorldController.simulate as the game runs it, with no input.  Each iteration starts from a
+ * freshly reset level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StepBenchmark {
+    @Param({"test/portals.json", "whirlpool/boss.json", "sombrero/levelboss.json",
+            "circinus/level1.json"})
+    public String level;
+
+    private GameController controller;
+    private World world;
+
+    @Setup
+    public void setup() {
+        controller = Headless.init();
+    }
+
+    @Setup(Level.Iteration)
+    public void load() {
+        controller.setJson(level);
+        controller.reset();
+        world = controller.getLevel().getWorld();
+    }
+
+    @Benchmark
+    public World worldStep() {
+        world.step(WorldController.WORLD_STEP, WorldController.WORLD_VELOC, WorldController.WORLD_POSIT);
+        return world;
+    }
+
+    @Benchmark
+    public GameController gameStep() {
+        controller.simulate(WorldController.WORLD_STEP);
+        return controller;
+    }
+}
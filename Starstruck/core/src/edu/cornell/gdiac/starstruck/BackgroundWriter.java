@@ -0,0 +1,262 @@
+/*
+ * BackgroundWriter.java
+ *
+ * Writes files on a thread of its own, so that the editor never waits on the disk.
+ * Jobs are written in the order they are posted.  JSON is turned into text on the
+ * writer thread as well, so the caller only has to build the tree.
+ *
+ * A tree handed to the writer belongs to it from then on, and must not be changed.
+ *
+ * A file that is replaced is written to a temporary file first, which is then moved
+ * over the old one in a single step.  If the game stops halfway through, the old file
+ * is still whole.
+ * Lines appended to a file are written at its end, so at most the last one is cut off.
+ */
+package edu.cornell.gdiac.starstruck;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Thread that writes text and JSON files, one job at a time.
+ */
+public class BackgroundWriter implements Runnable {
+    /** How long dispose() waits for the jobs left to be written (in milliseconds) */
+    private static final long FINISH_TIME = 2000;
+    /** The extension added to a file while it is being written */
+    private static final String TEMP_EXTENSION = ".tmp";
+    /** The extension added to the old file while it is being replaced */
+    private static final String BACKUP_EXTENSION = ".bak";
+
+    /** The jobs not written yet */
+    private final LinkedBlockingQueue<Job> jobs;
+    /** The thread doing the writing, or null if it has not started */
+    private Thread thread;
+
+    /**
+     * Told when a file has been written.
+     */
+    public interface Listener {
+        /**
+         * Called on the render thread once the file is written, or could not be.
+         *
+         * @param file  The file written
+         * @param error Why the file could not be written, or null if it was
+         */
+        public void written(FileHandle file, Throwable error);
+    }
+
+    /**
+     * A file to write.
+     */
+    private static class Job {
+        /** The file to write, or null to stop the thread */
+        final FileHandle file;
+        /** The text to write (if json is null) */
+        final String text;
+        /** The JSON to write, pretty printed (or one line per child if appending) */
+        final JsonValue json;
+        /** Whether to append to the file (otherwise it is replaced) */
+        final boolean append;
+        /** Told when the file is written (may be null) */
+        final Listener listener;
+
+        Job(FileHandle file, String text, JsonValue json, boolean append, Listener listener) {
+            this.file = file;
+            this.text = text;
+            this.json = json;
+            this.append = append;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Creates a writer with no jobs.  The thread starts with the first job.
+     */
+    public BackgroundWriter() {
+        jobs = new LinkedBlockingQueue<Job>();
+    }
+
+    /**
+     * Replaces the contents of a file with the given text.
+     *
+     * @param file  The file to write
+     * @param text  The new contents
+     */
+    public void write(FileHandle file, String text) {
+        post(new Job(file, text, null, false, null));
+    }
+
+    /**
+     * Replaces the contents of a file with the given JSON, pretty printed.
+     *
+     * The writer owns the tree from now on, so do not change it.
+     *
+     * @param file  The file to write
+     * @param json  The new contents
+     */
+    public void write(FileHandle file, JsonValue json) {
+        post(new Job(file, null, json, false, null));
+    }
+
+    /**
+     * Replaces the contents of a file with the given JSON, pretty printed.
+     *
+     * The writer owns the tree from now on, so do not change it.  The listener is told
+     * on the render thread when the file has been written.
+     *
+     * @param file      The file to write
+     * @param json      The new contents
+     * @param listener  Told when the file is written
+     */
+    public void write(FileHandle file, JsonValue json, Listener listener) {
+        post(new Job(file, null, json, false, listener));
+    }
+
+    /**
+     * Appends each child of the given JSON array to a file, one line each.
+     *
+     * The writer owns the tree from now on, so do not change it.
+     *
+     * @param file  The file to append to
+     * @param lines The values to append
+     */
+    public void append(FileHandle file, JsonValue lines) {
+        post(new Job(file, null, lines, true, null));
+    }
+
+    /**
+     * Writes the jobs left, waiting a short time at most, and stops the thread.
+     */
+    public synchronized void dispose() {
+        if (thread == null) {
+            return;
+        }
+        jobs.add(new Job(null, null, null, false, null));
+        try {
+            thread.join(FINISH_TIME);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Queues a job, starting the thread if needed.
+     *
+     * @param job   The job to queue
+     */
+    private synchronized void post(Job job) {
+        jobs.add(job);
+        if (thread == null) {
+            thread = new Thread(this, "BackgroundWriter");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Writes jobs until told to stop.
+     */
+    public void run() {
+        JsonValue.PrettyPrintSettings settings = new JsonValue.PrettyPrintSettings();
+        settings.outputType = JsonWriter.OutputType.json;
+        while (true) {
+            Job job;
+            try {
+                job = jobs.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job.file == null) {
+                return;
+            }
+
+            Throwable error = null;
+            try {
+                if (job.append) {
+                    appendLines(job.file, job.json);
+                } else {
+                    String text = job.json != null ? job.json.prettyPrint(settings) : job.text;
+                    replace(job.file, text);
+                }
+            } catch (Exception e) {
+                Gdx.app.error("BackgroundWriter", "Could not write "+job.file.path(), e);
+                error = e;
+            }
+            if (job.listener != null) {
+                final Job done = job;
+                final Throwable failure = error;
+                Gdx.app.postRunnable(new Runnable() {
+                    public void run() {
+                        done.listener.written(done.file, failure);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Appends each child of a JSON array to a file, one line each.
+     *
+     * @param file  The file to append to
+     * @param lines The values to append
+     */
+    private static void appendLines(FileHandle file, JsonValue lines) {
+        StringBuilder text = new StringBuilder();
+        for (JsonValue line = lines.child; line != null; line = line.next) {
+            text.append(line.toJson(JsonWriter.OutputType.json)).append('\n');
+        }
+        file.writeString(text.toString(), true, "UTF-8");
+    }
+
+    /**
+     * Replaces the contents of a file, so that it is never left half written.
+     *
+     * The text is written to a temporary file, which is moved over the old one
+     * atomically, so the file is always either the old contents or the new.  Only where
+     * the file system cannot move atomically is the old file renamed out of the way
+     * first, and put back if the new one cannot take its place.
+     *
+     * @param file  The file to write
+     * @param text  The new contents
+     */
+    private static void replace(FileHandle file, String text) {
+        FileHandle temp = file.sibling(file.name() + TEMP_EXTENSION);
+        temp.writeString(text, false, "UTF-8");
+        File target = file.file();
+        try {
+            Files.move(temp.file().toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        } catch (AtomicMoveNotSupportedException e) {
+            // Fall back on renaming through a backup below
+        } catch (IOException e) {
+            temp.delete();
+            throw new GdxRuntimeException("Could not replace "+file.path(), e);
+        }
+
+        File backup = new File(target.getPath() + BACKUP_EXTENSION);
+        backup.delete();
+        if (target.exists() && !target.renameTo(backup)) {
+            temp.delete();
+            throw new GdxRuntimeException("Could not replace "+file.path());
+        }
+        if (!temp.file().renameTo(target)) {
+            backup.renameTo(target);
+            temp.delete();
+            throw new GdxRuntimeException("Could not replace "+file.path());
+        }
+        backup.delete();
+    }
+}
@@ -8,12 +8,12 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.JsonValue.PrettyPrintSettings;
-import com.badlogic.gdx.utils.JsonWriter;
 import edu.cornell.gdiac.starstruck.Gravity.VectorWorld;
 import edu.cornell.gdiac.starstruck.Models.*;
 import edu.cornell.gdiac.starstruck.Obstacles.*;
@@ -27,6 +27,10 @@ public class EditController extends WorldController implements ContactListener {
     /** Speed of camera pan & zoom */
     private static final float PAN_CONST = 8;
     private static final float ZOOM_FACTOR = 0.02f;
+    /** Seconds a status message stays on screen */
+    private static final float STATUS_TIME = 3.0f;
+    /** Largest half-width of the box drawn around a selected obstacle */
+    private static final float MARKER_SIZE = 1.0f;
     /** Bounds of this level */
 //    private float screenX;
 //    private float screenY;
@@ -40,6 +44,40 @@ public class EditController extends WorldController implements ContactListener {
 
     /** Current obstacle */
     private Obstacle current;
+    /** Where the current obstacle was when it was picked up (in physics units) */
+    private Vector2 carryStart;
+    /** Undo/redo history, and autosave */
+    private EditJournal journal;
+    /** Writes saves and autosaves in the background */
+    private BackgroundWriter writer;
+    /** Message shown at the bottom of the screen, such as whether a save worked */
+    private String status;
+    /** Seconds left to show the status message */
+    private float statusTime;
+    /** Font for the status message (made when first needed) */
+    private BitmapFont statusFont;
+    /** Obstacles selected with the marquee, to move or delete together */
+    private Array<Obstacle> selection;
+    /** Finds the obstacles under the mouse */
+    private ObstacleSelector selector;
+    /** Whether a marquee is being dragged out */
+    private boolean marquee;
+    /** Whether the selection is being dragged */
+    private boolean dragging;
+    /** The corner of the marquee where the drag started (in physics units) */
+    private Vector2 marqueeStart;
+    /** The corner of the marquee under the mouse (in physics units) */
+    private Vector2 marqueeEnd;
+    /** The mouse position when the selection started moving (in physics units) */
+    private Vector2 dragStart;
+    /** The mouse position when the selection was last moved (in physics units) */
+    private Vector2 dragLast;
+    /** Outline for drawing the marquee and the selection */
+    private PolygonShape outline;
+    /** Cache for the mouse position (in physics units) */
+    private Vector2 mouse;
+    /** Cache for the area of the marquee (in physics units) */
+    private Rectangle area;
     /** VectorWorld */
     private VectorWorld vectorWorld;
     /** Reference to the game level */
@@ -115,7 +153,9 @@ public class EditController extends WorldController implements ContactListener {
         }
 
         public void setVel() {
+            float old = worm.getVX();
             worm.setVX(vx);
+            journal.changed(worm, worm.getTexture(), old);
             worm = null; vx = 0;
         }
     }
@@ -208,6 +248,26 @@ public class EditController extends WorldController implements ContactListener {
         }
     }
 
+    public class WriteListener implements BackgroundWriter.Listener {
+
+        /** The level file saved, relative to the levels folder */
+        public String file;
+
+        public WriteListener(String file) {
+            this.file = file;
+        }
+
+        public void written(FileHandle handle, Throwable error) {
+            if (error == null) {
+                // Reset now reloads what was saved
+                loadFile = file;
+                setStatus("Saved " + file);
+            } else {
+                setStatus("Could not save " + file + ": " + error.getMessage());
+            }
+        }
+    }
+
 
     public EditController() {
         super(DEFAULT_WIDTH,DEFAULT_HEIGHT,DEFAULT_GRAVITY);
@@ -218,6 +278,17 @@ public class EditController extends WorldController implements ContactListener {
         world.setContactListener(this);
 //        sensorFixtures = new ObjectSet<Fixture>();
         current = null;
+        carryStart = new Vector2();
+        writer = new BackgroundWriter();
+        journal = new EditJournal(level, writer);
+        selection = new Array<Obstacle>();
+        marqueeStart = new Vector2();
+        marqueeEnd = new Vector2();
+        dragStart = new Vector2();
+        dragLast = new Vector2();
+        mouse = new Vector2();
+        area = new Rectangle();
+        outline = new PolygonShape();
         vectorWorld = new VectorWorld();
         save = new SaveListener();
         wormListener = new WormListener();
@@ -234,14 +305,14 @@ public class EditController extends WorldController implements ContactListener {
     }
 
     public void reset() {
-        level.dispose();
+        level.reset();
         canvas.resetCamera();
         level.setGalaxy(galaxy);
         boundListener = new BoundsListener();
         winListener = new WinListener();
 
         if (loadFile != null) {
-            levelFormat = jsonReader.parse(Gdx.files.internal("levels/" + loadFile));
+            levelFormat = readLevel(loadFile);
             level.populate(levelFormat);
         } else {
 
@@ -252,6 +323,11 @@ public class EditController extends WorldController implements ContactListener {
         world = level.getWorld();
 
         current = null;
+        journal.clear();
+        selector = new ObstacleSelector(world, level);
+        selection.clear();
+        marquee = false;
+        dragging = false;
 
         setComplete(false);
         setFailure(false);
@@ -323,16 +399,21 @@ public class EditController extends WorldController implements ContactListener {
             String key = JsonAssetManager.getInstance().getKey(wormy.getTexture());
             //System.out.println(key);
             int i = Arrays.binarySearch(FISH_TEXTURES, key);
+            FilmStrip old = wormy.getTexture();
             wormy.setTexture(JsonAssetManager.getInstance().getEntry(FISH_TEXTURES[(i + 1) % FISH_TEXTURES.length], FilmStrip.class));
+            journal.changed(wormy, old, wormy.getVX());
 
         } else if (input.didDown()) {
             Worm wormy = (Worm) current;
             String key = JsonAssetManager.getInstance().getKey(wormy.getTexture());
             int i = Arrays.binarySearch(FISH_TEXTURES, key);
+            FilmStrip old = wormy.getTexture();
             wormy.setTexture(JsonAssetManager.getInstance().getEntry(FISH_TEXTURES[i == 0 ? FISH_TEXTURES.length - 1 : (i - 1) % FISH_TEXTURES.length], FilmStrip.class));
+            journal.changed(wormy, old, wormy.getVX());
         } else if (input.shiftHeld() && input.didTertiary()){
             wormListener.worm = (Worm) current;
             Gdx.input.getTextInput(wormListener, "Set velocity to...", Float.toString(current.getVX()), "");
+            commitMove();
             current = null;
         }
     }
@@ -347,20 +428,20 @@ public class EditController extends WorldController implements ContactListener {
         if (input.didPrimary()){
             //Scroll through planets
             Planet p = (Planet) current;
-            level.remove(p);
+            commitMove();
             Vector2 pos = p.getPosition();
 
             current = new Planet(pos.x, pos.y, p.getInd() + 1, world, scale, null);
 
-            level.add(current);
+            journal.replace(p, current);
         } else if (input.didDown()) {
             Planet p = (Planet) current;
-            level.remove(p);
+            commitMove();
             Vector2 pos = p.getPosition();
 
             current = new Planet(pos.x, pos.y, p.getInd() - 1, world, scale, null);
 
-            level.add(current);
+            journal.replace(p, current);
         } else if (input.didB()){
             //Add a bug
             float camScaleX = camOffsetX / scale.x;
@@ -370,15 +451,14 @@ public class EditController extends WorldController implements ContactListener {
             Vector2 pos = input.getCrossHair();
             Bug bugger = new Bug(pos.x + camScaleX + w, pos.y + camScaleY + h,
                 JsonAssetManager.getInstance().getEntry("orange bug", FilmStrip.class), scale, vectorWorld);
-            ((Planet) current).setBug(bugger);
             bugger.setPlanet((Planet) current);
-            level.add(bugger);
+            journal.add(bugger);
         } else if (((Planet) current).getBug() != null) {
             //Switch bug type
             if ((input.didLeft() && !input.leftPrevious()) || (input.didRight() && !input.rightPrevious())){
                 Planet p = (Planet) current;
-                Bug b = p.getBug();
-                level.remove(b);
+                Bug old = p.getBug();
+                Bug b = old;
                 switch (b.getType()) {
                     case BUG: b = new ColoredBug(b.getX(), b.getY(), scale, ModelColor.PINK, vectorWorld);
                         ((ColoredBug) b).setSleeping(false); ((ColoredBug) b).setSpeed(0.0001f); break;
@@ -391,9 +471,8 @@ public class EditController extends WorldController implements ContactListener {
                         }
                 }
                 //System.out.println(b);
-                level.add(b);
                 b.setPlanet(p);
-                p.setBug(b);
+                journal.replace(old, b);
             }
         }
     }
@@ -406,7 +485,7 @@ public class EditController extends WorldController implements ContactListener {
 
         if (input.didPrimary()){
             Urchin u = (Urchin) current;
-            level.remove(u);
+            commitMove();
             Vector2 pos = u.getPosition();
             if (u.getOrientation() == CapsuleObstacle.Orientation.VERTICAL) {
                 current = new Urchin(pos.x, pos.y, scale, u.getLength() + 1, u.getOrientation());
@@ -419,10 +498,10 @@ public class EditController extends WorldController implements ContactListener {
                             u.getHeight() / Enemy.DUDE_VSHRINK, scale, u.getLength() + 1, u.getOrientation());
                 }
             }
-            level.add(current);
+            journal.replace(u, current);
         } else if (input.didDown()) {
             Urchin u = (Urchin) current;
-            level.remove(u);
+            commitMove();
             Vector2 pos = u.getPosition();
             if (u.getOrientation() == CapsuleObstacle.Orientation.VERTICAL) {
                 current = new Urchin(pos.x, pos.y, scale, Math.max(u.getLength() - 1, 1), u.getOrientation());
@@ -437,14 +516,14 @@ public class EditController extends WorldController implements ContactListener {
                             u.getHeight() / Enemy.DUDE_VSHRINK, scale, u.getLength() - 1, u.getOrientation());
                 }
             }
-            level.add(current);
+            journal.replace(u, current);
         } else if ((input.didLeft() && !input.leftPrevious()) || (input.didRight() && !input.rightPrevious())) {
             Urchin u = (Urchin) current;
-            level.remove(u);
+            commitMove();
             Vector2 pos = u.getPosition();
             CapsuleObstacle.Orientation orie = u.getOrientation() == CapsuleObstacle.Orientation.VERTICAL ? CapsuleObstacle.Orientation.HORIZONTAL : CapsuleObstacle.Orientation.VERTICAL;
             current = new Urchin(pos.x, pos.y, u.getHeight() / Enemy.DUDE_HSHRINK, u.getWidth() / Enemy.DUDE_VSHRINK, scale, u.getLength(), orie);
-            level.add(current);
+            journal.replace(u, current);
         }
     }
 
@@ -456,7 +535,7 @@ public class EditController extends WorldController implements ContactListener {
 
         if (input.didPrimary()){
             OctoLeg u = (OctoLeg) current;
-            level.remove(u);
+            commitMove();
             Vector2 pos = u.getPosition();
             if (u.getOrientation() == CapsuleObstacle.Orientation.VERTICAL) {
                 current = new OctoLeg(pos.x, pos.y, scale, u.getLength() + 1, u.getOrientation());
@@ -466,10 +545,10 @@ public class EditController extends WorldController implements ContactListener {
                             u.getHeight() / Enemy.DUDE_VSHRINK, scale, u.getLength() + 1, u.getOrientation());
                 }
             }
-            level.add(current);
+            journal.replace(u, current);
         } else if (input.didDown()) {
             OctoLeg u = (OctoLeg) current;
-            level.remove(u);
+            commitMove();
             Vector2 pos = u.getPosition();
             if (u.getOrientation() == CapsuleObstacle.Orientation.VERTICAL) {
                 current = new OctoLeg(pos.x, pos.y, scale, Math.max(u.getLength() - 1, 2), u.getOrientation());
@@ -482,14 +561,14 @@ public class EditController extends WorldController implements ContactListener {
                             u.getHeight() / Enemy.DUDE_VSHRINK, scale, u.getLength() - 1, u.getOrientation());
                 }
             }
-            level.add(current);
+            journal.replace(u, current);
         } else if ((input.didLeft() && !input.leftPrevious()) || (input.didRight() && !input.rightPrevious())) {
             OctoLeg u = (OctoLeg) current;
-            level.remove(u);
+            commitMove();
             Vector2 pos = u.getPosition();
             CapsuleObstacle.Orientation orie = u.getOrientation() == CapsuleObstacle.Orientation.VERTICAL ? CapsuleObstacle.Orientation.HORIZONTAL : CapsuleObstacle.Orientation.VERTICAL;
             current = new OctoLeg(pos.x, pos.y, u.getHeight() / Enemy.DUDE_HSHRINK, u.getWidth() / Enemy.DUDE_VSHRINK, scale, u.getLength(), orie);
-            level.add(current);
+            journal.replace(u, current);
         }
     }
 
@@ -516,15 +595,14 @@ public class EditController extends WorldController implements ContactListener {
             Vector2 pos2 = p2.getPosition();
             if (color == 1)
                 pos2 = pos1.cpy().add(5, 0);
-            if (!level.portalpairs.remove(port)) System.out.println("updatePortal in EditController couldn't remove port");
-            level.remove(p);
-            level.remove(p2);
+            commitMove();
+            journal.begin();
+            journal.remove(port);
             port = new PortalPair(pos1.x, pos1.y, pos2.x, pos2.y, name, scale,
                     JsonAssetManager.getInstance().getEntry(texture, FilmStrip.class), color, goal);
-            level.add(port.getPortal1());
-            level.add(port.getPortal2());
-            level.portalpairs.add(port);
-            current = port.getPortal1();
+            journal.add(port);
+            journal.end();
+            pickUp(port.getPortal1());
 //        } else if (input.didDown()) {
 //            Planet p = (Planet) current;
 //            level.remove(p);
@@ -567,21 +645,154 @@ public class EditController extends WorldController implements ContactListener {
     private void updateClick() {
         InputController input = InputController.getInstance();
         if (current != null) {
+            commitMove();
             current = null;
+            return;
         }
-        else {
-            for (Obstacle obj : level.getAllObjects()) {
-                OrthographicCamera camera = (OrthographicCamera)canvas.getCamera();
-                Vector2 camOffset = new Vector2(camOffsetX/scale.x, camOffsetY/scale.y);
-                Vector2 zoom = new Vector2((input.xPos() - canvas.getWidth()/2) * (camera.zoom-1) / scale.x,
-                (canvas.getHeight()/2 - input.yPos()) * (camera.zoom-1) / scale.y);
-                if (obj.containsPoint(input.getCrossHair().cpy().add(camOffset).add(zoom))) {
-                    current = obj;
-                }
+
+        Vector2 pos = mouseToWorld(mouse);
+        if (input.shiftHeld()) {
+            // Start a marquee
+            marquee = true;
+            marqueeStart.set(pos);
+            marqueeEnd.set(pos);
+            return;
+        }
+
+        Obstacle obj = selector.pick(pos.x, pos.y);
+        if (selection.size > 0) {
+            if (obj != null && selection.contains(obj, true)) {
+                // Drag the whole selection
+                dragging = true;
+                dragStart.set(pos);
+                dragLast.set(pos);
+                return;
+            }
+            selection.clear();
+        }
+        if (obj != null) {
+            pickUp(obj);
+        }
+    }
+
+    /**
+     * Picks up an obstacle, so that it follows the mouse until the next click.
+     *
+     * @param obj   The obstacle to pick up
+     */
+    private void pickUp(Obstacle obj) {
+        current = obj;
+        carryStart.set(obj.getX(), obj.getY());
+    }
+
+    /**
+     * Adds a new obstacle to the level and picks it up.
+     *
+     * @param obj   The obstacle to add
+     */
+    private void place(Obstacle obj) {
+        journal.add(obj);
+        pickUp(obj);
+    }
+
+    /**
+     * Records how far the current obstacle has moved since it was picked up.
+     *
+     * Call this before the current obstacle is dropped, replaced or deleted.
+     */
+    private void commitMove() {
+        if (current != null) {
+            journal.moved(current, current.getX() - carryStart.x, current.getY() - carryStart.y);
+            carryStart.set(current.getX(), current.getY());
+        }
+    }
+
+    /**
+     * Helper function to update the marquee and the obstacles it selected.
+     *
+     * Shift-drag to select everything inside a rectangle.  Drag one of the selected
+     * obstacles to move them all, or press backspace to delete them all.
+     */
+    private void updateSelection() {
+        InputController input = InputController.getInstance();
+        if (marquee) {
+            marqueeEnd.set(mouseToWorld(mouse));
+            if (!input.mouseDragged()) {
+                // Released, so select everything inside
+                marquee = false;
+                area.set(Math.min(marqueeEnd.x, marqueeStart.x), Math.min(marqueeEnd.y, marqueeStart.y),
+                         Math.abs(marqueeEnd.x - marqueeStart.x), Math.abs(marqueeEnd.y - marqueeStart.y));
+                selector.select(area, selection);
+            }
+        } else if (dragging) {
+            if (!input.mouseDragged()) {
+                dragging = false;
+                journal.moved(selection, dragLast.x - dragStart.x, dragLast.y - dragStart.y);
+                return;
+            }
+            Vector2 pos = mouseToWorld(mouse);
+            float dx = pos.x - dragLast.x;
+            float dy = pos.y - dragLast.y;
+            dragLast.set(pos);
+            level.shift(selection, dx, dy);
+        } else if (selection.size > 0 && input.didBackspace()) {
+            journal.begin();
+            for (Obstacle obj : selection) {
+                delete(obj);
             }
+            journal.end();
+            selection.clear();
+        }
+    }
+
+    /**
+     * Removes an obstacle from the level, along with anything paired with it.
+     *
+     * Deleting one portal deletes its pair, and deleting one tutorial point deletes the
+     * other.  Players cannot be deleted, and deleting an obstacle twice does nothing.
+     * The deletion is recorded, so that it can be undone.
+     *
+     * @param obj   The obstacle to delete
+     */
+    private void delete(Obstacle obj) {
+        switch (obj.getType()) {
+            case PLAYER:
+                break;
+            case PORTAL:
+                PortalPair port = findPortalPair((Portal)obj);
+                if (port != null) {
+                    journal.remove(port);
+                }
+                break;
+            case TUTORIAL:
+                TutorialPoint tutorial = findTutPoint((Star)obj);
+                if (tutorial != null) {
+                    journal.remove(tutorial);
+                }
+                break;
+            default:
+                if (obj.getBody() != null) {
+                    journal.remove(obj);
+                }
         }
     }
 
+    /**
+     * Returns the position of the mouse in the level, allowing for camera pan and zoom.
+     *
+     * @param out   The vector to store the position in
+     *
+     * @return the given vector, set to the mouse position (in physics units)
+     */
+    private Vector2 mouseToWorld(Vector2 out) {
+        InputController input = InputController.getInstance();
+        OrthographicCamera camera = (OrthographicCamera)canvas.getCamera();
+        out.set(input.getCrossHair());
+        out.x += camOffsetX / scale.x + (input.xPos() - canvas.getWidth()/2) * (camera.zoom-1) / scale.x;
+        out.y += camOffsetY / scale.y + (canvas.getHeight()/2 - input.yPos()) * (camera.zoom-1) / scale.y;
+        return out;
+    }
+
     /**
      * Helper function to update camera panning with arrow keys when no planet is selected
      */
@@ -619,13 +830,38 @@ public class EditController extends WorldController implements ContactListener {
         camera.update();
     }
 
+    /**
+     * Saves the level in the background.
+     *
+     * The level is copied into a new JSON tree now, so that later edits do not change
+     * what is saved.  Turning the tree into text and writing it happen on the writer
+     * thread, and the status message says when it is done.
+     *
+     * @param file  The file to save to, relative to the levels folder
+     */
+    private void saveLevel(String file) {
+        JsonValue snapshot = level.toJSON();
+        writer.write(Gdx.files.local("levels/" + file), snapshot, new WriteListener(file));
+        setStatus("Saving " + file + "...");
+    }
+
+    /**
+     * Shows a message at the bottom of the screen for a few seconds.
+     *
+     * @param text  The message
+     */
+    private void setStatus(String text) {
+        status = text;
+        statusTime = STATUS_TIME;
+    }
+
     /**
      * Try resetting the current level to the level in loader; return true if succesful.
      * @return If the level was successfully reset.
      */
     private boolean loadNewFile() {
         try {
-            levelFormat = jsonReader.parse(Gdx.files.internal("levels/" + load.file));
+            levelFormat = readLevel(load.file);
             level.populate(levelFormat);
             loadFile = load.file;
             galaxy = level.getGalaxy();
@@ -638,6 +874,21 @@ public class EditController extends WorldController implements ContactListener {
         }
     }
 
+    /**
+     * Returns the level file with the given name, relative to the levels folder.
+     *
+     * Loading the autosave replays the changes logged since its snapshot.
+     *
+     * @param file  The name of the level file
+     * @return the level file with the given name
+     */
+    private JsonValue readLevel(String file) {
+        if (file.equals(EditJournal.SNAPSHOT_FILE)) {
+            return EditJournal.recover();
+        }
+        return jsonReader.parse(Gdx.files.internal("levels/" + file));
+    }
+
     public void update(float dt) {
         //System.out.println(Arrays.toString(FISH_TEXTURES));
         OrthographicCamera camera = (OrthographicCamera)canvas.getCamera();
@@ -663,16 +914,12 @@ public class EditController extends WorldController implements ContactListener {
         if (current == null)
             updateCamera();
         if (save.file != null) {
-            System.out.println(level.toJSON());
-            JsonValue saveVal = level.toJSON();
-            String saveName = save.file;
-            FileHandle saveFile = Gdx.files.local("levels/" + saveName);
-            PrettyPrintSettings saveSettings = new PrettyPrintSettings();
-            saveSettings.outputType = JsonWriter.OutputType.json;
-            saveFile.writeString(saveVal.prettyPrint(saveSettings), false);
-            load.file = save.file;
+            saveLevel(save.file);
             save.file = null;
         }
+        if (statusTime > 0) {
+            statusTime -= dt;
+        }
 
         if (load.file != null) {
             if (loadNewFile()) {
@@ -683,30 +930,15 @@ public class EditController extends WorldController implements ContactListener {
 
         if (current != null) {
             if (input.didBackspace() && current.getType() != ObstacleType.PLAYER) {
-                if (current.getType() == ObstacleType.PORTAL) {
-                    PortalPair port = findPortalPair((Portal)current);
-                    level.remove(port.getPortal1());
-                    level.remove(port.getPortal2());
-                    level.portalpairs.remove(port);
-                    current = null;
-                }
-                else if (current.getType() == ObstacleType.TUTORIAL) {
-                    TutorialPoint tutorial = findTutPoint((Star)current);
-                    level.remove(tutorial.getPinkPoint());
-                    level.remove(tutorial.getBluePoint());
-                    level.tutpoints.remove(tutorial);
-                    current = null;
-                }
-                else {
-                    level.remove(current);
-                    current = null;
-                }
+                commitMove();
+                delete(current);
+                current = null;
             } else {
-                current.setPosition((input.xPos() + camOffsetX) / scale.x + w,
-                        -((input.yPos() - camOffsetY) / scale.y) + h + bounds.height);
+                float x = (input.xPos() + camOffsetX) / scale.x + w;
+                float y = -((input.yPos() - camOffsetY) / scale.y) + h + bounds.height;
+                level.shift(current, x - current.getX(), y - current.getY());
                 switch (current.getType()) {
-                    case PLANET:
-                        updatePlanet(); break;
+                    case PLANET: updatePlanet(); break;
                     case WORM: updateWorm(); break;
                     case PORTAL: updatePortal(); break;
                     case URCHIN: updateUrchin(); break;
@@ -714,6 +946,7 @@ public class EditController extends WorldController implements ContactListener {
                 }
             }
         } else {
+            updateSelection();
             if (input.shiftHeld() && input.didS()) {
                 Gdx.input.getTextInput(save, "Save as...", "level.json", "");
             } else if (input.shiftHeld() && input.didO()) {
@@ -728,30 +961,31 @@ public class EditController extends WorldController implements ContactListener {
                 loadFile = null;
                 reset();
                 return;
+            } else if (input.shiftHeld() && input.didZ()) {
+                selection.clear();
+                journal.redo();
+            } else if (input.didZ()) {
+                selection.clear();
+                journal.undo();
             } else if (input.didP()) {
                 Vector2 pos = input.getCrossHair();
-                current = new Planet(pos.x + camScaleX + w, pos.y + camScaleY + h, 1, world, scale, null);
-                level.add(current);
+                place(new Planet(pos.x + camScaleX + w, pos.y + camScaleY + h, 1, world, scale, null));
             } else if (input.didA()) {
                 Vector2 pos = input.getCrossHair();
-                current = new Anchor(pos.x + camScaleX + w, pos.y + camScaleY + h,
-                        JsonAssetManager.getInstance().getEntry("anchor", TextureRegion.class), scale);
-                level.add(current);
+                place(new Anchor(pos.x + camScaleX + w, pos.y + camScaleY + h,
+                        JsonAssetManager.getInstance().getEntry("anchor", TextureRegion.class), scale));
             } else if (input.didS()) {
                 Vector2 pos = input.getCrossHair();
-                current = new Star(pos.x + camScaleX + w, pos.y + camScaleY + h,
-                        JsonAssetManager.getInstance().getEntry("star", TextureRegion.class), scale);
-                level.add(current);
+                place(new Star(pos.x + camScaleX + w, pos.y + camScaleY + h,
+                        JsonAssetManager.getInstance().getEntry("star", TextureRegion.class), scale));
             } else if (input.didW()) {
                 Vector2 pos = input.getCrossHair();
-                current = new Worm(pos.x + camScaleX + w, pos.y + camScaleY + h,
-                        JsonAssetManager.getInstance().getEntry(FISH_TEXTURES[0], FilmStrip.class), scale, 0);
-                level.add(current);
+                place(new Worm(pos.x + camScaleX + w, pos.y + camScaleY + h,
+                        JsonAssetManager.getInstance().getEntry(FISH_TEXTURES[0], FilmStrip.class), scale, 0));
             }  else if (input.didI()) {
                 Vector2 pos = input.getCrossHair();
-                current = new IceCream(pos.x + camScaleX + w, pos.y + camScaleY + h,
-                        JsonAssetManager.getInstance().getEntry("ice cream", FilmStrip.class), scale, 0);
-                level.add(current);
+                place(new IceCream(pos.x + camScaleX + w, pos.y + camScaleY + h,
+                        JsonAssetManager.getInstance().getEntry("ice cream", FilmStrip.class), scale, 0));
             } else if (input.didD()) {
                 Vector2 pos = input.getCrossHair();
                 float x = pos.x + camScaleX + w;
@@ -759,10 +993,8 @@ public class EditController extends WorldController implements ContactListener {
                 PortalPair portal = new PortalPair(x, y, x+5, y, "portalpair" + portalPair, scale,
                         JsonAssetManager.getInstance().getEntry("static portal", FilmStrip.class), 1, false);
                 portalPair++;
-                level.add(portal.getPortal1());
-                level.add(portal.getPortal2());
-                level.portalpairs.add(portal);
-                current = portal.getPortal1();
+                journal.add(portal);
+                pickUp(portal.getPortal1());
             } else if (input.didT()) {
                 Vector2 pos = input.getCrossHair();
                 float x = pos.x + camScaleX + w;
@@ -770,28 +1002,21 @@ public class EditController extends WorldController implements ContactListener {
                 TutorialPoint tutorial = new TutorialPoint(x, y, x+2, y,
                         JsonAssetManager.getInstance().getEntry("static portal", TextureRegion.class), scale, "task"+task);
                 task++;
-                level.add(tutorial.getPinkPoint());
-                level.add(tutorial.getBluePoint());
-                level.tutpoints.add(tutorial);
-                current = tutorial.getPinkPoint();
+                journal.add(tutorial);
+                pickUp(tutorial.getPinkPoint());
             } else if (input.didU()) {
                 Vector2 pos = input.getCrossHair();
-                current = new Urchin(pos.x + camScaleX + w, pos.y + camScaleY + h, scale, 1, CapsuleObstacle.Orientation.VERTICAL);
-                level.add(current);
+                place(new Urchin(pos.x + camScaleX + w, pos.y + camScaleY + h, scale, 1, CapsuleObstacle.Orientation.VERTICAL));
             } else if (input.didB() ) {
                 if (galaxy == Galaxy.WHIRLPOOL) {
                     Vector2 pos = input.getCrossHair();
-                    current = new OctoLeg(pos.x + camScaleX + w, pos.y + camScaleY + h, scale, 2, CapsuleObstacle.Orientation.VERTICAL);
-                    level.add(current);
+                    place(new OctoLeg(pos.x + camScaleX + w, pos.y + camScaleY + h, scale, 2, CapsuleObstacle.Orientation.VERTICAL));
                 } else if (galaxy == Galaxy.SOMBRERO) {
                     Vector2 pos = input.getCrossHair();
-                    current = new AztecWheel(pos.x + camScaleX + w, pos.y + camScaleY + h, scale);
-                    level.add(current);
+                    place(new AztecWheel(pos.x + camScaleX + w, pos.y + camScaleY + h, scale));
                 } else if (galaxy == Galaxy.CIRCINUS) {
                     Vector2 pos = input.getCrossHair();
-                    current = new FerisWheel(pos.x + camScaleX + w, pos.y + camScaleY + h, scale);
-                    //System.out.println(current);
-                    level.add(current);
+                    place(new FerisWheel(pos.x + camScaleX + w, pos.y + camScaleY + h, scale));
                 }
             }
             if (input.mouseDragged()) {
@@ -807,15 +1032,20 @@ public class EditController extends WorldController implements ContactListener {
             e.update(dt);
         }
 
+        journal.update(dt);
     }
 
     /**
-     * Override superclass's setDebug to also edit the level's current state
+     * Override superclass's setDebug to also edit the level's current state.
+     * Turning debug on also logs the collision matrix at the debug log level.
      * @param d The new value for debug
      */
     public void setDebug(boolean d) {
         super.setDebug(d);
         level.setDebug(d);
+        if (d) {
+            Gdx.app.debug("EditController", CollisionMatrix.dump());
+        }
     }
 
     public void draw(float dt) {
@@ -833,6 +1063,35 @@ public class EditController extends WorldController implements ContactListener {
 
         level.draw(canvas, 'e');
 
+        if (marquee || selection.size > 0) {
+            canvas.beginDebug();
+            for (Obstacle obj : selection) {
+                float r = Math.min(obj.getDrawRadius(), MARKER_SIZE);
+                outline.setAsBox(r, r);
+                canvas.drawPhysics(outline, Color.YELLOW, obj.getX(), obj.getY(), 0, scale.x, scale.y);
+            }
+            if (marquee) {
+                float hw = Math.max(Math.abs(marqueeEnd.x - marqueeStart.x) / 2, 0.01f);
+                float hh = Math.max(Math.abs(marqueeEnd.y - marqueeStart.y) / 2, 0.01f);
+                outline.setAsBox(hw, hh);
+                canvas.drawPhysics(outline, Color.WHITE, (marqueeEnd.x + marqueeStart.x) / 2,
+                                   (marqueeEnd.y + marqueeStart.y) / 2, 0, scale.x, scale.y);
+            }
+            canvas.endDebug();
+        }
+
+        if (statusTime > 0 && status != null) {
+            if (statusFont == null) {
+                statusFont = new BitmapFont();
+            }
+            OrthographicCamera cam = (OrthographicCamera)canvas.getCamera();
+            float x = cam.position.x - cam.zoom*(cam.viewportWidth/2 - STATS_MARGIN);
+            float y = cam.position.y - cam.zoom*(cam.viewportHeight/2 - STATS_MARGIN) + statusFont.getLineHeight();
+            canvas.begin();
+            canvas.drawText(status, statusFont, x, y);
+            canvas.end();
+        }
+
 //        OrthographicCamera cam = (OrthographicCamera) canvas.getCamera();
 //        float width = canvas.getWidth()/2-10;
 //        float height = canvas.getHeight()/2-10;
@@ -850,6 +1109,21 @@ public class EditController extends WorldController implements ContactListener {
 //        canvas.end();
     }
 
+    /**
+     * Dispose of all (non-static) resources allocated to this mode.
+     */
+    public void dispose() {
+        journal.flush();
+        writer.dispose();
+        super.dispose();
+        level.dispose();
+        outline.dispose();
+        if (statusFont != null) {
+            statusFont.dispose();
+            statusFont = null;
+        }
+    }
+
     /**
      * Callback method for the start of a collision
      *
@@ -887,87 +1161,9 @@ public class EditController extends WorldController implements ContactListener {
             Obstacle bd1 = (Obstacle)body1.getUserData();
             Obstacle bd2 = (Obstacle)body2.getUserData();
 
-            String bd1N = bd1.getName();
-            String bd2N = bd2.getName();
-
-            //Disable all collisions for worms
-            if (bd1.getType() == ObstacleType.WORM || bd2.getType() == ObstacleType.WORM) {
-                contact.setEnabled(false);
-            }
-
-            if (bd1.getType() == ObstacleType.OCTO_LEG || bd2.getType() == ObstacleType.OCTO_LEG) {
-                contact.setEnabled(false);
-            }
-
-            if (bd1.getType() == ObstacleType.AZTEC_WHEEL || bd2.getType() == ObstacleType.AZTEC_WHEEL) {
-                contact.setEnabled(false);
-            }
-
-            if (bd1.getType() == ObstacleType.FERIS_WHEEL || bd2.getType() == ObstacleType.FERIS_WHEEL) {
-                contact.setEnabled(false);
-            }
-
-            //Disable all collisions with portal
-            if (bd1.getType() == ObstacleType.PORTAL || bd2.getType() == ObstacleType.PORTAL) {
-                contact.setEnabled(false);
-            }
-
-            //Disables all collisions w rope
-            if (bd1.getName().contains("rope") || bd2.getName().contains("rope")) {
-                contact.setEnabled(false);
-            }
-            //Disables all anchor and star collisions
-            if(bd1N.contains("anchor") || bd2N.contains("anchor") || bd1N.contains("star") || bd2N.contains("star")){
-                contact.setEnabled(false);
-            }
-            //Enables collisions between rope and anchor
-//            if (bd1.getName().contains("rope") && bd2.getName().contains("anchor")
-//                    || bd1.getName().contains("anchor") && bd2.getName().contains("rope")) {
-//                contact.setEnabled(true);
-//            }
-
-            //Disables collisions between ends of rope and anchors
-//            ropeList = rope.getPlanks();
-//            BoxObstacle plank0 = (BoxObstacle)ropeList.get(0);
-//            BoxObstacle plank1 = (BoxObstacle)ropeList.get(1);
-//            BoxObstacle plank4 = (BoxObstacle)ropeList.get(2);
-//            BoxObstacle plank2 = (BoxObstacle)ropeList.get(ropeList.size()-2);
-//            BoxObstacle plank3 = (BoxObstacle)ropeList.get(ropeList.size()-1);
-//            BoxObstacle plank5 = (BoxObstacle)ropeList.get(ropeList.size()-3);
-//            if (bd1N.contains("anchor") && (bd2 == plank0 || bd2 == plank1 || bd2 == plank2 || bd2 == plank3)
-//                    || bd2N.contains("anchor") && (bd1 == plank0 || bd1 == plank1 || bd1 == plank2 || bd1 == plank3)) {
-//                contact.setEnabled(false);
-//            }
-
-            //Enables collisions between rope and planet
-            if (bd1.getName().contains("rope") && bd2.getName().contains("planet")
-                    || bd1.getName().contains("planet") && bd2.getName().contains("rope")) {
-                contact.setEnabled(true);
-            }
-            //Disable collisions between astronauts
-            if (bd1.getName().contains("avatar") && bd2.getName().contains("avatar")) {
-                contact.setEnabled(false);
-            }
-            //Disables collisions between astronauts and anchors
-            if (bd1.getName().contains("avatar") && bd2.getName().contains("anchor")
-                    || bd1.getName().contains("anchor") && bd2.getName().contains("avatar")) {
-                contact.setEnabled(false);
-            }
-            //Disables collisions between astronauts and stars
-            if (bd1.getName().contains("avatar") && bd2.getName().contains("star")
-                    || bd1.getName().contains("star") && bd2.getName().contains("avatar")) {
-                contact.setEnabled(false);
-            }
-
-
-            //Disable the collision between anchors and rope on avatar
-            int n = rope.nLinks() - 1 ;//(int) BRIDGE_WIDTH*2-1;
-            if ((bd1N.contains("anchor") || bd2N.contains("anchor")) && (
-                    bd1N.equals("rope_plank0") || bd2N.equals("rope_plank0") ||
-                            bd1N.equals("rope_plank"+n) || bd2N.equals("rope_plank"+n))) {
+            if (!CollisionMatrix.isEnabled(bd1.getType(), bd2.getType())) {
                 contact.setEnabled(false);
             }
-
         } catch (Exception e){
             e.printStackTrace();
         }
@@ -0,0 +1,1043 @@
+/*
+ * EditJournal.java
+ *
+ * Undo and redo for the level editor, and the autosave that goes with them.
+ *
+ * Every change to the level is kept as a small command that knows how to undo and redo
+ * itself.  The commands hold the obstacles they changed, not copies of the level, so
+ * they share everything that did not change.  Moves only keep how far things moved.
+ *
+ * Adding and removing obstacles goes through the journal, which makes the change and
+ * records it.  Moves and property changes are made by the editor and then recorded,
+ * since they happen a little at a time.
+ *
+ * Autosave keeps a snapshot of the whole level and a log of the changes made since.
+ * Each change is logged as a delta for one entry of the level file: the entry added,
+ * removed, moved by an offset, or set to new values.  Entries are named by ids given
+ * out in the order the snapshot lists them, so the log can be replayed onto the
+ * snapshot without any obstacles (see recover).  The deltas are appended on a
+ * background thread every few seconds.  The level is only turned into JSON again for
+ * a new snapshot, after the first change to a newly loaded level, after many changes,
+ * or after a change the log cannot hold.
+ */
+package edu.cornell.gdiac.starstruck;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectSet;
+import edu.cornell.gdiac.starstruck.Models.*;
+import edu.cornell.gdiac.starstruck.Obstacles.*;
+import edu.cornell.gdiac.util.FilmStrip;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Undo/redo history of the level editor, with autosave.
+ */
+public class EditJournal {
+    /** The most commands that can be undone */
+    private static final int MAX_UNDO = 200;
+    /** Seconds between autosaves */
+    private static final float AUTOSAVE_TIME = 5.0f;
+    /** The most deltas logged before a new snapshot is taken */
+    private static final int COMPACT_EDITS = 100;
+    /** The file the whole level is autosaved to (in the levels folder) */
+    public static final String SNAPSHOT_FILE = "autosave.json";
+    /** The file the changes since the snapshot are logged to (in the levels folder) */
+    public static final String LOG_FILE = "autosave.log";
+    /** The field naming the snapshot, in the snapshot and the first line of the log */
+    private static final String GENERATION = "generation";
+    /** The arrays of the level file holding one entry per object, in id order */
+    private static final String[] SECTIONS = { "planets", "anchors", "stars", "worms", "portalpairs",
+            "tutorialpoints", "urchins", "ice cream", "octopus legs", "aztec wheels", "feris wheels" };
+
+    /** The level being edited */
+    private final LevelModel level;
+    /** Writes the autosave files */
+    private final BackgroundWriter writer;
+    /** Commands that can be undone, oldest first */
+    private final Array<Edit> done;
+    /** Commands that can be redone, most recently undone last */
+    private final Array<Edit> undone;
+    /** The command being grouped, if any */
+    private Group group;
+
+    /** The id of each entry in the level file, by the object it is made from */
+    private final IdentityHashMap<Object,Integer> ids;
+    /** The id the next entry added gets */
+    private int nextId;
+    /** The arrays in the last snapshot */
+    private final ObjectSet<String> sections;
+    /** Names the last snapshot, so that only its own log is replayed onto it */
+    private long generation;
+    /** The deltas not yet appended to the log */
+    private JsonValue pending;
+    /** The number of deltas logged since the last snapshot */
+    private int logged;
+    /** Whether a new snapshot is needed before anything more can be logged */
+    private boolean compact;
+    /** Whether the level changed while a snapshot was needed */
+    private boolean changed;
+    /** Seconds since the last autosave */
+    private float elapsed;
+
+    /**
+     * Creates an empty journal for the given level.
+     *
+     * @param level     The level being edited
+     * @param writer    Writes the autosave files
+     */
+    public EditJournal(LevelModel level, BackgroundWriter writer) {
+        this.level = level;
+        this.writer = writer;
+        done = new Array<Edit>();
+        undone = new Array<Edit>();
+        ids = new IdentityHashMap<Object,Integer>();
+        sections = new ObjectSet<String>();
+        pending = new JsonValue(JsonValue.ValueType.array);
+        compact = true;
+    }
+
+    /**
+     * Forgets every command, as when a new level is loaded.
+     *
+     * The new level is snapshot at the first autosave after it changes, so that
+     * loading a level does not overwrite the autosave before it can be recovered.
+     */
+    public void clear() {
+        done.clear();
+        undone.clear();
+        group = null;
+        pending = new JsonValue(JsonValue.ValueType.array);
+        compact = true;
+        changed = false;
+    }
+
+    /**
+     * Returns true if there is a command to undo
+     *
+     * @return true if there is a command to undo
+     */
+    public boolean canUndo() {
+        return done.size > 0;
+    }
+
+    /**
+     * Returns true if there is a command to redo
+     *
+     * @return true if there is a command to redo
+     */
+    public boolean canRedo() {
+        return undone.size > 0;
+    }
+
+    /**
+     * Undoes the last command, if any.
+     */
+    public void undo() {
+        if (done.size == 0) {
+            return;
+        }
+        Edit edit = done.pop();
+        edit.undo(level);
+        undone.add(edit);
+        log(edit, false);
+    }
+
+    /**
+     * Redoes the last command undone, if any.
+     */
+    public void redo() {
+        if (undone.size == 0) {
+            return;
+        }
+        Edit edit = undone.pop();
+        edit.redo(level);
+        done.add(edit);
+        log(edit, true);
+    }
+
+    /**
+     * Starts a group of commands, which are undone and redone together.
+     *
+     * Groups do not nest.  Call end() when the group is finished.
+     */
+    public void begin() {
+        group = new Group();
+    }
+
+    /**
+     * Finishes a group of commands, recording it if it is not empty.
+     */
+    public void end() {
+        Group g = group;
+        group = null;
+        if (g != null && g.edits.size > 0) {
+            record(g.edits.size == 1 ? g.edits.first() : g);
+        }
+    }
+
+    //// COMMANDS
+    /**
+     * Adds an obstacle to the level.
+     *
+     * @param obj   The obstacle to add
+     */
+    public void add(Obstacle obj) {
+        Place edit = new Place(true, obj);
+        edit.redo(level);
+        record(edit);
+    }
+
+    /**
+     * Adds a pair of portals to the level.
+     *
+     * @param pair  The portals to add
+     */
+    public void add(PortalPair pair) {
+        Place edit = new Place(true, pair.getPortal1(), pair.getPortal2());
+        edit.pair = pair;
+        edit.redo(level);
+        record(edit);
+    }
+
+    /**
+     * Adds a tutorial point to the level.
+     *
+     * @param point The tutorial point to add
+     */
+    public void add(TutorialPoint point) {
+        Place edit = new Place(true, point.getPinkPoint(), point.getBluePoint());
+        edit.point = point;
+        edit.redo(level);
+        record(edit);
+    }
+
+    /**
+     * Removes an obstacle from the level.
+     *
+     * @param obj   The obstacle to remove
+     */
+    public void remove(Obstacle obj) {
+        Place edit = new Place(false, obj);
+        edit.redo(level);
+        record(edit);
+    }
+
+    /**
+     * Removes a pair of portals from the level.
+     *
+     * @param pair  The portals to remove
+     */
+    public void remove(PortalPair pair) {
+        Place edit = new Place(false, pair.getPortal1(), pair.getPortal2());
+        edit.pair = pair;
+        edit.redo(level);
+        record(edit);
+    }
+
+    /**
+     * Removes a tutorial point from the level.
+     *
+     * @param point The tutorial point to remove
+     */
+    public void remove(TutorialPoint point) {
+        Place edit = new Place(false, point.getPinkPoint(), point.getBluePoint());
+        edit.point = point;
+        edit.redo(level);
+        record(edit);
+    }
+
+    /**
+     * Replaces one obstacle with another, such as a planet with one of another size.
+     *
+     * @param from  The obstacle to remove
+     * @param to    The obstacle to add in its place
+     */
+    public void replace(Obstacle from, Obstacle to) {
+        Replace edit = new Replace(from, to);
+        edit.redo(level);
+        record(edit);
+    }
+
+    /**
+     * Records that an obstacle was moved.
+     *
+     * @param obj   The obstacle, already moved
+     * @param dx    How far it moved horizontally (in physics units)
+     * @param dy    How far it moved vertically (in physics units)
+     */
+    public void moved(Obstacle obj, float dx, float dy) {
+        if (dx != 0 || dy != 0) {
+            record(new Move(new Obstacle[] { obj }, dx, dy));
+        }
+    }
+
+    /**
+     * Records that several obstacles were moved together.
+     *
+     * @param objs  The obstacles, already moved
+     * @param dx    How far they moved horizontally (in physics units)
+     * @param dy    How far they moved vertically (in physics units)
+     */
+    public void moved(Array<Obstacle> objs, float dx, float dy) {
+        if (objs.size > 0 && (dx != 0 || dy != 0)) {
+            record(new Move(objs.toArray(Obstacle.class), dx, dy));
+        }
+    }
+
+    /**
+     * Records that the texture or velocity of a worm was changed.
+     *
+     * The new values are read from the worm.
+     *
+     * @param worm      The worm, already changed
+     * @param texture   The texture it had before
+     * @param velocity  The velocity it had before
+     */
+    public void changed(Worm worm, FilmStrip texture, float velocity) {
+        record(new WormProperty(worm, texture, velocity));
+    }
+
+    //// AUTOSAVE
+    /**
+     * Autosaves if it is time.
+     *
+     * @param dt    Number of seconds since last animation frame
+     */
+    public void update(float dt) {
+        elapsed += dt;
+        if (elapsed >= AUTOSAVE_TIME) {
+            flush();
+        }
+    }
+
+    /**
+     * Autosaves now, if anything changed.
+     *
+     * The deltas since the last autosave are appended to the log on the writer thread.
+     * If the log has grown long, or a snapshot is needed, a new snapshot is taken
+     * instead.
+     */
+    public void flush() {
+        elapsed = 0;
+        if (compact) {
+            if (changed) {
+                snapshot();
+            }
+            return;
+        }
+        if (pending.size == 0) {
+            return;
+        }
+        if (logged >= COMPACT_EDITS) {
+            snapshot();
+        } else {
+            writer.append(file(LOG_FILE), pending);
+            pending = new JsonValue(JsonValue.ValueType.array);
+        }
+    }
+
+    /**
+     * Returns the autosaved level, with the logged changes replayed onto the snapshot.
+     *
+     * The log is only replayed if it was started for this snapshot.  Replay stops at
+     * the first line that cannot be read, such as one cut off when the game stopped.
+     *
+     * @return the autosaved level, or null if there is none
+     */
+    public static JsonValue recover() {
+        return recover(file(SNAPSHOT_FILE), file(LOG_FILE));
+    }
+
+    /**
+     * Returns the level in the given autosave files, with the log replayed onto the snapshot.
+     *
+     * @param snapshot  The snapshot of the level
+     * @param log       The changes logged since the snapshot
+     *
+     * @return the autosaved level, or null if there is no snapshot
+     */
+    static JsonValue recover(FileHandle snapshot, FileHandle log) {
+        if (!snapshot.exists()) {
+            return null;
+        }
+        JsonReader reader = new JsonReader();
+        JsonValue json = reader.parse(snapshot);
+        long generation = json.getLong(GENERATION, -1);
+        json.remove(GENERATION);
+        if (generation < 0 || !log.exists()) {
+            return json;
+        }
+
+        // The entries of the snapshot, by id
+        Array<JsonValue> entries = new Array<JsonValue>();
+        Array<String> owners = new Array<String>();
+        for (String name : SECTIONS) {
+            JsonValue section = json.get(name);
+            for (JsonValue entry = section == null ? null : section.child; entry != null; entry = entry.next) {
+                entries.add(entry);
+                owners.add(name);
+            }
+        }
+
+        String[] lines = log.readString("UTF-8").split("\n");
+        for (int ii = 0; ii < lines.length; ii++) {
+            try {
+                JsonValue line = reader.parse(lines[ii]);
+                if (ii == 0) {
+                    if (line.getLong(GENERATION, -1) != generation) {
+                        return json;
+                    }
+                } else {
+                    replay(line, json, entries, owners);
+                }
+            } catch (RuntimeException e) {
+                Gdx.app.error("EditJournal", "Stopped replaying the autosave at line "+(ii+1), e);
+                break;
+            }
+        }
+
+        for (String name : SECTIONS) {
+            if (json.get(name) == null) {
+                continue;
+            }
+            JsonValue section = new JsonValue(JsonValue.ValueType.array);
+            for (int ii = 0; ii < entries.size; ii++) {
+                JsonValue entry = entries.get(ii);
+                if (entry != null && name.equals(owners.get(ii))) {
+                    entry.next = null;
+                    section.addChild(entry);
+                }
+            }
+            json.remove(name);
+            json.addChild(name, section);
+        }
+        return json;
+    }
+
+    /**
+     * Returns an autosave file
+     *
+     * @param name  The name of the file
+     *
+     * @return an autosave file
+     */
+    private static FileHandle file(String name) {
+        return Gdx.files.local("levels/" + name);
+    }
+
+    /**
+     * Records a command that has been done, forgetting anything undone.
+     *
+     * @param edit  The command
+     */
+    private void record(Edit edit) {
+        if (group != null) {
+            group.edits.add(edit);
+            return;
+        }
+        done.add(edit);
+        if (done.size > MAX_UNDO) {
+            done.removeIndex(0);
+        }
+        undone.clear();
+        log(edit, true);
+    }
+
+    //// DELTAS
+    /**
+     * Logs the deltas of a command that was just done or undone.
+     *
+     * Nothing is logged while a snapshot is needed, as the snapshot will have the change.
+     *
+     * @param edit      The command
+     * @param forward   Whether the command was done (otherwise undone)
+     */
+    private void log(Edit edit, boolean forward) {
+        if (!compact) {
+            edit.log(this, forward);
+        }
+        changed = true;
+    }
+
+    /**
+     * Logs the entry an obstacle belongs to as it is now.
+     *
+     * @param obj   The obstacle changed
+     */
+    private void logChange(Obstacle obj) {
+        logEntry(owner(obj));
+    }
+
+    /**
+     * Logs that an obstacle was moved.
+     *
+     * Only an obstacle that is an entry of its own, with nothing but its position
+     * changing, is logged as an offset.  Anything else is logged with its new values.
+     *
+     * @param obj   The obstacle, already moved
+     * @param dx    How far it moved horizontally (in physics units)
+     * @param dy    How far it moved vertically (in physics units)
+     */
+    private void logShift(Obstacle obj, float dx, float dy) {
+        Integer id = ids.get(obj);
+        if (compact || id == null || obj.getType() == ObstacleType.OCTO_LEG) {
+            // Octopus legs save where they started, not where they are
+            logChange(obj);
+            return;
+        }
+        JsonValue op = delta("move");
+        op.addChild("id", new JsonValue(id));
+        op.addChild("dx", new JsonValue(dx));
+        op.addChild("dy", new JsonValue(dy));
+    }
+
+    /**
+     * Logs an entry of the level file as it is now.
+     *
+     * The entry is logged as added, removed or set to its current values, whichever
+     * makes the log match the level.  If the log cannot hold the entry, a snapshot is
+     * taken at the next autosave instead.
+     *
+     * @param entry The object the entry is made from, or null if unknown
+     */
+    private void logEntry(Object entry) {
+        if (compact) {
+            return;
+        }
+        if (entry instanceof AstronautModel) {
+            JsonValue op = delta("set");
+            op.addChild("key", new JsonValue(entry == level.getPlayer1() ? "astronaut 1" : "astronaut 2"));
+            op.addChild("json", json(entry));
+            return;
+        }
+
+        String section = section(entry);
+        if (section == null) {
+            compact = true;
+            return;
+        }
+        Integer id = ids.get(entry);
+        boolean present = present(entry);
+        if (id == null && present && !sections.contains(section)) {
+            // The snapshot has no array to add it to
+            compact = true;
+            return;
+        }
+
+        if (present && id == null) {
+            id = nextId++;
+            ids.put(entry, id);
+            JsonValue op = delta("add");
+            op.addChild("id", new JsonValue(id));
+            op.addChild("section", new JsonValue(section));
+            op.addChild("json", json(entry));
+        } else if (present) {
+            JsonValue op = delta("set");
+            op.addChild("id", new JsonValue(id));
+            op.addChild("json", json(entry));
+        } else if (id != null) {
+            ids.remove(entry);
+            delta("remove").addChild("id", new JsonValue(id));
+        }
+    }
+
+    /**
+     * Returns a new delta, queued to be logged
+     *
+     * @param kind  What the delta does
+     *
+     * @return a new delta, queued to be logged
+     */
+    private JsonValue delta(String kind) {
+        JsonValue op = new JsonValue(JsonValue.ValueType.object);
+        op.addChild("op", new JsonValue(kind));
+        pending.addChild(op);
+        logged++;
+        return op;
+    }
+
+    /**
+     * Writes the whole level as a new snapshot, and starts a new log for it.
+     *
+     * Every entry of the level file gets a new id, in the order the file lists them.
+     */
+    private void snapshot() {
+        JsonValue json = level.toJSON();
+        ids.clear();
+        sections.clear();
+        nextId = 0;
+        for (String name : SECTIONS) {
+            if (json.get(name) == null) {
+                continue;
+            }
+            sections.add(name);
+            if (name.equals("planets")) {
+                for (Planet p : level.getPlanets().getPlanets()) {
+                    ids.put(p, nextId++);
+                }
+            } else if (name.equals("portalpairs")) {
+                for (PortalPair pair : level.portalpairs) {
+                    ids.put(pair, nextId++);
+                }
+            } else if (name.equals("tutorialpoints")) {
+                for (TutorialPoint point : level.tutpoints) {
+                    ids.put(point, nextId++);
+                }
+            } else {
+                for (Obstacle obj : level.objects) {
+                    if (name.equals(section(obj))) {
+                        ids.put(obj, nextId++);
+                    }
+                }
+            }
+        }
+
+        // Never reuse a generation, even from an earlier run
+        generation = Math.max(generation + 1, System.currentTimeMillis());
+        json.addChild(GENERATION, new JsonValue(generation));
+        JsonValue header = new JsonValue(JsonValue.ValueType.object);
+        header.addChild(GENERATION, new JsonValue(generation));
+        writer.write(file(SNAPSHOT_FILE), json);
+        writer.write(file(LOG_FILE), header.toJson(JsonWriter.OutputType.json) + "\n");
+
+        pending = new JsonValue(JsonValue.ValueType.array);
+        logged = 0;
+        compact = false;
+        changed = false;
+    }
+
+    /**
+     * Returns the object whose entry in the level file holds an obstacle
+     *
+     * A bug is saved with its planet, a portal with its pair, a tutorial star with its
+     * tutorial point.  Anything else is an entry of its own.
+     *
+     * @param obj   The obstacle
+     *
+     * @return the object whose entry holds the obstacle, or null if there is none
+     */
+    private Object owner(Obstacle obj) {
+        if (obj instanceof Bug) {
+            return ((Bug) obj).getCurPlanet();
+        } else if (obj.getType() == ObstacleType.PORTAL) {
+            for (PortalPair pair : level.portalpairs) {
+                if (pair.getPortal1() == obj || pair.getPortal2() == obj) {
+                    return pair;
+                }
+            }
+            return null;
+        } else if (obj.getType() == ObstacleType.TUTORIAL) {
+            for (TutorialPoint point : level.tutpoints) {
+                if (point.getPinkPoint() == obj || point.getBluePoint() == obj) {
+                    return point;
+                }
+            }
+            return null;
+        }
+        return obj;
+    }
+
+    /**
+     * Returns true if the object is in the level now
+     *
+     * @param entry The object an entry is made from
+     *
+     * @return true if the object is in the level now
+     */
+    private boolean present(Object entry) {
+        if (entry instanceof PortalPair) {
+            return level.portalpairs.contains(entry);
+        } else if (entry instanceof TutorialPoint) {
+            return level.tutpoints.contains(entry);
+        }
+        return ((Obstacle) entry).getBody() != null;
+    }
+
+    /**
+     * Returns the array of the level file an object is saved in
+     *
+     * @param entry The object an entry is made from
+     *
+     * @return the array the object is saved in, or null if it is not saved in one
+     */
+    private static String section(Object entry) {
+        if (entry instanceof PortalPair) {
+            return "portalpairs";
+        } else if (entry instanceof TutorialPoint) {
+            return "tutorialpoints";
+        } else if (!(entry instanceof Obstacle)) {
+            return null;
+        }
+        switch (((Obstacle) entry).getType()) {
+            case PLANET: return "planets";
+            case ANCHOR: return "anchors";
+            case STAR: return "stars";
+            case WORM: return "worms";
+            case URCHIN: return "urchins";
+            case ICE_CREAM: return "ice cream";
+            case OCTO_LEG: return "octopus legs";
+            case AZTEC_WHEEL: return "aztec wheels";
+            case FERIS_WHEEL: return "feris wheels";
+        }
+        return null;
+    }
+
+    /**
+     * Returns the entry of the level file for an object, as LevelModel.toJSON writes it
+     *
+     * @param entry The object an entry is made from
+     *
+     * @return the entry of the level file for the object
+     */
+    private static JsonValue json(Object entry) {
+        if (entry instanceof PortalPair) {
+            return ((PortalPair) entry).toJson();
+        } else if (entry instanceof TutorialPoint) {
+            return ((TutorialPoint) entry).toJson();
+        } else if (entry instanceof AstronautModel) {
+            return ((AstronautModel) entry).toJson();
+        }
+        switch (((Obstacle) entry).getType()) {
+            case PLANET: return ((Planet) entry).toJson();
+            case ANCHOR: return ((Anchor) entry).toJson();
+            case STAR: return ((Star) entry).toJson();
+            case WORM: return ((Worm) entry).toJson();
+            case URCHIN: return ((Urchin) entry).toJson();
+            case ICE_CREAM: return ((IceCream) entry).toJson();
+            case OCTO_LEG: return ((OctoLeg) entry).toJson();
+            case AZTEC_WHEEL: return ((AztecWheel) entry).toJson();
+            default: return ((FerisWheel) entry).toJson();
+        }
+    }
+
+    /**
+     * Applies one logged delta to the level file.
+     *
+     * @param op        The delta
+     * @param json      The level file
+     * @param entries   The entries of the level file, by id (null once removed)
+     * @param owners    The array each entry is in, by id
+     */
+    private static void replay(JsonValue op, JsonValue json, Array<JsonValue> entries, Array<String> owners) {
+        String kind = op.getString("op");
+        if (op.has("key")) {
+            String key = op.getString("key");
+            JsonValue value = op.get("json");
+            value.next = null;
+            json.remove(key);
+            json.addChild(key, value);
+            return;
+        }
+
+        int id = op.getInt("id");
+        if (kind.equals("add")) {
+            while (entries.size <= id) {
+                entries.add(null);
+                owners.add(null);
+            }
+            entries.set(id, op.get("json"));
+            owners.set(id, op.getString("section"));
+            return;
+        }
+        if (entries.get(id) == null) {
+            throw new GdxRuntimeException("No entry "+id);
+        }
+        if (kind.equals("set")) {
+            entries.set(id, op.get("json"));
+        } else if (kind.equals("remove")) {
+            entries.set(id, null);
+        } else if (kind.equals("move")) {
+            JsonValue x = entries.get(id).get("x");
+            JsonValue y = entries.get(id).get("y");
+            x.set(x.asDouble() + op.getDouble("dx"), null);
+            y.set(y.asDouble() + op.getDouble("dy"), null);
+        } else {
+            throw new GdxRuntimeException("Unknown delta "+kind);
+        }
+    }
+
+    /**
+     * Puts a removed obstacle back in the level.
+     *
+     * A planet puts its bug back too, and a bug goes back on its planet.  An obstacle
+     * already in the level is left alone.
+     *
+     * @param level The level
+     * @param obj   The obstacle to put back
+     */
+    private static void insert(LevelModel level, Obstacle obj) {
+        if (obj.getType() == ObstacleType.PLANET) {
+            // Planets make their body when they are made, and level.add assumes that
+            if (obj.getBody() == null) {
+                obj.activatePhysics(level.getWorld());
+            }
+            level.add(obj);
+            Bug bug = ((Planet) obj).getBug();
+            if (bug != null) {
+                insert(level, bug);
+            }
+            return;
+        } else if (obj.getBody() != null) {
+            return;
+        }
+
+        level.add(obj);
+        if (obj instanceof Bug) {
+            Bug bug = (Bug) obj;
+            if (bug.getCurPlanet() != null && bug.getCurPlanet().getBug() == null) {
+                bug.getCurPlanet().setBug(bug);
+            }
+        }
+    }
+
+    /**
+     * Takes an obstacle out of the level.
+     *
+     * A bug is taken off its planet, so that the planet does not save it.
+     *
+     * @param level The level
+     * @param obj   The obstacle to take out
+     */
+    private static void erase(LevelModel level, Obstacle obj) {
+        if (obj instanceof Bug) {
+            Bug bug = (Bug) obj;
+            if (bug.getCurPlanet() != null && bug.getCurPlanet().getBug() == bug) {
+                bug.getCurPlanet().removeBug();
+            }
+        }
+        level.remove(obj);
+    }
+
+    /**
+     * Moves obstacles by the given amount (see LevelModel.shift).
+     *
+     * @param level The level
+     * @param objs  The obstacles to move
+     * @param dx    How far to move them horizontally (in physics units)
+     * @param dy    How far to move them vertically (in physics units)
+     */
+    private static void shift(LevelModel level, Obstacle[] objs, float dx, float dy) {
+        level.shift(Array.with(objs), dx, dy);
+    }
+
+    //// COMMAND TYPES
+    /**
+     * A change to the level that can be undone.
+     */
+    private static abstract class Edit {
+        /**
+         * Undoes this change.
+         *
+         * @param level The level
+         */
+        abstract void undo(LevelModel level);
+
+        /**
+         * Makes this change (again).
+         *
+         * @param level The level
+         */
+        abstract void redo(LevelModel level);
+
+        /**
+         * Logs the deltas of this change, once it has been done or undone.
+         *
+         * @param journal   The journal to log to
+         * @param forward   Whether the change was done (otherwise undone)
+         */
+        abstract void log(EditJournal journal, boolean forward);
+    }
+
+    /**
+     * Commands that are undone and redone together.
+     */
+    private static class Group extends Edit {
+        /** The commands, in the order they were done */
+        final Array<Edit> edits = new Array<Edit>();
+
+        void undo(LevelModel level) {
+            for (int ii = edits.size - 1; ii >= 0; ii--) {
+                edits.get(ii).undo(level);
+            }
+        }
+
+        void redo(LevelModel level) {
+            for (int ii = 0; ii < edits.size; ii++) {
+                edits.get(ii).redo(level);
+            }
+        }
+
+        void log(EditJournal journal, boolean forward) {
+            for (int ii = 0; ii < edits.size; ii++) {
+                edits.get(forward ? ii : edits.size - 1 - ii).log(journal, forward);
+            }
+        }
+    }
+
+    /**
+     * Obstacles added to or removed from the level, with the portal pair or tutorial
+     * point they make up.
+     */
+    private static class Place extends Edit {
+        /** Whether the obstacles were added (otherwise they were removed) */
+        final boolean adding;
+        /** The obstacles */
+        final Obstacle[] objects;
+        /** The portal pair they make up, if any */
+        PortalPair pair;
+        /** The tutorial point they make up, if any */
+        TutorialPoint point;
+
+        Place(boolean adding, Obstacle... objects) {
+            this.adding = adding;
+            this.objects = objects;
+        }
+
+        void undo(LevelModel level) {
+            apply(level, !adding);
+        }
+
+        void redo(LevelModel level) {
+            apply(level, adding);
+        }
+
+        void log(EditJournal journal, boolean forward) {
+            if (pair != null) {
+                journal.logEntry(pair);
+            } else if (point != null) {
+                journal.logEntry(point);
+            } else {
+                for (Obstacle obj : objects) {
+                    journal.logChange(obj);
+                }
+            }
+        }
+
+        private void apply(LevelModel level, boolean add) {
+            for (Obstacle obj : objects) {
+                if (add) {
+                    insert(level, obj);
+                } else {
+                    erase(level, obj);
+                }
+            }
+            if (pair != null) {
+                if (add) level.portalpairs.add(pair); else level.portalpairs.remove(pair);
+            }
+            if (point != null) {
+                if (add) level.tutpoints.add(point); else level.tutpoints.remove(point);
+            }
+        }
+    }
+
+    /**
+     * One obstacle swapped for another in the same place.
+     */
+    private static class Replace extends Edit {
+        /** The obstacle taken out */
+        final Obstacle from;
+        /** The obstacle put in */
+        final Obstacle to;
+
+        Replace(Obstacle from, Obstacle to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        void undo(LevelModel level) {
+            erase(level, to);
+            insert(level, from);
+        }
+
+        void redo(LevelModel level) {
+            erase(level, from);
+            insert(level, to);
+        }
+
+        void log(EditJournal journal, boolean forward) {
+            journal.logChange(from);
+            journal.logChange(to);
+        }
+    }
+
+    /**
+     * Obstacles moved together by the same amount.
+     */
+    private static class Move extends Edit {
+        /** The obstacles moved */
+        final Obstacle[] objects;
+        /** How far they moved horizontally (in physics units) */
+        final float dx;
+        /** How far they moved vertically (in physics units) */
+        final float dy;
+
+        Move(Obstacle[] objects, float dx, float dy) {
+            this.objects = objects;
+            this.dx = dx;
+            this.dy = dy;
+        }
+
+        void undo(LevelModel level) {
+            shift(level, objects, -dx, -dy);
+        }
+
+        void redo(LevelModel level) {
+            shift(level, objects, dx, dy);
+        }
+
+        void log(EditJournal journal, boolean forward) {
+            // Offsets first, as logging a bug or portal sets its whole entry
+            for (Obstacle obj : objects) {
+                if (journal.owner(obj) == obj) {
+                    journal.logShift(obj, forward ? dx : -dx, forward ? dy : -dy);
+                }
+            }
+            for (Obstacle obj : objects) {
+                if (journal.owner(obj) != obj) {
+                    journal.logChange(obj);
+                }
+            }
+        }
+    }
+
+    /**
+     * A change to the texture or velocity of a worm.
+     */
+    private static class WormProperty extends Edit {
+        /** The worm changed */
+        final Worm worm;
+        /** The texture before and after */
+        final FilmStrip fromTexture, toTexture;
+        /** The velocity before and after */
+        final float fromVelocity, toVelocity;
+
+        WormProperty(Worm worm, FilmStrip texture, float velocity) {
+            this.worm = worm;
+            fromTexture = texture;
+            fromVelocity = velocity;
+            toTexture = worm.getTexture();
+            toVelocity = worm.getVX();
+        }
+
+        void undo(LevelModel level) {
+            worm.setTexture(fromTexture);
+            worm.setVX(fromVelocity);
+        }
+
+        void redo(LevelModel level) {
+            worm.setTexture(toTexture);
+            worm.setVX(toVelocity);
+        }
+
+        void log(EditJournal journal, boolean forward) {
+            journal.logChange(worm);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * FrameStats.java
+ *
+ * Counters for the cost of each animation frame: how many batches the sprite batch
+ * flushed, how often it had to switch textures, how many obstacles were drawn, and how
+ * long the simulation, the contact callbacks and the drawing took.  The counters are
+ * added up over a frame and then kept as the figures for the last frame, which a
+ * WorldController shows as an overlay.  They can also be written to a CSV file, one row
+ * per frame, to compare levels against each other.
+ *
+ * Like InputController, this class is a Singleton.  Use the method getInstance() to get
+ * the statistics.
+ */
+package edu.cornell.gdiac.starstruck;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A singleton class for measuring the cost of each frame.
+ */
+public class FrameStats {
+    /** The header row of a CSV log */
+    private static final String CSV_HEADER = "frame,level,render_calls,texture_switches,max_sprites,"+
+            "drawn,culled,simulation_ms,contacts_ms,draw_ms";
+    /** Nanoseconds per millisecond */
+    private static final float NANOS_PER_MILLI = 1000000.0f;
+
+    /** The singleton instance */
+    private static FrameStats stats;
+
+    // THE FRAME IN PROGRESS
+    /** Number of batches flushed to the graphics card */
+    private int renderCalls;
+    /** Number of times the sprite batch changed texture */
+    private int textureSwitches;
+    /** The most sprites in a single batch */
+    private int maxSprites;
+    /** Number of obstacles drawn */
+    private int drawn;
+    /** Number of obstacles skipped because they were off screen */
+    private int culled;
+    /** Time spent stepping the simulation (in nanoseconds) */
+    private long simulation;
+    /** Time spent in contact callbacks (in nanoseconds) */
+    private long contacts;
+    /** Time spent drawing (in nanoseconds) */
+    private long drawing;
+
+    // THE LAST COMPLETE FRAME
+    /** Number of batches flushed to the graphics card */
+    private int lastRenderCalls;
+    /** Number of times the sprite batch changed texture */
+    private int lastTextureSwitches;
+    /** The most sprites in a single batch */
+    private int lastMaxSprites;
+    /** Number of obstacles drawn */
+    private int lastDrawn;
+    /** Number of obstacles skipped because they were off screen */
+    private int lastCulled;
+    /** Time spent stepping the simulation (in nanoseconds) */
+    private long lastSimulation;
+    /** Time spent in contact callbacks (in nanoseconds) */
+    private long lastContacts;
+    /** Time spent drawing (in nanoseconds) */
+    private long lastDrawing;
+
+    /** Number of frames completed */
+    private long frame;
+    /** The file being logged to, or null if not logging */
+    private FileHandle logFile;
+    /** The writer for the log file */
+    private Writer log;
+
+    /**
+     * Returns the single instance for the FrameStats
+     *
+     * The first time this is called, it will construct the FrameStats.
+     *
+     * @return the single instance for the FrameStats
+     */
+    public static FrameStats getInstance() {
+        if (stats == null) {
+            stats = new FrameStats();
+        }
+        return stats;
+    }
+
+    /**
+     * Creates a new set of statistics, with every counter at zero.
+     */
+    private FrameStats() {
+    }
+
+    /// Counting
+    /**
+     * Adds a finished sprite batch to the frame.
+     *
+     * @param calls     The number of times the batch was flushed
+     * @param switches  The number of times the batch changed texture
+     * @param sprites   The most sprites flushed at once
+     */
+    public void addBatch(int calls, int switches, int sprites) {
+        renderCalls += calls;
+        textureSwitches += switches;
+        maxSprites = Math.max(maxSprites, sprites);
+    }
+
+    /**
+     * Adds obstacles drawn and skipped to the frame.
+     *
+     * @param drawn     The number of obstacles drawn
+     * @param culled    The number of obstacles skipped because they were off screen
+     */
+    public void addObstacles(int drawn, int culled) {
+        this.drawn  += drawn;
+        this.culled += culled;
+    }
+
+    /**
+     * Adds time spent stepping the simulation to the frame.
+     *
+     * @param nanos The time spent (in nanoseconds)
+     */
+    public void addSimulation(long nanos) {
+        simulation += nanos;
+    }
+
+    /**
+     * Adds time spent in contact callbacks to the frame.
+     *
+     * @param nanos The time spent (in nanoseconds)
+     */
+    public void addContacts(long nanos) {
+        contacts += nanos;
+    }
+
+    /**
+     * Adds time spent drawing to the frame.
+     *
+     * @param nanos The time spent (in nanoseconds)
+     */
+    public void addDrawing(long nanos) {
+        drawing += nanos;
+    }
+
+    /**
+     * Ends the frame, keeping its counters as the last frame and starting over.
+     *
+     * If a log is open, this writes the frame to it.
+     *
+     * @param level The name of the level being played, for the log
+     */
+    public void endFrame(String level) {
+        lastRenderCalls = renderCalls;
+        lastTextureSwitches = textureSwitches;
+        lastMaxSprites = maxSprites;
+        lastDrawn = drawn;
+        lastCulled = culled;
+        lastSimulation = simulation;
+        lastContacts = contacts;
+        lastDrawing = drawing;
+        renderCalls = 0;
+        textureSwitches = 0;
+        maxSprites = 0;
+        drawn = 0;
+        culled = 0;
+        simulation = 0;
+        contacts = 0;
+        drawing = 0;
+        frame++;
+
+        if (log != null) {
+            try {
+                log.write(frame+","+level+","+lastRenderCalls+","+lastTextureSwitches+","+
+                        lastMaxSprites+","+lastDrawn+","+lastCulled+","+millis(lastSimulation)+","+
+                        millis(lastContacts)+","+millis(lastDrawing)+"\n");
+            } catch (IOException e) {
+                Gdx.app.error("FrameStats", "Could not write to "+logFile.path(), e);
+                stopLog();
+            }
+        }
+    }
+
+    /**
+     * Returns the figures for the last frame, one per line, for display
+     *
+     * @return the figures for the last frame, one per line
+     */
+    public String getSummary() {
+        return "render calls: "+lastRenderCalls+"\n"+
+                "texture switches: "+lastTextureSwitches+"\n"+
+                "max sprites per batch: "+lastMaxSprites+"\n"+
+                "obstacles drawn: "+lastDrawn+"  culled: "+lastCulled+"\n"+
+                "simulation: "+millis(lastSimulation)+" ms\n"+
+                "contacts: "+millis(lastContacts)+" ms\n"+
+                "draw: "+millis(lastDrawing)+" ms"+
+                (log != null ? "\nlogging to "+logFile.name() : "");
+    }
+
+    /// Logging
+    /**
+     * Returns true if every frame is being written to a log
+     *
+     * @return true if every frame is being written to a log
+     */
+    public boolean isLogging() {
+        return log != null;
+    }
+
+    /**
+     * Starts writing every frame to the given CSV file, replacing its contents.
+     *
+     * Any log already open is closed first.
+     *
+     * @param file  The file to write to
+     */
+    public void startLog(FileHandle file) {
+        stopLog();
+        try {
+            log = new BufferedWriter(file.writer(false, "UTF-8"));
+            log.write(CSV_HEADER+"\n");
+            logFile = file;
+        } catch (Exception e) {
+            Gdx.app.error("FrameStats", "Could not open "+file.path(), e);
+            log = null;
+        }
+    }
+
+    /**
+     * Stops writing frames to the log, and closes it.
+     */
+    public void stopLog() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            Gdx.app.error("FrameStats", "Could not close "+logFile.path(), e);
+        }
+        log = null;
+        logFile = null;
+    }
+
+    /**
+     * Returns a contact listener that passes every callback on to the given listener,
+     * timing it.
+     *
+     * @param target    The listener to time
+     *
+     * @return a contact listener that times the given listener
+     */
+    public ContactListener timeContacts(final ContactListener target) {
+        return new ContactListener() {
+            public void beginContact(Contact contact) {
+                long start = TimeUtils.nanoTime();
+                target.beginContact(contact);
+                addContacts(TimeUtils.nanoTime()-start);
+            }
+
+            public void endContact(Contact contact) {
+                long start = TimeUtils.nanoTime();
+                target.endContact(contact);
+                addContacts(TimeUtils.nanoTime()-start);
+            }
+
+            public void preSolve(Contact contact, Manifold oldManifold) {
+                long start = TimeUtils.nanoTime();
+                target.preSolve(contact, oldManifold);
+                addContacts(TimeUtils.nanoTime()-start);
+            }
+
+            public void postSolve(Contact contact, ContactImpulse impulse) {
+                long start = TimeUtils.nanoTime();
+                target.postSolve(contact, impulse);
+                addContacts(TimeUtils.nanoTime()-start);
+            }
+        };
+    }
+
+    /**
+     * Returns the given time in milliseconds, to two decimal places
+     *
+     * @param nanos The time in nanoseconds
+     *
+     * @return the given time in milliseconds
+     */
+    private static String millis(long nanos) {
+        return String.valueOf(Math.round(nanos / NANOS_PER_MILLI * 100) / 100.0f);
+    }
+}
@@ -53,6 +53,37 @@ public enum Galaxy {
         }
     }
 
+    /**
+     * Returns the music played in this galaxy, or null to keep the music playing
+     *
+     * @return the filename of the music played in this galaxy
+     */
+    public String getMusicFile() {
+        switch (this) {
+            case DEFAULT: return "audio/tutorial_music.mp3";
+            case WHIRLPOOL: return "audio/whirlpool_music.mp3";
+            case MILKYWAY: return "audio/milky_way.mp3";
+            case SOMBRERO: return "audio/sombrero_beat.mp3";
+            case CIRCINUS: return "audio/circinus_song.mp3";
+            default: return null;
+        }
+    }
+
+    /**
+     * Returns the galaxy played after this one, or null if this is the last
+     *
+     * @return the galaxy played after this one
+     */
+    public Galaxy next() {
+        switch (this) {
+            case DEFAULT: return WHIRLPOOL;
+            case WHIRLPOOL: return MILKYWAY;
+            case MILKYWAY: return SOMBRERO;
+            case SOMBRERO: return CIRCINUS;
+            default: return null;
+        }
+    }
+
     public String getUrchinPrefix() {
         return "spike";
     }
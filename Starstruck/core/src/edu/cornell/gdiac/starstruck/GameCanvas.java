@@ -90,6 +90,12 @@ public class GameCanvas {
     /** Cache object to handle raw textures */
     private TextureRegion holder;
 
+    // STATISTICS
+    /** The last texture drawn in this batch */
+    private Texture lastTexture;
+    /** Number of times the texture changed in this batch */
+    private int textureSwitches;
+
     /**
      * Creates a new GameCanvas determined by the application configuration.
      *
@@ -350,11 +356,9 @@ public class GameCanvas {
     public void begin(Affine2 affine) {
         global.setAsAffine(affine);
         global.mulLeft(camera.combined);
-        spriteBatch.setProjectionMatrix(global);
 
         setBlendState(BlendState.NO_PREMULT);
-        spriteBatch.begin();
-        active = DrawPass.STANDARD;
+        beginBatch(global);
     }
 
     /**
@@ -369,10 +373,7 @@ public class GameCanvas {
         global.idt();
         global.scl(sx,sy,1.0f);
         global.mulLeft(camera.combined);
-        spriteBatch.setProjectionMatrix(global);
-
-        spriteBatch.begin();
-        active = DrawPass.STANDARD;
+        beginBatch(global);
     }
 
     /**
@@ -381,8 +382,29 @@ public class GameCanvas {
      * Nothing is flushed to the graphics card until the method end() is called.
      */
     public void begin() {
-        spriteBatch.setProjectionMatrix(camera.combined);
-        spriteBatch.begin();
+        beginBatch(camera.combined);
+    }
+
+    /**
+     * Start a drawing sequence with the given projection, ignoring the camera.
+     *
+     * This is for drawing to an offscreen buffer, which has its own coordinates.
+     * Nothing is flushed to the graphics card until the method end() is called.
+     *
+     * @param projection the projection matrix for this pass
+     */
+    public void begin(Matrix4 projection) {
+        beginBatch(projection);
+    }
+
+    /**
+     * Starts the sprite batch with the given projection.
+     *
+     * @param projection the projection matrix for this pass
+     */
+    private void beginBatch(Matrix4 projection) {
+        spriteBatch.setProjectionMatrix(projection);
+        startBatch();
         active = DrawPass.STANDARD;
     }
 
@@ -390,7 +412,7 @@ public class GameCanvas {
      * Ends a drawing sequence, flushing textures to the graphics card.
      */
     public void end() {
-        spriteBatch.end();
+        finishBatch();
         active = DrawPass.INACTIVE;
     }
 
@@ -416,7 +438,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
-        spriteBatch.draw(image, x,  y);
+        drawSprite(image, x, y, image.getWidth(), image.getHeight());
     }
 
     /**
@@ -436,7 +458,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         //spriteBatch.setColor(Color.WHITE);
-        spriteBatch.draw(image, x,  y, width, height);
+        drawSprite(image, x, y, width, height);
     }
 
     /**
@@ -464,7 +486,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
-        spriteBatch.draw(image, x,  y, width, height);
+        drawSprite(image, x, y, width, height);
     }
 
     /**
@@ -588,7 +610,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
-        spriteBatch.draw(region, x,  y);
+        drawSprite(region, x, y, region.getRegionWidth(), region.getRegionHeight());
     }
 
     /**
@@ -616,7 +638,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
-        spriteBatch.draw(region, x,  y, width, height);
+        drawSprite(region, x, y, width, height);
     }
 
     /**
@@ -646,7 +668,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
-        spriteBatch.draw(region, x-ox, y-oy, width, height);
+        drawSprite(region, x-ox, y-oy, width, height);
     }
 
     /**
@@ -687,7 +709,7 @@ public class GameCanvas {
         // For now, it is better to set the affine transform directly.
         computeTransform(ox,oy,x,y,angle,sx,sy);
         spriteBatch.setColor(tint);
-        spriteBatch.draw(region, region.getRegionWidth(), region.getRegionHeight(), local);
+        drawSprite(region, region.getRegionWidth(), region.getRegionHeight(), local);
     }
 
     /**
@@ -718,7 +740,7 @@ public class GameCanvas {
         local.set(affine);
         local.translate(-ox,-oy);
         spriteBatch.setColor(tint);
-        spriteBatch.draw(region, region.getRegionWidth(), region.getRegionHeight(), local);
+        drawSprite(region, region.getRegionWidth(), region.getRegionHeight(), local);
     }
 
     /**
@@ -748,8 +770,9 @@ public class GameCanvas {
         }
 
         // Unlike Lab 1, we can shortcut without a master drawing method
+        TextureRegion bounds = region.getRegion();
         spriteBatch.setColor(Color.WHITE);
-        spriteBatch.draw(region, x,  y);
+        drawPolygon(region, x, y, 0, 0, bounds.getRegionWidth(), bounds.getRegionHeight(), 1, 1, 0);
     }
 
     /**
@@ -783,7 +806,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
-        spriteBatch.draw(region, x,  y, width, height);
+        drawPolygon(region, x, y, 0, 0, width, height, 1, 1, 0);
     }
 
     /**
@@ -819,7 +842,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
-        spriteBatch.draw(region, x-ox, y-oy, width, height);
+        drawPolygon(region, x-ox, y-oy, 0, 0, width, height, 1, 1, 0);
     }
 
     /**
@@ -857,7 +880,7 @@ public class GameCanvas {
 
         TextureRegion bounds = region.getRegion();
         spriteBatch.setColor(tint);
-        spriteBatch.draw(region, x, y, ox, oy,
+        drawPolygon(region, x, y, ox, oy,
                 bounds.getRegionWidth(), bounds.getRegionHeight(),
                 sx, sy, 180.0f*angle/(float)Math.PI);
     }
@@ -895,6 +918,7 @@ public class GameCanvas {
         computeVertices(local,region.getVertices());
 
         spriteBatch.setColor(tint);
+        countTexture(region.getRegion().getTexture());
         spriteBatch.draw(region, 0, 0);
 
         // Invert and restore
@@ -928,7 +952,7 @@ public class GameCanvas {
             return;
         }
         GlyphLayout layout = new GlyphLayout(font,text);
-        font.draw(spriteBatch, layout, x, y);
+        drawGlyphs(font, layout, x, y);
     }
 
     /**
@@ -947,7 +971,7 @@ public class GameCanvas {
         GlyphLayout layout = new GlyphLayout(font,text);
         float x = (getWidth()  - layout.width) / 2.0f;
         float y = (getHeight() + layout.height) / 2.0f;
-        font.draw(spriteBatch, layout, x, y+offset);
+        drawGlyphs(font, layout, x, y+offset);
     }
 
     /**
@@ -960,10 +984,7 @@ public class GameCanvas {
     public void beginDebug(Affine2 affine) {
         global.setAsAffine(affine);
         global.mulLeft(camera.combined);
-        debugRender.setProjectionMatrix(global);
-
-        debugRender.begin(ShapeRenderer.ShapeType.Line);
-        active = DrawPass.DEBUG;
+        beginShapes(global, false);
     }
 
     /**
@@ -978,10 +999,7 @@ public class GameCanvas {
         global.idt();
         global.scl(sx,sy,1.0f);
         global.mulLeft(camera.combined);
-        debugRender.setProjectionMatrix(global);
-
-        debugRender.begin(ShapeRenderer.ShapeType.Line);
-        active = DrawPass.DEBUG;
+        beginShapes(global, false);
     }
 
     /**
@@ -990,11 +1008,23 @@ public class GameCanvas {
      * Nothing is flushed to the graphics card until the method end() is called.
      */
     public void beginDebug() {
-        debugRender.setProjectionMatrix(camera.combined);
-        debugRender.begin(ShapeRenderer.ShapeType.Filled);
-        debugRender.setColor(Color.RED);
-        debugRender.circle(0, 0, 10);
-        debugRender.end();
+        beginShapes(camera.combined, true);
+    }
+
+    /**
+     * Starts the outline renderer with the given projection.
+     *
+     * @param projection the projection matrix for this pass
+     * @param marker     whether to mark the origin with a red dot first
+     */
+    private void beginShapes(Matrix4 projection, boolean marker) {
+        debugRender.setProjectionMatrix(projection);
+        if (marker) {
+            debugRender.begin(ShapeRenderer.ShapeType.Filled);
+            debugRender.setColor(Color.RED);
+            debugRender.circle(0, 0, 10);
+            debugRender.end();
+        }
 
         debugRender.begin(ShapeRenderer.ShapeType.Line);
         active = DrawPass.DEBUG;
@@ -1185,4 +1215,75 @@ public class GameCanvas {
         local.scale(sx,sy);
         local.translate(-ox,-oy);
     }
-}
\ No newline at end of file
+
+    /**
+     * Begins the sprite batch, starting its statistics over.
+     */
+    private void startBatch() {
+        lastTexture = null;
+        textureSwitches = 0;
+        spriteBatch.maxSpritesInBatch = 0;
+        spriteBatch.begin();
+    }
+
+    /**
+     * Ends the sprite batch, adding its statistics to the frame.
+     */
+    private void finishBatch() {
+        spriteBatch.end();
+        FrameStats.getInstance().addBatch(spriteBatch.renderCalls, textureSwitches, spriteBatch.maxSpritesInBatch);
+    }
+
+    /**
+     * Notes that the sprite batch is drawing from the given texture.
+     *
+     * @param texture the texture drawn from
+     */
+    private void countTexture(Texture texture) {
+        if (texture != lastTexture) {
+            lastTexture = texture;
+            textureSwitches++;
+        }
+    }
+
+    /**
+     * Draws a texture with its bottom left corner at (x,y).
+     */
+    private void drawSprite(Texture image, float x, float y, float width, float height) {
+        countTexture(image);
+        spriteBatch.draw(image, x, y, width, height);
+    }
+
+    /**
+     * Draws a region with its bottom left corner at (x,y).
+     */
+    private void drawSprite(TextureRegion region, float x, float y, float width, float height) {
+        countTexture(region.getTexture());
+        spriteBatch.draw(region, x, y, width, height);
+    }
+
+    /**
+     * Draws a region with the given transform.
+     */
+    private void drawSprite(TextureRegion region, float width, float height, Affine2 transform) {
+        countTexture(region.getTexture());
+        spriteBatch.draw(region, width, height, transform);
+    }
+
+    /**
+     * Draws a polygon region.
+     */
+    private void drawPolygon(PolygonRegion region, float x, float y, float ox, float oy,
+                             float width, float height, float sx, float sy, float degrees) {
+        countTexture(region.getRegion().getTexture());
+        spriteBatch.draw(region, x, y, ox, oy, width, height, sx, sy, degrees);
+    }
+
+    /**
+     * Draws laid out text.
+     */
+    private void drawGlyphs(BitmapFont font, GlyphLayout layout, float x, float y) {
+        countTexture(font.getRegion().getTexture());
+        font.draw(spriteBatch, layout, x, y);
+    }
+}
@@ -11,7 +11,6 @@
 package edu.cornell.gdiac.starstruck;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -52,8 +51,6 @@ public class GameController extends WorldController implements ContactListener {
     private JsonReader jsonReader;
     /** The JSON asset directory */
     private JsonValue  assetDirectory;
-    /** The JSON defining the level model */
-    private JsonValue  levelFormat;
     /** Reference to the game level */
     protected LevelModel level;
 
@@ -75,6 +72,17 @@ public class GameController extends WorldController implements ContactListener {
 
     private static final String PORTAL_FILE = "portal";
 
+    // SOUND KEYS (numbered once by the SoundController, so playing does not look them up)
+    /** The key of the jump sound */
+    private int jumpKey;
+    /** The key of the anchor sound */
+    private int anchorKey;
+    /** The key of the character switch sound */
+    private int switchKey;
+    /** The key of the open portal sound */
+    private int openGoalKey;
+    /** The key of the portal sound */
+    private int portalKey;
 
     /** The background for DEATH*/
     private Texture death;
@@ -94,6 +102,8 @@ public class GameController extends WorldController implements ContactListener {
 
     /** Mute */
     private boolean mute = false;
+    /** Whether this controller runs without a canvas (no camera, drawing or sound) */
+    private boolean headless = false;
 
     /** pause screen stuff */
     private boolean paused;
@@ -151,11 +161,6 @@ public class GameController extends WorldController implements ContactListener {
 
     private int totalStars;
 
-    private static Music music = MenuMode.getMusic();
-    private String music_name = "menu";
-
-    public static Music getMusic() {return music;}
-
     private boolean hasPlayedSound = false;
 
     /**
@@ -208,10 +213,26 @@ public class GameController extends WorldController implements ContactListener {
         else {
             canvas.draw(statusFrgLeft, tinge, centerX - widthBar / (2*scale.x), centerY, PROGRESS_CAP_LEFT, PROGRESS_HEIGHT);
         }
-        if (openGoal) {
-            canvas.draw(starGlow, tinge, centerX-16, centerY-8, starGlow.getWidth(), starGlow.getHeight());
-            //canvas.draw(starGlow, centerX-16, centerY-8);
+    }
+
+    /**
+     * Draws the glows over the UI, all in one additive pass.
+     *
+     * This should be the last thing drawn in the UI pass, so that the blend state only
+     * changes once.
+     */
+    private void drawUIGlows(GameCanvas canvas) {
+        if (!openGoal) {
+            return;
         }
+        OrthographicCamera camera = (OrthographicCamera) canvas.getCamera();
+        float centerY = camera.position.y + ((float) canvas.getHeight())/2 - 70;
+        float centerX = camera.position.x - ((float) canvas.getWidth())/2 + 25;
+
+        canvas.setBlendState(GameCanvas.BlendState.ADDITIVE);
+        canvas.draw(starGlow, Color.WHITE, centerX-16, centerY-8, starGlow.getWidth(), starGlow.getHeight());
+        //canvas.draw(starGlow, centerX-16, centerY-8);
+        canvas.setBlendState(GameCanvas.BlendState.NO_PREMULT);
     }
 
         /**
@@ -270,6 +291,11 @@ public class GameController extends WorldController implements ContactListener {
         sounds.allocate("space sounds");
         sounds.allocate("open portal");
         sounds.allocate("portal");
+        jumpKey = sounds.getKey(JUMP_FILE);
+        anchorKey = sounds.getKey(ANCHOR_FILE);
+        switchKey = sounds.getKey(SWITCH_FILE);
+        openGoalKey = sounds.getKey(OPEN_GOAL);
+        portalKey = sounds.getKey(PORTAL_FILE);
 
         //UI
 
@@ -303,6 +329,8 @@ public class GameController extends WorldController implements ContactListener {
     private static final float EFFECT_VOLUME = 0.6f;
     /** The volume for music */
     private static final float MUSIC_VOLUME = 0.3f;
+    /** The volume for the music of a galaxy */
+    private static final float GALAXY_MUSIC_VOLUME = 0.6f;
     /** The distance from an anchor at which an astronaut will be able to anchor */
     private static float ANCHOR_DIST = 1f;
     /** Speed of bug */
@@ -338,6 +366,12 @@ public class GameController extends WorldController implements ContactListener {
     private Obstacle curPlanetEN;
     private Vector2 contactPointEN = new Vector2();
     private Vector2 contactDirEn = new Vector2();
+    /** Cache for gravity queries, so updateHelp does not allocate */
+    private Vector2 gravityCache = new Vector2();
+    /** Packed positions of the two astronauts, for one batch gravity query */
+    private float[] gravityPositions = new float[4];
+    /** Packed gravity on the two astronauts */
+    private float[] gravityForces = new float[4];
 
     /** Settings of the game */
     private boolean switchOnJump = false;
@@ -365,8 +399,6 @@ public class GameController extends WorldController implements ContactListener {
     /** Planets */
     private Galaxy galaxy = Galaxy.WHIRLPOOL;
     private Galaxy gal;
-    /** Non planet objects when checking collisions */
-    private boolean barrier;
     /** Rope */
     private Rope rope;
     /** Star collection count */
@@ -375,6 +407,12 @@ public class GameController extends WorldController implements ContactListener {
     private boolean collection;
     /** List of stars TODO make private*/
     public ArrayList<Star> stars = new ArrayList<Star>();
+    /** Grid of the stars not yet collected, for enclosure by the rope */
+    private StarEnclosure starEnclosure;
+    /** Whether stars are collected by enclosing them with the rope */
+    private boolean encloseStars;
+    /** Cache for the stars enclosed by the rope */
+    private Array<Star> enclosedCache = new Array<Star>();
     /** List of stars to be removed */
     private ArrayList<Star> removed = new ArrayList<Star>();
     /** Number of stars needed to open portal */
@@ -394,6 +432,8 @@ public class GameController extends WorldController implements ContactListener {
     private String loadFile;
     /** Listener for load data */
     private SaveListener loader;
+    /** This controller as a contact listener, timed for the stats overlay */
+    private ContactListener contactTimer = FrameStats.getInstance().timeContacts(this);
     /** List of the planks in rope, used for presolve */
     ArrayList<Obstacle> ropeList;
     /** Whether astronaut hit a portal */
@@ -402,6 +442,9 @@ public class GameController extends WorldController implements ContactListener {
 //    private int portalCount;
     /** Target for camera position */
     private Vector3 camTarget = new Vector3();
+    /** Camera position before and after the last physics step, for interpolated drawing */
+    private Vector3 camLast = new Vector3();
+    private Vector3 camNext = new Vector3();
 
     /** Cache variable to store current planet being drawn*/
     private WheelObstacle planetCache;
@@ -452,7 +495,7 @@ public class GameController extends WorldController implements ContactListener {
         setDebug(false);
         setComplete(false);
         setFailure(false);
-        world.setContactListener(this);
+        world.setContactListener(contactTimer);
         sensorFixtures = new ObjectSet<Fixture>();
         this.loadFile = loadFile;
         loader = new SaveListener();
@@ -471,7 +514,7 @@ public class GameController extends WorldController implements ContactListener {
         setDebug(false);
         setComplete(false);
         setFailure(false);
-        world.setContactListener(this);
+        world.setContactListener(contactTimer);
         sensorFixtures = new ObjectSet<Fixture>();
         loadFile = "main/tutorial1.json";
         loader = new SaveListener();
@@ -479,17 +522,25 @@ public class GameController extends WorldController implements ContactListener {
         paused = true;
     }
 
+    /**
+     * Dispose of all (non-static) resources allocated to this mode.
+     */
+    public void dispose() {
+        super.dispose();
+        level.dispose();
+    }
+
     /**
      * Resets the status of the game so that we can play again.
      *
      * This method disposes of the world and creates a new one.
      */
     public void reset() {
-        level.dispose();
+        level.reset();
         //enemies.clear();
-        levelFormat = jsonReader.parse(Gdx.files.internal("levels/" + loadFile));
-        level.populate(levelFormat);
-        level.getWorld().setContactListener(this);
+        // The cache keeps the level for restarts, and reads it again if it was saved since
+        level.populate(LevelCache.getInstance().get(loadFile));
+        level.getWorld().setContactListener(contactTimer);
 
         currentButton = null;
         for (Button b : ui) {
@@ -530,6 +581,10 @@ public class GameController extends WorldController implements ContactListener {
 
         displayFont = JsonAssetManager.getInstance().getEntry("retro game", BitmapFont.class);
 
+        if (!mute) {
+            changeMusic();
+        }
+
 //        if (music != null) {
 ////            music.stop();
 ////            music.dispose();
@@ -551,6 +606,25 @@ public class GameController extends WorldController implements ContactListener {
 //        }
     }
 
+    /**
+     * Called when this screen becomes the current screen for a Game.
+     */
+    public void show() {
+        super.show();
+        if (!mute) {
+            changeMusic();
+        }
+    }
+
+    /**
+     * Returns the level file, as the name of this level in the stats log
+     *
+     * @return the level file
+     */
+    protected String getStatsLabel() {
+        return loadFile;
+    }
+
     /**
      * Assign the fields of the game controller state to reference the fields of the level
      */
@@ -573,6 +647,41 @@ public class GameController extends WorldController implements ContactListener {
         level.setDebug(d);
     }
 
+    /**
+     * Runs this controller without a canvas, as if it were drawn to one of the given size.
+     *
+     * Without a canvas there is no camera to move and nothing to draw, and all sound is
+     * muted, so the level can be stepped on a machine with no display or audio device.
+     *
+     * @param width  The width of the simulated canvas in pixels
+     * @param height The height of the simulated canvas in pixels
+     */
+    public void setHeadless(int width, int height) {
+        headless = true;
+        canvas = null;
+        scale.x = width/bounds.getWidth();
+        scale.y = height/bounds.getHeight();
+        mute = true;
+    }
+
+    /**
+     * Returns true if this controller runs without a canvas
+     *
+     * @return true if this controller runs without a canvas
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Returns the level being played
+     *
+     * @return the level being played
+     */
+    public LevelModel getLevel() {
+        return level;
+    }
+
     /**
      * Set level to a new json file
      * @param json Json file name to set
@@ -586,33 +695,38 @@ public class GameController extends WorldController implements ContactListener {
      */
     private void populateLevel() {
         //Set zoom of camera
-        Camera camera = canvas.getCamera();
         camWidth = 1280*ZOOM_FACTOR;
         camHeight = 720*ZOOM_FACTOR;
-        camera.viewportWidth = camWidth;
-        camera.viewportHeight = camHeight;
-        camera.position.set(camera.viewportWidth/2, camera.viewportHeight/2, 0);
-
-        float a1x = avatar.getPosition().x * avatar.drawScale.x;
-        float a2x = avatar2.getPosition().x * avatar2.drawScale.x;
-        float xCam = (a1x + a2x) / 2;
-        float a1y = avatar.getPosition().y * avatar.drawScale.y;
-        float a2y = avatar2.getPosition().y * avatar2.drawScale.y;
-        float yCam = (a1y + a2y) / 2;
-        if (xCam < camWidth/2)
-            xCam = camWidth/2;
-        else if (xCam > xBound*scale.x - camWidth/2)
-            xCam = xBound*scale.x - camWidth/2;
-        if (yCam < camHeight/2)
-            yCam = camHeight/2;
-        else if (yCam > yBound*scale.y - camHeight/2)
-            yCam = yBound*scale.y - camHeight/2;
-        camera.position.set(xCam, yCam, 0);
+        if (!headless) {
+            Camera camera = canvas.getCamera();
+            camera.viewportWidth = camWidth;
+            camera.viewportHeight = camHeight;
+            camera.position.set(camera.viewportWidth/2, camera.viewportHeight/2, 0);
+
+            float a1x = avatar.getPosition().x * avatar.drawScale.x;
+            float a2x = avatar2.getPosition().x * avatar2.drawScale.x;
+            float xCam = (a1x + a2x) / 2;
+            float a1y = avatar.getPosition().y * avatar.drawScale.y;
+            float a2y = avatar2.getPosition().y * avatar2.drawScale.y;
+            float yCam = (a1y + a2y) / 2;
+            if (xCam < camWidth/2)
+                xCam = camWidth/2;
+            else if (xCam > xBound*scale.x - camWidth/2)
+                xCam = xBound*scale.x - camWidth/2;
+            if (yCam < camHeight/2)
+                yCam = camHeight/2;
+            else if (yCam > yBound*scale.y - camHeight/2)
+                yCam = yBound*scale.y - camHeight/2;
+            camera.position.set(xCam, yCam, 0);
+            camLast.set(camera.position);
+            camNext.set(camera.position);
+        }
 
         xBound = (1280*level.xPlay) / scale.x;
         yBound = (720*level.yPlay) / scale.y;
 
         stars = level.stars;
+        starEnclosure = level.getStarEnclosure(); encloseStars = level.getEncloseStars();
         anchors = level.anchors;
         portalpairs = level.portalpairs;
         tutorialpoints = level.tutpoints;
@@ -774,7 +888,7 @@ public class GameController extends WorldController implements ContactListener {
         //avatar2.setUnAnchored();
         //avatar2.setActive(true);
         if (!mute)
-            SoundController.getInstance().play(ANCHOR_FILE,ANCHOR_FILE,false,0.25f);
+            SoundController.getInstance().play(anchorKey,ANCHOR_FILE,false,0.25f,SoundController.Category.ANCHOR);
     }
 
     /**
@@ -1032,7 +1146,11 @@ public class GameController extends WorldController implements ContactListener {
      * Helper method to update camera
      */
     private void updateCamera() {
+        if (headless) {
+            return;
+        }
         OrthographicCamera camera = (OrthographicCamera) canvas.getCamera();
+        camLast.set(camera.position);
         float a1x = avatar.getPosition().x * avatar.drawScale.x;
         float a2x = avatar2.getPosition().x * avatar2.drawScale.x;
         float xCam = (a1x + a2x) / 2;
@@ -1077,6 +1195,7 @@ public class GameController extends WorldController implements ContactListener {
             dir.setLength(CAMERA_SPEED);
         camera.position.add(dir);
         camera.update();
+        camNext.set(camera.position);
     }
 
     private boolean controllerConnected(InputController input) {
@@ -1111,7 +1230,7 @@ public class GameController extends WorldController implements ContactListener {
                     avatar.setRight(vertical || horizontal);
                 }
                 else {
-                    Vector2 dir = rope.getCenterPlank().getPosition().cpy().sub(avatar.getPosition());
+                    Vector2 dir = rope.getCenter().cpy().sub(avatar.getPosition());
                     float vertMove = input.getVertical();
                     avatar.setPlanetMove(contactDir.scl((float)Math.sqrt(move * move + vertMove * vertMove)));
                     if (Math.abs(contactDir.angle(dir)) > 90) {
@@ -1127,7 +1246,7 @@ public class GameController extends WorldController implements ContactListener {
                 avatar.curJumping = true;
                 avatar.setJumping(true);
                 if (!mute)
-                    SoundController.getInstance().play(JUMP_FILE, JUMP_FILE, false, EFFECT_VOLUME);
+                    SoundController.getInstance().play(jumpKey, JUMP_FILE, false, EFFECT_VOLUME, SoundController.Category.JUMP);
                 contactDir.set(avatar.getPosition().cpy().sub(curPlanet.getPosition()));
                 avatar.setPlanetJump(contactDir);
                 avatar.setOnPlanet(false);
@@ -1158,7 +1277,7 @@ public class GameController extends WorldController implements ContactListener {
                     avatar.curJumping = true;
                     avatar.setJumping(true);
                     if (!mute)
-                        SoundController.getInstance().play(JUMP_FILE, JUMP_FILE, false, EFFECT_VOLUME);
+                        SoundController.getInstance().play(jumpKey, JUMP_FILE, false, EFFECT_VOLUME, SoundController.Category.JUMP);
                     contactDir.set(avatar.getPosition().cpy().sub(curPlanet.getPosition()));
                     avatar.setPlanetJump(contactDir);
                     avatar.setOnPlanet(false);
@@ -1187,7 +1306,7 @@ public class GameController extends WorldController implements ContactListener {
                     avatar.curJumping = true;
                     avatar.setJumping(true);
                     if (!mute)
-                        SoundController.getInstance().play(JUMP_FILE, JUMP_FILE, false, EFFECT_VOLUME);
+                        SoundController.getInstance().play(jumpKey, JUMP_FILE, false, EFFECT_VOLUME, SoundController.Category.JUMP);
                     contactDir.set(avatar.getPosition().cpy().sub(curPlanet.getPosition()));
                     avatar.setPlanetJump(contactDir);
                     avatar.setOnPlanet(false);
@@ -1273,7 +1392,7 @@ public class GameController extends WorldController implements ContactListener {
             if (!portalpairCache.isGoal() || portalpairCache.isGoal() && openGoal) {
                 portalpairCache.teleport(world, portalAvatar, rope);
                 if (!mute)
-                    SoundController.getInstance().play(PORTAL_FILE, PORTAL_FILE,false,0.7f);
+                    SoundController.getInstance().play(portalKey, PORTAL_FILE,false,0.7f,SoundController.Category.OTHER);
                 portalAvatar.portalCount = 5;
             }
             result = true;
@@ -1327,6 +1446,9 @@ public class GameController extends WorldController implements ContactListener {
      * If pause button pressed
      */
     private void updateUI() {
+        if (headless) {
+            return;
+        }
         InputController input = InputController.getInstance();
         OrthographicCamera camera = (OrthographicCamera) canvas.getCamera();
         float centerY = camera.position.y - ((float) canvas.getHeight())/2;
@@ -1386,8 +1508,8 @@ public class GameController extends WorldController implements ContactListener {
                 Star blue = tutDrawCache.getBluePoint();
                 pink.deactivatePhysics(world);
                 blue.deactivatePhysics(world);
-                objects.remove(pink);
-                objects.remove(blue);
+                level.discard(pink);
+                level.discard(blue);
                 tutorialpoints.remove(tutDrawCache);
                 if (!tutorialpoints.isEmpty()) {
                     tutPointCache = tutorialpoints.get(0);
@@ -1407,8 +1529,12 @@ public class GameController extends WorldController implements ContactListener {
      * @param avatar2 Other avatar
      */
     private void updateHelp(AstronautModel avatar, AstronautModel avatar2, float dt) {
-        avatar.setGravity(vectorWorld.getForce(avatar.getPosition())); //gravity will be applied no matter what
-        avatar2.setGravity(vectorWorld.getForce(avatar2.getPosition()));
+        //gravity will be applied no matter what
+        gravityPositions[0] = avatar.getX();  gravityPositions[1] = avatar.getY();
+        gravityPositions[2] = avatar2.getX(); gravityPositions[3] = avatar2.getY();
+        vectorWorld.getForces(gravityPositions, gravityForces, 2);
+        avatar.setGravity(gravityCache.set(gravityForces[0], gravityForces[1]));
+        avatar2.setGravity(gravityCache.set(gravityForces[2], gravityForces[3]));
         float angle;
         if (avatar.getOnPlanet()) { //If avatar is on the planet update control movement
             avatar.setFixedRotation(true);
@@ -1486,7 +1612,7 @@ public class GameController extends WorldController implements ContactListener {
         //if (justDead) return false;
 
         InputController input = InputController.getInstance();
-        input.readInput(bounds, scale);
+        readInput();
         if (listener == null) {
             return true;
         }
@@ -1556,6 +1682,21 @@ public class GameController extends WorldController implements ContactListener {
         // Turn the physics engine crank.
         if (!justDead) world.step(WORLD_STEP,WORLD_VELOC,WORLD_POSIT);
 
+        // Step the Verlet rope, which Box2D does not know about
+        if (!justDead && rope.isVerlet()) {
+            rope.solve(world, WORLD_STEP);
+            Star star = rope.getTouchedStar();
+            if (star != null && collectCount < 0) {
+                starCache = star;
+                collection = true;
+            }
+        }
+
+        // Adapt the rope resolution now that no step is running
+        if (!justDead && rope.isAdaptive()) {
+            rope.adapt(world, WORLD_STEP);
+        }
+
         // Garbage collect the deleted objects.
         // Note how we use the linked list nodes to delete O(1) in place.
         // This is O(n) without copying.
@@ -1576,13 +1717,12 @@ public class GameController extends WorldController implements ContactListener {
     }
 
     /**
-     * Try resetting the current level to the level in loader; return true if successful.
-     * @return If the level was successfully reset.
+     * Try loading the level in loader for the next reset; return true if successful.
+     * @return If the level was successfully loaded.
      */
     private boolean loadNewFile() {
         try {
-            levelFormat = jsonReader.parse(Gdx.files.internal("levels/" + loader.file));
-            level.populate(levelFormat);
+            LevelCache.getInstance().get(loader.file);
             loadFile = loader.file;
             print(loadFile);
             loader.file = null;
@@ -1724,21 +1864,33 @@ public class GameController extends WorldController implements ContactListener {
             anchorMove(avatar2, avatar, dt);
         }
 
+        //Collect stars enclosed by the rope
+        if (encloseStars && !collection && collectCount < 0) {
+            starEnclosure.update(rope);
+            enclosedCache.clear();
+            starEnclosure.findEnclosed(enclosedCache);
+            if (enclosedCache.size > 0) {
+                starCache = enclosedCache.first();
+                collection = true;
+            }
+        }
+
         //Collect star
         if (collection) {
             if (starCount >= (winCount - 1) && !hasPlayedSound) {
                 if (!mute)
-                    SoundController.getInstance().play(OPEN_GOAL, OPEN_GOAL, false, 0.4f);
+                    SoundController.getInstance().play(openGoalKey, OPEN_GOAL, false, 0.4f, SoundController.Category.OTHER);
                 starCache.deactivatePhysics(world);
                 removed.add(starCache);
                 hasPlayedSound = true;
             } else {
                 if (!mute)
-                    SoundController.getInstance().play(SWITCH_FILE, SWITCH_FILE, false, 0.7f);
+                    SoundController.getInstance().play(switchKey, SWITCH_FILE, false, 0.7f, SoundController.Category.STAR);
                 starCache.deactivatePhysics(world);
                 removed.add(starCache);
             }
             if (!stars.remove(starCache)) print("star collection error in game controller");
+            starEnclosure.remove(starCache);
             //if (!objects.remove(starCache)) print("star collection error in game controller");
             starCount++;
             collection = false;
@@ -1755,7 +1907,7 @@ public class GameController extends WorldController implements ContactListener {
                     s.setRemove();
                 }
                 if (s.removeStar()) {
-                    if (!objects.remove(s)) print("star collection error in game controller");
+                    if (!level.discard(s)) print("star collection error in game controller");
                     s.removed = true;
                 }
             }
@@ -1885,138 +2037,6 @@ public class GameController extends WorldController implements ContactListener {
 //         If we use sound, we must remember this.
         SoundController.getInstance().update();
 
-
-        //MUSIC
-        if (!mute) {
-            if (level.getGalaxy() == Galaxy.DEFAULT) {
-                if (MenuMode.getMusic().isPlaying()) {
-                    MenuMode.getMusic().stop();
-                    MenuMode.getMusic().dispose();
-                }
-                if (LevelSelect.getMusic().isPlaying()) {
-                    LevelSelect.getMusic().stop();
-                    LevelSelect.getMusic().dispose();
-                }
-                if (Settings.getMusic().isPlaying()) {
-                    Settings.getMusic().stop();
-                    Settings.getMusic().dispose();
-                }
-                if (music != null && !music_name.equals("tutorial")) {
-                    music.stop();
-                    music.dispose();
-                    music = null;
-                }
-                if (music == null || !music.isPlaying()) {
-                    music = Gdx.audio.newMusic(Gdx.files.internal("audio/tutorial_music.mp3"));
-                    music.play();
-                    music.setLooping(true);
-                    music.setVolume(0.6f);
-                    music_name = "tutorial";
-                }
-            } else if (level.getGalaxy() == Galaxy.WHIRLPOOL) {
-                if (MenuMode.getMusic().isPlaying()) {
-                    MenuMode.getMusic().stop();
-                    MenuMode.getMusic().dispose();
-                }
-                if (LevelSelect.getMusic().isPlaying()) {
-                    LevelSelect.getMusic().stop();
-                    LevelSelect.getMusic().dispose();
-                }
-                if (Settings.getMusic().isPlaying()) {
-                    Settings.getMusic().stop();
-                    Settings.getMusic().dispose();
-                }
-                if (music != null && !music_name.equals("whirlpool")) {
-                    music.stop();
-                    music.dispose();
-                    music = null;
-                }
-                if (music == null || !music.isPlaying()) {
-                    music = Gdx.audio.newMusic(Gdx.files.internal("audio/whirlpool_music.mp3"));
-                    music.play();
-                    music.setLooping(true);
-                    music.setVolume(0.6f);
-                    music_name = "whirlpool";
-                }
-
-            } else if (level.getGalaxy() == Galaxy.MILKYWAY) {
-                if (MenuMode.getMusic().isPlaying()) {
-                    MenuMode.getMusic().stop();
-                    MenuMode.getMusic().dispose();
-                }
-                if (LevelSelect.getMusic().isPlaying()) {
-                    LevelSelect.getMusic().stop();
-                    LevelSelect.getMusic().dispose();
-                }
-                if (Settings.getMusic().isPlaying()) {
-                    Settings.getMusic().stop();
-                    Settings.getMusic().dispose();
-                }
-                if (music != null && !music_name.equals("milkyway")) {
-                    music.stop();
-                    music.dispose();
-                    music = null;
-                }
-                if (music == null || !music.isPlaying()) {
-                    music = Gdx.audio.newMusic(Gdx.files.internal("audio/milky_way.mp3"));
-                    music.play();
-                    music.setLooping(true);
-                    music.setVolume(0.6f);
-                    music_name = "milkyway";
-                }
-            } else if (level.getGalaxy() == Galaxy.SOMBRERO) {
-                if (MenuMode.getMusic().isPlaying()) {
-                    MenuMode.getMusic().stop();
-                    MenuMode.getMusic().dispose();
-                }
-                if (LevelSelect.getMusic().isPlaying()) {
-                    LevelSelect.getMusic().stop();
-                    LevelSelect.getMusic().dispose();
-                }
-                if (Settings.getMusic().isPlaying()) {
-                    Settings.getMusic().stop();
-                    Settings.getMusic().dispose();
-                }
-                if (music != null && !music_name.equals("sombrero")) {
-                    music.stop();
-                    music.dispose();
-                    music = null;
-                }
-                if (music == null || !music.isPlaying()) {
-                    music = Gdx.audio.newMusic(Gdx.files.internal("audio/sombrero_beat.mp3"));
-                    music.play();
-                    music.setLooping(true);
-                    music.setVolume(0.6f);
-                    music_name = "sombrero";
-                }
-            } else if (level.getGalaxy() == Galaxy.CIRCINUS) {
-                if (MenuMode.getMusic().isPlaying()) {
-                    MenuMode.getMusic().stop();
-                    MenuMode.getMusic().dispose();
-                }
-                if (LevelSelect.getMusic().isPlaying()) {
-                    LevelSelect.getMusic().stop();
-                    LevelSelect.getMusic().dispose();
-                }
-                if (Settings.getMusic().isPlaying()) {
-                    Settings.getMusic().stop();
-                    Settings.getMusic().dispose();
-                }
-                if (music != null && !music_name.equals("circinus")) {
-                    music.stop();
-                    music.dispose();
-                    music = null;
-                }
-                if (music == null || !music.isPlaying()) {
-                    music = Gdx.audio.newMusic(Gdx.files.internal("audio/circinus_song.mp3"));
-                    music.play();
-                    music.setLooping(true);
-                    music.setVolume(0.6f);
-                    music_name = "circinus";
-                }
-            }
-        }
-
         // UI
         updateUI();
 
@@ -2029,6 +2049,33 @@ public class GameController extends WorldController implements ContactListener {
         }
     }
 
+    /**
+     * Plays the music of the galaxy of the current level, and has the music of the next
+     * opened on a later frame, once the change is over.
+     *
+     * This is called when the level changes or the game is shown, never every frame.
+     */
+    private void changeMusic() {
+        Galaxy galaxy = level.getGalaxy();
+        if (galaxy.getMusicFile() == null) {
+            return;
+        }
+        // The menu music is kept open, as the menus will play it again
+        if (MenuMode.getMusic().isPlaying()) {
+            MenuMode.getMusic().stop();
+        }
+        if (LevelSelect.getMusic().isPlaying()) {
+            LevelSelect.getMusic().stop();
+        }
+        if (Settings.getMusic().isPlaying()) {
+            Settings.getMusic().stop();
+        }
+        MusicController.getInstance().play(galaxy.getMusicFile(), GALAXY_MUSIC_VOLUME);
+        if (galaxy.next() != null) {
+            MusicController.getInstance().preload(galaxy.next().getMusicFile());
+        }
+    }
+
     /**
      * Callback method for the start of a collision
      *
@@ -2052,53 +2099,44 @@ public class GameController extends WorldController implements ContactListener {
             Obstacle bd1 = (Obstacle)body1.getUserData();
             Obstacle bd2 = (Obstacle)body2.getUserData();
 
-            String bd1N = bd1.getName();
-            String bd2N = bd2.getName();
-
-            if ((bd1N.contains("avatar") || bd2N.contains("avatar")) && (
-                    bd1N.contains("rope") || bd2N.contains("rope") ||
-                            bd1N.contains("worm") || bd2N.contains("worm") ||
-                            bd1N.contains("anchor") || bd2N.contains("anchor") ||
-                            bd1N.contains("star") || bd2N.contains("star")
-            ))
-                barrier = true;
-            else
-                barrier = false;
+            int handlers = CollisionMatrix.getHandlers(bd1.getType(), bd2.getType());
 
-            //If worm and astronaut touch and astronaut is not on planet then lose
-            if (!isComplete() && (bd1 == avatar && !avatar.getOnPlanet() && bd2.getType() == ObstacleType.WORM
-                    || bd2 == avatar && !avatar.getOnPlanet() && bd1.getType() == ObstacleType.WORM)) {
-                setFailure(true);
-            }
-            if (!isComplete() && (bd1 == avatar2 && !avatar2.getOnPlanet() && bd2.getType() == ObstacleType.WORM
-                    || bd2 == avatar2 && !avatar2.getOnPlanet() && bd1.getType() == ObstacleType.WORM)) {
-                setFailure(true);
-            }
+            if ((handlers & CollisionMatrix.ENEMY) != 0) {
+                //If worm and astronaut touch and astronaut is not on planet then lose
+                if (!isComplete() && (bd1 == avatar && !avatar.getOnPlanet() && bd2.getType() == ObstacleType.WORM
+                        || bd2 == avatar && !avatar.getOnPlanet() && bd1.getType() == ObstacleType.WORM)) {
+                    setFailure(true);
+                }
+                if (!isComplete() && (bd1 == avatar2 && !avatar2.getOnPlanet() && bd2.getType() == ObstacleType.WORM
+                        || bd2 == avatar2 && !avatar2.getOnPlanet() && bd1.getType() == ObstacleType.WORM)) {
+                    setFailure(true);
+                }
 
-            if (!isComplete() && ((bd1 == avatar || bd1 == avatar2)&& (bd2 instanceof Enemy && !((Enemy) bd2).isSleeping())
-                    || (bd2 == avatar || bd2 == avatar2) && (bd1 instanceof Enemy && !((Enemy) bd1).isSleeping()))) {
-                if (bd1 instanceof Enemy) {
-                    if (bd1.getType() == ObstacleType.COLORED_BUG) {
-                        if (((ColoredBug) bd1).getColor() != ((AstronautModel) (bd2)).getColor())
+                if (!isComplete() && ((bd1 == avatar || bd1 == avatar2)&& (bd2 instanceof Enemy && !((Enemy) bd2).isSleeping())
+                        || (bd2 == avatar || bd2 == avatar2) && (bd1 instanceof Enemy && !((Enemy) bd1).isSleeping()))) {
+                    if (bd1 instanceof Enemy) {
+                        if (bd1.getType() == ObstacleType.COLORED_BUG) {
+                            if (((ColoredBug) bd1).getColor() != ((AstronautModel) (bd2)).getColor())
+                                setFailure(true);
+                        }
+                        else {
                             setFailure(true);
+                        }
                     }
-                    else {
-                        setFailure(true);
-                    }
-                }
-                else if (bd2 instanceof  Enemy) {
-                    if (bd2.getType() == ObstacleType.COLORED_BUG) {
-                        if (((ColoredBug) bd2).getColor() != ((AstronautModel) (bd1)).getColor())
+                    else if (bd2 instanceof  Enemy) {
+                        if (bd2.getType() == ObstacleType.COLORED_BUG) {
+                            if (((ColoredBug) bd2).getColor() != ((AstronautModel) (bd1)).getColor())
+                                setFailure(true);
+                        }
+                        else {
                             setFailure(true);
-                    }
-                    else {
-                        setFailure(true);
+                        }
                     }
                 }
             }
 
             //Star collection
-            if ((bd1.getType() == ObstacleType.STAR || bd2.getType() == ObstacleType.STAR) && collectCount < 0) {
+            if ((handlers & CollisionMatrix.STAR) != 0 && collectCount < 0) {
                 if (bd1.getType() == ObstacleType.STAR) {
                     starCache = (Star)bd1;
                     obstacleCache = bd2;
@@ -2108,7 +2146,7 @@ public class GameController extends WorldController implements ContactListener {
                     obstacleCache = bd1;
                 }
                 if (starCache.getLoc().equals("space")) {
-                    if (obstacleCache.getName().contains("avatar") || obstacleCache.getName().contains("rope")) {
+                    if (obstacleCache.getType() == ObstacleType.PLAYER || obstacleCache.getType() == ObstacleType.ROPE_PLANK) {
                         collection = true;
                     }
                 }
@@ -2120,28 +2158,30 @@ public class GameController extends WorldController implements ContactListener {
             }
 
             //Portal stuff
-            if (bd1 == avatar && bd2.getType() == ObstacleType.PORTAL) {
-                avatarCache = avatar;
-                avatar.portal = true;
-                avatar.portalCache = (Portal)bd2;
-            }
-            if (bd1.getType() == ObstacleType.PORTAL && bd2 == avatar) {
-                avatarCache = avatar;
-                avatar.portal = true;
-                avatar.portalCache = (Portal)bd1;
-            }
-            if (bd1 == avatar2 && bd2.getType() == ObstacleType.PORTAL) {
-                avatarCache = avatar2;
-                avatar2.portal = true;
-                avatar2.portalCache = (Portal)bd2;
-            }
-            if (bd1.getType() == ObstacleType.PORTAL && bd2 == avatar2) {
-                avatarCache = avatar2;
-                avatar2.portal = true;
-                avatar2.portalCache = (Portal)bd1;
+            if ((handlers & CollisionMatrix.PORTAL) != 0) {
+                if (bd1 == avatar && bd2.getType() == ObstacleType.PORTAL) {
+                    avatarCache = avatar;
+                    avatar.portal = true;
+                    avatar.portalCache = (Portal)bd2;
+                }
+                if (bd1.getType() == ObstacleType.PORTAL && bd2 == avatar) {
+                    avatarCache = avatar;
+                    avatar.portal = true;
+                    avatar.portalCache = (Portal)bd1;
+                }
+                if (bd1 == avatar2 && bd2.getType() == ObstacleType.PORTAL) {
+                    avatarCache = avatar2;
+                    avatar2.portal = true;
+                    avatar2.portalCache = (Portal)bd2;
+                }
+                if (bd1.getType() == ObstacleType.PORTAL && bd2 == avatar2) {
+                    avatarCache = avatar2;
+                    avatar2.portal = true;
+                    avatar2.portalCache = (Portal)bd1;
+                }
             }
 
-            if ((bd1 == avatar || bd2 == avatar) && (bd1N.contains("planet") || bd2N.contains("planet")) && !barrier) {
+            if ((handlers & CollisionMatrix.PLANET) != 0 && (bd1 == avatar || bd2 == avatar)) {
                 avatar.curPlanet = (bd1 == avatar) ? bd2 : bd1;
                 if (!avatar.getOnPlanet()) {
                     avatar.setLinearVelocity(reset);
@@ -2155,7 +2195,7 @@ public class GameController extends WorldController implements ContactListener {
                 }
             }
 
-            if ((bd1 == avatar2 || bd2 == avatar2) && (bd1N.contains("planet") || bd2N.contains("planet")) && !barrier) {
+            if ((handlers & CollisionMatrix.PLANET) != 0 && (bd1 == avatar2 || bd2 == avatar2)) {
                 avatar2.curPlanet = (bd1 == avatar2) ? bd2 : bd1;
                 if (!avatar2.getOnPlanet()) {
                     avatar2.setLinearVelocity(reset);
@@ -2238,7 +2278,14 @@ public class GameController extends WorldController implements ContactListener {
 
     /** Unused ContactListener method */
     public void postSolve(Contact contact, ContactImpulse impulse) {}
-    /** Unused ContactListener method */
+    /**
+     * Callback method before a contact is resolved
+     *
+     * Sensors never get here, so only solid pairs do: astronauts against planets, bugs and
+     * the like, and against anchors and tutorial points.  This disables the collision if the
+     * collision matrix says the two types do not collide, and handles the contacts that must
+     * be checked every step (anchors and tutorial points).
+     */
     public void preSolve(Contact contact, Manifold oldManifold) {
         Fixture fix1 = contact.getFixtureA();
         Fixture fix2 = contact.getFixtureB();
@@ -2253,129 +2300,37 @@ public class GameController extends WorldController implements ContactListener {
             Obstacle bd1 = (Obstacle)body1.getUserData();
             Obstacle bd2 = (Obstacle)body2.getUserData();
 
-            String bd1N = bd1.getName();
-            String bd2N = bd2.getName();
-
-            //Disable all collisions for worms
-            if (bd1.getType() == ObstacleType.WORM || bd2.getType() == ObstacleType.WORM) {
-                contact.setEnabled(false);
-            }
-
-            if (bd1.getType() == ObstacleType.OCTO_LEG || bd2.getType() == ObstacleType.OCTO_LEG) {
-                contact.setEnabled(false);
-            }
-
-            if (bd1.getType() == ObstacleType.AZTEC_WHEEL || bd2.getType() == ObstacleType.AZTEC_WHEEL) {
-                contact.setEnabled(false);
-            }
-
-            if (bd1.getType() == ObstacleType.FERIS_WHEEL || bd2.getType() == ObstacleType.FERIS_WHEEL) {
-                contact.setEnabled(false);
-            }
-
-            //Disable all collisions with portal
-            if (bd1.getType() == ObstacleType.PORTAL || bd2.getType() == ObstacleType.PORTAL) {
-                contact.setEnabled(false);
-            }
-
-
-            //Disable all collisions with talking boss
-            if (bd1.getType() == ObstacleType.TALKING_BOSS || bd2.getType() == ObstacleType.TALKING_BOSS) {
-                contact.setEnabled(false);
-            }
-            //disable collisions with astronauts and buggy
-            if ((bd1.getType() ==  ObstacleType.BUG || bd2.getType() ==  ObstacleType.BUG)
-                    && (bd1.getName().contains("avatar") || bd2.getName().contains("avatar"))) {
-                contact.setEnabled(false);
-            }
-            if ((bd1.getType() ==  ObstacleType.COLORED_BUG || bd2.getType() ==  ObstacleType.COLORED_BUG)
-                    && (bd1.getName().contains("avatar") || bd2.getName().contains("avatar"))) {
-                contact.setEnabled(false);
-            }
+            ObstacleType type1 = bd1.getType();
+            ObstacleType type2 = bd2.getType();
 
-            //Disables all collisions w rope
-            if (bd1.getName().contains("rope") || bd2.getName().contains("rope")) {
+            if (!CollisionMatrix.isEnabled(type1, type2)) {
                 contact.setEnabled(false);
             }
-            //Disables all anchor and star collisions
-            if(bd1N.contains("anchor") || bd2N.contains("anchor") || bd1N.contains("star") || bd2N.contains("star")){
-                contact.setEnabled(false);
-            }
-            //Enables collisions between rope and anchor
-//            if (bd1.getName().contains("rope") && bd2.getName().contains("anchor")
-//                    || bd1.getName().contains("anchor") && bd2.getName().contains("rope")) {
-//                contact.setEnabled(true);
-//            }
+            int handlers = CollisionMatrix.getHandlers(type1, type2);
 
-            //Disables collisions between ends of rope and anchors
-//            ropeList = rope.getPlanks();
-//            BoxObstacle plank0 = (BoxObstacle)ropeList.get(0);
-//            BoxObstacle plank1 = (BoxObstacle)ropeList.get(1);
-//            BoxObstacle plank4 = (BoxObstacle)ropeList.get(2);
-//            BoxObstacle plank2 = (BoxObstacle)ropeList.get(ropeList.size()-2);
-//            BoxObstacle plank3 = (BoxObstacle)ropeList.get(ropeList.size()-1);
-//            BoxObstacle plank5 = (BoxObstacle)ropeList.get(ropeList.size()-3);
-//            if (bd1N.contains("anchor") && (bd2 == plank0 || bd2 == plank1 || bd2 == plank2 || bd2 == plank3)
-//                    || bd2N.contains("anchor") && (bd1 == plank0 || bd1 == plank1 || bd1 == plank2 || bd1 == plank3)) {
-//                contact.setEnabled(false);
-//            }
-
-            //Enables collisions between rope and planet
-            if (bd1.getName().contains("rope") && bd2.getName().contains("planet")
-                    || bd1.getName().contains("planet") && bd2.getName().contains("rope")) {
-                contact.setEnabled(true);
-            }
-            //Disable collisions between astronauts
-            if (bd1.getName().contains("avatar") && bd2.getName().contains("avatar")) {
-                contact.setEnabled(false);
-            }
-            //Disables collisions between astronauts and anchors
-            if (bd1.getName().contains("avatar") && bd2.getName().contains("anchor")
-                    || bd1.getName().contains("anchor") && bd2.getName().contains("avatar")) {
-                contact.setEnabled(false);
-            }
-            //Disables collisions between astronauts and stars
-            if (bd1.getName().contains("avatar") && bd2.getName().contains("star")
-                    || bd1.getName().contains("star") && bd2.getName().contains("avatar")) {
-                contact.setEnabled(false);
-            }
-
-
-            //Disable the collision between anchors and rope on avatar
-            int n = rope.nLinks() - 1 ;//(int) BRIDGE_WIDTH*2-1;
-            if ((bd1N.contains("anchor") || bd2N.contains("anchor")) && (
-                    bd1N.equals("rope_plank0") || bd2N.equals("rope_plank0") ||
-                    bd1N.equals("rope_plank"+n) || bd2N.equals("rope_plank"+n))) {
-                contact.setEnabled(false);
-            }
-
-            //If astronaut 1 hits an anchor
-            if (bd1 == avatar && bd2.getType() == ObstacleType.ANCHOR) {
-                avatar.setAnchorHit(true);
-                avatar.setCurAnchor((Anchor)bd2);
-            }
-            else if (bd1.getType() == ObstacleType.ANCHOR && bd2 == avatar) {
-                avatar.setAnchorHit(true);
-                avatar.setCurAnchor((Anchor)bd1);
-            }
-//            else {
-//                avatar.setAnchorHit(false);
-//            }
-            //If astronaut 2 hits an anchor
-            if (bd1 == avatar2 && bd2.getType() == ObstacleType.ANCHOR) {
-                avatar2.setAnchorHit(true);
-                avatar2.setCurAnchor((Anchor)bd2);
-            }
-            else if (bd1.getType() == ObstacleType.ANCHOR && bd2 == avatar2) {
-                avatar2.setAnchorHit(true);
-                avatar2.setCurAnchor((Anchor)bd1);
+            if ((handlers & CollisionMatrix.ANCHOR) != 0) {
+                //If astronaut 1 hits an anchor
+                if (bd1 == avatar && bd2.getType() == ObstacleType.ANCHOR) {
+                    avatar.setAnchorHit(true);
+                    avatar.setCurAnchor((Anchor)bd2);
+                }
+                else if (bd1.getType() == ObstacleType.ANCHOR && bd2 == avatar) {
+                    avatar.setAnchorHit(true);
+                    avatar.setCurAnchor((Anchor)bd1);
+                }
+                //If astronaut 2 hits an anchor
+                if (bd1 == avatar2 && bd2.getType() == ObstacleType.ANCHOR) {
+                    avatar2.setAnchorHit(true);
+                    avatar2.setCurAnchor((Anchor)bd2);
+                }
+                else if (bd1.getType() == ObstacleType.ANCHOR && bd2 == avatar2) {
+                    avatar2.setAnchorHit(true);
+                    avatar2.setCurAnchor((Anchor)bd1);
+                }
             }
-//            else {
-//                avatar2.setAnchorHit(false);
-//            }
 
             //If there is an active task
-            if (tutorial) {
+            if (tutorial && (handlers & CollisionMatrix.TUTORIAL) != 0) {
                 if (bd1 == avatar && bd2 == tutPointCache.getPinkPoint() || bd2 == avatar && bd1 == tutPointCache.getPinkPoint()) {
                     tutPointCache.setPinkHit(true);
                 }
@@ -2385,14 +2340,6 @@ public class GameController extends WorldController implements ContactListener {
                 tutPointCache.setComplete(tutPointCache.pinkHit() && tutPointCache.blueHit());
             }
 
-            //Turns off enemy avatar collisions entirely for testing
-            if (testE) {
-                if ((bd1.getName().contains("avatar") || bd2.getName().contains("avatar"))
-                && ((bd1.getName().contains("bug") || bd2.getName().contains("bug"))
-                || (bd1.getName().contains("worm") || bd2.getName().contains("worm"))))
-                    contact.setEnabled(false);
-            }
-
         } catch (Exception e){
             e.printStackTrace();
         }
@@ -2420,6 +2367,14 @@ public class GameController extends WorldController implements ContactListener {
 
         OrthographicCamera cam = (OrthographicCamera)canvas.getCamera();
 
+        // Draw from between the last two camera positions, like the objects,
+        // unless something other than updateCamera has moved the camera since
+        boolean camInterp = cam.position.equals(camNext);
+        if (camInterp) {
+            cam.position.set(camLast).lerp(camNext, getAlpha());
+            cam.update();
+        }
+
         canvas.clear();
         level.draw(canvas);
 
@@ -2441,6 +2396,7 @@ public class GameController extends WorldController implements ContactListener {
                 tutPointCache.getBluePoint().draw(canvas);
             }
         }
+        drawUIGlows(canvas);
         canvas.end();
 
         //Start death anim
@@ -2556,5 +2512,10 @@ public class GameController extends WorldController implements ContactListener {
             }
             canvas.endDebug();
         }
+
+        if (camInterp) {
+            cam.position.set(camNext);
+            cam.update();
+        }
     }
 }
\ No newline at end of file
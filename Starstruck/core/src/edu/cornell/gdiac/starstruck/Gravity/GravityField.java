@@ -0,0 +1,377 @@
+package edu.cornell.gdiac.starstruck.Gravity;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntArray;
+import edu.cornell.gdiac.starstruck.Obstacles.Planet;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Precomputed gravity field for a static planet layout.
+ *
+ * The force is sampled on a regular grid of points covering the play area and stored in two
+ * flat float arrays. Queries between the samples use bilinear interpolation. Cells where the
+ * interpolation is not accurate enough (near planet centers, or where the edge of a gravity
+ * ring passes through the cell) are flagged, and queries there report a miss so that the caller
+ * can fall back to the exact per-planet sum in VectorWorld.
+ *
+ * The grid is baked in square tiles of TILE_SIZE cells. When a planet is added, removed or
+ * moved, only the tiles overlapping its gravity range are baked again. Each tile only sums over
+ * the planets overlapping it, and tiles are independent of each other, so a full bake can also
+ * be split across all cores with bakeParallel. Both bakes give bit-identical fields.
+ */
+public class GravityField {
+
+    /** Default distance between two samples (physics units) */
+    public static final float DEFAULT_SPACING = 0.25f;
+    /** Number of cells along each side of a tile */
+    public static final int TILE_SIZE = 16;
+    /** Allowed interpolation error relative to the exact force */
+    static final float REL_TOLERANCE = 0.02f;
+    /** Allowed absolute interpolation error, for areas with (almost) no gravity */
+    static final float ABS_TOLERANCE = 1.0E-3f;
+    /** Tile count below which a fork/join task bakes its tiles itself instead of splitting */
+    private static final int SPLIT_THRESHOLD = 4;
+
+    /** Pool shared by all parallel bakes (created on first use) */
+    private static ForkJoinPool pool;
+
+    /** Gravitational constant used for the samples */
+    private final float gconst;
+    /** Lower left corner of the field (physics units) */
+    private final float x0;
+    private final float y0;
+    /** Distance between two samples (physics units) */
+    private final float spacing;
+    /** Number of samples in each direction */
+    private final int nx;
+    private final int ny;
+    /** Number of tiles in each direction */
+    private final int tilesX;
+    private final int tilesY;
+    /** Force samples, indexed by i + j * nx */
+    private final float[] fx;
+    private final float[] fy;
+    /** Cells that must use the exact sum, indexed by i + j * (nx - 1) */
+    private final boolean[] exact;
+
+    /** Planet snapshot used by the bake: center, range and G * mass for each planet */
+    private float[] px;
+    private float[] py;
+    private float[] reach;
+    private float[] gm;
+    /** Number of planets in the snapshot */
+    private int count;
+    /** Indices of the planets overlapping each tile, indexed by tx + ty * tilesX */
+    private final IntArray[] tilePlanets;
+
+    /**
+     * Creates an empty gravity field over area, with samples every spacing units.
+     *
+     * Nothing is baked yet: every query misses until bake is called.
+     *
+     * @param area The area covered by the field (physics units)
+     * @param spacing Distance between two samples (physics units)
+     * @param gconst Gravitational constant used for the samples
+     */
+    public GravityField(Rectangle area, float spacing, float gconst) {
+        this.gconst = gconst;
+        this.spacing = spacing;
+        x0 = area.x;
+        y0 = area.y;
+        nx = Math.max(2, (int) Math.ceil(area.width / spacing) + 1);
+        ny = Math.max(2, (int) Math.ceil(area.height / spacing) + 1);
+        tilesX = (nx - 2) / TILE_SIZE + 1;
+        tilesY = (ny - 2) / TILE_SIZE + 1;
+        fx = new float[nx * ny];
+        fy = new float[nx * ny];
+        exact = new boolean[(nx - 1) * (ny - 1)];
+        Arrays.fill(exact, true);
+        px = new float[0]; py = new float[0]; reach = new float[0]; gm = new float[0];
+        tilePlanets = new IntArray[tilesX * tilesY];
+        for (int t = 0; t < tilePlanets.length; t++) {
+            tilePlanets[t] = new IntArray();
+        }
+    }
+
+    /**
+     * Returns the number of tiles in the x direction
+     *
+     * @return the number of tiles in the x direction
+     */
+    public int getTilesX() {
+        return tilesX;
+    }
+
+    /**
+     * Returns the number of tiles in the y direction
+     *
+     * @return the number of tiles in the y direction
+     */
+    public int getTilesY() {
+        return tilesY;
+    }
+
+    /**
+     * Bake the whole field for the given planets.
+     *
+     * @param planets The planets exerting gravity
+     */
+    public void bake(List<Planet> planets) {
+        snapshot(planets);
+        bakeTiles(0, 0, tilesX - 1, tilesY - 1);
+    }
+
+    /**
+     * Bake the whole field for the given planets, splitting the tiles across all cores.
+     *
+     * The result is bit-identical to bake: every tile is computed by the same code from the same
+     * snapshot, only on a different thread.
+     *
+     * @param planets The planets exerting gravity
+     */
+    public void bakeParallel(List<Planet> planets) {
+        snapshot(planets);
+        getPool().invoke(new BakeTask(0, 0, tilesX - 1, tilesY - 1));
+    }
+
+    /**
+     * Bake again only the tiles overlapping the box (minX, minY, maxX, maxY), e.g. the old and
+     * new gravity range of a planet that was added, removed or moved.
+     *
+     * @param planets The planets exerting gravity, after the change
+     * @param minX Left edge of the changed box
+     * @param minY Bottom edge of the changed box
+     * @param maxX Right edge of the changed box
+     * @param maxY Top edge of the changed box
+     */
+    public void rebake(List<Planet> planets, float minX, float minY, float maxX, float maxY) {
+        snapshot(planets);
+        int tx0 = tileOf(minX - x0, tilesX); int ty0 = tileOf(minY - y0, tilesY);
+        int tx1 = tileOf(maxX - x0, tilesX); int ty1 = tileOf(maxY - y0, tilesY);
+        bakeTiles(tx0, ty0, tx1, ty1);
+    }
+
+    /**
+     * Sample the field at (x, y) with bilinear interpolation and store the force in
+     * out[off] and out[off + 1].
+     *
+     * Returns false, leaving out untouched, if (x, y) is outside the field or in a cell whose
+     * interpolation error is too high. The caller should use the exact sum in that case.
+     *
+     * @param x X coordinate of the query point
+     * @param y Y coordinate of the query point
+     * @param out The array to store the force in
+     * @param off The offset of the x component in out
+     * @return True if the force could be sampled from the field
+     */
+    public boolean sample(float x, float y, float[] out, int off) {
+        float u = (x - x0) / spacing;
+        float v = (y - y0) / spacing;
+        if (!(u >= 0 && v >= 0 && u < nx - 1 && v < ny - 1)) {
+            return false;
+        }
+        int i = (int) u; int j = (int) v;
+        if (exact[i + j * (nx - 1)]) {
+            return false;
+        }
+        float s = u - i; float t = v - j;
+        int k = i + j * nx;
+        out[off] = lerp(fx[k], fx[k + 1], fx[k + nx], fx[k + nx + 1], s, t);
+        out[off + 1] = lerp(fy[k], fy[k + 1], fy[k + nx], fy[k + nx + 1], s, t);
+        return true;
+    }
+
+    /**
+     * Bake every tile in the range [tx0, tx1] x [ty0, ty1] on the calling thread.
+     */
+    void bakeTiles(int tx0, int ty0, int tx1, int ty1) {
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                bakeTile(tx, ty);
+            }
+        }
+    }
+
+    /**
+     * Bake a single tile: the samples on its corners and edges, and the error flags of its cells.
+     *
+     * Neighbouring tiles share the samples on their common edge and write identical values to
+     * them, so tiles may be baked in any order (or concurrently) with the same result.
+     *
+     * @param tx X index of the tile
+     * @param ty Y index of the tile
+     */
+    void bakeTile(int tx, int ty) {
+        int i0 = tx * TILE_SIZE; int i1 = Math.min(i0 + TILE_SIZE, nx - 1);
+        int j0 = ty * TILE_SIZE; int j1 = Math.min(j0 + TILE_SIZE, ny - 1);
+
+        // Only planets whose range overlaps the tile can contribute
+        IntArray planets = tilePlanets[tx + ty * tilesX];
+        int[] local = planets.items;
+        int n = planets.size;
+
+        float[] force = new float[2];
+        for (int j = j0; j <= j1; j++) {
+            for (int i = i0; i <= i1; i++) {
+                sum(x0 + i * spacing, y0 + j * spacing, local, n, force);
+                fx[i + j * nx] = force[0];
+                fy[i + j * nx] = force[1];
+            }
+        }
+
+        for (int j = j0; j < j1; j++) {
+            for (int i = i0; i < i1; i++) {
+                exact[i + j * (nx - 1)] = needsExact(i, j, local, n, force);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the bilinear interpolation of cell (i, j) is not accurate enough.
+     *
+     * A cell needs the exact sum if the edge of a gravity range passes through it (the force
+     * jumps there), or if the interpolated force at its center is too far from the exact force.
+     */
+    private boolean needsExact(int i, int j, int[] local, int n, float[] force) {
+        float cx = x0 + (i + 0.5f) * spacing;
+        float cy = y0 + (j + 0.5f) * spacing;
+        float half = 0.5f * spacing;
+        for (int l = 0; l < n; l++) {
+            int p = local[l];
+            float dx = Math.max(Math.abs(cx - px[p]) - half, 0);
+            float dy = Math.max(Math.abs(cy - py[p]) - half, 0);
+            float near2 = dx * dx + dy * dy;
+            dx = Math.abs(cx - px[p]) + half;
+            dy = Math.abs(cy - py[p]) + half;
+            float far2 = dx * dx + dy * dy;
+            float r2 = reach[p] * reach[p];
+            if (near2 <= r2 && far2 >= r2) {
+                return true;
+            }
+        }
+
+        sum(cx, cy, local, n, force);
+        int k = i + j * nx;
+        float bx = lerp(fx[k], fx[k + 1], fx[k + nx], fx[k + nx + 1], 0.5f, 0.5f);
+        float by = lerp(fy[k], fy[k + 1], fy[k + nx], fy[k + nx + 1], 0.5f, 0.5f);
+        float ex = force[0] - bx; float ey = force[1] - by;
+        float err = (float) Math.sqrt(ex * ex + ey * ey);
+        float mag = (float) Math.sqrt(force[0] * force[0] + force[1] * force[1]);
+        // Written so that a NaN error is flagged as well
+        return !(err <= REL_TOLERANCE * mag + ABS_TOLERANCE);
+    }
+
+    /**
+     * Sum the gravity of the listed planets at (x, y) into force[0] and force[1].
+     *
+     * This is the same formula as VectorWorld, but over the planet snapshot, so that it is safe
+     * to call from several threads at once.
+     */
+    private void sum(float x, float y, int[] local, int n, float[] force) {
+        float sx = 0; float sy = 0;
+        for (int l = 0; l < n; l++) {
+            int p = local[l];
+            float dx = x - px[p]; float dy = y - py[p];
+            float dist2 = dx * dx + dy * dy;
+            // The force is undefined at the center itself, where it cancels out by symmetry
+            if (dist2 > 0 && dist2 < reach[p] * reach[p]) {
+                float dist = (float) Math.sqrt(dist2);
+                float mag = gm[p] / dist2;
+                sx += (dx/dist) * mag; sy += (dy/dist) * mag;
+            }
+        }
+        force[0] = sx; force[1] = sy;
+    }
+
+    /**
+     * Copy the position, range and mass of every planet into the snapshot arrays.
+     */
+    private void snapshot(List<Planet> planets) {
+        count = planets.size();
+        if (px.length < count) {
+            px = new float[count]; py = new float[count];
+            reach = new float[count]; gm = new float[count];
+        }
+        for (int p = 0; p < count; p++) {
+            Planet planet = planets.get(p);
+            px[p] = planet.getX();
+            py[p] = planet.getY();
+            reach[p] = planet.grange + planet.getRadius();
+            gm[p] = gconst * planet.getMass();
+        }
+
+        // Bucket the planets by the tiles their range overlaps (padded by one sample)
+        for (int t = 0; t < tilePlanets.length; t++) {
+            tilePlanets[t].clear();
+        }
+        for (int p = 0; p < count; p++) {
+            int tx0 = tileOf(px[p] - reach[p] - spacing - x0, tilesX);
+            int tx1 = tileOf(px[p] + reach[p] + spacing - x0, tilesX);
+            int ty0 = tileOf(py[p] - reach[p] - spacing - y0, tilesY);
+            int ty1 = tileOf(py[p] + reach[p] + spacing - y0, tilesY);
+            for (int ty = ty0; ty <= ty1; ty++) {
+                for (int tx = tx0; tx <= tx1; tx++) {
+                    tilePlanets[tx + ty * tilesX].add(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the pool used for parallel bakes, creating it on first use.
+     */
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool();
+        }
+        return pool;
+    }
+
+    /**
+     * Fork/join task baking the tiles [tx0, tx1] x [ty0, ty1], splitting the range in half
+     * along its longer side until it is small enough.
+     */
+    private class BakeTask extends RecursiveAction {
+        private final int tx0, ty0, tx1, ty1;
+
+        BakeTask(int tx0, int ty0, int tx1, int ty1) {
+            this.tx0 = tx0; this.ty0 = ty0;
+            this.tx1 = tx1; this.ty1 = ty1;
+        }
+
+        protected void compute() {
+            int w = tx1 - tx0 + 1;
+            int h = ty1 - ty0 + 1;
+            if (w * h <= SPLIT_THRESHOLD) {
+                bakeTiles(tx0, ty0, tx1, ty1);
+            } else if (w >= h) {
+                int mid = tx0 + w / 2;
+                invokeAll(new BakeTask(tx0, ty0, mid - 1, ty1), new BakeTask(mid, ty0, tx1, ty1));
+            } else {
+                int mid = ty0 + h / 2;
+                invokeAll(new BakeTask(tx0, ty0, tx1, mid - 1), new BakeTask(tx0, mid, tx1, ty1));
+            }
+        }
+    }
+
+    /**
+     * Returns the tile containing offset d from the field origin, clamped to [0, tiles - 1].
+     */
+    private int tileOf(float d, int tiles) {
+        int t = (int) Math.floor(d / (spacing * TILE_SIZE));
+        return Math.max(0, Math.min(tiles - 1, t));
+    }
+
+    /**
+     * Bilinear interpolation between the corner values a (0,0), b (1,0), c (0,1) and d (1,1).
+     */
+    private static float lerp(float a, float b, float c, float d, float s, float t) {
+        float bottom = a + (b - a) * s;
+        float top = c + (d - c) * s;
+        return bottom + (top - bottom) * t;
+    }
+}
@@ -0,0 +1,159 @@
+package edu.cornell.gdiac.starstruck.Gravity;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import edu.cornell.gdiac.starstruck.Obstacles.Planet;
+
+/**
+ * Uniform grid (spatial hash) over the planets of a level, used to find the planets whose gravity
+ * can reach a point without looking at every planet.
+ *
+ * Each planet is stored in every cell touched by the square around its gravity circle
+ * (radius + grange), so a query only has to look at the single cell containing the point.
+ * The grid is unbounded: cells are hashed by their integer coordinates, so planets outside of
+ * the level bounds are still indexed correctly.
+ */
+public class PlanetGrid {
+
+    /** Default side length of one cell (physics units) */
+    public static final float DEFAULT_CELL_SIZE = 4.0f;
+
+    /** Side length of one cell (physics units) */
+    private final float cellSize;
+    /** Planets in each cell, keyed by packed cell coordinates */
+    private LongMap<Array<Planet>> cells;
+    /** Gravity box (minX, minY, maxX, maxY) of each planet when it was inserted */
+    private ObjectMap<Planet, float[]> ranges;
+
+    /**
+     * Creates an empty grid with the default cell size.
+     */
+    public PlanetGrid() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Creates an empty grid with cells of the given size.
+     *
+     * @param cellSize Side length of one cell (physics units)
+     */
+    public PlanetGrid(float cellSize) {
+        this.cellSize = cellSize;
+        cells = new LongMap<Array<Planet>>();
+        ranges = new ObjectMap<Planet, float[]>();
+    }
+
+    /**
+     * Returns the side length of one cell (physics units)
+     *
+     * @return the side length of one cell (physics units)
+     */
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Add planet p to every cell its gravity range overlaps.
+     *
+     * @param p The planet to add
+     */
+    public void insert(Planet p) {
+        if (ranges.containsKey(p)) {
+            remove(p);
+        }
+        float reach = p.grange + p.getRadius();
+        float x = p.getX(); float y = p.getY();
+        float[] range = new float[] {x - reach, y - reach, x + reach, y + reach};
+        for (int cx = cell(range[0]); cx <= cell(range[2]); cx++) {
+            for (int cy = cell(range[1]); cy <= cell(range[3]); cy++) {
+                long key = key(cx, cy);
+                Array<Planet> bucket = cells.get(key);
+                if (bucket == null) {
+                    bucket = new Array<Planet>(false, 4);
+                    cells.put(key, bucket);
+                }
+                bucket.add(p);
+            }
+        }
+        ranges.put(p, range);
+    }
+
+    /**
+     * Remove planet p from every cell it was inserted into.
+     *
+     * @param p The planet to remove
+     * @return True if the planet was in the grid
+     */
+    public boolean remove(Planet p) {
+        float[] range = ranges.remove(p);
+        if (range == null) {
+            return false;
+        }
+        for (int cx = cell(range[0]); cx <= cell(range[2]); cx++) {
+            for (int cy = cell(range[1]); cy <= cell(range[3]); cy++) {
+                long key = key(cx, cy);
+                Array<Planet> bucket = cells.get(key);
+                if (bucket != null) {
+                    bucket.removeValue(p, true);
+                    if (bucket.size == 0) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the planets that may exert gravity at (x, y), or null if there are none.
+     *
+     * The returned array is owned by the grid and must not be modified. Planets in it still
+     * need an exact range check, as the cells are coarser than the gravity circles.
+     *
+     * @param x X coordinate of the query point
+     * @param y Y coordinate of the query point
+     * @return The candidate planets at (x, y), or null if there are none.
+     */
+    public Array<Planet> query(float x, float y) {
+        return cells.get(key(cell(x), cell(y)));
+    }
+
+    /**
+     * Returns the box (minX, minY, maxX, maxY) covered by the gravity of planet p when it was
+     * inserted, or null if p is not in the grid.
+     *
+     * The returned array is owned by the grid and must not be modified.
+     *
+     * @param p The planet to look up
+     * @return The gravity box of p, or null if p is not in the grid.
+     */
+    public float[] getReach(Planet p) {
+        return ranges.get(p);
+    }
+
+    /**
+     * Remove all planets from the grid.
+     */
+    public void clear() {
+        cells.clear();
+        ranges.clear();
+    }
+
+    /**
+     * Returns the index of the cell containing coordinate v.
+     *
+     * @param v A coordinate (physics units)
+     * @return The index of the cell containing v
+     */
+    private int cell(float v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    /**
+     * Packs the cell coordinates (cx, cy) into a single map key.
+     */
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
@@ -1,6 +1,8 @@
 package edu.cornell.gdiac.starstruck.Gravity;
 
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 import edu.cornell.gdiac.starstruck.Obstacles.*;
 
 import java.util.ArrayList;
@@ -8,23 +10,29 @@ import java.util.ArrayList;
 /**
  * Class to represent the items in a world that exert a force of gravity on the player (i.e. planets).
  * Includes methods to add and remove planets, and to find the force experienced at a point.
+ *
+ * Once bakeField has been called, forces are sampled from a precomputed GravityField, and the exact
+ * per-planet sum is only used where the field is not accurate enough.
  */
 public class VectorWorld {
 
-    /** Number of points in the vector field (x direction)*/
-    private final int NUM_VX = 50;
-    /** Number of points in the vector field (y direction)*/
-    private final int NUM_VY = 50;
     /** Gravitational constant (will probably change)*/
-    private final float G = 2.66E-2f;
+    static final float G = 2.66E-2f;
 
     private ArrayList<Planet> planets;
+    /** Spatial index of the planets, so getForce only visits planets near the query point */
+    private PlanetGrid grid;
+    /** Precomputed field for the planets, or null if it has not been baked */
+    private GravityField field;
+    /** Scratch array for a single force, to avoid allocation */
+    private float[] force = new float[2];
 
     /**
      *  Initializes a VectorWorld to contain no planets.
      */
     public VectorWorld(){
         planets = new ArrayList<Planet>();
+        grid = new PlanetGrid();
     }
 
     /**
@@ -33,6 +41,8 @@ public class VectorWorld {
      */
     public void addPlanet(Planet p) {
         planets.add(p);
+        grid.insert(p);
+        rebakeAround(grid.getReach(p));
     }
 
     /**
@@ -44,51 +54,157 @@ public class VectorWorld {
     public boolean removePlanet(Planet p) {
         if (planets.contains(p)) {
             planets.remove(p);
+            float[] reach = grid.getReach(p);
+            grid.remove(p);
+            rebakeAround(reach);
             return true;
         }
         return false;
     }
 
     /**
-     *  Return the force of gravity experienced at position pos exerted by planet p..
-     * @param pos The position of the body experiencing gravity.
-     * @param p the planet exerting gravity on the body.
-     * @return The
+     * Update the spatial index after planet p has been moved (e.g. dragged in the level editor).
+     * Does nothing if p is not in the VectorWorld.
+     * @param p The planet that moved.
      */
-    private Vector2 forceToPlanet(Vector2 pos, Planet p) {
-
-        float dist = dist(pos, p.getPosition());
-        float mag = (G * p.getMass()) / (dist * dist);
+    public void updatePlanet(Planet p) {
+        float[] reach = grid.getReach(p);
+        if (grid.remove(p)) {
+            grid.insert(p);
+            rebakeAround(reach);
+            rebakeAround(grid.getReach(p));
+        }
+    }
 
-        float dx = pos.x - p.getPosition().x; float dy = pos.y - p.getPosition().y;
+    /**
+     * Precompute the gravity field over area for the current planets. Until the planets change,
+     * getForce will sample this field instead of summing over the planets.
+     *
+     * @param area The area to cover (physics units), usually the play area of the level.
+     */
+    public void bakeField(Rectangle area) {
+        bakeField(area, false);
+    }
 
-        float fx = (dx/dist) * mag; float fy = (dy/dist) * mag;
+    /**
+     * Precompute the gravity field over area for the current planets, optionally splitting the
+     * work across all cores. Both bakes give the same field.
+     *
+     * @param area The area to cover (physics units), usually the play area of the level.
+     * @param parallel Whether to bake the tiles in parallel.
+     */
+    public void bakeField(Rectangle area, boolean parallel) {
+        field = new GravityField(area, GravityField.DEFAULT_SPACING, G);
+        if (parallel) {
+            field.bakeParallel(planets);
+        } else {
+            field.bake(planets);
+        }
+    }
 
+    /**
+     * Return the precomputed gravity field, or null if none has been baked.
+     *
+     * @return The precomputed gravity field, or null if none has been baked.
+     */
+    public GravityField getField() {
+        return field;
+    }
 
-        return new Vector2(fx, fy);
+    /**
+     * Bake the field again in the box (minX, minY, maxX, maxY) given by reach, if there is a field.
+     */
+    private void rebakeAround(float[] reach) {
+        if (field != null && reach != null) {
+            field.rebake(planets, reach[0], reach[1], reach[2], reach[3]);
+        }
     }
 
     /**
      * Returns the effective force experienced at the position with coordinates pos.
+     *
+     * This allocates a new vector on every call; per-frame callers should use
+     * {@link #getForce(Vector2, Vector2)} instead.
+     *
      * @param pos A Vector2 representing a position.
      * @return A Vector2 representing the effective force experienced at position pos.
      */
     public Vector2 getForce(Vector2 pos){
-        Vector2 totalForce = new Vector2(0,0);
-        //System.out.println(planets);
-//        System.out.println("_______________________________________________________________");
-        for (Planet p : planets) {
-            if (dist(pos, p.getPosition()) < p.grange + p.getRadius()) {
-//                System.out.println(p);
-                totalForce.add(forceToPlanet(pos, p));
+        return getForce(pos, new Vector2());
+    }
+
+    /**
+     * Stores the effective force experienced at the position with coordinates pos in out.
+     *
+     * This method does not allocate, and does not keep a reference to either parameter.
+     *
+     * @param pos A Vector2 representing a position.
+     * @param out The vector to store the force in.
+     * @return out, for chaining.
+     */
+    public Vector2 getForce(Vector2 pos, Vector2 out) {
+        if (field == null || !field.sample(pos.x, pos.y, force, 0)) {
+            exactForce(pos.x, pos.y, force, 0);
+        }
+        return out.set(force[0], force[1]);
+    }
+
+    /**
+     * Stores the exact force at pos in out, summing over the planets even if a field is baked.
+     *
+     * @param pos A Vector2 representing a position.
+     * @param out The vector to store the force in.
+     * @return out, for chaining.
+     */
+    public Vector2 getExactForce(Vector2 pos, Vector2 out) {
+        exactForce(pos.x, pos.y, force, 0);
+        return out.set(force[0], force[1]);
+    }
+
+    /**
+     * Computes the effective force for count bodies at once.
+     *
+     * Positions are packed as (x0, y0, x1, y1, ...) and the forces are written to forces in the
+     * same layout. This method does not allocate.
+     *
+     * @param positions The packed positions of the bodies.
+     * @param forces The array to write the packed forces to (at least 2 * count long).
+     * @param count The number of bodies.
+     */
+    public void getForces(float[] positions, float[] forces, int count) {
+        for (int i = 0; i < 2 * count; i += 2) {
+            if (field == null || !field.sample(positions[i], positions[i + 1], forces, i)) {
+                exactForce(positions[i], positions[i + 1], forces, i);
             }
         }
-//        System.out.println(totalForce);
-        return totalForce;
     }
 
-    private float dist(Vector2 v1, Vector2 v2) {
-        return (float) Math.sqrt((v1.x - v2.x)*(v1.x-v2.x) + (v1.y - v2.y) * (v1.y - v2.y));
+    /**
+     * Sums the gravity of the planets in range of (x, y) and stores it in out[off] and out[off + 1].
+     *
+     * @param x X coordinate of the body experiencing gravity.
+     * @param y Y coordinate of the body experiencing gravity.
+     * @param out The array to store the force in.
+     * @param off The offset of the x component in out.
+     */
+    private void exactForce(float x, float y, float[] out, int off) {
+        float fx = 0; float fy = 0;
+        Array<Planet> near = grid.query(x, y);
+        if (near != null) {
+            for (int i = 0; i < near.size; i++) {
+                Planet p = near.get(i);
+                Vector2 center = p.getPosition();
+                float dx = x - center.x; float dy = y - center.y;
+                float dist2 = dx * dx + dy * dy;
+                float reach = p.grange + p.getRadius();
+                if (dist2 > 0 && dist2 < reach * reach) {
+                    float dist = (float) Math.sqrt(dist2);
+                    float mag = (G * p.getMass()) / dist2;
+                    fx += (dx/dist) * mag; fy += (dy/dist) * mag;
+                }
+            }
+        }
+        out[off] = fx; out[off + 1] = fy;
     }
 
     /**
@@ -96,7 +212,20 @@ public class VectorWorld {
      * @param orbs The PlanetList of planets to add to the VectorWorld.
      */
     public void addAll(PlanetList orbs) {
-        planets.addAll(orbs.getPlanets());
+        for (Planet p : orbs.getPlanets()) {
+            addPlanet(p);
+        }
+    }
+
+    /**
+     * Remove all planets from the VectorWorld and index the planets in orbs instead.
+     * @param orbs The PlanetList of planets the VectorWorld should contain.
+     */
+    public void rebuild(PlanetList orbs) {
+        planets.clear();
+        grid.clear();
+        field = null;
+        addAll(orbs);
     }
 
 
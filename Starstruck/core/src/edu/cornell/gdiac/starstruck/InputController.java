@@ -69,6 +69,9 @@ public class InputController {
     /** Whether the debug toggle was pressed. */
     private boolean debugPressed;
     private boolean debugPrevious;
+    /** Whether the stats overlay toggle was pressed. */
+    private boolean statsPressed;
+    private boolean statsPrevious;
     /** Whether the exit button was pressed. */
     private boolean exitPressed;
     private boolean exitPrevious;
@@ -143,6 +146,8 @@ public class InputController {
     private boolean bPrevious;
     private boolean iPressed;
     private boolean iPrevious;
+    private boolean zPressed;
+    private boolean zPrevious;
     private boolean selUp;
     private boolean selUpPrev;
     private boolean selDown;
@@ -358,6 +363,17 @@ public class InputController {
         return debugPressed && !debugPrevious;
     }
 
+    /**
+     * Returns true if the player wants to toggle the stats overlay.
+     *
+     * Holding shift as well toggles the stats log instead.
+     *
+     * @return true if the player wants to toggle the stats overlay.
+     */
+    public boolean didStats() {
+        return statsPressed && !statsPrevious;
+    }
+
     /**
      * Returns true if the exit button was pressed.
      *
@@ -439,6 +455,8 @@ public class InputController {
         return iPressed && !iPrevious;
     }
 
+    public boolean didZ() { return zPressed && !zPrevious; }
+
     public boolean didSwitch() { return switchPressed && !switchPrevious; }
 
     public boolean didOne() { return onePressed && !onePrevious; }
@@ -575,6 +593,18 @@ public class InputController {
      * @param scale  The drawing scale
      */
     public void readInput(Rectangle bounds, Vector2 scale) {
+        holdInput();
+        pollInput(bounds, scale);
+    }
+
+    /**
+     * Copies the current input to the previous input, without reading the devices.
+     *
+     * Buttons that are held down stay held, but no new presses are seen.  This is what
+     * readInput does when nothing has changed since it was last called, so steps that
+     * share one poll of the devices can call this instead.
+     */
+    public void holdInput() {
         // Copy state from last animation frame
         // Helps us ignore buttons that are held down
         primePrevious  = primePressed;
@@ -582,6 +612,7 @@ public class InputController {
         resetPrevious  = resetPressed;
         gameResetPrev = gameResetPress;
         debugPrevious  = debugPressed;
+        statsPrevious  = statsPressed;
         exitPrevious = exitPressed;
         nextPrevious = nextPressed;
         prevPrevious = prevPressed;
@@ -612,6 +643,7 @@ public class InputController {
         tPrevious = tPressed;
         bPrevious = bPressed;
         iPrevious = iPressed;
+        zPrevious = zPressed;
         selUpPrev = selUp;
         selDownPrev = selDown;
         selLeftPrev = selLeft;
@@ -622,7 +654,19 @@ public class InputController {
         xboxRightPrev = xboxRight;
         xboxLeftPrev2 = xboxLeft2;
         xboxRightPrev2 = xboxRight2;
+    }
 
+    /**
+     * Reads the devices into the current input, leaving the previous input alone.
+     *
+     * The method provides both the input bounds and the drawing scale.  It needs
+     * the drawing scale to convert screen coordinates to world coordinates.  The
+     * bounds are for the crosshair.  They cannot go outside of this zone.
+     *
+     * @param bounds The input bounds for the crosshair.
+     * @param scale  The drawing scale
+     */
+    public void pollInput(Rectangle bounds, Vector2 scale) {
         // Check to see if a GamePad is connected
         if (xbox.isConnected() && xbox2.isConnected()) { // Both controllers connected
             readGamepad(bounds, scale);
@@ -751,6 +795,7 @@ public class InputController {
         Input input = Gdx.input;
         // Give priority to gamepad results
         debugPressed = (secondary && debugPressed) || (Gdx.input.isKeyPressed(Input.Keys.Y));
+        statsPressed = Gdx.input.isKeyPressed(Input.Keys.F3); // No gamepad button
         primePressed = (secondary && primePressed) || (Gdx.input.isKeyPressed(Input.Keys.UP));
         secondPressed = (secondary && secondPressed) || (Gdx.input.isKeyPressed(Input.Keys.L));
         prevPressed = (secondary && prevPressed) || (Gdx.input.isKeyPressed(Input.Keys.P));
@@ -788,6 +833,7 @@ public class InputController {
         tPressed = (secondary && tPressed) || (Gdx.input.isKeyPressed(Input.Keys.T));
         bPressed = (secondary && bPressed) || (Gdx.input.isKeyPressed(Input.Keys.B));
         iPressed = (secondary && iPressed) || (Gdx.input.isKeyPressed(Input.Keys.I));
+        zPressed = (secondary && zPressed) || (Gdx.input.isKeyPressed(Input.Keys.Z));
         selUp = (secondary && selUp) || (input.isKeyPressed(Input.Keys.UP));
         selDown = (secondary && selDown) || (input.isKeyPressed(Input.Keys.DOWN));
         selLeft = (secondary && selLeft) || (input.isKeyPressed(Input.Keys.LEFT));
@@ -0,0 +1,205 @@
+/*
+ * LevelCache.java
+ *
+ * Level files read ahead of time, so that starting a level only has to lay it out.
+ *
+ * The level select screen asks for the level under the cursor and its neighbours to be
+ * read while the player is still choosing.  The files are read and parsed into LevelData
+ * on a background thread.  When a level starts, it takes the data from here, waiting
+ * for it if it is still being read, or reading it on the spot if it was never asked for.
+ *
+ * Every texture a level uses is loaded with the rest of the assets when the game
+ * starts, so there is nothing else to prepare.  LevelData is never changed once it is
+ * read, so it is safe to hand from one thread to another.
+ *
+ * Like InputController, this class is a Singleton.  Use the method getInstance() to get
+ * the cache.  It may be used from any thread, so the levels are only touched while
+ * holding its lock.
+ */
+package edu.cornell.gdiac.starstruck;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.*;
+
+/**
+ * A singleton cache of level files, read in the background.
+ */
+public class LevelCache {
+    /** The most levels kept at once */
+    private static final int MAX_LEVELS = 8;
+
+    /** The singleton instance */
+    private static LevelCache cache;
+
+    /** The levels read or being read, by file, least recently used first */
+    private final LinkedHashMap<String,Entry> entries;
+    /** The thread reading the levels (made when first needed) */
+    private ExecutorService reader;
+
+    /**
+     * A level file, read or being read.
+     */
+    private static class Entry {
+        /** The level, once it is read */
+        final Future<LevelData> data;
+        /** When the file was changed, when it was read */
+        final long modified;
+
+        Entry(Future<LevelData> data, long modified) {
+            this.data = data;
+            this.modified = modified;
+        }
+    }
+
+    /**
+     * Returns the single instance for the LevelCache
+     *
+     * The first time this is called, it will construct the LevelCache.
+     *
+     * @return the single instance for the LevelCache
+     */
+    public static synchronized LevelCache getInstance() {
+        if (cache == null) {
+            cache = new LevelCache();
+        }
+        return cache;
+    }
+
+    /**
+     * Creates an empty cache.
+     */
+    private LevelCache() {
+        entries = new LinkedHashMap<String,Entry>(16, 0.75f, true);
+    }
+
+    /**
+     * Starts reading a level in the background, unless it is read already.
+     *
+     * @param file  The level file, relative to the levels folder (may be null)
+     */
+    public synchronized void prefetch(String file) {
+        if (file == null) {
+            return;
+        }
+        final FileHandle handle = handle(file);
+        long modified = handle.lastModified();
+        Entry entry = entries.get(file);
+        if (entry != null && entry.modified == modified) {
+            return;
+        }
+
+        if (reader == null) {
+            reader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "LevelCache");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        Future<LevelData> data = reader.submit(new Callable<LevelData>() {
+            public LevelData call() {
+                return LevelData.load(handle);
+            }
+        });
+        entries.put(file, new Entry(data, modified));
+        trim();
+    }
+
+    /**
+     * Returns the given level, reading it now if it was not read ahead.
+     *
+     * If the level is being read in the background, this waits for it.  If the file has
+     * changed since it was read (as when it is saved from the editor), it is read again.
+     * A level read here is kept, so that restarting it does not read it again.
+     *
+     * @param file  The level file, relative to the levels folder
+     *
+     * @return the given level
+     */
+    public LevelData get(String file) {
+        FileHandle handle = handle(file);
+        long modified = handle.lastModified();
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(file);
+            if (entry != null && entry.modified != modified) {
+                entries.remove(file);
+                entry = null;
+            }
+        }
+
+        if (entry != null) {
+            try {
+                return entry.data.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (CancellationException e) {
+                // Dropped from the cache before it was read
+            } catch (ExecutionException e) {
+                Gdx.app.error("LevelCache", "Could not read "+handle.path()+" ahead", e.getCause());
+            }
+        }
+
+        // Read it here; a bad file throws, as it did before there was a cache
+        LevelData data = LevelData.load(handle);
+        keep(file, data, modified);
+        return data;
+    }
+
+    /**
+     * Forgets every level, and stops the background thread.
+     */
+    public synchronized void dispose() {
+        entries.clear();
+        if (reader != null) {
+            reader.shutdownNow();
+            reader = null;
+        }
+    }
+
+    /**
+     * Keeps a level that was read on the spot.
+     *
+     * @param file      The level file, relative to the levels folder
+     * @param data      The level read from the file
+     * @param modified  When the file was changed, before it was read
+     */
+    private synchronized void keep(String file, final LevelData data, long modified) {
+        FutureTask<LevelData> read = new FutureTask<LevelData>(new Callable<LevelData>() {
+            public LevelData call() {
+                return data;
+            }
+        });
+        read.run();
+        entries.put(file, new Entry(read, modified));
+        trim();
+    }
+
+    /**
+     * Forgets the levels used longest ago, so that at most MAX_LEVELS are kept.
+     */
+    private void trim() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > MAX_LEVELS && it.hasNext()) {
+            it.next().data.cancel(false);
+            it.remove();
+        }
+    }
+
+    /**
+     * Returns the handle of a level file
+     *
+     * @param file  The level file, relative to the levels folder
+     *
+     * @return the handle of a level file
+     */
+    private static FileHandle handle(String file) {
+        return Gdx.files.internal("levels/" + file);
+    }
+}
@@ -0,0 +1,561 @@
+/*
+ * LevelData.java
+ *
+ * A level file, read into memory once so that the level can be laid out again (when the
+ * player dies or restarts) without reading the file again.  The objects a level has
+ * many of (planets, stars, anchors, portals and enemies) are kept as columns of
+ * primitives, with every string stored once in a table.  Everything else in the level
+ * file is kept as JSON.
+ *
+ * A level may also be saved in a compact binary form (see LevelConverter in the desktop
+ * project).  The binary form stores the columns as raw arrays, so they are read in bulk
+ * instead of being parsed value by value, and the rest of the level as binary JSON.
+ * When a level is loaded, the binary file next to the JSON file is used if it is at
+ * least as new.
+ */
+package edu.cornell.gdiac.starstruck;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * The contents of a level file, ready to lay out.
+ */
+public class LevelData {
+    /** The extension of a binary level file */
+    public static final String BINARY_EXTENSION = "lvl";
+    /** The first four bytes of a binary level file ("STLV") */
+    private static final int MAGIC = 0x53544c56;
+    /** The version of the binary format */
+    private static final int VERSION = 1;
+    /** The sections of the level file stored as columns rather than JSON */
+    private static final String[] COLUMNS = {"planets", "stars", "anchors", "portalpairs",
+                                             "worms", "urchins", "ice cream"};
+
+    /** The rest of the level file (any column sections in it are ignored) */
+    final JsonValue header;
+    /** Every string used by the columns */
+    final String[] strings;
+
+    // PLANETS
+    /** The planet positions */
+    final float[] planetX, planetY;
+    /** The planet presets */
+    final int[] planetType;
+    /** The bug texture of each planet (a string index, or -1 for no bug) */
+    final int[] planetBug;
+    /** The bug color of each planet (a string index, or -1 for an ordinary bug) */
+    final int[] planetBugColor;
+
+    // STARS
+    /** The star positions */
+    final float[] starX, starY;
+    /** The star textures (string indices) */
+    final int[] starTexture;
+    /** Whether each star is in space or on a planet (string indices) */
+    final int[] starLocation;
+
+    // ANCHORS
+    /** The anchor positions */
+    final float[] anchorX, anchorY;
+    /** The anchor textures (string indices) */
+    final int[] anchorTexture;
+
+    // PORTALS
+    /** The positions of the first portal of each pair */
+    final float[] portalX1, portalY1;
+    /** The positions of the second portal of each pair */
+    final float[] portalX2, portalY2;
+    /** The portal textures (string indices) */
+    final int[] portalTexture;
+    /** The portal names (string indices) */
+    final int[] portalName;
+    /** The portal colors */
+    final int[] portalColor;
+    /** Whether each pair is the goal */
+    final boolean[] portalGoal;
+
+    // WORMS
+    /** The worm positions */
+    final float[] wormX, wormY;
+    /** The worm textures (string indices) */
+    final int[] wormTexture;
+    /** The worm speeds */
+    final float[] wormVelocity;
+
+    // URCHINS
+    /** The urchin positions */
+    final float[] urchinX, urchinY;
+    /** The number of chunks in each urchin */
+    final int[] urchinLength;
+    /** Whether each urchin is vertical */
+    final boolean[] urchinVertical;
+
+    // ICE CREAM
+    /** The ice cream positions */
+    final float[] creamX, creamY;
+    /** The ice cream textures (string indices) */
+    final int[] creamTexture;
+    /** The ice cream speeds */
+    final float[] creamVelocity;
+
+    /**
+     * Returns the level in the given file, preferring its binary form
+     *
+     * The binary file must have the same name as the JSON file, with the extension
+     * BINARY_EXTENSION.  It is only used if it is at least as new as the JSON file, so
+     * editing the JSON file takes effect without converting it again.  If the binary
+     * file cannot be read, the JSON file is read instead.
+     *
+     * @param json  The JSON level file
+     *
+     * @return the level in the given file
+     */
+    public static LevelData load(FileHandle json) {
+        FileHandle binary = json.sibling(json.nameWithoutExtension()+"."+BINARY_EXTENSION);
+        if (binary.exists() && binary.lastModified() >= json.lastModified()) {
+            InputStream stream = binary.read(8192);
+            try {
+                return read(stream);
+            } catch (IOException e) {
+                Gdx.app.error("LevelData", "Could not read "+binary.path()+", reading "+json.path(), e);
+            } finally {
+                StreamUtils.closeQuietly(stream);
+            }
+        }
+        return fromJson(new JsonReader().parse(json));
+    }
+
+    /**
+     * Returns the level in the given parsed JSON file
+     *
+     * The JSON is used as the header as it is, so it must not be changed afterwards.
+     *
+     * @param json  The parsed level file
+     *
+     * @return the level in the given parsed JSON file
+     */
+    public static LevelData fromJson(JsonValue json) {
+        return new LevelData(json);
+    }
+
+    /**
+     * Converts a JSON level file to its binary form.
+     *
+     * @param json  The JSON level file
+     * @param out   The binary file to write
+     *
+     * @throws IOException if the binary file could not be written
+     */
+    public static void convert(FileHandle json, FileHandle out) throws IOException {
+        OutputStream stream = new BufferedOutputStream(out.write(false));
+        try {
+            fromJson(new JsonReader().parse(json)).write(stream);
+        } finally {
+            StreamUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Creates the level from a parsed JSON file, building the columns.
+     *
+     * @param json  The parsed level file
+     */
+    private LevelData(JsonValue json) {
+        header = json;
+        Array<String> table = new Array<String>();
+        ObjectIntMap<String> index = new ObjectIntMap<String>();
+
+        JsonValue section = json.get("planets");
+        int n = count(section);
+        planetX = new float[n]; planetY = new float[n]; planetType = new int[n];
+        planetBug = new int[n]; planetBugColor = new int[n];
+        int ii = 0;
+        for (JsonValue v = first(section); v != null; v = v.next, ii++) {
+            planetX[ii] = v.getFloat("x");
+            planetY[ii] = v.getFloat("y");
+            planetType[ii] = v.getInt("i");
+            JsonValue bug = v.get("bug");
+            planetBug[ii] = intern(bug == null ? null : bug.getString("texture", null), table, index);
+            planetBugColor[ii] = intern(bug == null ? null : bug.getString("color", null), table, index);
+        }
+
+        section = json.get("stars");
+        n = count(section);
+        starX = new float[n]; starY = new float[n]; starTexture = new int[n]; starLocation = new int[n];
+        ii = 0;
+        for (JsonValue v = first(section); v != null; v = v.next, ii++) {
+            starX[ii] = v.getFloat("x");
+            starY[ii] = v.getFloat("y");
+            starTexture[ii] = intern(v.getString("texture"), table, index);
+            starLocation[ii] = intern(v.getString("location"), table, index);
+        }
+
+        section = json.get("anchors");
+        n = count(section);
+        anchorX = new float[n]; anchorY = new float[n]; anchorTexture = new int[n];
+        ii = 0;
+        for (JsonValue v = first(section); v != null; v = v.next, ii++) {
+            anchorX[ii] = v.getFloat("x");
+            anchorY[ii] = v.getFloat("y");
+            anchorTexture[ii] = intern(v.getString("texture"), table, index);
+        }
+
+        section = json.get("portalpairs");
+        n = count(section);
+        portalX1 = new float[n]; portalY1 = new float[n]; portalX2 = new float[n]; portalY2 = new float[n];
+        portalTexture = new int[n]; portalName = new int[n]; portalColor = new int[n]; portalGoal = new boolean[n];
+        ii = 0;
+        for (JsonValue v = first(section); v != null; v = v.next, ii++) {
+            portalX1[ii] = v.getFloat("x1");
+            portalY1[ii] = v.getFloat("y1");
+            portalX2[ii] = v.getFloat("x2");
+            portalY2[ii] = v.getFloat("y2");
+            portalTexture[ii] = intern(v.getString("texture"), table, index);
+            portalName[ii] = intern(v.getString("name"), table, index);
+            portalColor[ii] = v.getInt("color");
+            portalGoal[ii] = v.getString("goal").equals("yes");
+        }
+
+        section = json.get("worms");
+        n = count(section);
+        wormX = new float[n]; wormY = new float[n]; wormTexture = new int[n]; wormVelocity = new float[n];
+        ii = 0;
+        for (JsonValue v = first(section); v != null; v = v.next, ii++) {
+            wormX[ii] = v.getFloat("x");
+            wormY[ii] = v.getFloat("y");
+            wormTexture[ii] = intern(v.getString("texture"), table, index);
+            wormVelocity[ii] = v.getFloat("velocity");
+        }
+
+        section = json.get("urchins");
+        n = count(section);
+        urchinX = new float[n]; urchinY = new float[n]; urchinLength = new int[n]; urchinVertical = new boolean[n];
+        ii = 0;
+        for (JsonValue v = first(section); v != null; v = v.next, ii++) {
+            urchinX[ii] = v.getFloat("x");
+            urchinY[ii] = v.getFloat("y");
+            urchinLength[ii] = v.getInt("length");
+            urchinVertical[ii] = v.getString("orientation").equals("vertical");
+        }
+
+        section = json.get("ice cream");
+        n = count(section);
+        creamX = new float[n]; creamY = new float[n]; creamTexture = new int[n]; creamVelocity = new float[n];
+        ii = 0;
+        for (JsonValue v = first(section); v != null; v = v.next, ii++) {
+            creamX[ii] = v.getFloat("x");
+            creamY[ii] = v.getFloat("y");
+            creamTexture[ii] = intern(v.getString("texture"), table, index);
+            creamVelocity[ii] = v.getFloat("velocity");
+        }
+
+        strings = table.toArray(String.class);
+    }
+
+    /**
+     * Creates the level from a binary file, reading the columns in bulk.
+     *
+     * @param in    The binary file, just after the version
+     *
+     * @throws IOException if the file could not be read
+     */
+    private LevelData(DataInputStream in) throws IOException {
+        strings = new String[in.readInt()];
+        for (int ii = 0; ii < strings.length; ii++) {
+            strings[ii] = in.readUTF();
+        }
+
+        int n = in.readInt();
+        planetX = readFloats(in, n); planetY = readFloats(in, n); planetType = readInts(in, n);
+        planetBug = readInts(in, n); planetBugColor = readInts(in, n);
+
+        n = in.readInt();
+        starX = readFloats(in, n); starY = readFloats(in, n);
+        starTexture = readInts(in, n); starLocation = readInts(in, n);
+
+        n = in.readInt();
+        anchorX = readFloats(in, n); anchorY = readFloats(in, n); anchorTexture = readInts(in, n);
+
+        n = in.readInt();
+        portalX1 = readFloats(in, n); portalY1 = readFloats(in, n);
+        portalX2 = readFloats(in, n); portalY2 = readFloats(in, n);
+        portalTexture = readInts(in, n); portalName = readInts(in, n);
+        portalColor = readInts(in, n); portalGoal = readBooleans(in, n);
+
+        n = in.readInt();
+        wormX = readFloats(in, n); wormY = readFloats(in, n);
+        wormTexture = readInts(in, n); wormVelocity = readFloats(in, n);
+
+        n = in.readInt();
+        urchinX = readFloats(in, n); urchinY = readFloats(in, n);
+        urchinLength = readInts(in, n); urchinVertical = readBooleans(in, n);
+
+        n = in.readInt();
+        creamX = readFloats(in, n); creamY = readFloats(in, n);
+        creamTexture = readInts(in, n); creamVelocity = readFloats(in, n);
+
+        byte[] json = new byte[in.readInt()];
+        in.readFully(json);
+        header = new UBJsonReader().parse(new ByteArrayInputStream(json));
+    }
+
+    /**
+     * Returns the level in the given binary stream
+     *
+     * The stream is not closed.
+     *
+     * @param stream    The binary level
+     *
+     * @return the level in the given binary stream
+     *
+     * @throws IOException if the stream is not a binary level, or could not be read
+     */
+    public static LevelData read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary level file");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary level version "+version);
+        }
+        return new LevelData(in);
+    }
+
+    /**
+     * Writes this level to the given stream in binary form.
+     *
+     * The stream is flushed but not closed.
+     *
+     * @param stream    The stream to write to
+     *
+     * @throws IOException if the stream could not be written
+     */
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.length);
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+
+        out.writeInt(planetX.length);
+        writeFloats(out, planetX); writeFloats(out, planetY); writeInts(out, planetType);
+        writeInts(out, planetBug); writeInts(out, planetBugColor);
+
+        out.writeInt(starX.length);
+        writeFloats(out, starX); writeFloats(out, starY);
+        writeInts(out, starTexture); writeInts(out, starLocation);
+
+        out.writeInt(anchorX.length);
+        writeFloats(out, anchorX); writeFloats(out, anchorY); writeInts(out, anchorTexture);
+
+        out.writeInt(portalX1.length);
+        writeFloats(out, portalX1); writeFloats(out, portalY1);
+        writeFloats(out, portalX2); writeFloats(out, portalY2);
+        writeInts(out, portalTexture); writeInts(out, portalName);
+        writeInts(out, portalColor); writeBooleans(out, portalGoal);
+
+        out.writeInt(wormX.length);
+        writeFloats(out, wormX); writeFloats(out, wormY);
+        writeInts(out, wormTexture); writeFloats(out, wormVelocity);
+
+        out.writeInt(urchinX.length);
+        writeFloats(out, urchinX); writeFloats(out, urchinY);
+        writeInts(out, urchinLength); writeBooleans(out, urchinVertical);
+
+        out.writeInt(creamX.length);
+        writeFloats(out, creamX); writeFloats(out, creamY);
+        writeInts(out, creamTexture); writeFloats(out, creamVelocity);
+
+        // The rest of the level, without the sections already written as columns
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UBJsonWriter json = new UBJsonWriter(bytes);
+        json.object();
+        for (JsonValue child = header.child; child != null; child = child.next) {
+            if (!isColumn(child.name)) {
+                json.value(child); // Writes the name as well
+            }
+        }
+        json.pop();
+        json.flush();
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Returns the string with the given index
+     *
+     * @param index The index in the string table, or -1
+     *
+     * @return the string with the given index, or null for -1
+     */
+    String getString(int index) {
+        return index < 0 ? null : strings[index];
+    }
+
+    /**
+     * Returns the index of the given string, adding it to the table if necessary
+     *
+     * @param s     The string to look up (may be null)
+     * @param table The strings so far
+     * @param index The index of each string so far
+     *
+     * @return the index of the given string, or -1 if it is null
+     */
+    private static int intern(String s, Array<String> table, ObjectIntMap<String> index) {
+        if (s == null) {
+            return -1;
+        }
+        int i = index.get(s, -1);
+        if (i < 0) {
+            i = table.size;
+            table.add(s);
+            index.put(s, i);
+        }
+        return i;
+    }
+
+    /**
+     * Returns true if the given section is stored as columns
+     *
+     * @param name  The name of the section
+     *
+     * @return true if the given section is stored as columns
+     */
+    private static boolean isColumn(String name) {
+        for (String column : COLUMNS) {
+            if (column.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of entries in the given section
+     *
+     * @param section   The section (may be null)
+     *
+     * @return the number of entries in the given section
+     */
+    private static int count(JsonValue section) {
+        return section == null ? 0 : section.size;
+    }
+
+    /**
+     * Returns the first entry in the given section
+     *
+     * @param section   The section (may be null)
+     *
+     * @return the first entry in the given section, or null if it is empty
+     */
+    private static JsonValue first(JsonValue section) {
+        return section == null ? null : section.child;
+    }
+
+    /**
+     * Returns the next n floats in the stream, read as one block
+     *
+     * @param in    The stream to read
+     * @param n     The number of floats
+     *
+     * @return the next n floats in the stream
+     *
+     * @throws IOException if the stream could not be read
+     */
+    private static float[] readFloats(DataInputStream in, int n) throws IOException {
+        byte[] bytes = new byte[n * 4];
+        in.readFully(bytes);
+        float[] out = new float[n];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(out);
+        return out;
+    }
+
+    /**
+     * Returns the next n ints in the stream, read as one block
+     *
+     * @param in    The stream to read
+     * @param n     The number of ints
+     *
+     * @return the next n ints in the stream
+     *
+     * @throws IOException if the stream could not be read
+     */
+    private static int[] readInts(DataInputStream in, int n) throws IOException {
+        byte[] bytes = new byte[n * 4];
+        in.readFully(bytes);
+        int[] out = new int[n];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(out);
+        return out;
+    }
+
+    /**
+     * Returns the next n booleans in the stream, read as one block
+     *
+     * @param in    The stream to read
+     * @param n     The number of booleans
+     *
+     * @return the next n booleans in the stream
+     *
+     * @throws IOException if the stream could not be read
+     */
+    private static boolean[] readBooleans(DataInputStream in, int n) throws IOException {
+        byte[] bytes = new byte[n];
+        in.readFully(bytes);
+        boolean[] out = new boolean[n];
+        for (int ii = 0; ii < n; ii++) {
+            out[ii] = bytes[ii] != 0;
+        }
+        return out;
+    }
+
+    /**
+     * Writes the given floats to the stream
+     *
+     * @param out       The stream to write
+     * @param values    The floats to write
+     *
+     * @throws IOException if the stream could not be written
+     */
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    /**
+     * Writes the given ints to the stream
+     *
+     * @param out       The stream to write
+     * @param values    The ints to write
+     *
+     * @throws IOException if the stream could not be written
+     */
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Writes the given booleans to the stream
+     *
+     * @param out       The stream to write
+     * @param values    The booleans to write
+     *
+     * @throws IOException if the stream could not be written
+     */
+    private static void writeBooleans(DataOutputStream out, boolean[] values) throws IOException {
+        for (boolean value : values) {
+            out.writeBoolean(value);
+        }
+    }
+}
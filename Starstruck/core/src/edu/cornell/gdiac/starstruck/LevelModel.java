@@ -19,6 +19,7 @@ package edu.cornell.gdiac.starstruck;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.*;
@@ -36,14 +37,14 @@ import java.util.ArrayList;
  * Represents a single level in our game
  *
  * Note that the constructor does very little.  The true initialization happens
- * by reading the JSON value.  To reset a level, dispose it and reread the JSON.
+ * by reading the JSON value.  To reset a level, call reset() and reread the JSON.
  *
  * The level contains its own Box2d World, as the World settings are defined by the
  * JSON file.  However, there is absolutely no controller code in this class, as
  * the majority of the methods are getters and setters.  The getters allow the
  * GameController class to modify the level elements.
  */
-public class LevelModel {
+public class LevelModel implements ObstacleSelector.Owner {
 
     /** The Box2D world */
     protected World world;
@@ -55,11 +56,19 @@ public class LevelModel {
     protected Vector2 scale;
     /** The background texture*/
     private Texture background;
+    /** Extra background layers from the level file (null for none) */
+    private JsonValue backgroundLayers;
+    /** The background and any extra layers, tiled around the camera */
+    private TiledBackground backdrop = new TiledBackground();
+    /** The background and planets, drawn ahead of time */
+    private StaticLayerCache layerCache = new StaticLayerCache(backdrop);
     /** Galaxy to source textures from */
     private Galaxy galaxy;
 
 
     // Physics objects for the game
+    /** Size of a cell in the culling grid (in physics units), about a screen */
+    private static final float CELL_SIZE = 32.0f;
     /** Reference to the first character avatar */
     private AstronautModel player1;
     /** Reference to the second character avatar */
@@ -76,8 +85,16 @@ public class LevelModel {
     AstronautModel astroCache;
     /** All the objects in the world. */
     protected PooledList<Obstacle> objects  = new PooledList<Obstacle>();
+    /** The stars, anchors and portals, which never move, by location */
+    private ObstacleGrid<Obstacle> fixed = new ObstacleGrid<Obstacle>(CELL_SIZE);
+    /** The objects that may move (other than the astronauts), in drawing order */
+    private Array<Obstacle> moving = new Array<Obstacle>();
     /** List of stars in the world */
     protected ArrayList<Star> stars = new ArrayList<Star>();
+    /** Grid of the stars, for finding the ones enclosed by the rope */
+    protected StarEnclosure starEnclosure = new StarEnclosure();
+    /** Whether stars are collected by enclosing them with the rope */
+    protected boolean encloseStars = false;
     /** List of anchors in the world */
     protected ArrayList<Anchor> anchors = new ArrayList<Anchor>();
     /** List of tutorial points in this level */
@@ -111,6 +128,20 @@ public class LevelModel {
 
     private SpeechBubble speechBubble;
 
+    // CULLING CACHE OBJECTS
+    /** The part of the world on screen (in physics units) */
+    private Rectangle view = new Rectangle();
+    /** The planets on screen this frame */
+    private Array<Planet> visiblePlanets = new Array<Planet>();
+    /** The stars, anchors and portals on screen this frame */
+    private Array<Obstacle> visibleFixed = new Array<Obstacle>();
+    /** The objects on screen with a glow this frame */
+    private Array<Obstacle> glowing = new Array<Obstacle>();
+
+    public ArrayList<Star> getStars() {return stars;}
+    public StarEnclosure getStarEnclosure() {return starEnclosure;}
+    public boolean getEncloseStars() {return encloseStars;}
+
     public TalkingBoss getTalkingBoss() {return talkingboss;}
     public SpeechBubble getSpeechBubble() {return speechBubble;}
 
@@ -252,6 +283,7 @@ public class LevelModel {
         Planet.setGalaxy(galaxy);
         String gal = galaxy.getChars();
         this.background = JsonAssetManager.getInstance().getEntry(gal + " background", Texture.class);
+        buildBackdrop();
         Urchin.setTextures(galaxy.getUrchinPrefix());
     }
 
@@ -277,6 +309,7 @@ public class LevelModel {
         this.scale = scale;
         debug  = false;
         planets = new PlanetList(scale);
+        vectorWorld = new VectorWorld();
         hasBoss = false;
     }
 
@@ -288,6 +321,27 @@ public class LevelModel {
      */
     public void setBackground(Texture background) {
         this.background = background;
+        buildBackdrop();
+    }
+
+    /**
+     * Stacks the background and the extra layers of the level file.
+     *
+     * Each extra layer has a texture key and a scroll factor, where 1 (the default)
+     * moves with the world and 0 stays on screen.
+     */
+    private void buildBackdrop() {
+        backdrop.clear();
+        layerCache.invalidate();
+        if (background != null) {
+            backdrop.addLayer(background, 1);
+        }
+        if (backgroundLayers != null) {
+            for (JsonValue layer = backgroundLayers.child(); layer != null; layer = layer.next()) {
+                Texture texture = JsonAssetManager.getInstance().getEntry(layer.getString("texture"), Texture.class);
+                backdrop.addLayer(texture, layer.getFloat("scroll", 1));
+            }
+        }
     }
 
     /**
@@ -296,6 +350,21 @@ public class LevelModel {
      * @param levelFormat	the JSON file defining the level
      */
     public void populate(JsonValue levelFormat) {
+        populate(LevelData.fromJson(levelFormat));
+    }
+
+    /**
+     * Lays out the game geography from the given level data. Requires planets is not null.
+     *
+     * The planets, stars, anchors, portals and enemies come from the columns of the data,
+     * and everything else from its header.  Each texture is looked up once per level.
+     *
+     * @param data	the level to lay out
+     */
+    public void populate(LevelData data) {
+        layerCache.invalidate();
+        JsonValue levelFormat = data.header;
+        JsonAssetManager assets = JsonAssetManager.getInstance();
         float[] pSize = levelFormat.get("physicsSize").asFloatArray();
         int[] gSize = levelFormat.get("graphicSize").asIntArray();
         float[] playSize = levelFormat.get("playSize").asFloatArray();
@@ -304,6 +373,7 @@ public class LevelModel {
 
         String key = levelFormat.get("background").asString();
         background = JsonAssetManager.getInstance().getEntry(key, Texture.class);
+        backgroundLayers = levelFormat.get("background layers");
 
         String gal = levelFormat.get("galaxy").asString();
         setGalaxy(Galaxy.fromString(gal));
@@ -343,6 +413,8 @@ public class LevelModel {
         rope.setTexture(texture);
         rope.setDrawScale(scale);
         rope.setName("rope");
+        rope.setAdaptive(ropeVal.getBoolean("adaptive", false));
+        rope.setVerlet(ropeVal.getBoolean("verlet", false));
         activate(rope);
 
         objects.add(player1);
@@ -355,51 +427,32 @@ public class LevelModel {
         Planet.setPresets(levelFormat.get("planet specs"));
         planets = new PlanetList(scale);
 
-        JsonValue planet = levelFormat.get("planets").child();
-        while(planet != null) {
-            float x = planet.getFloat("x");
-            float y = planet.getFloat("y");
-            int i = planet.getInt("i");
-            Bug buggy = null;
-            try {
-                JsonValue bug = planet.get("bug");
-                float radius = Planet.getRadiusPrePlanet(i, scale);
-                key = bug.get("texture").asString();
-                FilmStrip bugtexture = JsonAssetManager.getInstance().getEntry(key, FilmStrip.class);
-                try {
-                    key = bug.get("color").asString();
-                    FilmStrip sleeptexture = JsonAssetManager.getInstance().getEntry(key + " bug asleep", FilmStrip.class);
-                    ModelColor modelColor = key.equals("pink") ? ModelColor.PINK : ModelColor.BLUE;
-                    buggy = new ColoredBug(x, y + radius + (bugtexture.getRegionHeight()/scale.y)/2 - 3/scale.y, bugtexture, sleeptexture, scale, modelColor, vectorWorld);
-                } catch (Exception e) {
-                    buggy = new Bug(x, y + radius + (bugtexture.getRegionHeight()/scale.y)/2 - 3/scale.y, bugtexture, scale, vectorWorld);
-                }
-
-                activate(buggy);
-                enemies.add(buggy);
-            } catch (Exception e) {
-
-            }
-
-            planets.addPlanet(planet, world, vectorWorld, buggy);
-
-            planet = planet.next();
-
+        for (int ii = 0; ii < data.planetX.length; ii++) {
+            float x = data.planetX[ii];
+            float y = data.planetY[ii];
+            int i = data.planetType[ii];
+            Bug buggy = makeBug(x, y, i, data.getString(data.planetBug[ii]), data.getString(data.planetBugColor[ii]));
+            planets.addPlanet(x, y, i, world, vectorWorld, buggy);
         }
 
+        //Precompute gravity over the whole play area now that the planets are placed
+        vectorWorld.bakeField(new Rectangle(bounds.x, bounds.y, bounds.width * xPlay, bounds.height * yPlay), true);
+
         //add stars
         int i = 0;
-        JsonValue starVals = levelFormat.get("stars").child();
-        while (starVals != null) {
-            Star star = Star.fromJSON(starVals, scale);
+        TextureRegion[] regions = new TextureRegion[data.strings.length];
+        for (int ii = 0; ii < data.starX.length; ii++) {
+            TextureRegion starTexture = getRegion(data, data.starTexture[ii], regions);
+            Star star = new Star(data.starX[ii], data.starY[ii], starTexture, scale, data.getString(data.starLocation[ii]));
             star.setName("star" + i);
             activate(star);
             star.setGalaxy(galaxy);
             stars.add(star);
-            starVals = starVals.next;
+            starEnclosure.add(star);
         }
 
         winPercent = levelFormat.get("win").asFloat();
+        encloseStars = levelFormat.getBoolean("enclose", false);
         int numStars = stars.size();
         winCount = (int)(numStars * winPercent);
 
@@ -420,58 +473,55 @@ public class LevelModel {
 
         //add anchors
         i = 0;
-        JsonValue anchorVals = levelFormat.get("anchors").child();
-        while(anchorVals != null) {
-            Anchor anchor = Anchor.fromJSON(anchorVals, scale);
+        for (int ii = 0; ii < data.anchorX.length; ii++) {
+            TextureRegion anchorTexture = getRegion(data, data.anchorTexture[ii], regions);
+            Anchor anchor = new Anchor(data.anchorX[ii], data.anchorY[ii], anchorTexture, scale);
             anchor.setName("anchor" + i);
             activate(anchor);
             anchor.setGalaxy(galaxy);
             anchors.add(anchor);
-            anchorVals = anchorVals.next;
         }
 
         //add portals
         i = 0;
-        JsonValue portalVals = levelFormat.get("portalpairs").child();
-        while (portalVals != null) {
-            PortalPair portalpair = PortalPair.fromJSON(portalVals, scale);
+        for (int ii = 0; ii < data.portalX1.length; ii++) {
+            // Filmstrips are copied for every object, as each one animates on its own
+            FilmStrip portalTexture = assets.getEntry(data.getString(data.portalTexture[ii]), FilmStrip.class);
+            PortalPair portalpair = new PortalPair(data.portalX1[ii], data.portalY1[ii], data.portalX2[ii], data.portalY2[ii],
+                    data.getString(data.portalName[ii]), scale, portalTexture, data.portalColor[ii], data.portalGoal[ii]);
             activate(portalpair.getPortal1());
             activate(portalpair.getPortal2());
             portalpairs.add(portalpair);
             if (portalpair.isGoal())
                 goal = portalpair;
-            portalVals = portalVals.next;
         }
 
         //add worms
-        JsonValue wormVals = levelFormat.get("worms").child();
-        while (wormVals != null) {
-            Worm wormie = Worm.fromJSON(wormVals, scale);
+        for (int ii = 0; ii < data.wormX.length; ii++) {
+            FilmStrip wormTexture = assets.getEntry(data.getString(data.wormTexture[ii]), FilmStrip.class);
+            Worm wormie = new Worm(data.wormX[ii], data.wormY[ii], wormTexture, scale, data.wormVelocity[ii]);
             activate(wormie);
             enemies.add(wormie);
-            wormVals = wormVals.next;
         }
 
         //add urchins
         String urcTexture = levelFormat.get("urchin texture").asString();
         Urchin.setTextures(urcTexture);
 
-        JsonValue urchinVals = levelFormat.get("urchins").child();
-        while (urchinVals != null) {
-            Urchin urch = Urchin.fromJSON(urchinVals, scale);
+        for (int ii = 0; ii < data.urchinX.length; ii++) {
+            Urchin urch = Urchin.create(data.urchinX[ii], data.urchinY[ii], data.urchinLength[ii],
+                    data.urchinVertical[ii] ? CapsuleObstacle.Orientation.VERTICAL : CapsuleObstacle.Orientation.HORIZONTAL, scale);
             activate(urch);
             enemies.add(urch);
-            urchinVals = urchinVals.next;
         }
 
         //add ice cream
-        JsonValue creamVals = levelFormat.get("ice cream").child();
-        while(creamVals != null) {
-            IceCream iceCream = IceCream.fromJSON(creamVals, scale);
+        for (int ii = 0; ii < data.creamX.length; ii++) {
+            FilmStrip creamTexture = assets.getEntry(data.getString(data.creamTexture[ii]), FilmStrip.class);
+            IceCream iceCream = new IceCream(data.creamX[ii], data.creamY[ii], creamTexture, scale, data.creamVelocity[ii]);
             iceCream.setUpBound(bounds.getHeight() * yPlay);
             activate(iceCream);
             enemies.add(iceCream);
-            creamVals = creamVals.next;
         }
 
         //add boss
@@ -524,30 +574,111 @@ public class LevelModel {
 
     }
 
-    public void dispose() {
-        for(Obstacle obj : objects) {
-            obj.deactivatePhysics(world);
+    /**
+     * Returns a new bug sitting on top of a planet, or null if there is none
+     *
+     * @param x         X coord of the center of the planet
+     * @param y         Y coord of the center of the planet
+     * @param i         Index of the planet preset
+     * @param key       The bug texture (null for no bug)
+     * @param color     The color of the bug (null for an ordinary bug)
+     *
+     * @return a new bug sitting on top of the planet, or null if there is none
+     */
+    private Bug makeBug(float x, float y, int i, String key, String color) {
+        if (key == null) {
+            return null;
         }
-        for(Planet p : planets.getPlanets()){
-            p.deactivatePhysics(world);
+        Bug buggy = null;
+        try {
+            float radius = Planet.getRadiusPrePlanet(i, scale);
+            FilmStrip bugtexture = JsonAssetManager.getInstance().getEntry(key, FilmStrip.class);
+            if (color != null) {
+                try {
+                    FilmStrip sleeptexture = JsonAssetManager.getInstance().getEntry(color + " bug asleep", FilmStrip.class);
+                    ModelColor modelColor = color.equals("pink") ? ModelColor.PINK : ModelColor.BLUE;
+                    buggy = new ColoredBug(x, y + radius + (bugtexture.getRegionHeight()/scale.y)/2 - 3/scale.y, bugtexture, sleeptexture, scale, modelColor, vectorWorld);
+                } catch (Exception e) {
+                    buggy = null;
+                }
+            }
+            if (buggy == null) {
+                buggy = new Bug(x, y + radius + (bugtexture.getRegionHeight()/scale.y)/2 - 3/scale.y, bugtexture, scale, vectorWorld);
+            }
+
+            activate(buggy);
+            enemies.add(buggy);
+        } catch (Exception e) {
+
         }
-        objects.clear();
+        return buggy;
+    }
+
+    /**
+     * Returns the texture region named by the given string, looking it up only once
+     *
+     * @param data      The level being laid out
+     * @param index     The index of the texture key in the string table
+     * @param regions   The regions looked up so far, by string index
+     *
+     * @return the texture region named by the given string
+     */
+    private static TextureRegion getRegion(LevelData data, int index, TextureRegion[] regions) {
+        if (regions[index] == null) {
+            regions[index] = JsonAssetManager.getInstance().getEntry(data.getString(index), TextureRegion.class);
+        }
+        return regions[index];
+    }
+
+    /**
+     * Empties this level so that it can be populated again.
+     *
+     * The world is replaced by a new, empty one.
+     */
+    public void reset() {
+        clear();
+        world = new World(new Vector2(0,0), false);
+        vectorWorld = new VectorWorld();
+    }
+
+    /**
+     * Disposes of this level for good, freeing its world and its cached layers.
+     *
+     * The level cannot be used after this.
+     */
+    public void dispose() {
+        clear();
+        world = null;
+    }
+
+    /**
+     * Removes every object from this level and disposes of its world.
+     */
+    private void clear() {
         if (world != null) {
+            for(Obstacle obj : objects) {
+                obj.deactivatePhysics(world);
+            }
+            for(Planet p : planets.getPlanets()){
+                p.deactivatePhysics(world);
+            }
             world.dispose();
-            world = new World(new Vector2(0,0), false);
         }
         speechBubble = null;
         talkingboss = null;
         objects.clear();
+        fixed.clear();
+        moving.clear();
         planets.clear();
         stars.clear();
+        starEnclosure.clear();
         anchors.clear();
         enemies.clear();
         portalpairs.clear();
         tutpoints.clear();
         //MenuMode.getMusic().dispose();
-        vectorWorld = new VectorWorld();
         hasBoss = false;
+        layerCache.dispose();
     }
 
     /**
@@ -556,11 +687,11 @@ public class LevelModel {
      */
     public void add(Obstacle obj) {
         switch (obj.getType()) {
-            case PLANET: planets.addPlanet((Planet) obj, vectorWorld); break;
+            case PLANET: planets.addPlanet((Planet) obj, vectorWorld); layerCache.invalidate(); break;
             case ANCHOR: activate(obj); break;
             case STAR: activate(obj); break;
             case PLAYER: addPlayer((AstronautModel) obj); break;
-            case ROPE: objects.add(0, obj); obj.activatePhysics(world); rope = (Rope) obj; break;
+            case ROPE: objects.add(0, obj); moving.insert(0, obj); obj.activatePhysics(world); rope = (Rope) obj; break;
             case WORM: activate(obj); enemies.add((Worm) obj); break;
             case COLORED_BUG:
             case BUG: activate(obj); enemies.add((Bug) obj); break;
@@ -576,6 +707,62 @@ public class LevelModel {
         }
     }
 
+    /**
+     * Updates the level after planet p has been moved in the editor
+     *
+     * This moves its gravity, and redraws the static layers it is drawn in.
+     *
+     * @param p The planet that moved
+     */
+    public void moved(Planet p) {
+        planets.moved(p, vectorWorld);
+        layerCache.invalidate();
+    }
+
+    /**
+     * Moves an obstacle by the given amount, as when it is dragged in the editor
+     *
+     * A planet carries its bug with it.
+     *
+     * @param obj   The obstacle to move
+     * @param dx    How far to move it horizontally (in physics units)
+     * @param dy    How far to move it vertically (in physics units)
+     */
+    public void shift(Obstacle obj, float dx, float dy) {
+        obj.setPosition(obj.getX() + dx, obj.getY() + dy);
+        fixed.update(obj);
+        if (obj.getType() == ObstacleType.PLANET) {
+            Planet p = (Planet) obj;
+            moved(p);
+            Bug bug = p.getBug();
+            if (bug != null) {
+                bug.setPosition(bug.getX() + dx, bug.getY() + dy);
+            }
+        }
+    }
+
+    /**
+     * Moves several obstacles by the same amount, as when they are dragged in the editor
+     *
+     * A bug whose planet is moved too is only carried by the planet, not moved twice.
+     *
+     * @param objs  The obstacles to move
+     * @param dx    How far to move them horizontally (in physics units)
+     * @param dy    How far to move them vertically (in physics units)
+     */
+    public void shift(Array<Obstacle> objs, float dx, float dy) {
+        for (int ii = 0; ii < objs.size; ii++) {
+            Obstacle obj = objs.get(ii);
+            if (obj instanceof Bug) {
+                Planet p = ((Bug) obj).getCurPlanet();
+                if (p != null && p.getBug() == obj && objs.contains(p, true)) {
+                    continue;
+                }
+            }
+            shift(obj, dx, dy);
+        }
+    }
+
     /**
      * Uh remove idk
      * Player and rope can NOT be removed, so this method will do nothing.
@@ -589,7 +776,8 @@ public class LevelModel {
                 if ( bugger != null) {
                     remove(bugger);
                 }
-                obj.deactivatePhysics(world); planets.remove((Planet) obj); break;
+                obj.deactivatePhysics(world); planets.remove((Planet) obj); vectorWorld.removePlanet((Planet) obj);
+                layerCache.invalidate(); break;
             case ANCHOR: deactivate(obj); break;
             case STAR: deactivate(obj); break;
             case WORM: deactivate(obj); enemies.remove((Worm) obj); break;
@@ -628,6 +816,13 @@ public class LevelModel {
     protected void activate(Obstacle obj) {
         assert inBounds(obj) : "Object is not in bounds";
         objects.add(obj);
+        switch (obj.getType()) {
+            case STAR:
+            case ANCHOR:
+            case PORTAL: fixed.add(obj); break;
+            case PLAYER: break;
+            default: moving.add(obj); break;
+        }
         obj.activatePhysics(world);
     }
 
@@ -637,10 +832,41 @@ public class LevelModel {
      * @param obj The object to remove
      */
     private void deactivate(Obstacle obj) {
-        objects.remove(obj);
+        discard(obj);
         obj.deactivatePhysics(world);
     }
 
+    /**
+     * Takes an object out of the level, once it is out of the physics world
+     *
+     * The game calls this for stars it has collected, so that they are no longer drawn.
+     *
+     * @param obj The object to take out
+     *
+     * @return true if the object was in the level
+     */
+    public boolean discard(Obstacle obj) {
+        fixed.remove(obj);
+        moving.removeValue(obj, true);
+        return objects.remove(obj);
+    }
+
+    /**
+     * Returns true if the obstacle is one of the objects or planets of this level.
+     *
+     * The parts of an obstacle, like the anchors on a boss wheel, are in the world but
+     * not in the level.
+     *
+     * @param obj The obstacle to look for
+     * @return true if the obstacle is one of the objects or planets of this level
+     */
+    public boolean owns(Obstacle obj) {
+        if (obj.getType() == ObstacleType.PLANET) {
+            return planets.getPlanets().contains(obj);
+        }
+        return objects.contains(obj);
+    }
+
     /**
      * Returns true if the object is in bounds.
      *
@@ -687,6 +913,9 @@ public class LevelModel {
         out.addChild("graphicSize", graphicsSize);
         out.addChild("playSize", playSize);
         out.addChild("win", new JsonValue(winPercent + ""));
+        if (encloseStars) {
+            out.addChild("enclose", new JsonValue(true));
+        }
 
         //Add Galaxy
 
@@ -694,6 +923,9 @@ public class LevelModel {
 
         //Add background
         out.addChild("background", new JsonValue(JsonAssetManager.getInstance().getKey(background)));
+        if (backgroundLayers != null) {
+            out.addChild("background layers", new JsonReader().parse(backgroundLayers.toJson(JsonWriter.OutputType.json)));
+        }
 
         //Add astronauts
         out.addChild("astronaut 1", player1.toJson());
@@ -784,48 +1016,118 @@ public class LevelModel {
 
         canvas.clear();
 
-        canvas.begin();
+        // The background and planets never change, so draw them ahead of time if we can
+        boolean baked = layerCache.bake(canvas, planets, scale);
 
-        //System.out.println(talkingboss);
-        float x = (float) Math.floor((canvas.getCamera().position.x - canvas.getWidth()/2)/canvas.getWidth()) * canvas.getWidth();
-        float y = (float) Math.floor((canvas.getCamera().position.y - canvas.getHeight()/2)/canvas.getHeight()) * canvas.getHeight();
+        canvas.begin();
 
-        canvas.draw(background, Color.WHITE, x, y,canvas.getWidth(),canvas.getHeight());
-        canvas.draw(background, Color.WHITE, x + canvas.getWidth(), y,canvas.getWidth(),canvas.getHeight());
-        canvas.draw(background, Color.WHITE, x, y + canvas.getHeight(),canvas.getWidth(),canvas.getHeight());
-        canvas.draw(background, Color.WHITE, x + canvas.getWidth(), y + canvas.getHeight(),canvas.getWidth(),canvas.getHeight());
+        // Skip everything off screen; what never moves is found by location
+        updateView(canvas);
+        visiblePlanets.clear();
+        planets.getVisible(view, visiblePlanets);
+        visibleFixed.clear();
+        fixed.query(view, visibleFixed);
+        int drawn = 0;
+        int culled = planets.size() - visiblePlanets.size + fixed.size() - visibleFixed.size;
 
-        for(Planet p : planets.getPlanets()){
-            p.draw(canvas);
+        //System.out.println(talkingboss);
+        if (baked) {
+            layerCache.draw(canvas);
+        } else {
+            backdrop.draw(canvas);
+            for(Planet p : visiblePlanets){
+                p.draw(canvas);
+                drawn++;
+            }
         }
-        for(Obstacle obj : objects) {
-            if (obj.getType() != ObstacleType.PLAYER && obj.getType() != ObstacleType.TUTORIAL)
-                obj.draw(canvas);
+        glowing.clear();
+        for(Obstacle obj : visibleFixed) {
+            if (obj.hasGlow()) {
+                glowing.add(obj);
+            }
+            obj.drawBody(canvas);
+            drawn++;
+        }
+        // Only what moves is tested one at a time
+        for(Obstacle obj : moving) {
+            if (obj.getType() != ObstacleType.TUTORIAL) {
+                if (obj.isVisible(view)) {
+                    if (obj.hasGlow()) {
+                        glowing.add(obj);
+                    }
+                    obj.drawBody(canvas);
+                    drawn++;
+                } else {
+                    culled++;
+                }
+            }
         }
         rope.draw(canvas);
-        if (player1.isActive()) { player2.draw(canvas); player1.draw(canvas); }
-        else { player1.draw(canvas); player2.draw(canvas); }
+        drawn++;
+
+        // Every glow in one additive pass, under the astronauts
+        if (player1.hasGlow()) glowing.add(player1);
+        if (player2.hasGlow()) glowing.add(player2);
+        if (glowing.size > 0) {
+            canvas.setBlendState(GameCanvas.BlendState.ADDITIVE);
+            for (Obstacle obj : glowing) {
+                obj.drawGlow(canvas);
+            }
+            canvas.setBlendState(GameCanvas.BlendState.NO_PREMULT);
+        }
+
+        if (player1.isActive()) { player2.drawBody(canvas); player1.drawBody(canvas); }
+        else { player1.drawBody(canvas); player2.drawBody(canvas); }
+        drawn += 2;
         for (Enemy e: enemies) {
-            e.draw(canvas);
+            if (e.isVisible(view)) {
+                e.draw(canvas);
+                drawn++;
+            } else {
+                culled++;
+            }
         }
         canvas.end();
+        FrameStats.getInstance().addObstacles(drawn, culled);
 
         if (debug) {
             canvas.beginDebug();
             if (talkingboss != null) talkingboss.drawDebug(canvas);
-            for(Planet p : planets.getPlanets()){
+            for(Planet p : visiblePlanets){
                 p.drawDebug(canvas);
             }
-            for(Obstacle obj : objects) {
+            for(Obstacle obj : visibleFixed) {
                 obj.drawDebug(canvas);
             }
+            for(Obstacle obj : moving) {
+                if (obj.isVisible(view)) {
+                    obj.drawDebug(canvas);
+                }
+            }
+            player1.drawDebug(canvas);
+            player2.drawDebug(canvas);
             for (Enemy e: enemies) {
-             e.drawDebug(canvas);
+                if (e.isVisible(view)) {
+                    e.drawDebug(canvas);
+                }
             }
             canvas.endDebug();
         }
     }
 
+    /**
+     * Sets the view to the part of the world the camera can see.
+     *
+     * @param canvas	the drawing context
+     */
+    private void updateView(GameCanvas canvas) {
+        OrthographicCamera camera = (OrthographicCamera)canvas.getCamera();
+        float width  = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        view.set((camera.position.x - width/2) / scale.x, (camera.position.y - height/2) / scale.y,
+                 width / scale.x, height / scale.y);
+    }
+
     /**
      * Draw method for level editor that doesn't tile background
      *
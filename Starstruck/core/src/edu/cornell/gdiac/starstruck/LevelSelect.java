@@ -114,6 +114,8 @@ public class LevelSelect extends WorldController implements Screen, InputProcess
 
     /**Last level to be played; next level to play */
     private Level lastLevel, nextLevel;
+    /** The level whose neighbourhood was last read ahead */
+    private Level prefetched;
 
     /**
      * Load the assets for this controller.
@@ -166,7 +168,7 @@ public class LevelSelect extends WorldController implements Screen, InputProcess
         winButtons.add(2, nextButton);
 
 
-        level.dispose();
+        level.reset();
 
         levelFormat = jsonReader.parse(Gdx.files.internal("levels/levelselect.json"));
 
@@ -299,12 +301,7 @@ public class LevelSelect extends WorldController implements Screen, InputProcess
             b.pushed = false;
         }
 
-        if (GameController.getMusic() != null) {
-            GameController.getMusic().stop();
-            GameController.getMusic().dispose();
-//            music.play();
-//            music.setLooping(true);
-        }
+        MusicController.getInstance().stop();
     }
 
     /**
@@ -480,6 +477,7 @@ public class LevelSelect extends WorldController implements Screen, InputProcess
             //(winPos);
         }
 //        updateCamera();
+        prefetchLevels();
 
         if (isFailure()) return;
 
@@ -517,6 +515,28 @@ public class LevelSelect extends WorldController implements Screen, InputProcess
         }
     }
 
+    /**
+     * Starts reading the levels the player is likely to pick next, in the background.
+     *
+     * On the map this is the level under the cursor and the levels either side of it.
+     * On the win screen it is the next level; replaying reuses the level already read.
+     */
+    private void prefetchLevels() {
+        Level focus = winPos == null ? currentLevel : nextLevel;
+        if (focus == null || focus == prefetched) {
+            return;
+        }
+        prefetched = focus;
+        LevelCache cache = LevelCache.getInstance();
+        cache.prefetch(focus.getFile());
+        if (focus.nextLevel != null) {
+            cache.prefetch(focus.nextLevel.getFile());
+        }
+        if (focus.lastLevel != null) {
+            cache.prefetch(focus.lastLevel.getFile());
+        }
+    }
+
     /** Called when a key was pressed
      *
      * @param keycode one of the constants in {@link Input.Keys}
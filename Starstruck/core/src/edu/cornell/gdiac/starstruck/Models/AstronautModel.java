@@ -760,6 +760,7 @@ public class AstronautModel extends CapsuleObstacle {
         sensorShape = new PolygonShape();
         sensorShape.setAsBox(DUDE_SSHRINK*getWidth()/2.0f, SENSOR_HEIGHT, sensorCenter, 0.0f);
         sensorDef.shape = sensorShape;
+        CollisionMatrix.setFilter(getType(), sensorDef.filter);
 
         sensorFixture = body.createFixture(sensorDef);
         sensorFixture.setUserData(getSensorName());
@@ -927,18 +928,47 @@ public class AstronautModel extends CapsuleObstacle {
      * @param canvas Drawing context
      */
     public void draw(GameCanvas canvas) {
+        drawGlow(canvas);
+        drawBody(canvas);
+    }
+
+    /**
+     * Returns true if this astronaut is glowing (the active player in one player mode)
+     *
+     * @return true if this astronaut is glowing
+     */
+    public boolean hasGlow() {
+        return isActive() && !twoplayer;
+    }
+
+    /**
+     * Draws the glow around the active astronaut.
+     *
+     * @param canvas Drawing context
+     */
+    public void drawGlow(GameCanvas canvas) {
+        if (!hasGlow()) {
+            return;
+        }
         float effect = faceRight ? 1.0f : -1.0f;
-        if (isActive() && !twoplayer) {
-            Color color = isPlayerOne ? p1glow : p2glow;
-            if (galaxy == Galaxy.SOMBRERO) {
-                canvas.draw(glowTexture, Color.WHITE, glowOrigin.x, glowOrigin.y, (getX()) * drawScale.x,
-                        (getY()) * drawScale.y, getAngle(), effect * GLOW_SCALE, GLOW_SCALE);
-            }
-            else {
-                canvas.draw(glowTexture, color, glowOrigin.x, glowOrigin.y, (getX()) * drawScale.x,
-                        (getY()) * drawScale.y, getAngle(), effect * GLOW_SCALE, GLOW_SCALE);
-            }
+        Color color = isPlayerOne ? p1glow : p2glow;
+        if (galaxy == Galaxy.SOMBRERO) {
+            canvas.draw(glowTexture, Color.WHITE, glowOrigin.x, glowOrigin.y, (getX()) * drawScale.x,
+                    (getY()) * drawScale.y, getAngle(), effect * GLOW_SCALE, GLOW_SCALE);
         }
+        else {
+            canvas.draw(glowTexture, color, glowOrigin.x, glowOrigin.y, (getX()) * drawScale.x,
+                    (getY()) * drawScale.y, getAngle(), effect * GLOW_SCALE, GLOW_SCALE);
+        }
+    }
+
+    /**
+     * Draws the astronaut without its glow.
+     *
+     * @param canvas Drawing context
+     */
+    public void drawBody(GameCanvas canvas) {
+        float effect = faceRight ? 1.0f : -1.0f;
         if (onPlanet){
             canvas.draw(idle,Color.WHITE,origin.x,origin.y,getX()*drawScale.x,
                     getY()*drawScale.y,getAngle(),effect,1.0f);
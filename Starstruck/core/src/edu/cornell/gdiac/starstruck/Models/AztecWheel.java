@@ -178,6 +178,19 @@ public class AztecWheel extends WheelObstacle {
         }
     }
 
+    /**
+     * Returns the distance from the position of this wheel to the farthest point drawn.
+     *
+     * @return the distance to the farthest point drawn (in physics units)
+     */
+    public float getDrawRadius() {
+        float radius = super.getDrawRadius();
+        for (Anchor a : anchors) {
+            radius = Math.max(radius, Vector2.dst(getX(), getY(), a.getX(), a.getY()) + a.getDrawRadius());
+        }
+        return radius;
+    }
+
     public void drawDebug(GameCanvas canvas) {
         super.drawDebug(canvas);
         for (Anchor a : anchors) {
@@ -37,6 +37,9 @@ public class Bug extends Enemy {
 
     public VectorWorld vectorWorld;
 
+    /** Cache for the gravity on this bug, to avoid allocation every frame */
+    private Vector2 gravityCache = new Vector2();
+
 
     /**
      * Creates a new dude avatar at the given position.
@@ -90,7 +93,7 @@ public class Bug extends Enemy {
             Vector2 contactDirEn = contactPointEN.cpy().sub(curPlanetEN.getPosition());
 
             if (contactDirEn.len() - ((this.getTexture().getRegionHeight()/2)/ drawScale.y) > curPlanetEN.getRadius() ) {
-                Vector2 gravity = vectorWorld.getForce(this.getPosition()).scl(-1);
+                Vector2 gravity = vectorWorld.getForce(this.getPosition(), gravityCache).scl(-1);
                 gravity.setLength(100000);
                 this.getBody().applyForceToCenter(gravity, true);
             }
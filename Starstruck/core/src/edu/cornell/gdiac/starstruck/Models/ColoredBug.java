@@ -160,4 +160,13 @@ public class ColoredBug extends Bug {
             canvas.draw(texture, Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.y, getAngle(), effect, 1.0f);
         }
     }
+
+    /**
+     * Returns the distance from the position of this bug to the farthest point drawn.
+     *
+     * @return the distance to the farthest point drawn (in physics units)
+     */
+    public float getDrawRadius() {
+        return Math.max(super.getDrawRadius(), getExtent(sleepTexture, sleepOrigin.x, sleepOrigin.y, 1) / drawScale.x);
+    }
 }
@@ -10,6 +10,7 @@ import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
 import edu.cornell.gdiac.starstruck.GameCanvas;
 import edu.cornell.gdiac.starstruck.Obstacles.CapsuleObstacle;
+import edu.cornell.gdiac.starstruck.Obstacles.CollisionMatrix;
 import edu.cornell.gdiac.util.FilmStrip;
 
 
@@ -234,6 +235,7 @@ public abstract class Enemy extends CapsuleObstacle {
         sensorShape = new PolygonShape();
         sensorShape.setAsBox(DUDE_SSHRINK*getWidth()/2.0f, SENSOR_HEIGHT, sensorCenter, 0.0f);
         sensorDef.shape = sensorShape;
+        CollisionMatrix.setFilter(getType(), sensorDef.filter);
 
         sensorFixture = body.createFixture(sensorDef);
         sensorFixture.setUserData(getSensorName());
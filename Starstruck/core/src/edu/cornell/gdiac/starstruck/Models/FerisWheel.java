@@ -195,6 +195,22 @@ public class FerisWheel extends WheelObstacle {
         }
     }
 
+    /**
+     * Returns the distance from the position of this wheel to the farthest point drawn.
+     *
+     * @return the distance to the farthest point drawn (in physics units)
+     */
+    public float getDrawRadius() {
+        float basket = getExtent(basketTexture, basketTexture.getRegionWidth()/2.0f,
+                                 basketTexture.getRegionHeight(), scaleDraw) / drawScale.x;
+        float radius = super.getDrawRadius();
+        for (Anchor a : anchors) {
+            float reach = Math.max(a.getDrawRadius(), basket);
+            radius = Math.max(radius, Vector2.dst(getX(), getY(), a.getX(), a.getY()) + reach);
+        }
+        return radius;
+    }
+
     public void drawDebug(GameCanvas canvas) {
         super.drawDebug(canvas);
         for (Anchor a : anchors) {
@@ -370,6 +370,26 @@ public class OctoLeg extends Enemy {
         }
     }
 
+    /**
+     * Returns the distance from the position of this leg to the farthest point drawn.
+     *
+     * The segments are drawn along the body, so this is half the length of the body
+     * plus the reach of the largest segment, or the reach of the farthest anchor.
+     *
+     * @return the distance to the farthest point drawn (in physics units)
+     */
+    public float getDrawRadius() {
+        float extent = 0;
+        for (TextureRegion segment : textures) {
+            extent = Math.max(extent, getExtent(segment, origin.x, origin.y, 1));
+        }
+        float radius = (float)Math.hypot(getWidth(), getHeight()) / 2 + extent / drawScale.x;
+        for (Anchor a : anchors) {
+            radius = Math.max(radius, Vector2.dst(getX(), getY(), a.getX(), a.getY()) + a.getDrawRadius());
+        }
+        return radius;
+    }
+
     public void drawDebug(GameCanvas canvas) {
         super.drawDebug(canvas);
 //        anchor1.drawDebug(canvas);
@@ -163,17 +163,30 @@ public class Urchin extends Enemy {
 
         int length = json.get("length").asInt();
 
+        return create(json.get("x").asFloat(), json.get("y").asFloat(), length, orientation, scale);
+    }
+
+    /**
+     * Return a new urchin of the given length, sized to the urchin textures
+     * @param x X coord of the new urchin
+     * @param y Y coord of the new urchin
+     * @param length Number of chunks in the urchin
+     * @param orientation Whether the urchin is vertical or horizontal
+     * @param scale The scale to convert physics units to drawing units
+     * @return An urchin of the given length
+     */
+    public static Urchin create(float x, float y, int length, Orientation orientation, Vector2 scale) {
         float width = textures[0].getRegionWidth() / scale.x;
         float height = 0;
         if (length == 1 ) {
             height = textures[0].getRegionHeight() / scale.y;
-            return new Urchin(json.get("x").asFloat(), json.get("y").asFloat(), width, height, scale, length, orientation);
+            return new Urchin(x, y, width, height, scale, length, orientation);
         } // more than one chunk
         height = (textures[1].getRegionHeight() + textures[3].getRegionWidth()) /  scale.y;
         for (int i = 2; i < length; i++) {
             height += textures[2].getRegionHeight() / scale.y;
         }
-        Urchin u = new Urchin(json.get("x").asFloat(), json.get("y").asFloat(), width, height, scale, length, orientation);
+        Urchin u = new Urchin(x, y, width, height, scale, length, orientation);
         if (orientation == Orientation.VERTICAL) return u;
 
         return new Urchin(u.getX(), u.getY(), u.getHeight() / Enemy.DUDE_HSHRINK, u.getWidth() / Enemy.DUDE_VSHRINK, scale, u.getLength(), orientation);
@@ -242,6 +255,22 @@ public class Urchin extends Enemy {
         }
     }
 
+    /**
+     * Returns the distance from the position of this urchin to the farthest point drawn.
+     *
+     * The segments are drawn along the body, so this is half the length of the body
+     * plus the reach of the largest segment.
+     *
+     * @return the distance to the farthest point drawn (in physics units)
+     */
+    public float getDrawRadius() {
+        float extent = 0;
+        for (TextureRegion segment : textures) {
+            extent = Math.max(extent, getExtent(segment, origin.x, origin.y, 1));
+        }
+        return (float)Math.hypot(getWidth(), getHeight()) / 2 + extent / drawScale.x;
+    }
+
     public ObstacleType getType() { return ObstacleType.URCHIN;}
 
 
@@ -124,11 +124,7 @@ public class Anchor extends WheelObstacle {
     public static Anchor fromJSON(JsonValue json, Vector2 scale) {
         String key = json.get("texture").asString();
         TextureRegion texture = JsonAssetManager.getInstance().getEntry(key, TextureRegion.class);
-        Anchor out =  new Anchor(json.get("x").asFloat(), json.get("y").asFloat(),
-                texture.getRegionWidth()/scale.x/2);
-        out.setDrawScale(scale);
-        out.setTexture(texture);
-        return out;
+        return new Anchor(json.get("x").asFloat(), json.get("y").asFloat(), texture, scale);
     }
 
     /**
@@ -184,4 +180,13 @@ public class Anchor extends WheelObstacle {
             canvas.draw(animatedText, Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.x, getAngle(), 1, 1);
         }
     }
+
+    /**
+     * Returns the distance from the position of this anchor to the farthest point drawn.
+     *
+     * @return the distance to the farthest point drawn (in physics units)
+     */
+    public float getDrawRadius() {
+        return getExtent(animatedText, origin.x, origin.y, 1) / drawScale.x;
+    }
 }
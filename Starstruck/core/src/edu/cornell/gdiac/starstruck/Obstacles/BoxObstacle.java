@@ -206,8 +206,27 @@ public class BoxObstacle extends SimpleObstacle {
 
     public ObstacleType getType() { return ObstacleType.BOX;}
 
+    /**
+     * Returns true if the given point is inside the box.
+     *
+     * Once the box has a fixture, the fixture itself is tested, so that the box is
+     * picked exactly where it is, rotated or not.
+     *
+     * @param point The point to test (in physics units)
+     *
+     * @return true if the given point is inside the box.
+     */
     public boolean containsPoint(Vector2 point) {
-        return dist(point, getPosition()) < getHeight()/2 || dist(point, getPosition()) < getWidth()/2;
+        if (geometry != null) {
+            return geometry.testPoint(point);
+        }
+        float angle = getAngle();
+        float dx = point.x - getX();
+        float dy = point.y - getY();
+        float cos = (float)Math.cos(angle);
+        float sin = (float)Math.sin(angle);
+        return Math.abs( dx*cos + dy*sin) <= getWidth()/2 &&
+               Math.abs(-dx*sin + dy*cos) <= getHeight()/2;
     }
 
 
@@ -0,0 +1,270 @@
+package edu.cornell.gdiac.starstruck.Obstacles;
+
+import com.badlogic.gdx.physics.box2d.Filter;
+
+/**
+ * Precomputed table of how each pair of obstacle types interacts in a collision.
+ *
+ * For every ObstacleType x ObstacleType pair the table stores whether Box2D should resolve the
+ * collision physically, and which game handlers (enemy hit, star collection, ...) care about it.
+ * The contact listener looks pairs up here by type instead of matching on obstacle names.
+ *
+ * Pairs that are neither enabled nor handled never need a contact at all, so the table also
+ * derives Box2D category and mask bits from it. Box2D only has 16 category bits, so types that
+ * always behave the same share a category.
+ *
+ * Types that never collide physically with anything, and whose handlers all run in
+ * beginContact, are made sensors (worms, portals, the talking boss, stars, ...). Box2D still
+ * reports when a sensor starts and stops touching, but never solves it, so those pairs never
+ * reach preSolve. Anchors and tutorial points are checked every step in preSolve, so they
+ * stay solid and have their contacts disabled there instead.
+ */
+public class CollisionMatrix {
+
+    /** Handler: an astronaut touched an enemy */
+    public static final int ENEMY = 0x01;
+    /** Handler: a star touched an astronaut or the rope */
+    public static final int STAR = 0x02;
+    /** Handler: an astronaut entered a portal */
+    public static final int PORTAL = 0x04;
+    /** Handler: an astronaut landed on a planet */
+    public static final int PLANET = 0x08;
+    /** Handler: an astronaut is touching an anchor (checked every step in preSolve) */
+    public static final int ANCHOR = 0x10;
+    /** Handler: an astronaut is touching a tutorial point (checked every step in preSolve) */
+    public static final int TUTORIAL = 0x20;
+
+    /** Handlers checked in preSolve, which Box2D never calls for a sensor */
+    private static final int SOLVED = ANCHOR | TUTORIAL;
+
+    /** Number of obstacle types */
+    private static final int NUM_TYPES = ObstacleType.values().length;
+    /** Whether the collision between two types is resolved physically */
+    private static final boolean[][] enabled = new boolean[NUM_TYPES][NUM_TYPES];
+    /** Handlers interested in the contact between two types */
+    private static final int[][] handlers = new int[NUM_TYPES][NUM_TYPES];
+    /** Category bit of each type */
+    private static final short[] category = new short[NUM_TYPES];
+    /** Mask bits of each type */
+    private static final short[] mask = new short[NUM_TYPES];
+    /** Whether the fixtures of each type are sensors */
+    private static final boolean[] sensor = new boolean[NUM_TYPES];
+
+    static {
+        ObstacleType[] types = ObstacleType.values();
+        for (ObstacleType a : types) {
+            category[a.ordinal()] = categoryOf(a);
+            for (ObstacleType b : types) {
+                enabled[a.ordinal()][b.ordinal()] = computeEnabled(a, b) && computeEnabled(b, a);
+                handlers[a.ordinal()][b.ordinal()] = computeHandlers(a, b) | computeHandlers(b, a);
+            }
+        }
+        for (ObstacleType a : types) {
+            int bits = 0;
+            boolean solved = false;
+            for (ObstacleType b : types) {
+                if (isReported(a, b)) {
+                    bits |= category[b.ordinal()];
+                }
+                solved |= isEnabled(a, b) || (getHandlers(a, b) & SOLVED) != 0;
+            }
+            mask[a.ordinal()] = (short) bits;
+            sensor[a.ordinal()] = !solved;
+        }
+    }
+
+    /**
+     * Returns true if collisions between obstacles of types a and b are resolved physically.
+     *
+     * @param a The type of the first obstacle
+     * @param b The type of the second obstacle
+     * @return true if collisions between a and b are resolved physically
+     */
+    public static boolean isEnabled(ObstacleType a, ObstacleType b) {
+        return enabled[a.ordinal()][b.ordinal()];
+    }
+
+    /**
+     * Returns the handlers (ENEMY, STAR, ...) interested in contacts between types a and b.
+     *
+     * @param a The type of the first obstacle
+     * @param b The type of the second obstacle
+     * @return the handler flags for contacts between a and b
+     */
+    public static int getHandlers(ObstacleType a, ObstacleType b) {
+        return handlers[a.ordinal()][b.ordinal()];
+    }
+
+    /**
+     * Returns true if Box2D needs to report contacts between types a and b at all.
+     *
+     * @param a The type of the first obstacle
+     * @param b The type of the second obstacle
+     * @return true if the pair is enabled or has a handler
+     */
+    public static boolean isReported(ObstacleType a, ObstacleType b) {
+        return isEnabled(a, b) || getHandlers(a, b) != 0;
+    }
+
+    /**
+     * Returns the Box2D category bit of type t
+     *
+     * @param t The obstacle type
+     * @return the Box2D category bit of type t
+     */
+    public static short getCategory(ObstacleType t) {
+        return category[t.ordinal()];
+    }
+
+    /**
+     * Returns the Box2D mask bits of type t
+     *
+     * @param t The obstacle type
+     * @return the Box2D mask bits of type t
+     */
+    public static short getMask(ObstacleType t) {
+        return mask[t.ordinal()];
+    }
+
+    /**
+     * Returns true if the fixtures of type t are sensors.
+     *
+     * A sensor never collides physically, and its contacts never reach preSolve, but
+     * beginContact and endContact still see them.
+     *
+     * @param t The obstacle type
+     * @return true if the fixtures of type t are sensors
+     */
+    public static boolean isSensor(ObstacleType t) {
+        return sensor[t.ordinal()];
+    }
+
+    /**
+     * Set the category and mask bits of filter from type t.
+     *
+     * This is called on the fixture definition before an obstacle creates its fixtures, so
+     * pairs that never interact are culled in the Box2D broad phase.
+     *
+     * @param t The obstacle type
+     * @param filter The filter to modify
+     */
+    public static void setFilter(ObstacleType t, Filter filter) {
+        filter.categoryBits = getCategory(t);
+        filter.maskBits = getMask(t);
+    }
+
+    /**
+     * Returns a printable table of the matrix, for checking it in debug mode.
+     *
+     * Each cell is '#' if the pair collides physically, '+' if it only reports contacts to a
+     * handler, and '.' if Box2D never creates a contact for it.
+     *
+     * @return a printable table of the matrix
+     */
+    public static String dump() {
+        ObstacleType[] types = ObstacleType.values();
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-16s %-6s %-6s ", "", "cat", "mask"));
+        for (int i = 0; i < NUM_TYPES; i++) {
+            out.append(i % 10);
+        }
+        out.append('\n');
+        for (ObstacleType a : types) {
+            out.append(String.format("%-16s 0x%04x 0x%04x ", a.ordinal() % 10 + " " + a,
+                    getCategory(a) & 0xffff, getMask(a) & 0xffff));
+            for (ObstacleType b : types) {
+                boolean contact = (getCategory(a) & getMask(b)) != 0 && (getCategory(b) & getMask(a)) != 0;
+                out.append(!contact ? '.' : isEnabled(a, b) ? '#' : '+');
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns the category bit for type t.
+     *
+     * Types that are never in the same level or that always behave the same share a bit. The
+     * generic shapes keep Box2D's default category, so unfiltered fixtures still behave normally.
+     */
+    private static short categoryOf(ObstacleType t) {
+        switch (t) {
+            case PLAYER: return 0x0002;
+            case ROPE:
+            case ROPE_PLANK: return 0x0004;
+            case PLANET: return 0x0008;
+            case ANCHOR: return 0x0010;
+            case STAR: return 0x0020;
+            case TUTORIAL: return 0x0040;
+            case SPEECH_BUBBLE: return 0x0080;
+            case PORTAL: return 0x0100;
+            case WORM: return 0x0200;
+            case BUG:
+            case COLORED_BUG: return 0x0400;
+            case URCHIN: return 0x0800;
+            case ICE_CREAM: return 0x1000;
+            case OCTO_LEG:
+            case AZTEC_WHEEL:
+            case FERIS_WHEEL: return 0x2000;
+            case TALKING_BOSS: return 0x4000;
+            default: return 0x0001;
+        }
+    }
+
+    /**
+     * Returns false if type a always disables its collisions with type b.
+     */
+    private static boolean computeEnabled(ObstacleType a, ObstacleType b) {
+        switch (a) {
+            case ROPE:
+            case ROPE_PLANK:
+                // The rope only collides with planets
+                return b == ObstacleType.PLANET;
+            case WORM:
+            case OCTO_LEG:
+            case AZTEC_WHEEL:
+            case FERIS_WHEEL:
+            case PORTAL:
+            case TALKING_BOSS:
+            case ANCHOR:
+            case STAR:
+            case TUTORIAL:
+            case SPEECH_BUBBLE:
+                return false;
+            case BUG:
+            case COLORED_BUG:
+                return b != ObstacleType.PLAYER;
+            case PLAYER:
+                return b != ObstacleType.PLAYER;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Returns the handlers for a contact where the first obstacle has type a and the second b.
+     */
+    private static int computeHandlers(ObstacleType a, ObstacleType b) {
+        if (a == ObstacleType.STAR && (b == ObstacleType.PLAYER || b == ObstacleType.ROPE_PLANK)) {
+            return STAR;
+        }
+        if (a != ObstacleType.PLAYER) {
+            return 0;
+        }
+        switch (b) {
+            case WORM:
+            case BUG:
+            case COLORED_BUG:
+            case URCHIN:
+            case ICE_CREAM:
+            case OCTO_LEG:
+            case TALKING_BOSS:
+                return ENEMY;
+            case PORTAL: return PORTAL;
+            case PLANET: return PLANET;
+            case ANCHOR: return ANCHOR;
+            case TUTORIAL: return TUTORIAL;
+            default: return 0;
+        }
+    }
+}
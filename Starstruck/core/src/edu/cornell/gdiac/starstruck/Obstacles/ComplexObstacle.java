@@ -103,6 +103,9 @@ public abstract class ComplexObstacle extends Obstacle {
      * @return the current position for this physics body
      */
     public Vector2 getPosition() {
+        if (interpolating) {
+            return interpPosition;
+        }
         return (body != null ? body.getPosition() : super.getPosition());
     }
 
@@ -159,6 +162,9 @@ public abstract class ComplexObstacle extends Obstacle {
      * @return the x-coordinate for this physics body
      */
     public float getX() {
+        if (interpolating) {
+            return interpPosition.x;
+        }
         return (body != null ? body.getPosition().x : super.getX());
     }
 
@@ -188,6 +194,9 @@ public abstract class ComplexObstacle extends Obstacle {
      * @return the y-coordinate for this physics body
      */
     public float getY() {
+        if (interpolating) {
+            return interpPosition.y;
+        }
         return (body != null ? body.getPosition().y : super.getY());
     }
 
@@ -219,6 +228,9 @@ public abstract class ComplexObstacle extends Obstacle {
      * @return the angle of rotation for this body
      */
     public float getAngle() {
+        if (interpolating) {
+            return interpAngle;
+        }
         return (body != null ? body.getAngle() : super.getAngle());
     }
 
@@ -1060,6 +1072,38 @@ public abstract class ComplexObstacle extends Obstacle {
         }
     }
 
+    /**
+     * Saves the current transform of this object and all of its components.
+     */
+    public void saveTransform() {
+        super.saveTransform();
+        for(Obstacle obj : bodies) {
+            obj.saveTransform();
+        }
+    }
+
+    /**
+     * Interpolates the transform of this object and all of its components.
+     *
+     * @param alpha The fraction of the way from the saved to the current transform
+     */
+    public void beginInterpolation(float alpha) {
+        super.beginInterpolation(alpha);
+        for(Obstacle obj : bodies) {
+            obj.beginInterpolation(alpha);
+        }
+    }
+
+    /**
+     * Stops interpolating this object and all of its components.
+     */
+    public void endInterpolation() {
+        super.endInterpolation();
+        for(Obstacle obj : bodies) {
+            obj.endInterpolation();
+        }
+    }
+
     /**
      * Draws the physics object.
      *
@@ -69,6 +69,18 @@ public abstract class Obstacle {
     /** A cache value for when the user wants to access the drawing scale */
     protected Vector2 scaleCache = new Vector2();
 
+    /// Interpolated drawing
+    /** Transform saved before the last physics step */
+    private float lastX, lastY, lastAngle;
+    /** Whether a transform has been saved since this object was created */
+    private boolean hasLast;
+    /** Whether the getters return the interpolated transform (only while drawing) */
+    protected boolean interpolating;
+    /** The interpolated position */
+    protected Vector2 interpPosition = new Vector2();
+    /** The interpolated angle */
+    protected float interpAngle;
+
 
     /// BodyDef Methods
     /**
@@ -892,6 +904,49 @@ public abstract class Obstacle {
         drawScale.set(x,y);
     }
 
+    /**
+     * Saves the current transform, before the world takes a physics step.
+     *
+     * The saved transform is the starting point of the interpolation while drawing.
+     */
+    public void saveTransform() {
+        lastX = getX();
+        lastY = getY();
+        lastAngle = getAngle();
+        hasLast = true;
+    }
+
+    /**
+     * Makes the getters return a transform between the saved and the current one.
+     *
+     * The fixed-step loop calls this right before drawing, with alpha the fraction of a step
+     * that has passed since the last physics step.  An object with no saved transform stays
+     * where it is.  Every call must be matched by endInterpolation.
+     *
+     * @param alpha The fraction of the way from the saved to the current transform
+     */
+    public void beginInterpolation(float alpha) {
+        float x = getX(); float y = getY(); float angle = getAngle();
+        if (hasLast) {
+            x = lastX + alpha * (x - lastX);
+            y = lastY + alpha * (y - lastY);
+            // Turn the short way round, in case the angle was wrapped
+            float turn = angle - lastAngle;
+            turn -= MathUtils.PI2 * Math.round(turn / MathUtils.PI2);
+            angle = lastAngle + alpha * turn;
+        }
+        interpPosition.set(x, y);
+        interpAngle = angle;
+        interpolating = true;
+    }
+
+    /**
+     * Makes the getters return the current transform again, after drawing.
+     */
+    public void endInterpolation() {
+        interpolating = false;
+    }
+
     /// DEBUG METHODS
     /**
      * Returns the physics object tag.
@@ -1014,6 +1069,67 @@ public abstract class Obstacle {
      */
     public abstract void drawDebug(GameCanvas canvas);
 
+    /**
+     * Returns true if this object has a glow to draw this frame.
+     *
+     * Glows are drawn apart from the rest of the object, all together with additive
+     * blending, so that they cost one change of blend state instead of one each.
+     *
+     * @return true if this object has a glow to draw this frame
+     */
+    public boolean hasGlow() {
+        return false;
+    }
+
+    /**
+     * Draws the glow of this object, if it has one.
+     *
+     * The canvas should be blending additively.  By default there is no glow.
+     *
+     * @param canvas Drawing context
+     */
+    public void drawGlow(GameCanvas canvas) {
+    }
+
+    /**
+     * Draws the physics object without its glow.
+     *
+     * By default this is the same as draw.  An object with a glow should draw it here
+     * only through drawGlow, so that draw is drawGlow followed by drawBody.
+     *
+     * @param canvas Drawing context
+     */
+    public void drawBody(GameCanvas canvas) {
+        draw(canvas);
+    }
+
+    /**
+     * Returns the distance from the position of this object to the farthest point drawn.
+     *
+     * This is used to skip objects that are off screen, so it may be too large, but
+     * never too small.  By default the object may draw anywhere, and is never skipped.
+     *
+     * @return the distance to the farthest point drawn (in physics units)
+     */
+    public float getDrawRadius() {
+        return Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns true if this object may draw inside the given rectangle.
+     *
+     * @param view The rectangle to test (in physics units)
+     *
+     * @return true if this object may draw inside the given rectangle.
+     */
+    public boolean isVisible(Rectangle view) {
+        float radius = getDrawRadius();
+        float x = getX();
+        float y = getY();
+        return x + radius >= view.x && x - radius <= view.x + view.width &&
+               y + radius >= view.y && y - radius <= view.y + view.height;
+    }
+
     /**
      * Returns the type of this obstacle
      * @return The type of this obstacle
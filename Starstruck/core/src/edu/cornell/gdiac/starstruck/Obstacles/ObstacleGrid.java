@@ -0,0 +1,220 @@
+/*
+ * ObstacleGrid.java
+ *
+ * A uniform grid of obstacles that do not move, for finding the ones on screen without
+ * testing every one of them.  Each obstacle is put in every cell its drawing can reach
+ * (see Obstacle.getDrawRadius), so a query only has to look at the cells the view
+ * overlaps.
+ *
+ * The obstacles must not move while they are in the grid.  If one does move, call
+ * update() to put it back in the right cells.
+ */
+package edu.cornell.gdiac.starstruck.Obstacles;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.*;
+
+import java.util.Comparator;
+
+/**
+ * Uniform grid of stationary obstacles, for culling.
+ *
+ * Queries return the obstacles in the order they were added, so that they can be drawn
+ * in the same order as without the grid.
+ */
+public class ObstacleGrid<T extends Obstacle> {
+    /** The width and height of a cell (in physics units) */
+    private final float cellSize;
+    /** The obstacles in each cell, by cell key */
+    private final LongMap<Array<T>> cells;
+    /** The order each obstacle was added in */
+    private final ObjectIntMap<T> order;
+    /** The first and last cell of each obstacle, as {x0, y0, x1, y1} */
+    private final ObjectMap<T,int[]> spans;
+    /** Obstacles that draw everywhere, and so are in no cell */
+    private final Array<T> unbounded;
+    /** Number of obstacles added so far (to number them) */
+    private int added;
+
+    // QUERY CACHE OBJECTS
+    /** The obstacles found so far in this query */
+    private final ObjectSet<T> found;
+    /** Sorts obstacles by the order they were added */
+    private final Comparator<T> byOrder;
+
+    /**
+     * Creates an empty grid with the given cell size.
+     *
+     * The cells should be around the size of the screen, so that a query looks at a
+     * few cells, each with a few obstacles.
+     *
+     * @param cellSize  The width and height of a cell (in physics units)
+     */
+    public ObstacleGrid(float cellSize) {
+        this.cellSize = cellSize;
+        cells = new LongMap<Array<T>>();
+        order = new ObjectIntMap<T>();
+        spans = new ObjectMap<T,int[]>();
+        unbounded = new Array<T>();
+        found = new ObjectSet<T>();
+        byOrder = new Comparator<T>() {
+            public int compare(T a, T b) {
+                return order.get(a, 0) - order.get(b, 0);
+            }
+        };
+    }
+
+    /**
+     * Returns the number of obstacles in the grid
+     *
+     * @return the number of obstacles in the grid
+     */
+    public int size() {
+        return order.size;
+    }
+
+    /**
+     * Adds an obstacle to the grid, at its current position.
+     *
+     * @param obj   The obstacle to add
+     */
+    public void add(T obj) {
+        if (order.containsKey(obj)) {
+            return;
+        }
+        order.put(obj, added++);
+        float radius = obj.getDrawRadius();
+        if (Float.isInfinite(radius) || Float.isNaN(radius)) {
+            unbounded.add(obj);
+            return;
+        }
+
+        int[] span = new int[] {cell(obj.getX() - radius), cell(obj.getY() - radius),
+                                cell(obj.getX() + radius), cell(obj.getY() + radius)};
+        spans.put(obj, span);
+        for (int x = span[0]; x <= span[2]; x++) {
+            for (int y = span[1]; y <= span[3]; y++) {
+                long key = key(x, y);
+                Array<T> cell = cells.get(key);
+                if (cell == null) {
+                    cell = new Array<T>();
+                    cells.put(key, cell);
+                }
+                cell.add(obj);
+            }
+        }
+    }
+
+    /**
+     * Removes an obstacle from the grid.
+     *
+     * @param obj   The obstacle to remove
+     */
+    public void remove(T obj) {
+        if (!order.containsKey(obj)) {
+            return;
+        }
+        order.remove(obj, 0);
+        int[] span = spans.remove(obj);
+        if (span == null) {
+            unbounded.removeValue(obj, true);
+            return;
+        }
+        for (int x = span[0]; x <= span[2]; x++) {
+            for (int y = span[1]; y <= span[3]; y++) {
+                Array<T> cell = cells.get(key(x, y));
+                if (cell != null) {
+                    cell.removeValue(obj, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves an obstacle in the grid to its current position.
+     *
+     * The obstacle keeps its place in the order of the grid.
+     *
+     * @param obj   The obstacle that moved
+     */
+    public void update(T obj) {
+        if (!order.containsKey(obj)) {
+            return;
+        }
+        int place = order.get(obj, 0);
+        remove(obj);
+        add(obj);
+        order.put(obj, place);
+    }
+
+    /**
+     * Removes every obstacle from the grid.
+     */
+    public void clear() {
+        cells.clear();
+        order.clear();
+        spans.clear();
+        unbounded.clear();
+        added = 0;
+    }
+
+    /**
+     * Adds the obstacles that may draw inside the given rectangle to the given array.
+     *
+     * The obstacles are added in the order they were added to the grid.  The array is
+     * not cleared first.
+     *
+     * @param view  The rectangle to test (in physics units)
+     * @param out   The array to add the obstacles to
+     */
+    public void query(Rectangle view, Array<T> out) {
+        int start = out.size;
+        out.addAll(unbounded);
+
+        int x0 = cell(view.x);
+        int y0 = cell(view.y);
+        int x1 = cell(view.x + view.width);
+        int y1 = cell(view.y + view.height);
+        found.clear();
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                Array<T> cell = cells.get(key(x, y));
+                if (cell == null) {
+                    continue;
+                }
+                for (int ii = 0; ii < cell.size; ii++) {
+                    T obj = cell.get(ii);
+                    if (found.add(obj) && obj.isVisible(view)) {
+                        out.add(obj);
+                    }
+                }
+            }
+        }
+        if (out.size - start > 1) {
+            Sort.instance().sort(out.items, byOrder, start, out.size);
+        }
+    }
+
+    /**
+     * Returns the index of the cell containing the given coordinate
+     *
+     * @param coord The x or y coordinate (in physics units)
+     *
+     * @return the index of the cell containing the given coordinate
+     */
+    private int cell(float coord) {
+        return (int)Math.floor(coord / cellSize);
+    }
+
+    /**
+     * Returns the key of the cell at the given indices
+     *
+     * @param x The column of the cell
+     * @param y The row of the cell
+     *
+     * @return the key of the cell at the given indices
+     */
+    private static long key(int x, int y) {
+        return ((long)x << 32) | (y & 0xffffffffL);
+    }
+}
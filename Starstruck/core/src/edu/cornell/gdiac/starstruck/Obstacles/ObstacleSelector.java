@@ -0,0 +1,169 @@
+/*
+ * ObstacleSelector.java
+ *
+ * Finds the obstacles under the mouse, or inside a rectangle, for the level editor.
+ * Instead of testing every obstacle in the level, this asks Box2D for the fixtures whose
+ * bounding boxes overlap the area.  Box2D keeps those boxes in a tree, so a query only
+ * looks at the obstacles nearby, however large the level is.
+ *
+ * This is based on the ObstacleSelector of the Rope demo, without the mouse joint.  The
+ * editor moves obstacles by setting their positions directly.
+ *
+ * Not every body in the world is an obstacle of the level.  The bosses own parts of their
+ * own (the anchors on a wheel), which the editor cannot add or remove.  The selector only
+ * returns obstacles its owner says belong to the level.
+ */
+package edu.cornell.gdiac.starstruck.Obstacles;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Selection tool to find the obstacles at a point or in an area.
+ *
+ * It must be attached to a World on creation, and this world can never change.  If you
+ * want a selector for a different World, make a new instance.
+ *
+ * The rope and its planks are never selected, as they cannot be edited on their own.
+ */
+public class ObstacleSelector implements QueryCallback {
+    /**
+     * The container of the obstacles that may be selected, usually the level.
+     */
+    public interface Owner {
+        /**
+         * Returns true if the obstacle belongs to this owner, and not to another obstacle.
+         *
+         * @param obj the obstacle found in the world
+         *
+         * @return true if the obstacle belongs to this owner
+         */
+        boolean owns(Obstacle obj);
+    }
+
+
+    /** The default size of the mouse pointer (in physics units) */
+    private static final float DEFAULT_MSIZE = 0.2f;
+
+    /** The World associated with this selection */
+    private final World world;
+    /** The owner of the obstacles that may be selected */
+    private final Owner owner;
+    /** The width and height of the mouse pointer */
+    private final Vector2 dimension;
+
+    // QUERY CACHE OBJECTS
+    /** Whether the current query is for a point (otherwise it is for an area) */
+    private boolean picking;
+    /** The point being picked */
+    private final Vector2 point = new Vector2();
+    /** The obstacle found at the point so far */
+    private Obstacle picked;
+    /** The area being selected */
+    private final Rectangle area = new Rectangle();
+    /** The obstacles found in the area */
+    private Array<Obstacle> found;
+    /** The obstacles already found (an obstacle may have several fixtures) */
+    private final ObjectSet<Obstacle> seen = new ObjectSet<Obstacle>();
+
+    /**
+     * Creates a new ObstacleSelector for the given World, with the default mouse size.
+     *
+     * @param world the physics world
+     * @param owner the owner of the obstacles that may be selected
+     */
+    public ObstacleSelector(World world, Owner owner) {
+        this(world, owner, DEFAULT_MSIZE, DEFAULT_MSIZE);
+    }
+
+    /**
+     * Creates a new ObstacleSelector for the given World and mouse size.
+     *
+     * @param world     the physics world
+     * @param owner     the owner of the obstacles that may be selected
+     * @param width     the width of the mouse pointer
+     * @param height    the height of the mouse pointer
+     */
+    public ObstacleSelector(World world, Owner owner, float width, float height) {
+        this.world = world;
+        this.owner = owner;
+        dimension = new Vector2(width, height);
+    }
+
+    /**
+     * Returns the obstacle at the given position, or null if there is none.
+     *
+     * An obstacle is only picked if it contains the point (see Obstacle.containsPoint).
+     * If several do, a planet is picked over anything else, as the editor has always
+     * done.
+     *
+     * @param x the x-coordinate (in physics space) to pick
+     * @param y the y-coordinate (in physics space) to pick
+     *
+     * @return the obstacle at the given position, or null if there is none.
+     */
+    public Obstacle pick(float x, float y) {
+        picking = true;
+        picked = null;
+        point.set(x, y);
+        world.QueryAABB(this, x - dimension.x/2, y - dimension.y/2, x + dimension.x/2, y + dimension.y/2);
+        Obstacle result = picked;
+        picked = null;
+        return result;
+    }
+
+    /**
+     * Finds every obstacle whose position is inside the given rectangle.
+     *
+     * The array is cleared first.  The obstacles are in no particular order.
+     *
+     * @param rect  the area (in physics space) to select
+     * @param out   the array to store the obstacles in
+     */
+    public void select(Rectangle rect, Array<Obstacle> out) {
+        picking = false;
+        area.set(rect);
+        found = out;
+        out.clear();
+        seen.clear();
+        world.QueryAABB(this, rect.x, rect.y, rect.x + rect.width, rect.y + rect.height);
+        found = null;
+        seen.clear();
+    }
+
+    //// QueryCallback
+    /**
+     * Called for each fixture found in the query AABB.
+     *
+     * The AABB is only an estimate, so each obstacle is tested before it is kept.  Parts
+     * of other obstacles are skipped.  The query always continues, since there may be a
+     * better match.
+     *
+     * @param fixture   the fixture found
+     *
+     * @return true to continue the query
+     */
+    public boolean reportFixture(Fixture fixture) {
+        Object data = fixture.getBody().getUserData();
+        if (!(data instanceof Obstacle)) {
+            return true;
+        }
+        Obstacle obj = (Obstacle)data;
+        if (obj.getType() == ObstacleType.ROPE || obj.getType() == ObstacleType.ROPE_PLANK) {
+            return true;
+        }
+
+        if (picking) {
+            if ((picked == null || obj.getType() == ObstacleType.PLANET) && obj.containsPoint(point)
+                    && owner.owns(obj)) {
+                picked = obj;
+            }
+        } else if (area.contains(obj.getX(), obj.getY()) && owner.owns(obj) && seen.add(obj)) {
+            found.add(obj);
+        }
+        return true;
+    }
+}
@@ -13,6 +13,7 @@ public enum ObstacleType {
     PLANET,
     PLAYER,
     ROPE,
+    ROPE_PLANK,
     ANCHOR,
     STAR,
     PORTAL,
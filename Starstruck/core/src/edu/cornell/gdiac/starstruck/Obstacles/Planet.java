@@ -289,6 +289,22 @@ public class Planet extends WheelObstacle {
 
     }
 
+    /**
+     * Returns the distance from the position of this planet to the farthest point drawn.
+     *
+     * This includes the gravity ring, which is much larger than the planet.
+     *
+     * @return the distance to the farthest point drawn (in physics units)
+     */
+    public float getDrawRadius() {
+        float rScale = grscale * scaleDraw * ((getRadius() + grange) / getRadius());
+        float ring = (float)Math.hypot(ringTexture.getRegionWidth(), ringTexture.getRegionHeight()) * rScale / 2
+                + getExtent(ringTexture, origin.x, origin.y, rScale);
+        float planet = (float)Math.hypot(texture.getRegionWidth(), texture.getRegionHeight()) * scaleDraw / 2
+                + getExtent(texture, origin.x, origin.y, scaleDraw);
+        return Math.max(ring, planet) / drawScale.x;
+    }
+
     public String toString() {
         String out = "Planet with {";
 
@@ -1,8 +1,10 @@
 package edu.cornell.gdiac.starstruck.Obstacles;
 
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
 import edu.cornell.gdiac.starstruck.Gravity.VectorWorld;
 import edu.cornell.gdiac.starstruck.Models.Bug;
@@ -18,6 +20,8 @@ import java.util.ArrayList;
  * Stores texture files, so that different galaxy themes can be selected.
  */
 public class PlanetList {
+    /** Size of a cell in the culling grid (in physics units), about a screen */
+    private static final float CELL_SIZE = 32.0f;
 
     /** The planets in this PlanetList*/
     private ArrayList<Planet> planets;
@@ -25,6 +29,9 @@ public class PlanetList {
     /** Scale to convert physics to pixels */
     private Vector2 scale;
 
+    /** The planets again, by location, to find the ones on screen */
+    private ObstacleGrid<Planet> grid;
+
     /**
      *  Constructs a new PlanetList by loading the appropriate sprites
      * @param scale The drawing scale
@@ -32,6 +39,7 @@ public class PlanetList {
     public PlanetList(Vector2 scale) {
 
         planets = new ArrayList<Planet>();
+        grid = new ObstacleGrid<Planet>(CELL_SIZE);
 
         this.scale = scale;
     }
@@ -51,6 +59,7 @@ public class PlanetList {
     public void addPlanet(Planet p, VectorWorld vectorWorld) {
         vectorWorld.addPlanet(p);
         planets.add(p);
+        grid.add(p);
     }
 
     /**
@@ -60,11 +69,15 @@ public class PlanetList {
      * @param i Index of planet to create.
      * @param world World this planet exists in.
      * @param vectorWorld VectorWorld controlling gravity for this planet.
+     * @param bug The bug on this planet (null for none)
      */
     public void addPlanet(float x, float y, int i, World world, VectorWorld vectorWorld, Bug bug) {
         Planet p = new Planet(x, y, i, world, scale, bug);
-        vectorWorld.addPlanet(p);
-        planets.add(p);
+        addPlanet(p, vectorWorld);
+
+        if (bug != null) {
+            bug.setPlanet(p);
+        }
     }
 
     /**
@@ -74,16 +87,7 @@ public class PlanetList {
      * @param vectorWorld VectorWorld controlling gravity for this planet.
      */
     public void addPlanet(JsonValue json, World world, VectorWorld vectorWorld, Bug buggy) {
-        float x = json.getFloat("x");
-        float y = json.getFloat("y");
-        int i = json.getInt("i");
-
-        Planet p = new Planet(x,y,i,world, scale, buggy);
-        addPlanet(p,vectorWorld);
-
-        if (buggy != null) {
-            buggy.setPlanet(p);
-        }
+        addPlanet(json.getFloat("x"), json.getFloat("y"), json.getInt("i"), world, vectorWorld, buggy);
     }
 
 //    /**
@@ -160,6 +164,7 @@ public class PlanetList {
      */
     public void clear() {
         planets = new ArrayList<Planet>();
+        grid.clear();
     }
 
     /**
@@ -169,6 +174,34 @@ public class PlanetList {
      */
     public void remove(Planet p) {
         planets.remove(p);
+        grid.remove(p);
+    }
+
+    /**
+     * Updates the location of planet p, after it has been moved
+     *
+     * Planets do not move during play, so this is only needed when editing.  The gravity
+     * of the planet is moved in vectorWorld as well.
+     *
+     * @param p The planet that moved
+     * @param vectorWorld VectorWorld controlling gravity for this planet.
+     */
+    public void moved(Planet p, VectorWorld vectorWorld) {
+        grid.update(p);
+        vectorWorld.updatePlanet(p);
+    }
+
+    /**
+     * Adds the planets that may draw inside the given rectangle to the given array.
+     *
+     * The planets are added in the same order as getPlanets(), without testing every
+     * planet.
+     *
+     * @param view The rectangle to test (in physics units)
+     * @param out The array to add the planets to
+     */
+    public void getVisible(Rectangle view, Array<Planet> out) {
+        grid.query(view, out);
     }
 
     public String toString() {
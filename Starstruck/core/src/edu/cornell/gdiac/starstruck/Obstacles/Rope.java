@@ -15,6 +15,7 @@
 package edu.cornell.gdiac.starstruck.Obstacles;
 
 import com.badlogic.gdx.math.*;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.physics.box2d.joints.*;
@@ -50,6 +51,30 @@ public class Rope extends ComplexObstacle {
     /** 0 vector */
     private static final Vector2 reset = new Vector2(0, 0);
 
+    // Adaptive resolution
+    /** Most links a single coarse plank may stand for */
+    private static final int MAX_SPAN = 4;
+    /** Planks at each end of the rope that are never coarsened (they hold the astronauts) */
+    private static final int END_PLANKS = 2;
+    /** Largest angle (radians) between two planks that still counts as a straight stretch */
+    private static final float STRAIGHT_TOLERANCE = 0.05f;
+    /** Largest joint reaction force of a slack stretch (same threshold as stretched) */
+    private static final float SLACK_FORCE = 10f;
+    /** Largest angle (radians) between a coarse plank and its neighbour before it is split back */
+    private static final float BEND_TOLERANCE = 0.3f;
+    /** Distance from other fixtures under which planks stay at full detail */
+    private static final float DETAIL_MARGIN = 1.5f;
+    /** Number of steps between attempts to coarsen the rope */
+    private static final int COARSEN_PERIOD = 10;
+
+    // Verlet solver
+    /** Distance around the rope searched for planets and stars */
+    private static final float VERLET_MARGIN = 2.0f;
+    /** Most planets the Verlet rope collides with in one step */
+    private static final int MAX_CIRCLES = 32;
+    /** Particle tension of a taut Verlet rope (slack links carry no tension at all) */
+    private static final float VERLET_TAUT_FORCE = 1.0f;
+
     // Invisible anchor objects
     /** The left side of the bridge */
     private WheelObstacle start = null;
@@ -88,6 +113,26 @@ public class Rope extends ComplexObstacle {
     /** Vector2 cache */
     private Vector2 dirCache = new Vector2();
 
+    /** Whether straight, slack stretches away from other fixtures are merged into longer planks */
+    private boolean adaptive = false;
+    /** Steps since the rope last tried to coarsen */
+    private int coarsenTicks = 0;
+    /** Cache for link centers when building the rope polygon */
+    private Vector2 vertexCache = new Vector2();
+    /** Callback for finding fixtures near a coarse plank */
+    private final NearbyQuery nearby = new NearbyQuery();
+
+    /** Particle rope used instead of the planks, or null to use Box2D */
+    private VerletRope verlet = null;
+    /** The texture of one link, kept here as the Verlet rope has no planks */
+    private TextureRegion linkTexture;
+    /** Length of the last Verlet step */
+    private float lastStep = WorldController.WORLD_STEP;
+    /** Callback for finding the planets and stars around the Verlet rope */
+    private final VerletQuery verletQuery = new VerletQuery();
+    /** Space star touched by the Verlet rope in the last step, or null */
+    private Star touchedStar = null;
+
     /**
      * Creates a new rope bridge at the given position.
      *
@@ -150,7 +195,7 @@ public class Rope extends ComplexObstacle {
             pos.set(norm);
             pos.scl(t);
             pos.add(x0,y0);
-            BoxObstacle plank = new BoxObstacle(pos.x, pos.y, planksize.x, planksize.y);
+            BoxObstacle plank = new Plank(pos.x, pos.y, planksize.x, planksize.y);
             plank.setName(PLANK_NAME+ii);
             plank.setDensity(BASIC_DENSITY);
             bodies.add(plank);
@@ -175,6 +220,9 @@ public class Rope extends ComplexObstacle {
      * @return true if object allocation succeeded
      */
     protected boolean createJoints(World world) {
+        if (verlet != null) {
+            return true;
+        }
         assert bodies.size() > 0;
 
         Vector2 anchor1 = new Vector2();
@@ -251,8 +299,68 @@ public class Rope extends ComplexObstacle {
 
     public void setReelForce(float value) { reel_force = value; }
 
+    /**
+     * Returns true if this rope adapts its resolution.
+     *
+     * @return true if this rope adapts its resolution.
+     */
+    public boolean isAdaptive() { return adaptive; }
+
+    /**
+     * Sets whether this rope adapts its resolution.
+     *
+     * An adaptive rope merges straight, slack stretches away from other fixtures into fewer,
+     * longer planks, and splits them back when they bend or come near anything they could touch.
+     *
+     * @param value whether this rope adapts its resolution.
+     */
+    public void setAdaptive(boolean value) { adaptive = value; }
+
+    /**
+     * Returns true if this rope is simulated by the Verlet solver instead of Box2D.
+     *
+     * @return true if this rope is simulated by the Verlet solver instead of Box2D.
+     */
+    public boolean isVerlet() { return verlet != null; }
+
+    /**
+     * Sets whether this rope is simulated by the Verlet solver instead of Box2D.
+     *
+     * The Verlet rope keeps its particles in packed arrays and only touches Box2D through the
+     * two astronaut bodies, so it costs far less than a long chain of planks and joints. This
+     * must be set before the rope is activated.
+     *
+     * @param value whether this rope is simulated by the Verlet solver.
+     */
+    public void setVerlet(boolean value) {
+        assert !bodyinfo.active : "Rope solver must be chosen before activation";
+        if (!value) {
+            verlet = null;
+            return;
+        }
+        float len = dimension.len();
+        verlet = new VerletRope(getX(), getY(), getX() + dimension.x * nlinks * linksize / len,
+                getY() + dimension.y * nlinks * linksize / len, nlinks, linksize,
+                BASIC_DENSITY * planksize.x * planksize.y);
+        bodies.clear();
+    }
+
     public Obstacle getCenterPlank() {
-        return bodies.get(bodies.size()/2);
+        // The plank holding the middle link, which is the middle plank unless planks are merged
+        return bodies.get(jointAtLink((getVertexCount() - 1)/2));
+    }
+
+    /**
+     * Returns the position of the middle of the rope.
+     *
+     * @return the position of the middle of the rope.
+     */
+    public Vector2 getCenter() {
+        if (verlet != null) {
+            int mid = verlet.size() / 2;
+            return new Vector2(verlet.getX(mid), verlet.getY(mid));
+        }
+        return getCenterPlank().getPosition();
     }
 
     /**
@@ -289,7 +397,7 @@ public class Rope extends ComplexObstacle {
         //Make the new plank
         Vector2 pos = new Vector2(lastPlank.getPosition().x + endPoint.x + linksize/2,
                 lastPlank.getPosition().y + endPoint.y);
-        BoxObstacle plank = new BoxObstacle(lastPlank.getPosition().x, lastPlank.getPosition().y, planksize.x, planksize.y);
+        BoxObstacle plank = new Plank(lastPlank.getPosition().x, lastPlank.getPosition().y, planksize.x, planksize.y);
         if (isAvatar2)
             plank.setName(PLANK_NAME+bodies.size());
         else
@@ -421,6 +529,13 @@ public class Rope extends ComplexObstacle {
      * @param isAvatar2 Is avatar2 the one going through the portal?
      */
     public Array<Joint> split( World world, boolean isAvatar2, Portal portal1, Portal portal2) {
+        if (verlet != null) {
+            return splitVerlet(isAvatar2, portal1, portal2);
+        }
+
+        // The portal logic assumes one plank per link
+        refineAll(world);
+
         Joint lastJoint;
         BoxObstacle plank1;
         BoxObstacle plank2;
@@ -527,6 +642,11 @@ public class Rope extends ComplexObstacle {
     }
 
     public void reconnect(World world, boolean isAvatar2, Joint joint1, Joint joint2, Vector2 portalPos) {
+        if (verlet != null) {
+            reconnectVerlet(isAvatar2, portalPos);
+            return;
+        }
+
         int connect = joints.indexOf(joint1);
         if (connect < 0) System.out.println("reconnect method, joint could not be found");
 
@@ -570,18 +690,26 @@ public class Rope extends ComplexObstacle {
      * @param isAvatar2 is avatar2 the one to be reeled
      */
     public void reel(boolean isAvatar2, Vector2 dir, Vector2 offset, boolean space) {
+        if (verlet != null) {
+            reelVerlet(isAvatar2, dir, offset, space);
+            return;
+        }
         BoxObstacle plank;
         BoxObstacle plank0;
         dir.setLength(reel_force);
+        // Halfway along the rope, counted in links so that coarse planks count for their length
+        int half = (getVertexCount() - 1)/2;
         //dir.add(offset);
         if (isAvatar2) {
+            // Links before plank i, kept as i walks back so the chain is only summed once
+            int links = linksBefore(bodies.size()-2);
             for (int i = bodies.size()-2; i >= 0; i--) { //i = bodies.size()-2;
                 plank = (BoxObstacle)bodies.get(i);
                 plank0 = (BoxObstacle)bodies.get(i+1);
                 dirCache = plank.getPosition().cpy().sub(plank0.getPosition());
                 dirCache.setLength(reel_force);
                 dirCache.add(offset);
-                if (i >= bodies.size()/2) {
+                if (links >= half) {
                     if (!space)
                         plank.setLinearVelocity(dir);
                     else {
@@ -598,17 +726,19 @@ public class Rope extends ComplexObstacle {
                     //plank.getBody().applyForceToCenter(dir, true);
                     //i--;
                 }
+                links -= spanOf(i-1) + spanOf(i-2);
                 i--;
             }
         }
         else {
+            int links = linksBefore(1);
             for (int i = 1; i < bodies.size(); i++) { //i < bodies.size()/2
                 plank = (BoxObstacle) bodies.get(i);
                 plank0 = (BoxObstacle) bodies.get(i-1);
                 dirCache = plank.getPosition().cpy().sub(plank0.getPosition());
                 dirCache.setLength(reel_force);
                 dirCache.add(offset);
-                if (i <= bodies.size()/2) {
+                if (links <= half) {
                     if (!space)
                         plank.setLinearVelocity(dir);
                     else {
@@ -625,6 +755,7 @@ public class Rope extends ComplexObstacle {
                     //plank.getBody().applyForceToCenter(dir, true);
                     //i++;
                 }
+                links += spanOf(i) + spanOf(i+1);
                 i++;
             }
         }
@@ -652,6 +783,7 @@ public class Rope extends ComplexObstacle {
      * @param texture the texture for the individual planks
      */
     public void setTexture(TextureRegion texture) {
+        linkTexture = texture;
         for(Obstacle body : bodies) {
             ((SimpleObstacle)body).setTexture(texture);
         }
@@ -664,27 +796,512 @@ public class Rope extends ComplexObstacle {
      */
     public TextureRegion getTexture() {
         if (bodies.size() == 0) {
-            return null;
+            return linkTexture;
         }
         return ((SimpleObstacle)bodies.get(0)).getTexture();
     }
 
     public Vector2[] getVertices() {
-        Vector2[] vertices = new Vector2[bodies.size() + 1]; //Number of planks - 1 to only get in between the planks, + 2 get each end
-        vertices[0] = avatar.getCurAnchor().getPosition();
-        vertices[bodies.size()] = avatar2.getCurAnchor().getPosition();
-        for (int i = 0; i < bodies.size() - 1; i++) {
-            int j = i + 1; // position in vertices array
-            BoxObstacle plank0 = (BoxObstacle)bodies.get(i);
-            BoxObstacle plank1 = (BoxObstacle)bodies.get(i + 1);
-            Vector2 dir = plank1.getPosition().cpy().sub(plank0.getPosition());
-            dir.scl(0.5f);
-            vertices[j] = plank0.getPosition().cpy().add(dir);
-
+        float[] xy = new float[2 * getVertexCount()];
+        int count = getVertices(xy);
+        Vector2[] vertices = new Vector2[count];
+        for (int i = 0; i < count; i++) {
+            vertices[i] = new Vector2(xy[2 * i], xy[2 * i + 1]);
         }
         return vertices;
     }
 
+    /**
+     * Returns the number of vertices of the rope polygon (one per link, plus one).
+     *
+     * @return the number of vertices of the rope polygon
+     */
+    public int getVertexCount() {
+        if (verlet != null) {
+            return verlet.size();
+        }
+        int links = 0;
+        for (Obstacle body : bodies) {
+            links += ((Plank)body).getSpan();
+        }
+        return links + 1;
+    }
+
+    /**
+     * Stores the rope polygon in out as packed (x, y) pairs, without allocating.
+     *
+     * The first and last vertices are the anchors of the two astronauts, and the ones in
+     * between are the joints between links. Coarse planks are expanded back into one center
+     * per link, so the polygon is the same as that of the fully detailed rope.
+     *
+     * @param out The buffer to fill, of at least twice getVertexCount() floats
+     * @return the number of vertices stored, or -1 if out is too small
+     */
+    public int getVertices(float[] out) {
+        int count = getVertexCount();
+        if (out.length < 2 * count) {
+            return -1;
+        }
+        Vector2 anchor = avatar.getCurAnchor().getPosition();
+        out[0] = anchor.x; out[1] = anchor.y;
+        anchor = avatar2.getCurAnchor().getPosition();
+        out[2 * count - 2] = anchor.x; out[2 * count - 1] = anchor.y;
+
+        if (verlet != null) {
+            // The particles already sit where the joints between planks would be
+            for (int i = 1; i < count - 1; i++) {
+                out[2 * i] = verlet.getX(i);
+                out[2 * i + 1] = verlet.getY(i);
+            }
+            return count;
+        }
+
+        // Vertex j is halfway between the centers of links j-1 and j
+        int j = 0;
+        float lastX = 0, lastY = 0;
+        for (Obstacle body : bodies) {
+            Plank plank = (Plank)body;
+            for (int k = 0; k < plank.getSpan(); k++) {
+                Vector2 center = plank.getSpan() == 1 ? plank.getPosition() :
+                        plank.getLinkCenter(k, linksize, vertexCache);
+                if (j > 0) {
+                    out[2 * j] = lastX + (center.x - lastX) * 0.5f;
+                    out[2 * j + 1] = lastY + (center.y - lastY) * 0.5f;
+                }
+                lastX = center.x; lastY = center.y;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Advances the Verlet rope by one step.
+     *
+     * The ends are placed on the astronauts, and the rope is solved against the planets around
+     * it. Each astronaut is then given an impulse that carries it as far as the rope moved its
+     * end over the next step, so that Box2D still resolves its contacts. An astronaut on a
+     * planet or an anchor is held in place and is not pulled.
+     *
+     * This must be called after the world step. It does nothing for a Box2D rope.
+     *
+     * @param world The world holding the rope
+     * @param dt    Length of the step
+     */
+    public void solve(World world, float dt) {
+        if (verlet == null) {
+            return;
+        }
+        lastStep = dt;
+        boolean pinned1 = avatar.getOnPlanet() || avatar.isAnchored();
+        boolean pinned2 = avatar2.getOnPlanet() || avatar2.isAnchored();
+        verlet.setEnd(false, avatar.getX(), avatar.getY(), pinned1 ? 0 : 1 / avatar.getMass());
+        verlet.setEnd(true, avatar2.getX(), avatar2.getY(), pinned2 ? 0 : 1 / avatar2.getMass());
+
+        // Gather the planets and stars around the rope
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < verlet.size(); i++) {
+            minX = Math.min(minX, verlet.getX(i)); maxX = Math.max(maxX, verlet.getX(i));
+            minY = Math.min(minY, verlet.getY(i)); maxY = Math.max(maxY, verlet.getY(i));
+        }
+        verletQuery.reset();
+        world.QueryAABB(verletQuery, minX - VERLET_MARGIN, minY - VERLET_MARGIN,
+                maxX + VERLET_MARGIN, maxY + VERLET_MARGIN);
+
+        verlet.step(dt, verletQuery.circles, verletQuery.ncircles);
+
+        touchedStar = null;
+        for (Star star : verletQuery.stars) {
+            float radius = Math.max(star.getWidth(), star.getHeight()) / 2;
+            if (verlet.touches(star.getX(), star.getY(), radius)) {
+                touchedStar = star;
+                break;
+            }
+        }
+
+        if (!pinned1) {
+            pull(avatar, verlet.getEndDX(false), verlet.getEndDY(false), dt);
+        }
+        if (!pinned2) {
+            pull(avatar2, verlet.getEndDX(true), verlet.getEndDY(true), dt);
+        }
+    }
+
+    /**
+     * Returns the space star touched by the Verlet rope in the last step, or null.
+     *
+     * A Box2D rope reports these through its contacts instead.
+     *
+     * @return the space star touched by the rope in the last step, or null.
+     */
+    public Star getTouchedStar() {
+        return touchedStar;
+    }
+
+    /**
+     * Applies the impulse that moves astro by (dx,dy) over the next step.
+     */
+    private void pull(AstronautModel astro, float dx, float dy, float dt) {
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+        dirCache.set(dx, dy).scl(astro.getMass() / dt);
+        astro.getBody().applyLinearImpulse(dirCache, astro.getBody().getWorldCenter(), true);
+    }
+
+    /**
+     * Cuts the Verlet rope at its middle link, for an astronaut going through a portal.
+     *
+     * The particles on the side of that astronaut are moved to the leading portal. There are
+     * no joints to hand back, so both entries of the result are null.
+     */
+    private Array<Joint> splitVerlet(boolean isAvatar2, Portal portal1, Portal portal2) {
+        int k = verlet.size() / 2 - 1;
+        Vector2 trail = portal1.getPosition();
+        Vector2 lead = portal2.getPosition();
+        if (isAvatar2) {
+            verlet.moveAll(k + 1, verlet.size() - 1, lead.x, lead.y);
+            verlet.cut(k, trail.x, trail.y, lead.x, lead.y);
+        } else {
+            verlet.moveAll(1, k + 1, lead.x, lead.y);
+            verlet.cut(k, lead.x, lead.y, trail.x, trail.y);
+        }
+
+        Array<Joint> result = new Array<Joint>(2);
+        result.add(null);
+        result.add(null);
+        return result;
+    }
+
+    /**
+     * Restores the link cut by splitVerlet, moving the particles on the side of the
+     * astronaut coming back to the portal it came out of.
+     */
+    private void reconnectVerlet(boolean isAvatar2, Vector2 portalPos) {
+        int k = verlet.getCut();
+        if (k < 0) {
+            System.out.println("reconnect method, rope was not split");
+            return;
+        }
+        if (isAvatar2) {
+            verlet.moveAll(k + 1, verlet.size() - 1, portalPos.x, portalPos.y);
+        } else {
+            verlet.moveAll(1, k + 1, portalPos.x, portalPos.y);
+        }
+        verlet.join();
+    }
+
+    /**
+     * Pulls the Verlet rope towards one astronaut, in the same pattern as reel does planks.
+     */
+    private void reelVerlet(boolean isAvatar2, Vector2 dir, Vector2 offset, boolean space) {
+        int size = verlet.size();
+        dir.setLength(reel_force);
+        if (isAvatar2) {
+            for (int i = size - 2; i >= 1; i -= 2) {
+                dirCache.set(verlet.getX(i) - verlet.getX(i + 1), verlet.getY(i) - verlet.getY(i + 1));
+                dirCache.setLength(reel_force);
+                dirCache.add(offset);
+                reelParticle(i, i >= size/2 ? dir : dirCache, space);
+            }
+        }
+        else {
+            for (int i = 1; i < size - 1; i += 2) {
+                dirCache.set(verlet.getX(i) - verlet.getX(i - 1), verlet.getY(i) - verlet.getY(i - 1));
+                dirCache.setLength(reel_force);
+                dirCache.add(offset);
+                reelParticle(i, i <= size/2 ? dir : dirCache, space);
+            }
+        }
+    }
+
+    /**
+     * Moves particle i along v, setting its velocity on a planet and pushing it in space.
+     */
+    private void reelParticle(int i, Vector2 v, boolean space) {
+        if (!space) {
+            verlet.setVelocity(i, v.x, v.y, lastStep);
+        } else {
+            verlet.applyForce(i, v.x * 0.2f, v.y * 0.2f, lastStep);
+        }
+    }
+
+    /**
+     * Draws the rope.
+     *
+     * A Verlet rope draws one link texture along each link.
+     *
+     * @param canvas Drawing context
+     */
+    public void draw(GameCanvas canvas) {
+        if (verlet == null) {
+            super.draw(canvas);
+            return;
+        }
+        if (linkTexture == null) {
+            return;
+        }
+        float ox = linkTexture.getRegionWidth() / 2.0f;
+        float oy = linkTexture.getRegionHeight() / 2.0f;
+        for (int i = 0; i < verlet.size() - 1; i++) {
+            if (i == verlet.getCut()) {
+                continue;
+            }
+            float x0 = verlet.getX(i), y0 = verlet.getY(i);
+            float x1 = verlet.getX(i + 1), y1 = verlet.getY(i + 1);
+            float angle = MathUtils.atan2(y1 - y0, x1 - x0);
+            canvas.draw(linkTexture, Color.WHITE, ox, oy, (x0 + x1) / 2 * drawScale.x,
+                    (y0 + y1) / 2 * drawScale.y, angle, 1, 1);
+        }
+    }
+
+    /**
+     * Adapts the resolution of the rope to what is around it.
+     *
+     * Coarse planks that come near any fixture other than the rope, or where the rope bends
+     * sharply, are split back into one plank per link right away. Every few steps, neighbouring
+     * planks that are straight, slack and away from other fixtures are merged into a single
+     * longer plank. The planks at each end, which hold the astronauts and their anchors, are
+     * always kept at full detail.
+     *
+     * Whether the rope is on screen does not matter, as it nearly always is during play.
+     *
+     * This must be called outside of the world step, as it creates and destroys bodies. It does
+     * nothing while the rope is split by a portal.
+     *
+     * @param world The world holding the rope
+     * @param dt    Length of the last step, to measure joint tension
+     */
+    public void adapt(World world, float dt) {
+        if (!adaptive || joints.size() != bodies.size() + 1) {
+            return;
+        }
+
+        for (int i = bodies.size() - 1; i >= 0; i--) {
+            if (((Plank)bodies.get(i)).getSpan() > 1 && needsDetail(world, i)) {
+                refine(world, i);
+            }
+        }
+
+        if (++coarsenTicks < COARSEN_PERIOD) {
+            return;
+        }
+        coarsenTicks = 0;
+        int i = END_PLANKS;
+        while (i + 1 < bodies.size() - END_PLANKS) {
+            if (canMerge(world, i, dt)) {
+                merge(world, i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Splits every coarse plank back into one plank per link.
+     *
+     * @param world The world holding the rope
+     */
+    public void refineAll(World world) {
+        if (joints.size() != bodies.size() + 1) {
+            return;
+        }
+        for (int i = bodies.size() - 1; i >= 0; i--) {
+            if (((Plank)bodies.get(i)).getSpan() > 1) {
+                refine(world, i);
+            }
+        }
+    }
+
+    /**
+     * Returns true if planks i and i+1 may be merged into one.
+     */
+    private boolean canMerge(World world, int i, float dt) {
+        Plank plank0 = (Plank)bodies.get(i);
+        Plank plank1 = (Plank)bodies.get(i + 1);
+        if (plank0.getSpan() + plank1.getSpan() > MAX_SPAN) {
+            return false;
+        }
+        if (bend(i, i + 1) > STRAIGHT_TOLERANCE) {
+            return false;
+        }
+        if (joints.get(i + 1).getReactionForce(1 / dt).len() > SLACK_FORCE) {
+            return false;
+        }
+        return !needsDetail(world, i) && !needsDetail(world, i + 1);
+    }
+
+    /**
+     * Returns true if plank i must be at full detail.
+     *
+     * That is when the rope bends sharply at either end of the plank, or when the plank is near
+     * a fixture that is not part of the rope, and so may be about to touch it.
+     */
+    private boolean needsDetail(World world, int i) {
+        if ((i > 0 && bend(i - 1, i) > BEND_TOLERANCE) ||
+                (i + 1 < bodies.size() && bend(i, i + 1) > BEND_TOLERANCE)) {
+            return true;
+        }
+        Plank plank = (Plank)bodies.get(i);
+        float reach = plank.getWidth() / 2 + DETAIL_MARGIN;
+        float x = plank.getX(); float y = plank.getY();
+        nearby.found = false;
+        world.QueryAABB(nearby, x - reach, y - reach, x + reach, y + reach);
+        return nearby.found;
+    }
+
+    /**
+     * Returns the angle (radians) between planks i and j.
+     */
+    private float bend(int i, int j) {
+        float bend = Math.abs(bodies.get(j).getAngle() - bodies.get(i).getAngle()) % MathUtils.PI2;
+        return Math.min(bend, MathUtils.PI2 - bend);
+    }
+
+    /**
+     * Returns the number of links before plank i.
+     *
+     * This is the same as i unless planks have been merged.
+     */
+    private int linksBefore(int i) {
+        int links = 0;
+        for (int k = 0; k < i; k++) {
+            links += spanOf(k);
+        }
+        return links;
+    }
+
+    /**
+     * Returns the number of links plank i stands for, or 0 if there is no plank i.
+     */
+    private int spanOf(int i) {
+        return i >= 0 && i < bodies.size() ? ((Plank)bodies.get(i)).getSpan() : 0;
+    }
+
+    /**
+     * Returns the index of the joint at the given link joint of the fully detailed rope.
+     *
+     * Joint k of the fully detailed rope is in front of link k.  If that link is inside a coarse
+     * plank, this is the joint in front of that plank.  This is the same as k unless planks have
+     * been merged.
+     */
+    private int jointAtLink(int k) {
+        int i = 0;
+        int links = 0;
+        while (i < bodies.size() && links + ((Plank)bodies.get(i)).getSpan() <= k) {
+            links += ((Plank)bodies.get(i)).getSpan();
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Merges planks i and i+1 into a single plank spanning both.
+     *
+     * The new plank runs from the free end of plank i to the free end of plank i+1, and keeps
+     * their momentum.
+     */
+    private void merge(World world, int i) {
+        Plank plank0 = (Plank)bodies.get(i);
+        Plank plank1 = (Plank)bodies.get(i + 1);
+        int span = plank0.getSpan() + plank1.getSpan();
+
+        Vector2 end0 = plank0.getAxisPoint(-plank0.getWidth() / 2, new Vector2());
+        Vector2 end1 = plank1.getAxisPoint(plank1.getWidth() / 2, new Vector2());
+        Vector2 center = end0.cpy().add(end1).scl(0.5f);
+        float angle = MathUtils.atan2(end1.y - end0.y, end1.x - end0.x);
+
+        Vector2 velocity = plank0.getLinearVelocity().cpy().scl(plank0.getSpan());
+        velocity.mulAdd(plank1.getLinearVelocity(), plank1.getSpan()).scl(1.0f / span);
+        float spin = (plank0.getAngularVelocity() * plank0.getSpan() +
+                plank1.getAngularVelocity() * plank1.getSpan()) / span;
+
+        for (int k = 0; k < 3; k++) {
+            world.destroyJoint(joints.remove(i));
+        }
+        bodies.remove(i + 1).deactivatePhysics(world);
+        bodies.remove(i).deactivatePhysics(world);
+
+        Plank plank = makePlank(world, i, center, angle, span, plank0.getName());
+        plank.setLinearVelocity(velocity);
+        plank.setAngularVelocity(spin);
+        joints.add(i, joinPlanks(world, i));
+        joints.add(i + 1, joinPlanks(world, i + 1));
+    }
+
+    /**
+     * Splits the coarse plank i back into one plank per link.
+     */
+    private void refine(World world, int i) {
+        Plank coarse = (Plank)bodies.get(i);
+        int span = coarse.getSpan();
+        float angle = coarse.getAngle();
+        float spin = coarse.getAngularVelocity();
+        Vector2[] centers = new Vector2[span];
+        Vector2[] velocities = new Vector2[span];
+        for (int k = 0; k < span; k++) {
+            centers[k] = coarse.getLinkCenter(k, linksize, new Vector2());
+            velocities[k] = coarse.getBody().getLinearVelocityFromWorldPoint(centers[k]).cpy();
+        }
+
+        world.destroyJoint(joints.remove(i));
+        world.destroyJoint(joints.remove(i));
+        bodies.remove(i).deactivatePhysics(world);
+
+        for (int k = 0; k < span; k++) {
+            Plank plank = makePlank(world, i + k, centers[k], angle, 1, PLANK_NAME + (i + k));
+            plank.setLinearVelocity(velocities[k]);
+            plank.setAngularVelocity(spin);
+        }
+        for (int k = 0; k <= span; k++) {
+            joints.add(i + k, joinPlanks(world, i + k));
+        }
+    }
+
+    /**
+     * Creates a plank spanning the given number of links, and adds it to the rope at index i.
+     */
+    private Plank makePlank(World world, int i, Vector2 center, float angle, int span, String name) {
+        Plank plank = new Plank(center.x, center.y, span * linksize, planksize.y, span);
+        plank.setName(name);
+        plank.setDensity(BASIC_DENSITY);
+        plank.setAngle(angle);
+        plank.setTexture(getTexture());
+        plank.setDrawScale(drawScale);
+        bodies.add(i, plank);
+        plank.activatePhysics(world);
+        return plank;
+    }
+
+    /**
+     * Creates the joint in front of plank k.
+     *
+     * This joins plank k-1 (or the first astronaut) to plank k (or the second astronaut), in the
+     * same way as createJoints.
+     */
+    private Joint joinPlanks(World world, int k) {
+        RevoluteJointDef jointDef = new RevoluteJointDef();
+        if (k == 0) {
+            jointDef.bodyA = avatar.getBody();
+            jointDef.localAnchorA.set(0, 0);
+        } else {
+            BoxObstacle plank = (BoxObstacle)bodies.get(k - 1);
+            jointDef.bodyA = plank.getBody();
+            jointDef.localAnchorA.set(plank.getWidth() / 2, 0);
+        }
+        if (k == bodies.size()) {
+            jointDef.bodyB = avatar2.getBody();
+            jointDef.localAnchorB.set(0, 0);
+        } else {
+            BoxObstacle plank = (BoxObstacle)bodies.get(k);
+            jointDef.bodyB = plank.getBody();
+            jointDef.localAnchorB.set(-plank.getWidth() / 2, 0);
+        }
+        jointDef.collideConnected = false;
+        return world.createJoint(jointDef);
+    }
+
     /**
      * The rope is stretched if a joint of the rope has a reaction force greater than 10.
      * 0 = avatar1's side
@@ -695,22 +1312,36 @@ public class Rope extends ComplexObstacle {
      * @return True if rope is completely stretched, false otherwise
      */
     public boolean stretched(float dt, int c) {
+        if (verlet != null) {
+            // Particle i stands for joint i of the plank chain
+            int size = verlet.size();
+            if (c == 0)
+                return verlet.getTension(1) > VERLET_TAUT_FORCE;
+            else if (c == 2)
+                return verlet.getTension(size - 2) > VERLET_TAUT_FORCE;
+            else if (c == 3)
+                return verlet.getTension(1) > VERLET_TAUT_FORCE && verlet.getTension(size/2) > VERLET_TAUT_FORCE
+                        && verlet.getTension(size - 2) > VERLET_TAUT_FORCE;
+            return verlet.getTension(size/2) > VERLET_TAUT_FORCE;
+        }
+        // Joints are picked as on the fully detailed rope, so merged planks do not move them
+        int size = joints.size() + (getVertexCount() - 1) - bodies.size();
         int index = -1;
         if (c == 0)
             index = 1;
         else if (c == 2)
-            index = joints.size() - 2;
+            index = size - 2;
         else if (c == 3) {
-            Joint joint1 = joints.get(1);
-            Joint joint2 = joints.get(joints.size()/2);
-            Joint joint3 = joints.get(joints.size()-2);
+            Joint joint1 = joints.get(jointAtLink(1));
+            Joint joint2 = joints.get(jointAtLink(size/2));
+            Joint joint3 = joints.get(jointAtLink(size-2));
             return joint1.getReactionForce(1/dt).len() > 10 && joint2.getReactionForce(1/dt).len() > 10
                     && joint3.getReactionForce(1/dt).len() > 10;
         }
         else
-            index = joints.size()/2;
+            index = size/2;
         if (index < 0) System.out.println("problem with Rope.stretched");
-        Joint joint = joints.get(index);
+        Joint joint = joints.get(jointAtLink(index));
         if (joint.getReactionForce(1/dt).len() > 10) return true;
         return false;
     }
@@ -730,6 +1361,12 @@ public class Rope extends ComplexObstacle {
         //Write width
 
         json.addChild("rope width", new JsonValue(dimension.x));
+        if (verlet != null) {
+            json.addChild("verlet", new JsonValue(true));
+        }
+        if (adaptive) {
+            json.addChild("adaptive", new JsonValue(true));
+        }
 
         //System.out.println(json);
 
@@ -739,6 +1376,127 @@ public class Rope extends ComplexObstacle {
 
     public ObstacleType getType() { return ObstacleType.ROPE;}
 
+    /**
+     * A single plank of the rope.
+     *
+     * Planks have their own type so that contacts with the rope can be told apart by type.
+     */
+    public static class Plank extends BoxObstacle {
+        /** Number of rope links this plank stands for */
+        private int span;
+
+        /**
+         * Creates a new plank centered at (x,y) with the given size.
+         *
+         * @param x  		Initial x position of the plank center
+         * @param y  		Initial y position of the plank center
+         * @param width		The plank length
+         * @param height	The plank thickness
+         */
+        public Plank(float x, float y, float width, float height) {
+            this(x, y, width, height, 1);
+        }
+
+        /**
+         * Creates a new plank centered at (x,y) that stands for span links of the rope.
+         *
+         * @param x  		Initial x position of the plank center
+         * @param y  		Initial y position of the plank center
+         * @param width		The plank length (span times the link length)
+         * @param height	The plank thickness
+         * @param span      The number of links this plank stands for
+         */
+        public Plank(float x, float y, float width, float height, int span) {
+            super(x, y, width, height);
+            this.span = span;
+        }
+
+        /**
+         * Returns the number of rope links this plank stands for
+         *
+         * @return the number of rope links this plank stands for
+         */
+        public int getSpan() { return span; }
+
+        /**
+         * Stores in out the center of link k of this plank, for links of the given length.
+         *
+         * @param k         The link index, from the end of the plank closest to the first astronaut
+         * @param linksize  The length of one link
+         * @param out       The vector to store the result in
+         * @return out, for chaining
+         */
+        public Vector2 getLinkCenter(int k, float linksize, Vector2 out) {
+            return getAxisPoint(-getWidth() / 2 + linksize * (k + 0.5f), out);
+        }
+
+        /**
+         * Stores in out the point at the given distance from the center, along the plank.
+         *
+         * @param offset    The distance from the center (negative towards the first astronaut)
+         * @param out       The vector to store the result in
+         * @return out, for chaining
+         */
+        public Vector2 getAxisPoint(float offset, Vector2 out) {
+            float angle = getAngle();
+            return out.set(getX() + offset * (float)Math.cos(angle), getY() + offset * (float)Math.sin(angle));
+        }
+
+        public ObstacleType getType() { return ObstacleType.ROPE_PLANK;}
+    }
+
+    /**
+     * AABB query that looks for any fixture that is not part of a rope.
+     */
+    private static class NearbyQuery implements QueryCallback {
+        /** Whether the last query found such a fixture */
+        boolean found;
+
+        public boolean reportFixture(Fixture fixture) {
+            if (fixture.getBody().getUserData() instanceof Plank) {
+                return true;
+            }
+            found = true;
+            return false;
+        }
+    }
+
+    /**
+     * AABB query that collects the planets (as packed circles) and space stars near the
+     * Verlet rope.
+     */
+    private static class VerletQuery implements QueryCallback {
+        /** Planets found, as (x, y, radius) triples */
+        final float[] circles = new float[3 * MAX_CIRCLES];
+        /** Number of planets found */
+        int ncircles;
+        /** Space stars found */
+        final Array<Star> stars = new Array<Star>();
+
+        /** Clears the results of the last query */
+        void reset() {
+            ncircles = 0;
+            stars.clear();
+        }
+
+        public boolean reportFixture(Fixture fixture) {
+            Object data = fixture.getBody().getUserData();
+            if (data instanceof Planet && ncircles < MAX_CIRCLES) {
+                Planet planet = (Planet)data;
+                circles[3 * ncircles] = planet.getX();
+                circles[3 * ncircles + 1] = planet.getY();
+                circles[3 * ncircles + 2] = planet.getRadius();
+                ncircles++;
+            } else if (data instanceof Star) {
+                Star star = (Star)data;
+                if (star.getType() == ObstacleType.STAR && star.getLoc().equals("space") && !stars.contains(star, true)) {
+                    stars.add(star);
+                }
+            }
+            return true;
+        }
+    }
+
     public boolean containsPoint(Vector2 point) {
         return false; //TODO Change later
     }
@@ -85,6 +85,9 @@ public abstract class SimpleObstacle extends Obstacle {
      * @return the current position for this physics body
      */
     public Vector2 getPosition() {
+        if (interpolating) {
+            return interpPosition;
+        }
         return (body != null ? body.getPosition() : super.getPosition());
     }
 
@@ -124,6 +127,9 @@ public abstract class SimpleObstacle extends Obstacle {
      * @return the x-coordinate for this physics body
      */
     public float getX() {
+        if (interpolating) {
+            return interpPosition.x;
+        }
         return (body != null ? body.getPosition().x : super.getX());
     }
 
@@ -147,6 +153,9 @@ public abstract class SimpleObstacle extends Obstacle {
      * @return the y-coordinate for this physics body
      */
     public float getY() {
+        if (interpolating) {
+            return interpPosition.y;
+        }
         return (body != null ? body.getPosition().y : super.getY());
     }
 
@@ -172,6 +181,9 @@ public abstract class SimpleObstacle extends Obstacle {
      * @return the angle of rotation for this body
      */
     public float getAngle() {
+        if (interpolating) {
+            return interpAngle;
+        }
         return (body != null ? body.getAngle() : super.getAngle());
     }
 
@@ -771,6 +783,39 @@ public abstract class SimpleObstacle extends Obstacle {
         origin.set(texture.getRegionWidth()/2.0f, texture.getRegionHeight()/2.0f);
     }
 
+    /**
+     * Returns the distance from the position of this object to the farthest point drawn.
+     *
+     * This assumes the texture is drawn at the position, about its origin, unscaled.
+     *
+     * @return the distance to the farthest point drawn (in physics units)
+     */
+    public float getDrawRadius() {
+        return getExtent(texture, origin.x, origin.y, 1) / drawScale.x;
+    }
+
+    /**
+     * Returns the distance from the origin of a region to its farthest corner, in pixels.
+     *
+     * This is how far the region can reach from the point it is drawn at, whatever
+     * the rotation (or flip).
+     *
+     * @param region    The region drawn (or null for none)
+     * @param ox        The x-coordinate of the origin in the region
+     * @param oy        The y-coordinate of the origin in the region
+     * @param scale     The scale the region is drawn at
+     *
+     * @return the distance from the origin of a region to its farthest corner
+     */
+    protected static float getExtent(TextureRegion region, float ox, float oy, float scale) {
+        if (region == null) {
+            return 0;
+        }
+        float dx = Math.max(Math.abs(ox), Math.abs(region.getRegionWidth() - ox));
+        float dy = Math.max(Math.abs(oy), Math.abs(region.getRegionHeight() - oy));
+        return (float)Math.sqrt(dx*dx + dy*dy) * Math.abs(scale);
+    }
+
     /**
      * Draws the physics object.
      *
@@ -832,6 +877,9 @@ public abstract class SimpleObstacle extends Obstacle {
 
         // Only initialize if a body was created.
         if (body != null) {
+            // Cull pairs that never interact in the broad phase
+            CollisionMatrix.setFilter(getType(), fixture.filter);
+            fixture.isSensor |= CollisionMatrix.isSensor(getType());
             createFixtures();
             return true;
         }
@@ -165,6 +165,20 @@ public class Star extends BoxObstacle {
         this.location = location;
     }
 
+    /**
+     * Create a new star at (x,y) with the given texture, draw scale and location.
+     * @param x X coord of the new star
+     * @param y Y coord of the new star
+     * @param texture Texture for the new star
+     * @param scale Draw scale for the new star
+     * @param location Whether this star is in space or on planet
+     */
+    public Star(float x, float y, TextureRegion texture, Vector2 scale, String location) {
+        this(x, y, texture.getRegionWidth()/scale.x, texture.getRegionHeight()/scale.y, location);
+        setDrawScale(scale);
+        setTexture(texture);
+    }
+
     public String getLoc() { return location; }
 
     public String getColor() { return color; }
@@ -199,11 +213,7 @@ public class Star extends BoxObstacle {
         String key = json.get("texture").asString();
         TextureRegion texture = JsonAssetManager.getInstance().getEntry(key, TextureRegion.class);
         String location = json.get("location").asString();
-        Star out =  new Star(json.get("x").asFloat(), json.get("y").asFloat(),
-                texture.getRegionWidth()/scale.x, texture.getRegionHeight()/scale.y, location);
-        out.setDrawScale(scale);
-        out.setTexture(texture);
-        return out;
+        return new Star(json.get("x").asFloat(), json.get("y").asFloat(), texture, scale, location);
     }
 
     /**
@@ -339,18 +349,10 @@ public class Star extends BoxObstacle {
 //            else System.out.println("Didn't draw tutorial point");
         }
         else if (getType() == ObstacleType.STAR){
-            if (galaxy == Galaxy.SOMBRERO) {
-                if (isSparkling)
-                    canvas.draw(sparkle, Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.x, getAngle(), 1, 1);
-                else
-                    canvas.draw(texture, Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.x, getAngle(), starScale, starScale);
-            }
-            else {
-                if (isSparkling)
-                    canvas.draw(sparkle, Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.x, getAngle(), 1, 1);
-                else
-                    canvas.draw(texture, Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.x, getAngle(), starScale, starScale);
-            }
+            if (isSparkling)
+                drawGlow(canvas);
+            else
+                drawBody(canvas);
         }
 
         else if (getType() == ObstacleType.SPEECH_BUBBLE) {
@@ -358,4 +360,52 @@ public class Star extends BoxObstacle {
             canvas.draw(texture, Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.x, getAngle(), starScale, starScale);
         }
     }
+
+    /**
+     * Returns true if this star has been collected and is sparkling
+     *
+     * @return true if this star is sparkling
+     */
+    public boolean hasGlow() {
+        return getType() == ObstacleType.STAR && isSparkling;
+    }
+
+    /**
+     * Draws the sparkle of a collected star.
+     *
+     * @param canvas Drawing context
+     */
+    public void drawGlow(GameCanvas canvas) {
+        if (hasGlow()) {
+            canvas.draw(sparkle, Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.x, getAngle(), 1, 1);
+        }
+    }
+
+    /**
+     * Draws the physics object without its sparkle.
+     *
+     * A sparkling star is only its sparkle, so this draws nothing for one.
+     *
+     * @param canvas Drawing context
+     */
+    public void drawBody(GameCanvas canvas) {
+        if (getType() == ObstacleType.STAR) {
+            if (!isSparkling) {
+                canvas.draw(texture, Color.WHITE, origin.x, origin.y, getX() * drawScale.x, getY() * drawScale.x, getAngle(), starScale, starScale);
+            }
+        } else {
+            draw(canvas);
+        }
+    }
+
+    /**
+     * Returns the distance from the position of this star to the farthest point drawn.
+     *
+     * @return the distance to the farthest point drawn (in physics units)
+     */
+    public float getDrawRadius() {
+        float extent = Math.max(getExtent(texture, origin.x, origin.y, starScale),
+                                getExtent(sparkle, origin.x, origin.y, 1));
+        return Math.max(extent, getExtent(tutText, origin.x, origin.y, 1)) / drawScale.x;
+    }
 }
@@ -0,0 +1,231 @@
+package edu.cornell.gdiac.starstruck.Obstacles;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * Finds the stars enclosed by the rope.
+ *
+ * The rope polygon is cached in a float buffer that is reused every step, together with its
+ * bounding box. The stars of a level do not move, so they are indexed once in a uniform grid;
+ * a query only visits the cells under the bounding box, and only runs the winding-number test
+ * for the stars inside it.
+ *
+ * The polygon is closed by the straight line between the two ends of the rope, so a star
+ * outside the bounding box can never be enclosed.
+ *
+ * Only space stars are kept, as they are the only stars the rope can collect.
+ */
+public class StarEnclosure {
+
+    /** Default side length of one grid cell (physics units) */
+    public static final float DEFAULT_CELL_SIZE = 2.0f;
+
+    /** Side length of one grid cell (physics units) */
+    private final float cellSize;
+    /** Stars in each cell, keyed by packed cell coordinates */
+    private LongMap<Array<Star>> cells;
+
+    /** The rope polygon, as packed (x, y) pairs */
+    private float[] polygon = new float[64];
+    /** Number of vertices in the polygon */
+    private int count = 0;
+    /** Bounding box of the polygon */
+    private float minX, minY, maxX, maxY;
+
+    /**
+     * Creates an empty enclosure test with the default cell size.
+     */
+    public StarEnclosure() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Creates an empty enclosure test with grid cells of the given size.
+     *
+     * @param cellSize Side length of one grid cell (physics units)
+     */
+    public StarEnclosure(float cellSize) {
+        this.cellSize = cellSize;
+        cells = new LongMap<Array<Star>>();
+    }
+
+    /**
+     * Add star s to the grid, if it is a space star.
+     *
+     * Tutorial stars and stars on planets are ignored, since the rope cannot collect them.
+     *
+     * @param s The star to add
+     */
+    public void add(Star s) {
+        if (s.getType() != ObstacleType.STAR || !"space".equals(s.getLoc())) {
+            return;
+        }
+        long key = key(cell(s.getX()), cell(s.getY()));
+        Array<Star> bucket = cells.get(key);
+        if (bucket == null) {
+            bucket = new Array<Star>(false, 4);
+            cells.put(key, bucket);
+        }
+        bucket.add(s);
+    }
+
+    /**
+     * Remove star s from the grid.
+     *
+     * @param s The star to remove
+     * @return True if the star was in the grid
+     */
+    public boolean remove(Star s) {
+        long key = key(cell(s.getX()), cell(s.getY()));
+        Array<Star> bucket = cells.get(key);
+        if (bucket == null || !bucket.removeValue(s, true)) {
+            return false;
+        }
+        if (bucket.size == 0) {
+            cells.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * Remove all stars from the grid.
+     */
+    public void clear() {
+        cells.clear();
+        count = 0;
+    }
+
+    /**
+     * Copy the current shape of rope into the polygon, and update its bounding box.
+     *
+     * @param rope The rope to read
+     */
+    public void update(Rope rope) {
+        int needed = 2 * rope.getVertexCount();
+        if (polygon.length < needed) {
+            polygon = new float[Math.max(needed, 2 * polygon.length)];
+        }
+        count = rope.getVertices(polygon);
+        updateBounds();
+    }
+
+    /**
+     * Copy the given polygon, and update its bounding box.
+     *
+     * @param vertices The polygon, as packed (x, y) pairs
+     * @param n The number of vertices
+     */
+    public void update(float[] vertices, int n) {
+        if (polygon.length < 2 * n) {
+            polygon = new float[Math.max(2 * n, 2 * polygon.length)];
+        }
+        System.arraycopy(vertices, 0, polygon, 0, 2 * n);
+        count = n;
+        updateBounds();
+    }
+
+    /**
+     * Recompute the bounding box of the polygon.
+     */
+    private void updateBounds() {
+        minX = minY = Float.MAX_VALUE;
+        maxX = maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            float x = polygon[2 * i]; float y = polygon[2 * i + 1];
+            minX = Math.min(minX, x); maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y); maxY = Math.max(maxY, y);
+        }
+    }
+
+    /**
+     * Returns true if the point (x,y) is enclosed by the polygon.
+     *
+     * @param x The x coordinate of the point
+     * @param y The y coordinate of the point
+     * @return True if the point is enclosed by the polygon
+     */
+    public boolean contains(float x, float y) {
+        if (count < 3 || x < minX || x > maxX || y < minY || y > maxY) {
+            return false;
+        }
+        int wn = 0;
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            float x0 = polygon[2 * i]; float y0 = polygon[2 * i + 1];
+            float x1 = polygon[2 * j]; float y1 = polygon[2 * j + 1];
+            float left = (x1 - x0) * (y - y0) - (x - x0) * (y1 - y0);
+
+            //If edge goes upwards and point is to the left, increase wn
+            if (y >= y0 && y < y1) {
+                if (left > 0) {
+                    wn++;
+                }
+            }
+            //If edge goes downwards and point is to the right, decrease wn
+            else if (y < y0 && y >= y1) {
+                if (left < 0) {
+                    wn--;
+                }
+            }
+        }
+        return wn != 0;
+    }
+
+    /**
+     * Adds to out every star in the grid enclosed by the polygon.
+     *
+     * @param out The array to add the enclosed stars to
+     * @return out, for chaining
+     */
+    public Array<Star> findEnclosed(Array<Star> out) {
+        if (count < 3) {
+            return out;
+        }
+        // A box larger than the grid itself is cheaper to check star by star
+        long boxCells = (long) (cell(maxX) - cell(minX) + 1) * (cell(maxY) - cell(minY) + 1);
+        if (boxCells > cells.size) {
+            for (Array<Star> bucket : cells.values()) {
+                for (int i = 0; i < bucket.size; i++) {
+                    Star s = bucket.get(i);
+                    if (contains(s.getX(), s.getY())) {
+                        out.add(s);
+                    }
+                }
+            }
+            return out;
+        }
+        for (int cx = cell(minX); cx <= cell(maxX); cx++) {
+            for (int cy = cell(minY); cy <= cell(maxY); cy++) {
+                Array<Star> bucket = cells.get(key(cx, cy));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size; i++) {
+                    Star s = bucket.get(i);
+                    if (contains(s.getX(), s.getY())) {
+                        out.add(s);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the index of the cell containing coordinate v.
+     *
+     * @param v A coordinate (physics units)
+     * @return The index of the cell containing v
+     */
+    private int cell(float v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    /**
+     * Packs the cell coordinates (cx, cy) into a single map key.
+     */
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
@@ -0,0 +1,357 @@
+package edu.cornell.gdiac.starstruck.Obstacles;
+
+/**
+ * Position-based (Verlet) simulation of a rope, used in place of the Box2D plank chain.
+ *
+ * The rope is a line of particles joined by constraints that keep each link from growing past
+ * its rest length, so it can go slack but not stretch. Particle i sits where joint i of the
+ * plank chain would be, so the first and last particles are the two astronauts. All state is
+ * kept in packed float arrays and nothing is registered with Box2D; the owner sets the
+ * endpoints from the astronaut bodies before each step and reads back how far the rope pulled
+ * them.
+ *
+ * Tension is measured as the force that would move a particle by its correction in one step,
+ * that is its mass times the correction over dt squared, for links and pins alike.
+ *
+ * The rope may be cut by a portal: the two particles on either side of the cut are then
+ * pinned half a link away from the trailing and leading portals, instead of to each other.
+ */
+public class VerletRope {
+    /** Constraint iterations per step */
+    private static final int ITERATIONS = 12;
+    /** Fraction of the velocity kept each step */
+    private static final float DAMPING = 0.98f;
+
+    /** Number of particles (links + 1) */
+    private final int count;
+    /** Rest length of each link */
+    private final float rest;
+    /** Mass of each interior particle */
+    private final float mass;
+
+    /** Current particle positions */
+    private final float[] px, py;
+    /** Particle positions at the previous step */
+    private final float[] ox, oy;
+    /** Inverse mass of each particle (0 = pinned) */
+    private final float[] w;
+    /** Largest force a constraint applied to each particle in the last step (mass * correction / dt^2) */
+    private final float[] tension;
+
+    /** Where the endpoints were set before the last step (first end, last end) */
+    private final float[] endX = new float[2], endY = new float[2];
+
+    /** Index of the link cut by a portal (between particles cut and cut+1), or -1 */
+    private int cut = -1;
+    /** Pin of particle cut while the rope is cut */
+    private float pin0x, pin0y;
+    /** Pin of particle cut+1 while the rope is cut */
+    private float pin1x, pin1y;
+
+    /**
+     * Creates a straight rope from (x0,y0) to (x1,y1).
+     *
+     * @param x0        The x position of the first end
+     * @param y0        The y position of the first end
+     * @param x1        The x position of the last end
+     * @param y1        The y position of the last end
+     * @param links     The number of links
+     * @param linksize  The length of each link
+     * @param mass      The mass of each link
+     */
+    public VerletRope(float x0, float y0, float x1, float y1, int links, float linksize, float mass) {
+        count = links + 1;
+        rest = linksize;
+        this.mass = mass;
+        px = new float[count]; py = new float[count];
+        ox = new float[count]; oy = new float[count];
+        w = new float[count];
+        tension = new float[count];
+        for (int i = 0; i < count; i++) {
+            float t = links == 0 ? 0 : (float) i / links;
+            px[i] = ox[i] = x0 + t * (x1 - x0);
+            py[i] = oy[i] = y0 + t * (y1 - y0);
+            w[i] = 1 / mass;
+        }
+    }
+
+    /**
+     * Returns the number of particles (links + 1)
+     *
+     * @return the number of particles (links + 1)
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the x position of particle i
+     *
+     * @param i The particle index
+     * @return the x position of particle i
+     */
+    public float getX(int i) {
+        return px[i];
+    }
+
+    /**
+     * Returns the y position of particle i
+     *
+     * @param i The particle index
+     * @return the y position of particle i
+     */
+    public float getY(int i) {
+        return py[i];
+    }
+
+    /**
+     * Returns the largest force a constraint applied to particle i in the last step.
+     *
+     * @param i The particle index
+     * @return the largest force a constraint applied to particle i in the last step
+     */
+    public float getTension(int i) {
+        return tension[i];
+    }
+
+    /**
+     * Returns true if the rope is cut by a portal
+     *
+     * @return true if the rope is cut by a portal
+     */
+    public boolean isCut() {
+        return cut >= 0;
+    }
+
+    /**
+     * Returns the index of the link cut by a portal, or -1 if the rope is whole
+     *
+     * @return the index of the link cut by a portal, or -1 if the rope is whole
+     */
+    public int getCut() {
+        return cut;
+    }
+
+    /**
+     * Places an end of the rope on an astronaut before a step.
+     *
+     * @param last      Whether this is the last end (false for the first)
+     * @param x         The x position of the astronaut
+     * @param y         The y position of the astronaut
+     * @param invMass   The inverse mass of the astronaut, or 0 if the rope cannot move it
+     */
+    public void setEnd(boolean last, float x, float y, float invMass) {
+        int i = last ? count - 1 : 0;
+        int e = last ? 1 : 0;
+        px[i] = ox[i] = endX[e] = x;
+        py[i] = oy[i] = endY[e] = y;
+        w[i] = invMass;
+    }
+
+    /**
+     * Returns how far the rope moved an end in the last step, along x.
+     *
+     * @param last Whether this is the last end (false for the first)
+     * @return how far the rope moved the end along x
+     */
+    public float getEndDX(boolean last) {
+        return last ? px[count - 1] - endX[1] : px[0] - endX[0];
+    }
+
+    /**
+     * Returns how far the rope moved an end in the last step, along y.
+     *
+     * @param last Whether this is the last end (false for the first)
+     * @return how far the rope moved the end along y
+     */
+    public float getEndDY(boolean last) {
+        return last ? py[count - 1] - endY[1] : py[0] - endY[0];
+    }
+
+    /**
+     * Sets the velocity of particle i.
+     *
+     * @param i     The particle index
+     * @param vx    The x velocity
+     * @param vy    The y velocity
+     * @param dt    The length of a step
+     */
+    public void setVelocity(int i, float vx, float vy, float dt) {
+        ox[i] = px[i] - vx * dt;
+        oy[i] = py[i] - vy * dt;
+    }
+
+    /**
+     * Applies a force to particle i for one step.
+     *
+     * @param i     The particle index
+     * @param fx    The x force
+     * @param fy    The y force
+     * @param dt    The length of a step
+     */
+    public void applyForce(int i, float fx, float fy, float dt) {
+        ox[i] -= fx / mass * dt * dt;
+        oy[i] -= fy / mass * dt * dt;
+    }
+
+    /**
+     * Moves particles start to end (exclusive) to (x,y), at rest.
+     *
+     * @param start The first particle to move
+     * @param end   One past the last particle to move
+     * @param x     The x position to move to
+     * @param y     The y position to move to
+     */
+    public void moveAll(int start, int end, float x, float y) {
+        for (int i = start; i < end; i++) {
+            px[i] = ox[i] = x;
+            py[i] = oy[i] = y;
+        }
+    }
+
+    /**
+     * Cuts link k, pinning particle k near (x0,y0) and particle k+1 near (x1,y1).
+     *
+     * @param k     The link to cut
+     * @param x0    The x position of the pin of particle k
+     * @param y0    The y position of the pin of particle k
+     * @param x1    The x position of the pin of particle k+1
+     * @param y1    The y position of the pin of particle k+1
+     */
+    public void cut(int k, float x0, float y0, float x1, float y1) {
+        cut = k;
+        pin0x = x0; pin0y = y0;
+        pin1x = x1; pin1y = y1;
+    }
+
+    /**
+     * Restores the link cut by a portal.
+     */
+    public void join() {
+        cut = -1;
+    }
+
+    /**
+     * Advances the rope by one step.
+     *
+     * Circles are packed as (x, y, radius) triples; particles are kept outside of them.
+     *
+     * @param dt        The length of the step
+     * @param circles   Packed circles the rope collides with
+     * @param ncircles  The number of circles
+     */
+    public void step(float dt, float[] circles, int ncircles) {
+        // Integrate the interior particles
+        for (int i = 1; i < count - 1; i++) {
+            float vx = (px[i] - ox[i]) * DAMPING;
+            float vy = (py[i] - oy[i]) * DAMPING;
+            ox[i] = px[i]; oy[i] = py[i];
+            px[i] += vx; py[i] += vy;
+        }
+
+        for (int i = 0; i < count; i++) {
+            tension[i] = 0;
+        }
+        float toForce = 1 / (dt * dt);
+        for (int iter = 0; iter < ITERATIONS; iter++) {
+            for (int i = 0; i < count - 1; i++) {
+                if (i == cut) {
+                    pin(i, pin0x, pin0y, iter == 0 ? toForce : 0);
+                    pin(i + 1, pin1x, pin1y, iter == 0 ? toForce : 0);
+                } else {
+                    link(i, i + 1, iter == 0 ? toForce : 0);
+                }
+            }
+            for (int c = 0; c < ncircles; c++) {
+                collide(circles[3 * c], circles[3 * c + 1], circles[3 * c + 2]);
+            }
+        }
+    }
+
+    /**
+     * Returns true if any link of the rope passes within r of (x,y).
+     *
+     * @param x The x position of the circle
+     * @param y The y position of the circle
+     * @param r The radius of the circle
+     * @return true if the rope touches the circle
+     */
+    public boolean touches(float x, float y, float r) {
+        for (int i = 0; i < count - 1; i++) {
+            if (i == cut) {
+                continue;
+            }
+            float dx = px[i + 1] - px[i]; float dy = py[i + 1] - py[i];
+            float len2 = dx * dx + dy * dy;
+            float t = len2 == 0 ? 0 : ((x - px[i]) * dx + (y - py[i]) * dy) / len2;
+            t = Math.max(0, Math.min(1, t));
+            float cx = px[i] + t * dx - x; float cy = py[i] + t * dy - y;
+            if (cx * cx + cy * cy <= r * r) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Projects the distance constraint between particles a and b.
+     *
+     * @param toForce Scale from mass times correction to force, or 0 to not record the tension
+     */
+    private void link(int a, int b, float toForce) {
+        float wsum = w[a] + w[b];
+        if (wsum == 0) {
+            return;
+        }
+        float dx = px[b] - px[a]; float dy = py[b] - py[a];
+        float len = (float) Math.sqrt(dx * dx + dy * dy);
+        if (len <= rest) {
+            // A rope only resists stretching
+            return;
+        }
+        float diff = (len - rest) / (len * wsum);
+        px[a] += dx * diff * w[a]; py[a] += dy * diff * w[a];
+        px[b] -= dx * diff * w[b]; py[b] -= dy * diff * w[b];
+        if (toForce != 0) {
+            // Each particle moves by (len - rest) * w / wsum, so both feel the same force
+            float force = (len - rest) / wsum * toForce;
+            tension[a] = Math.max(tension[a], force);
+            tension[b] = Math.max(tension[b], force);
+        }
+    }
+
+    /**
+     * Keeps particle i within half a link of the fixed point (x,y).
+     *
+     * @param toForce Scale from mass times correction to force, or 0 to not record the tension
+     */
+    private void pin(int i, float x, float y, float toForce) {
+        if (w[i] == 0) {
+            return;
+        }
+        float dx = px[i] - x; float dy = py[i] - y;
+        float len = (float) Math.sqrt(dx * dx + dy * dy);
+        if (len <= rest / 2) {
+            return;
+        }
+        float scale = (rest / 2) / len;
+        px[i] = x + dx * scale; py[i] = y + dy * scale;
+        if (toForce != 0) {
+            tension[i] = Math.max(tension[i], (len - rest / 2) / w[i] * toForce);
+        }
+    }
+
+    /**
+     * Pushes the interior particles out of the circle of radius r at (x,y).
+     */
+    private void collide(float x, float y, float r) {
+        for (int i = 1; i < count - 1; i++) {
+            float dx = px[i] - x; float dy = py[i] - y;
+            float d2 = dx * dx + dy * dy;
+            if (d2 < r * r && d2 > 0) {
+                float scale = r / (float) Math.sqrt(d2);
+                px[i] = x + dx * scale; py[i] = y + dy * scale;
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import edu.cornell.gdiac.util.FilmStrip;
 import edu.cornell.gdiac.util.JsonAssetManager;
+import edu.cornell.gdiac.util.MusicController;
 import edu.cornell.gdiac.util.ScreenListener;
 
 /**
@@ -102,6 +103,9 @@ public class Starstruck extends Game implements ScreenListener {
 
 		canvas.dispose();
 		canvas = null;
+		MusicController.getInstance().dispose();
+		FrameStats.getInstance().stopLog();
+		LevelCache.getInstance().dispose();
 
 		// Unload all of the resources
 		JsonAssetManager.getInstance().clear();
@@ -109,6 +113,16 @@ public class Starstruck extends Game implements ScreenListener {
 		super.dispose();
 	}
 
+	/**
+	 * Called when the Application should render itself.
+	 *
+	 * The music is faded here, so that it keeps fading while screens change.
+	 */
+	public void render() {
+		MusicController.getInstance().update(Gdx.graphics.getDeltaTime());
+		super.render();
+	}
+
 	/**
 	 * Called when the Application is resized.
 	 *
@@ -0,0 +1,283 @@
+/*
+ * StaticLayerCache.java
+ *
+ * Draws the parts of a level that never change (the background and the planets) into
+ * offscreen frame buffers, one screen-sized tile at a time, so that each frame only has
+ * to copy a few opaque tiles instead of blending every layer and every planet again.
+ *
+ * Tiles are baked the first time the camera sees them, and the most recently used ones
+ * are kept.  Baking draws into frame buffers, so it must happen outside of a drawing pass.
+ *
+ * The tiles are only correct while nothing in them changes.  Call invalidate() whenever
+ * the planets or the background change.
+ *
+ * Frame buffers are slow to make, so a tile that is thrown away keeps its buffer for the
+ * next tile to be baked.  The buffers are only freed by dispose(), or when the screen
+ * changes size.
+ */
+package edu.cornell.gdiac.starstruck;
+
+import com.badlogic.gdx.graphics.*;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.*;
+import com.badlogic.gdx.utils.Array;
+import edu.cornell.gdiac.starstruck.Obstacles.Planet;
+import edu.cornell.gdiac.starstruck.Obstacles.PlanetList;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A cache of the static layers of a level, baked into screen-sized tiles.
+ */
+public class StaticLayerCache {
+    /** The most tiles kept at once (each is the size of the screen) */
+    private static final int MAX_TILES = 12;
+
+    /** The background drawn under the planets */
+    private final TiledBackground backdrop;
+    /** The baked tiles, by tile key, least recently used first */
+    private final LinkedHashMap<Long,Tile> tiles;
+    /** Tiles that were thrown away, whose buffers can be baked again */
+    private final Array<Tile> spare;
+    /** The width of each tile (in pixels) */
+    private int tileWidth;
+    /** The height of each tile (in pixels) */
+    private int tileHeight;
+    /** Whether the tiles are out of date, and must be thrown away */
+    private boolean stale;
+
+    // CACHE OBJECTS
+    /** The projection for baking a tile */
+    private final Matrix4 projection = new Matrix4();
+    /** The area of a tile (in physics units) */
+    private final Rectangle area = new Rectangle();
+    /** The planets in a tile */
+    private final Array<Planet> visible = new Array<Planet>();
+
+    /**
+     * A screen-sized part of the level, drawn offscreen.
+     */
+    private static class Tile {
+        /** The buffer holding the drawing */
+        final FrameBuffer buffer;
+        /** The drawing, flipped right side up */
+        final TextureRegion region;
+
+        Tile(FrameBuffer buffer) {
+            this.buffer = buffer;
+            region = new TextureRegion(buffer.getColorBufferTexture());
+            region.flip(false, true);
+        }
+    }
+
+    /**
+     * Creates an empty cache for the given background.
+     *
+     * @param backdrop  The background drawn under the planets
+     */
+    public StaticLayerCache(TiledBackground backdrop) {
+        this.backdrop = backdrop;
+        tiles = new LinkedHashMap<Long,Tile>(16, 0.75f, true);
+        spare = new Array<Tile>(false, MAX_TILES);
+    }
+
+    /**
+     * Marks every tile as out of date.
+     *
+     * This does not touch the graphics card, so it is safe to call at any time.  The
+     * tiles are thrown away the next time the cache is baked.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Bakes any tiles the camera can see that are not baked yet.
+     *
+     * This must be called outside of a drawing pass.  It returns false if the cache
+     * cannot be used this frame, either because the background scrolls, or because the
+     * camera sees more tiles than the cache can hold.  The level must then be drawn live.
+     *
+     * @param canvas    The drawing context
+     * @param planets   The planets of the level
+     * @param scale     The drawing scale of the level
+     *
+     * @return true if every tile the camera can see is baked
+     */
+    public boolean bake(GameCanvas canvas, PlanetList planets, Vector2 scale) {
+        if (tileWidth != canvas.getWidth() || tileHeight != canvas.getHeight()) {
+            dispose();
+            tileWidth  = canvas.getWidth();
+            tileHeight = canvas.getHeight();
+        } else if (stale) {
+            spare.addAll(tiles.values());
+            tiles.clear();
+        }
+        stale = false;
+        if (!backdrop.isFixed() || tileWidth <= 0 || tileHeight <= 0) {
+            return false;
+        }
+
+        OrthographicCamera camera = (OrthographicCamera)canvas.getCamera();
+        float width  = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        int x0 = column(camera.position.x - width/2);
+        int y0 = row(camera.position.y - height/2);
+        int x1 = column(camera.position.x + width/2);
+        int y1 = row(camera.position.y + height/2);
+        if ((x1 - x0 + 1) * (y1 - y0 + 1) > MAX_TILES) {
+            return false;
+        }
+
+        // Use the tiles in view first, so that they are not the ones thrown away
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                tiles.get(key(x, y));
+            }
+        }
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                if (tiles.get(key(x, y)) == null) {
+                    Tile tile = obtainTile();
+                    bakeTile(tile, canvas, x, y, planets, scale);
+                    tiles.put(key(x, y), tile);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Draws the tiles the camera can see, replacing what is on screen.
+     *
+     * This must be called between canvas.begin() and canvas.end(), with no global
+     * transform, after a successful call to bake().  It leaves the canvas blending
+     * without premultiplied alpha.
+     *
+     * @param canvas    The drawing context
+     */
+    public void draw(GameCanvas canvas) {
+        OrthographicCamera camera = (OrthographicCamera)canvas.getCamera();
+        float width  = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        int x0 = column(camera.position.x - width/2);
+        int y0 = row(camera.position.y - height/2);
+        int x1 = column(camera.position.x + width/2);
+        int y1 = row(camera.position.y + height/2);
+
+        // The tiles cover the screen, so there is nothing to blend with
+        canvas.setBlendState(GameCanvas.BlendState.OPAQUE);
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                Tile tile = tiles.get(key(x, y));
+                if (tile != null) {
+                    canvas.draw(tile.region, Color.WHITE, x * tileWidth, y * tileHeight,
+                                tileWidth, tileHeight);
+                }
+            }
+        }
+        canvas.setBlendState(GameCanvas.BlendState.NO_PREMULT);
+    }
+
+    /**
+     * Throws away every tile, freeing the frame buffers.
+     *
+     * The cache may be baked again after.
+     */
+    public void dispose() {
+        for (Tile tile : tiles.values()) {
+            tile.buffer.dispose();
+        }
+        tiles.clear();
+        for (Tile tile : spare) {
+            tile.buffer.dispose();
+        }
+        spare.clear();
+    }
+
+    /**
+     * Returns a tile to bake into, reusing a buffer if it can.
+     *
+     * If the cache is full, the tile used longest ago is thrown away and reused.
+     *
+     * @return a tile to bake into
+     */
+    private Tile obtainTile() {
+        if (tiles.size() >= MAX_TILES) {
+            Iterator<Tile> it = tiles.values().iterator();
+            Tile tile = it.next();
+            it.remove();
+            return tile;
+        }
+        if (spare.size > 0) {
+            return spare.pop();
+        }
+        return new Tile(new FrameBuffer(Pixmap.Format.RGB888, tileWidth, tileHeight, false));
+    }
+
+    /**
+     * Draws the background and planets into the given tile
+     *
+     * @param tile      The tile to draw into
+     * @param canvas    The drawing context
+     * @param x         The column of the tile
+     * @param y         The row of the tile
+     * @param planets   The planets of the level
+     * @param scale     The drawing scale of the level
+     */
+    private void bakeTile(Tile tile, GameCanvas canvas, int x, int y, PlanetList planets, Vector2 scale) {
+        float left   = x * tileWidth;
+        float bottom = y * tileHeight;
+        FrameBuffer buffer = tile.buffer;
+        buffer.begin();
+        canvas.clear();
+        projection.setToOrtho2D(left, bottom, tileWidth, tileHeight);
+        canvas.begin(projection);
+        canvas.setBlendState(GameCanvas.BlendState.NO_PREMULT);
+        backdrop.draw(canvas, left, bottom, tileWidth, tileHeight);
+        area.set(left / scale.x, bottom / scale.y, tileWidth / scale.x, tileHeight / scale.y);
+        visible.clear();
+        planets.getVisible(area, visible);
+        for (Planet p : visible) {
+            p.draw(canvas);
+        }
+        canvas.end();
+        buffer.end();
+    }
+
+    /**
+     * Returns the column of the tile containing the given x coordinate
+     *
+     * @param x The x coordinate (in pixels)
+     *
+     * @return the column of the tile containing the given x coordinate
+     */
+    private int column(float x) {
+        return (int)Math.floor(x / tileWidth);
+    }
+
+    /**
+     * Returns the row of the tile containing the given y coordinate
+     *
+     * @param y The y coordinate (in pixels)
+     *
+     * @return the row of the tile containing the given y coordinate
+     */
+    private int row(float y) {
+        return (int)Math.floor(y / tileHeight);
+    }
+
+    /**
+     * Returns the key of the tile at the given column and row
+     *
+     * @param x The column of the tile
+     * @param y The row of the tile
+     *
+     * @return the key of the tile at the given column and row
+     */
+    private static long key(int x, int y) {
+        return ((long)x << 32) | (y & 0xffffffffL);
+    }
+}
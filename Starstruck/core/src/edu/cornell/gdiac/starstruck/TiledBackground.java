@@ -0,0 +1,168 @@
+/*
+ * TiledBackground.java
+ *
+ * Draws a background that repeats forever in every direction.  Rather than drawing the
+ * image several times around the camera, each layer is a single quad covering the screen,
+ * with texture coordinates that run past the edge of the image.  The texture repeats, so
+ * the graphics card does the tiling, and every pixel of the screen is drawn once per
+ * layer.
+ *
+ * A single quad only tiles if its texture repeats past its edge, so the textures must
+ * be set to TextureWrap.Repeat when they are loaded ("wrap" in the asset directory).
+ *
+ * Layers may scroll slower than the world (parallax).  A layer with a scroll factor of 1
+ * is fixed in the world, like the planets; a layer with a factor of 0 is fixed to the
+ * screen.
+ */
+package edu.cornell.gdiac.starstruck;
+
+import com.badlogic.gdx.graphics.*;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A stack of repeating background layers, drawn back to front.
+ *
+ * Each layer is drawn stretched to the size of the screen, with one copy per screen, as
+ * the level backgrounds always have been.
+ */
+public class TiledBackground {
+    /** The layers, from back to front */
+    private Array<Layer> layers;
+
+    /**
+     * A repeating image, and how fast it scrolls.
+     */
+    private static class Layer {
+        /** The image to repeat */
+        final Texture texture;
+        /** How far the layer moves for each pixel the camera moves */
+        final float scroll;
+        /** The part of the image on screen (reused every frame) */
+        final TextureRegion region;
+
+        Layer(Texture texture, float scroll) {
+            this.texture = texture;
+            this.scroll = scroll;
+            region = new TextureRegion(texture);
+        }
+    }
+
+    /**
+     * Creates a background with no layers.
+     */
+    public TiledBackground() {
+        layers = new Array<Layer>();
+    }
+
+    /**
+     * Returns the number of layers
+     *
+     * @return the number of layers
+     */
+    public int size() {
+        return layers.size;
+    }
+
+    /**
+     * Returns the texture of the given layer
+     *
+     * @param index The layer, counting from the back
+     *
+     * @return the texture of the given layer
+     */
+    public Texture getTexture(int index) {
+        return layers.get(index).texture;
+    }
+
+    /**
+     * Returns the scroll factor of the given layer
+     *
+     * @param index The layer, counting from the back
+     *
+     * @return the scroll factor of the given layer
+     */
+    public float getScroll(int index) {
+        return layers.get(index).scroll;
+    }
+
+    /**
+     * Adds a layer in front of the others.
+     *
+     * @param texture The image to repeat
+     * @param scroll  How far the layer moves for each pixel the camera moves
+     */
+    public void addLayer(Texture texture, float scroll) {
+        layers.add(new Layer(texture, scroll));
+    }
+
+    /**
+     * Removes all of the layers.
+     */
+    public void clear() {
+        layers.clear();
+    }
+
+    /**
+     * Returns true if every layer is fixed in the world (a scroll factor of 1)
+     *
+     * A fixed background looks the same wherever the camera is, so it can be drawn
+     * ahead of time.
+     *
+     * @return true if every layer is fixed in the world
+     */
+    public boolean isFixed() {
+        for (Layer layer : layers) {
+            if (layer.scroll != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Draws every layer over the whole screen.
+     *
+     * This must be called between canvas.begin() and canvas.end(), with no global
+     * transform.
+     *
+     * @param canvas The drawing context
+     */
+    public void draw(GameCanvas canvas) {
+        OrthographicCamera camera = (OrthographicCamera)canvas.getCamera();
+        float width  = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        draw(canvas, camera.position.x - width/2, camera.position.y - height/2, width, height);
+    }
+
+    /**
+     * Draws every layer over the given rectangle, as seen from a camera at its center.
+     *
+     * This must be called between canvas.begin() and canvas.end(), with no global
+     * transform.
+     *
+     * @param canvas The drawing context
+     * @param x      The left edge of the rectangle (in screen units)
+     * @param y      The bottom edge of the rectangle (in screen units)
+     * @param width  The width of the rectangle (in screen units)
+     * @param height The height of the rectangle (in screen units)
+     */
+    public void draw(GameCanvas canvas, float x, float y, float width, float height) {
+        float cx = x + width/2;
+        float cy = y + height/2;
+        float tileW = canvas.getWidth();
+        float tileH = canvas.getHeight();
+
+        for (Layer layer : layers) {
+            // Where the screen is in the layer, which lags behind the camera
+            float lag = 1 - layer.scroll;
+            float u = (x - cx * lag) / tileW;
+            float v = -(y + height - cy * lag) / tileH;
+            // Keep the coordinates small, so they do not lose precision far from the origin
+            float du = (float)Math.floor(u);
+            float dv = (float)Math.floor(v);
+            layer.region.setRegion(u - du, v - dv, u - du + width/tileW, v - dv + height/tileH);
+            canvas.draw(layer.region, Color.WHITE, x, y, width, height);
+        }
+    }
+}
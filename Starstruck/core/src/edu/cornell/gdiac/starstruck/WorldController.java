@@ -184,6 +184,10 @@ public abstract class WorldController implements Screen {
     public static final int WORLD_VELOC = 6;
     /** Number of position iterations for the constrain solvers */
     public static final int WORLD_POSIT = 2;
+    /** Most physics steps to take in one frame before letting the game slow down */
+    public static final int MAX_STEPS = 5;
+    /** Distance of the stats overlay from the corner of the screen (in pixels) */
+    protected static final float STATS_MARGIN = 10.0f;
 
     /** Width of the game world in Box2d units */
     protected static final float DEFAULT_WIDTH  = 32.0f * 1.2f;
@@ -220,8 +224,18 @@ public abstract class WorldController implements Screen {
     private boolean failed;
     /** Whether or not debug mode is active */
     private boolean debug;
+    /** Whether or not the stats overlay is shown */
+    private boolean stats;
+    /** The font for the stats overlay (created when first shown) */
+    private BitmapFont statsFont;
     /** Countdown active for winning or losing */
     protected int countdown;
+    /** Real time that has passed but has not been simulated yet */
+    private float accumulator;
+    /** Whether render() polls the input once per frame, rather than every step polling */
+    private boolean framePolling;
+    /** Whether the input was polled this frame and no step has read it yet */
+    private boolean inputFresh;
 
     /**
      * Returns true if debug mode is active.
@@ -245,6 +259,37 @@ public abstract class WorldController implements Screen {
         debug = value;
     }
 
+    /**
+     * Returns true if the stats overlay is shown.
+     *
+     * If true, the costs of the last frame are shown in the top left corner.
+     *
+     * @return true if the stats overlay is shown.
+     */
+    public boolean isStats( ) {
+        return stats;
+    }
+
+    /**
+     * Sets whether the stats overlay is shown.
+     *
+     * If true, the costs of the last frame are shown in the top left corner.
+     *
+     * @param value whether the stats overlay is shown.
+     */
+    public void setStats(boolean value) {
+        stats = value;
+    }
+
+    /**
+     * Returns the name of this level in the stats log
+     *
+     * @return the name of this level in the stats log
+     */
+    protected String getStatsLabel() {
+        return getClass().getSimpleName();
+    }
+
     /**
      * Returns true if the level is completed.
      *
@@ -383,6 +428,10 @@ public abstract class WorldController implements Screen {
      * Dispose of all (non-static) resources allocated to this mode.
      */
     public void dispose() {
+        if (statsFont != null) {
+            statsFont.dispose();
+            statsFont = null;
+        }
         for(Obstacle obj : objects) {
             obj.deactivatePhysics(world);
         }
@@ -457,7 +506,7 @@ public abstract class WorldController implements Screen {
      */
     public boolean preUpdate(float dt) {
         InputController input = InputController.getInstance();
-        input.readInput(bounds, scale);
+        readInput();
         if (listener == null) {
             return true;
         }
@@ -467,6 +516,15 @@ public abstract class WorldController implements Screen {
             setDebug(!debug);
         }
 
+        // Toggle the stats overlay, or the stats log with shift held
+        if (input.didStats()) {
+            if (input.shiftHeld()) {
+                toggleStatsLog();
+            } else {
+                setStats(!stats);
+            }
+        }
+
         // Handle resets
         if (input.didReset()) {
             reset();
@@ -560,6 +618,7 @@ public abstract class WorldController implements Screen {
             obj.draw(canvas);
         }
         canvas.end();
+        FrameStats.getInstance().addObstacles(objects.size(), 0);
 
         if (debug) {
             canvas.beginDebug();
@@ -602,18 +661,156 @@ public abstract class WorldController implements Screen {
      * We defer to the other methods update() and draw().  However, it is VERY important
      * that we only quit AFTER a draw.
      *
+     * The simulation runs in fixed steps of WORLD_STEP, as many as fit in the time that has
+     * passed, so the game runs at the same speed whatever the frame rate.  At most MAX_STEPS
+     * are taken per frame; after a longer stall the game slows down instead of trying to
+     * catch up.  Objects are drawn between their last two physics states.
+     *
      * @param delta Number of seconds since last animation frame
      */
     public void render(float delta) {
         if (active) {
-            if (preUpdate(delta)) {
-                update(delta); // This is the one that must be defined.
-                postUpdate(delta);
+            if (stats && statsFont == null) {
+                statsFont = new BitmapFont();
             }
+            framePolling = true;
+            pollInput();
+            simulate(delta);
+            drawFrame(delta);
+            if (stats && statsFont != null) {
+                drawStats();
+            }
+            FrameStats.getInstance().endFrame(getStatsLabel());
+        }
+    }
+
+    /**
+     * Runs as many steps as fit in the time that has passed.
+     *
+     * The benchmarks call this directly, to step a level without drawing it.
+     *
+     * @param delta Number of seconds since last animation frame
+     */
+    public void simulate(float delta) {
+        long start = TimeUtils.nanoTime();
+        accumulator += delta;
+        int steps = 0;
+        while (accumulator >= WORLD_STEP && steps < MAX_STEPS) {
+            accumulator -= WORLD_STEP;
+            steps++;
+            for (Obstacle obj : objects) {
+                obj.saveTransform();
+            }
+            if (!preUpdate(WORLD_STEP)) {
+                // Switching screens, so do not step again before drawing
+                accumulator = 0;
+                break;
+            }
+            update(WORLD_STEP); // This is the one that must be defined.
+            postUpdate(WORLD_STEP);
+        }
+        if (accumulator >= WORLD_STEP) {
+            accumulator = 0;
+        }
+        FrameStats.getInstance().addSimulation(TimeUtils.nanoTime()-start);
+    }
+
+    /**
+     * Draws the objects between their last two physics states.
+     *
+     * @param delta Number of seconds since last animation frame
+     */
+    private void drawFrame(float delta) {
+        long start = TimeUtils.nanoTime();
+        float alpha = getAlpha();
+        for (Obstacle obj : objects) {
+            obj.beginInterpolation(alpha);
+        }
+        try {
             draw(delta);
+        } finally {
+            for (Obstacle obj : objects) {
+                obj.endInterpolation();
+            }
+        }
+        FrameStats.getInstance().addDrawing(TimeUtils.nanoTime()-start);
+    }
+
+    /**
+     * Polls the input for the steps of this frame.
+     *
+     * If no step read the last poll (the frame was too short for a step), the presses
+     * it saw are kept, so that they are not lost.
+     */
+    private void pollInput() {
+        InputController input = InputController.getInstance();
+        if (inputFresh) {
+            input.pollInput(bounds, scale);
+        } else {
+            input.readInput(bounds, scale);
+        }
+        inputFresh = true;
+    }
+
+    /**
+     * Reads the input for the step about to be taken.
+     *
+     * The first step of a frame sees the input polled by render().  Later steps of the
+     * same frame see the same buttons held, but no new presses, just as if they had
+     * polled the devices again.  If render() is not polling (e.g. the controller is
+     * stepped directly), this polls the devices itself.
+     */
+    protected void readInput() {
+        InputController input = InputController.getInstance();
+        if (!framePolling) {
+            input.readInput(bounds, scale);
+        } else if (inputFresh) {
+            inputFresh = false;
+        } else {
+            input.holdInput();
         }
     }
 
+    /**
+     * Draws the stats for the last frame in the top left corner of the screen.
+     *
+     * This is drawn by render() over whatever draw() drew.
+     */
+    private void drawStats() {
+        OrthographicCamera cam = (OrthographicCamera)canvas.getCamera();
+        float x = cam.position.x - cam.zoom*(cam.viewportWidth/2 - STATS_MARGIN);
+        float y = cam.position.y + cam.zoom*(cam.viewportHeight/2 - STATS_MARGIN);
+        canvas.begin();
+        canvas.drawText(FrameStats.getInstance().getSummary(), statsFont, x, y);
+        canvas.end();
+    }
+
+    /**
+     * Starts writing the stats of every frame to a new CSV file, or stops if already writing.
+     *
+     * The file is named for the time it was started, in the local storage directory.
+     */
+    private void toggleStatsLog() {
+        FrameStats frameStats = FrameStats.getInstance();
+        if (frameStats.isLogging()) {
+            frameStats.stopLog();
+        } else {
+            frameStats.startLog(Gdx.files.local("stats-"+TimeUtils.millis()+".csv"));
+        }
+    }
+
+    /**
+     * Returns the fraction of a step that has passed since the last physics step.
+     *
+     * Anything drawn from simulated state should be drawn this fraction of the way from
+     * its state before the last step to its current state.
+     *
+     * @return the fraction of a step that has passed since the last physics step
+     */
+    protected float getAlpha() {
+        return accumulator / WORLD_STEP;
+    }
+
     /**
      * Called when the Screen is paused.
      *
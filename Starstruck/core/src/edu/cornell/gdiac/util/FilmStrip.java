@@ -51,6 +51,12 @@ public class FilmStrip extends TextureRegion {
     /** The height of a single frame; computed from row count */
     private int rheight;
 
+    /** The x-coordinate of the strip in its texture (non-zero if packed in an atlas) */
+    private int left;
+
+    /** The y-coordinate of the strip in its texture (non-zero if packed in an atlas) */
+    private int top;
+
     /** The number of frames in this filmstrip */
     private int size;
 
@@ -107,7 +113,24 @@ public class FilmStrip extends TextureRegion {
      * @param name The name of this FilmStrip
      */
     public FilmStrip(Texture texture, int rows, int cols, int size, int delay, String name) {
-        super(texture);
+        this(new TextureRegion(texture), rows, cols, size, delay, name);
+    }
+
+    /**
+     * Creates a new filmstrip from the given part of a texture.
+     *
+     * This is used for filmstrips packed in a texture atlas.  The frames are laid out
+     * in the region exactly as they would be in a texture of their own.
+     *
+     * @param region The region of the texture holding the frames
+     * @param rows The number of rows in the filmstrip
+     * @param cols The number of columns in the filmstrip
+     * @param size The number of frames in the filmstrip
+     * @param delay The number of frames to delay between switching frames
+     * @param name The name of this FilmStrip
+     */
+    public FilmStrip(TextureRegion region, int rows, int cols, int size, int delay, String name) {
+        super(region);
         if (size > rows*cols) {
             Gdx.app.error("FilmStrip", "Invalid strip size", new IllegalArgumentException());
             return;
@@ -115,8 +138,10 @@ public class FilmStrip extends TextureRegion {
         this.rows = rows;
         this.cols = cols;
         this.size = size;
-        rwidth  = texture.getWidth()/cols;
-        rheight = texture.getHeight()/rows;
+        left = region.getRegionX();
+        top  = region.getRegionY();
+        rwidth  = region.getRegionWidth()/cols;
+        rheight = region.getRegionHeight()/rows;
         this.delay = delay;
         count = delay;
         setFrame(0);
@@ -129,7 +154,8 @@ public class FilmStrip extends TextureRegion {
      * @return a copy of this FilmStrip
      */
     public FilmStrip copy() {
-        return new FilmStrip(getTexture(), rows, cols, size, delay, name);
+        TextureRegion region = new TextureRegion(getTexture(), left, top, cols*rwidth, rows*rheight);
+        return new FilmStrip(region, rows, cols, size, delay, name);
     }
 
     public String getName() {
@@ -187,7 +213,7 @@ public class FilmStrip extends TextureRegion {
         this.frame = frame;
         int x = (frame % cols)*rwidth;
         int y = (frame / cols)*rheight;
-        setRegion(x,y,rwidth,rheight);
+        setRegion(left+x,top+y,rwidth,rheight);
     }
 
     /**
@@ -11,11 +11,17 @@
  * you want an asset directory that provides support for other assets, you will
  * need to extend this class.
  *
+ * Texture regions and filmstrips may be packed into texture atlases, one for each
+ * top-level directory of images (see AtlasPacker in the desktop project).  If the
+ * atlas for a directory exists, its images are read from the atlas pages instead
+ * of being loaded as separate textures, so that they can share a sprite batch.
+ *
  * Author: Walker M. White
  * Version: 3/2/2016
  */
  package edu.cornell.gdiac.util;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.utils.*;
 import com.badlogic.gdx.assets.*;
 import com.badlogic.gdx.audio.*;
@@ -55,6 +61,14 @@ public class JsonAssetManager extends AssetManager {
 	/** The allocated music (for easy clean-up) */
 	private ObjectMap<String,Music> music;
 	
+	/** The atlases loaded for the directory (for easy clean-up) */
+	private ObjectSet<String> atlases;
+
+	/** The folder with the packed texture atlases */
+	public static final String ATLAS_FOLDER = "atlases/";
+	/** The file extension of a texture atlas */
+	public static final String ATLAS_EXTENSION = ".atlas";
+
 	/** The singleton asset manager (for easy access) */
 	private static JsonAssetManager manager;
 	
@@ -109,6 +123,56 @@ public class JsonAssetManager extends AssetManager {
 		fonts = new ObjectMap<String,BitmapFont>();
 		sounds = new ObjectMap<String,Sound>();
 		music = new ObjectMap<String,Music>();
+		atlases = new ObjectSet<String>();
+	}
+
+	/**
+	 * Returns the atlas file that packs the given image, or null if none can.
+	 *
+	 * Images are packed into one atlas for each top-level directory.
+	 *
+	 * @param file	the image file
+	 *
+	 * @return the atlas file that packs the given image
+	 */
+	public static String getAtlasFile(String file) {
+		int slash = file.indexOf('/');
+		if (slash < 0) {
+			return null;
+		}
+		return ATLAS_FOLDER+file.substring(0,slash)+ATLAS_EXTENSION;
+	}
+
+	/**
+	 * Returns the name of the given image in its atlas.
+	 *
+	 * @param file	the image file
+	 *
+	 * @return the name of the given image in its atlas
+	 */
+	public static String getAtlasName(String file) {
+		int dot = file.lastIndexOf('.');
+		return dot < 0 ? file : file.substring(0,dot);
+	}
+
+	/**
+	 * Returns the atlas packing the image of a directory entry, or null if there is none.
+	 *
+	 * Repeating images are never packed, as they need a texture of their own.
+	 *
+	 * @param json 	the directory entry for the image
+	 *
+	 * @return the atlas packing the image of a directory entry
+	 */
+	private String findAtlas(JsonValue json) {
+		if (json.getBoolean("wrap")) {
+			return null;
+		}
+		String atlas = getAtlasFile(json.getString("file"));
+		if (atlas == null || !(atlases.contains(atlas) || Gdx.files.internal(atlas).exists())) {
+			return null;
+		}
+		return atlas;
 	}
 	
 	/**
@@ -174,8 +238,7 @@ public class JsonAssetManager extends AssetManager {
 	private void loadTextureRegions() {
 		JsonValue json = directory.getChild(getClassIdentifier(TextureRegion.class));
 		while (json != null) {
-			String file= json.getString("file");
-			load(file,Texture.class);
+			loadImage(json);
 			json = json.next;
 		}
 	}
@@ -186,11 +249,25 @@ public class JsonAssetManager extends AssetManager {
 	private void loadFilmStrips() {
 		JsonValue json = directory.getChild(getClassIdentifier(FilmStrip.class));
 		while (json != null) {
-			String file= json.getString("file");
-			load(file,Texture.class);
+			loadImage(json);
 			json = json.next;
 		}
 	}
+
+	/**
+	 * Loads the image of a directory entry, or the atlas packing it
+	 *
+	 * @param json 	the directory entry for the image
+	 */
+	private void loadImage(JsonValue json) {
+		String atlas = findAtlas(json);
+		if (atlas == null) {
+			load(json.getString("file"),Texture.class);
+		} else if (!atlases.contains(atlas)) {
+			load(atlas,TextureAtlas.class);
+			atlases.add(atlas);
+		}
+	}
 	
 	/**
 	 * Loads all fonts in the asset directory
@@ -245,8 +322,21 @@ public class JsonAssetManager extends AssetManager {
 		unloadSounds();
 		unloadFonts();
 		unloadMusic();
+		unloadAtlases();
 		directory = null;
 	}
+
+	/**
+	 * Unloads all texture atlases loaded for the asset directory
+	 */
+	private void unloadAtlases() {
+		for (String atlas : atlases) {
+			if (isLoaded(atlas)) {
+				unload(atlas);
+			}
+		}
+		atlases.clear();
+	}
 	
 	/**
 	 * Unloads all textures in the asset directory
@@ -397,7 +487,13 @@ public class JsonAssetManager extends AssetManager {
 	 */	
 	private TextureRegion allocateTextureRegion(JsonValue json) {
 		String filename = json.getString("file");
-		TextureRegion region = new TextureRegion(get(filename, Texture.class));
+		TextureRegion packed = findRegion(json);
+		if (packed != null) {
+			TextureRegion region = new TextureRegion(packed);
+			regions.put(json.name(),region);
+			return region;
+		}
+		TextureRegion region = new TextureRegion(getImage(filename));
 		region.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
 		if (json.getBoolean("wrap")) {
 			region.getTexture().setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
@@ -433,7 +529,13 @@ public class JsonAssetManager extends AssetManager {
 		int cols = json.getInt("cols");
 		int size = json.getInt("size");
 		int delay = json.getInt("delay");
-		FilmStrip strip = new FilmStrip(get(filename, Texture.class), rows, cols, size, delay, json.name());
+		TextureRegion packed = findRegion(json);
+		if (packed != null) {
+			FilmStrip strip = new FilmStrip(packed, rows, cols, size, delay, json.name());
+			filmstrips.put(json.name(),strip);
+			return strip;
+		}
+		FilmStrip strip = new FilmStrip(getImage(filename), rows, cols, size, delay, json.name());
 		strip.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
 		if (json.getBoolean("wrap")) {
 			strip.getTexture().setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
@@ -442,6 +544,40 @@ public class JsonAssetManager extends AssetManager {
 		return strip;
 	}
 	
+	/**
+	 * Returns the packed region for the image of a directory entry, or null if not packed
+	 *
+	 * @param json 	the directory entry for the image
+	 *
+	 * @return the packed region for the image of a directory entry
+	 */
+	private TextureRegion findRegion(JsonValue json) {
+		String atlas = findAtlas(json);
+		if (atlas == null || !isLoaded(atlas)) {
+			return null;
+		}
+		return get(atlas, TextureAtlas.class).findRegion(getAtlasName(json.getString("file")));
+	}
+
+	/**
+	 * Returns the texture for an image that is not packed.
+	 *
+	 * If the image was expected in an atlas that does not have it (because the atlas
+	 * is out of date), the texture is loaded now.
+	 *
+	 * @param filename	the image file
+	 *
+	 * @return the texture for an image that is not packed
+	 */
+	private Texture getImage(String filename) {
+		if (!isLoaded(filename, Texture.class)) {
+			Gdx.app.log("JsonAssetManager", filename+" is missing from "+getAtlasFile(filename));
+			load(filename, Texture.class);
+			finishLoadingAsset(filename);
+		}
+		return get(filename, Texture.class);
+	}
+
 	/**
 	 * Allocates a font and binds it to the directory key
 	 *
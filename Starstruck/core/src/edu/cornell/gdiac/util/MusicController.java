@@ -0,0 +1,314 @@
+/*
+ * MusicController.java
+ *
+ * Music in LibGDX is streamed, so every Music object holds an open decoder. Creating
+ * one means opening and parsing the file, which is far too slow to do in the middle
+ * of a frame.  This class keeps the decoders for the last few tracks open, so that a
+ * track can be restarted without paying for it again, and crossfades from one track
+ * to the next.
+ *
+ * Like SoundController, this class is a Singleton.  Use the method getInstance() to
+ * get the current music controller.
+ */
+package edu.cornell.gdiac.util;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.audio.*;
+
+import java.util.*;
+
+/**
+ * A singleton class for controlling the background music in LibGDX
+ *
+ * Only one track is playing at a time (except while crossfading).  Tracks are
+ * identified by their filename.  Calling play() with a new track fades out the old
+ * one as the new one fades in; calling it with the track already playing does
+ * nothing, so it is safe to call whenever the music might have to change.
+ *
+ * The fade is advanced by update(), which should be called once per animation frame.
+ * It does nothing at all unless a fade is in progress or a track is waiting to be
+ * preloaded.  Preloading is put off until a frame with no fade in progress and no
+ * track change, so that opening a track never lands on the same frame as a swap.
+ */
+public class MusicController {
+	/** The default number of tracks to keep open */
+	private static final int DEFAULT_CAPACITY = 3;
+	/** The default length of a crossfade (in seconds) */
+	private static final float DEFAULT_FADE = 1.0f;
+
+	/** The singleton Music controller instance */
+	private static MusicController controller;
+
+	/** The open tracks, from least to most recently played */
+	private LinkedHashMap<String,Music> cache;
+	/** The maximum number of tracks to keep open */
+	private int capacity;
+	/** The length of a crossfade (in seconds) */
+	private float fadeTime;
+
+	/** The track playing (or fading in), or null for none */
+	private Music current;
+	/** The filename of the current track */
+	private String currentFile;
+	/** The volume of the current track once faded in */
+	private float currentVolume;
+	/** The track fading out, or null for none */
+	private Music fading;
+	/** The volume the fading track started at */
+	private float fadingVolume;
+	/** Time since the fade started */
+	private float elapsed;
+	/** The filename of the track to open on a later frame, or null for none */
+	private String pending;
+	/** Whether the track changed since the last call to update() */
+	private boolean changed;
+
+	/**
+	 * Creates a new MusicController with the default settings.
+	 */
+	private MusicController() {
+		capacity = DEFAULT_CAPACITY;
+		fadeTime = DEFAULT_FADE;
+		elapsed  = fadeTime;
+		cache = new LinkedHashMap<String,Music>(8, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<String,Music> eldest) {
+				if (size() <= capacity) {
+					return false;
+				}
+				Music music = eldest.getValue();
+				if (music == current || music == fading) {
+					return false;
+				}
+				music.dispose();
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns the single instance for the MusicController
+	 *
+	 * The first time this is called, it will construct the MusicController.
+	 *
+	 * @return the single instance for the MusicController
+	 */
+	public static MusicController getInstance() {
+		if (controller == null) {
+			controller = new MusicController();
+		}
+		return controller;
+	}
+
+	/// Properties
+	/**
+	 * Returns the maximum number of tracks to keep open
+	 *
+	 * @return the maximum number of tracks to keep open
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets the maximum number of tracks to keep open
+	 *
+	 * The tracks playing are never closed, even if there are more than this.
+	 *
+	 * @param value the maximum number of tracks to keep open
+	 */
+	public void setCapacity(int value) {
+		capacity = value;
+	}
+
+	/**
+	 * Returns the length of a crossfade (in seconds)
+	 *
+	 * @return the length of a crossfade (in seconds)
+	 */
+	public float getFadeTime() {
+		return fadeTime;
+	}
+
+	/**
+	 * Sets the length of a crossfade (in seconds)
+	 *
+	 * @param value the length of a crossfade (in seconds)
+	 */
+	public void setFadeTime(float value) {
+		fadeTime = value;
+	}
+
+	/**
+	 * Returns the filename of the track playing, or null for none
+	 *
+	 * @return the filename of the track playing, or null for none
+	 */
+	public String getCurrent() {
+		return currentFile;
+	}
+
+	/**
+	 * Returns true if a track is playing
+	 *
+	 * @return true if a track is playing
+	 */
+	public boolean isPlaying() {
+		return current != null && current.isPlaying();
+	}
+
+	/// Playback
+	/**
+	 * Opens the given track, so that it can be played without delay later.
+	 *
+	 * The track is not opened now, but by the first later call to update() with no
+	 * fade in progress and no track change since the frame before.  Only the most recent request is kept.
+	 *
+	 * @param filename	The filename of the track
+	 */
+	public void preload(String filename) {
+		pending = cache.containsKey(filename) ? null : filename;
+	}
+
+	/**
+	 * Plays the given track on a loop, fading out the track playing
+	 *
+	 * If the track is already playing, this only changes its volume.  If it was
+	 * stopped, it is started again.
+	 *
+	 * @param filename	The filename of the track
+	 * @param volume	The volume to play at
+	 */
+	public void play(String filename, float volume) {
+		if (filename.equals(currentFile)) {
+			currentVolume = volume;
+			if (elapsed >= fadeTime) {
+				current.setVolume(volume);
+			}
+			if (!current.isPlaying()) {
+				current.play();
+			}
+			return;
+		}
+
+		if (filename.equals(pending)) {
+			pending = null;
+		}
+		Music music = obtain(filename);
+		changed = true;
+		if (music == fading) {
+			// Going back to the track fading out, so swap the two and reverse the fade.
+			// Both volumes carry on from where they are now.
+			float t = Math.min(elapsed / fadeTime, 1.0f);
+			fading = current;
+			fadingVolume = currentVolume;
+			current = music;
+			currentFile = filename;
+			currentVolume = volume;
+			elapsed = (1 - t) * fadeTime;
+			return;
+		}
+		if (fading != null) {
+			fading.stop();
+		}
+		fading = current;
+		if (fading != null) {
+			fadingVolume = fading.getVolume();
+		}
+
+		current = music;
+		currentFile = filename;
+		currentVolume = volume;
+		current.setLooping(true);
+		if (fading == null && !current.isPlaying()) {
+			// Nothing to fade from
+			elapsed = fadeTime;
+			current.setVolume(volume);
+		} else {
+			elapsed = 0;
+			current.setVolume(0);
+		}
+		if (!current.isPlaying()) {
+			current.play();
+		}
+	}
+
+	/**
+	 * Fades out the track playing.
+	 */
+	public void stop() {
+		if (current == null) {
+			return;
+		}
+		if (fading != null) {
+			fading.stop();
+		}
+		fading = current;
+		fadingVolume = current.getVolume();
+		changed = true;
+		current = null;
+		currentFile = null;
+		elapsed = 0;
+	}
+
+	/**
+	 * Advances the crossfade by one animation frame
+	 *
+	 * @param delta	Number of seconds since last animation frame
+	 */
+	public void update(float delta) {
+		if (elapsed >= fadeTime) {
+			if (pending != null && !changed) {
+				obtain(pending);
+				pending = null;
+			}
+			changed = false;
+			return;
+		}
+		changed = false;
+		elapsed += delta;
+		float t = Math.min(elapsed / fadeTime, 1.0f);
+		if (current != null) {
+			current.setVolume(t * currentVolume);
+		}
+		if (fading != null) {
+			fading.setVolume((1 - t) * fadingVolume);
+			if (t >= 1) {
+				// Stopping rewinds, so the track starts over if played again
+				fading.stop();
+				fading = null;
+			}
+		}
+	}
+
+	/**
+	 * Stops all music, and closes every track.
+	 */
+	public void dispose() {
+		for (Music music : cache.values()) {
+			music.stop();
+			music.dispose();
+		}
+		cache.clear();
+		current = null;
+		currentFile = null;
+		fading = null;
+		pending = null;
+		elapsed = fadeTime;
+	}
+
+	/**
+	 * Returns the open track for the given file, opening it if necessary.
+	 *
+	 * @param filename	The filename of the track
+	 *
+	 * @return the open track for the given file
+	 */
+	private Music obtain(String filename) {
+		Music music = cache.get(filename);
+		if (music == null) {
+			music = Gdx.audio.newMusic(Gdx.files.internal(filename));
+			cache.put(filename,music);
+		}
+		return music;
+	}
+}
@@ -45,43 +45,37 @@ import com.badlogic.gdx.utils.*;
  * lead to distortion).  This is not as good as being able to tell when a
  * sound is finished, but it works for most applications.
  * 
- * Finally, for (3), we never actually stop a Sound.  Instead we turn its
- * volume to 0 and allow it to be garbage collected when done.  This is why
- * we never allow you to access a sound object directly.
+ * Finally, for (3), sounds are played from a fixed pool of voices, no larger than
+ * the number of OpenAL sources, so that a new sound never has to wait for a
+ * source.  A finished voice is stopped and reused.  When every voice is busy,
+ * the new sound takes the voice of the least important sound, which is the one
+ * with the lowest category priority, then the quietest, then the oldest.  The
+ * pool is a set of parallel arrays, so playing a sound and updating the pool
+ * allocate nothing.
  */
 public class SoundController {
 
 	/**
-	 * Inner class to track and active sound instance
-	 * 
-	 * A sound instance is a Sound object and a number.  That is because
-	 * a single Sound object may have multiple instances.  We do not 
-	 * know when a sound ends.  Therefore, we simply let the sound go
-	 * and we garbage collect when the lifespace is greater than the
-	 * sound limit.
+	 * The kinds of sound effect, for deciding which sound gives way when every
+	 * voice is busy.
+	 *
+	 * A sound only takes the voice of a sound with the same or a lower priority.
 	 */
-	private class ActiveSound {
-		/** Reference to the sound resource */
-		public Sound sound;
-		/** The id number representing the sound instance */
-		public long  id;
-		/** Is the sound looping (so no garbage collection) */
-		public boolean loop;
-		/** How long this sound has been running */
-		public long lifespan;
-		
-		/**
-		 * Creates a new active sound with the given values
-		 * 
-		 * @param s	Reference to the sound resource
-		 * @param n The id number representing the sound instance
-		 * @param b Is the sound looping (so no garbage collection)
-		 */
-		public ActiveSound(Sound s, long n, boolean b) {
-			sound = s;
-			id = n;
-			loop = b;
-			lifespan = 0;
+	public enum Category {
+		/** Collecting a star (these come in bursts, so they give way first) */
+		STAR(0),
+		/** Anything without a category of its own */
+		OTHER(1),
+		/** An astronaut jumping (the player's own action, so it beats ambient sounds) */
+		JUMP(2),
+		/** An astronaut grabbing an anchor */
+		ANCHOR(3);
+
+		/** How important sounds of this category are */
+		final int priority;
+
+		Category(int priority) {
+			this.priority = priority;
 		}
 	}
 
@@ -91,6 +85,8 @@ public class SoundController {
 	private static final int DEFAULT_LIMIT = 120;
 	/** The default limit on sounds per frame */
 	private static final int DEFAULT_FRAME = 2;
+	/** The number of voices (OpenAL has 16 sources by default, and music needs some) */
+	private static final int DEFAULT_VOICES = 12;
 	
 	/** The singleton Sound controller instance */
 	private static SoundController controller;
@@ -99,11 +95,24 @@ public class SoundController {
 	private IdentityMap<String,Sound> soundbank;
 	/** Reverse look up of source files */
 	private IdentityMap<Sound,String> soundsrc;
-	/** Keeps track of all of the "active" sounds */
-	private IdentityMap<String,ActiveSound> actives;
-	/** Support class for garbage collection */
-	private Array<String> collection;
-	
+	/** The number given to each key, so that voices can be found by number */
+	private ObjectIntMap<String> keys;
+
+	// THE VOICE POOL (one entry per voice)
+	/** The sound playing in each voice (null if the voice is free) */
+	private Sound[] voiceSound;
+	/** The id number of the sound instance in each voice */
+	private long[] voiceId;
+	/** The number of the key of each voice */
+	private int[] voiceKey;
+	/** Whether each voice is looping (so no garbage collection) */
+	private boolean[] voiceLoop;
+	/** How long each voice has been running */
+	private long[] voiceLife;
+	/** The priority of the category of each voice */
+	private int[] voicePriority;
+	/** The volume of each voice */
+	private float[] voiceVolume;
 	
 	/** The number of animation frames before a key can be reused */
 	private long cooldown;
@@ -120,8 +129,14 @@ public class SoundController {
 	private SoundController() {
 		soundbank = new IdentityMap<String,Sound>();
 		soundsrc = new IdentityMap<Sound,String>();
-		actives = new IdentityMap<String,ActiveSound>();
-		collection = new Array<String>();
+		keys = new ObjectIntMap<String>();
+		voiceSound = new Sound[DEFAULT_VOICES];
+		voiceId = new long[DEFAULT_VOICES];
+		voiceKey = new int[DEFAULT_VOICES];
+		voiceLoop = new boolean[DEFAULT_VOICES];
+		voiceLife = new long[DEFAULT_VOICES];
+		voicePriority = new int[DEFAULT_VOICES];
+		voiceVolume = new float[DEFAULT_VOICES];
 		cooldown = DEFAULT_COOL;
 		timeLimit = DEFAULT_LIMIT;
 		frameLimit = DEFAULT_FRAME;
@@ -265,6 +280,11 @@ public class SoundController {
 
 	public void deallocate(AssetManager manager, String filename) {
 		Sound sound = manager.get(filename,Sound.class);
+		for (int ii = 0; ii < voiceSound.length; ii++) {
+			if (voiceSound[ii] == sound) {
+				release(ii);
+			}
+		}
 		soundbank.remove(filename);
 		soundsrc.remove(sound);
 	}
@@ -274,13 +294,32 @@ public class SoundController {
 		return soundsrc.get(sound);
 	}
 
+	/**
+	 * Returns the number for the given key
+	 *
+	 * Every key is given a number the first time it is used, and keeps it.  Voices
+	 * are found by number, so that playing a sound does not have to search a map.
+	 *
+	 * @param key	The identifier for a sound instance
+	 *
+	 * @return the number for the given key
+	 */
+	public int getKey(String key) {
+		int number = keys.get(key, -1);
+		if (number < 0) {
+			number = keys.size;
+			keys.put(key, number);
+		}
+		return number;
+	}
+
 	/**
 	 * Plays the an instance of the given sound
 	 * 
 	 * A sound is identified by its filename.  You can have multiple instances of the
 	 * same sound playing.  You use the key to identify a sound instance.  You can only
 	 * have one key playing at a time.  If a key is in use, the existing sound may
-	 * be garbage collected to allow you to reuse it, depending on the settings.
+	 * be stopped to allow you to reuse it, depending on the settings.
 	 * 
 	 * However, it is also possible that the key use may fail.  In the latter case,
 	 * this method returns false.  In addition, if the sound is currently looping,
@@ -303,7 +342,7 @@ public class SoundController {
 	 * A sound is identified by its filename.  You can have multiple instances of the
 	 * same sound playing.  You use the key to identify a sound instance.  You can only
 	 * have one key playing at a time.  If a key is in use, the existing sound may
-	 * be garbage collected to allow you to reuse it, depending on the settings.
+	 * be stopped to allow you to reuse it, depending on the settings.
 	 * 
 	 * However, it is also possible that the key use may fail.  In the latter case,
 	 * this method returns false.  In addition, if the sound is currently looping,
@@ -318,22 +357,61 @@ public class SoundController {
 	 * @return True if the sound was successfully played
 	 */
 	public boolean play(String key, String filename, boolean loop, float volume) {
+		return play(getKey(key),filename,loop,volume,Category.OTHER);
+	}
+
+	/**
+	 * Plays the an instance of the given sound, in the given category
+	 *
+	 * This is the same as play(key, filename, loop, volume), except that the category
+	 * decides which sound gives way if every voice is busy.
+	 *
+	 * @param key		The identifier for this sound instance
+	 * @param filename	The filename of the sound asset
+	 * @param loop		Whether to loop the sound
+	 * @param volume	The sound volume in the range [0,1]
+	 * @param category	The kind of sound effect
+	 *
+	 * @return True if the sound was successfully played
+	 */
+	public boolean play(String key, String filename, boolean loop, float volume, Category category) {
+		return play(getKey(key),filename,loop,volume,category);
+	}
+
+	/**
+	 * Plays the an instance of the given sound, in the given category
+	 *
+	 * This is the same as play(key, filename, loop, volume, category), with the key
+	 * given by its number (see getKey).
+	 *
+	 * @param key		The number of the identifier for this sound instance
+	 * @param filename	The filename of the sound asset
+	 * @param loop		Whether to loop the sound
+	 * @param volume	The sound volume in the range [0,1]
+	 * @param category	The kind of sound effect
+	 *
+	 * @return True if the sound was successfully played
+	 */
+	public boolean play(int key, String filename, boolean loop, float volume, Category category) {
 		// Get the sound for the file
-		if (!soundbank.containsKey(filename) || current >= frameLimit) {
+		Sound sound = soundbank.get(filename);
+		if (sound == null || current >= frameLimit) {
 			return false;
 		}
 
-		// If there is a sound for this key, stop it
-		Sound sound = soundbank.get(filename);
-		if (actives.containsKey(key)) {
-			ActiveSound snd = actives.get(key);
-			if (!snd.loop && snd.lifespan > cooldown) {
-				// This is a workaround for the OS X sound bug
-				//snd.sound.stop(snd.id);
-				snd.sound.setVolume(snd.id, 0.0f); 
+		// If there is a sound for this key, silence it and take its voice
+		int voice = findVoice(key);
+		if (voice >= 0) {
+			if (!voiceLoop[voice] && voiceLife[voice] > cooldown) {
+				release(voice);
 			} else {
 				return true;
 			}
+		} else {
+			voice = obtainVoice(category.priority);
+			if (voice < 0) {
+				return false;
+			}
 		}
 		
 		// Play the new sound and add it
@@ -343,8 +421,14 @@ public class SoundController {
 		} else if (loop) {
 			sound.setLooping(id, true);
 		}
-		
-		actives.put(key,new ActiveSound(sound,id,loop));
+
+		voiceSound[voice] = sound;
+		voiceId[voice] = id;
+		voiceKey[voice] = key;
+		voiceLoop[voice] = loop;
+		voiceLife[voice] = 0;
+		voicePriority[voice] = category.priority;
+		voiceVolume[voice] = volume;
 		current++;
 		return true;
 	}
@@ -360,18 +444,11 @@ public class SoundController {
 	 * @param key	The sound instance to stop.
 	 */
 	public void stop(String key) {
-		// Get the active sound for the key
-		if (!actives.containsKey(key)) {
-			return;
+		int number = keys.get(key, -1);
+		int voice = number < 0 ? -1 : findVoice(number);
+		if (voice >= 0) {
+			release(voice);
 		}
-		
-		ActiveSound snd = actives.get(key);
-		
-		// This is a workaround for the OS X sound bug
-		//snd.sound.stop(snd.id);
-		snd.sound.setLooping(snd.id,false); // Will eventually garbage collect
-		snd.sound.setVolume(snd.id, 0.0f); 
-		actives.remove(key);
 	}
 	
 	/**
@@ -382,31 +459,91 @@ public class SoundController {
 	 * @return true if the sound instance is currently active
 	 */
 	public boolean isActive(String key) {
-		return actives.containsKey(key);
+		int number = keys.get(key, -1);
+		return number >= 0 && findVoice(number) >= 0;
 	}
 	
 	/**
 	 * Updates the current frame of the sound controller.
 	 * 
 	 * This method serves two purposes.  First, it allows us to limit the number
-	 * of sounds per animation frame.  In addition it allows us some primitive
-	 * garbage collection.
+	 * of sounds per animation frame.  In addition it frees the voices of sounds
+	 * that have run longer than the time limit.  Sounds on a loop are never freed.
 	 */
 	public void update() {
-		for(String key : actives.keys()) {
-			ActiveSound snd = actives.get(key);
-			snd.lifespan++;
-			if (snd.lifespan > timeLimit) {
-				collection.add(key);
-				snd.sound.setLooping(snd.id,false); // Will eventually garbage collect
-				snd.sound.setVolume(snd.id, 0.0f); 
+		for (int ii = 0; ii < voiceSound.length; ii++) {
+			if (voiceSound[ii] != null && !voiceLoop[ii]) {
+				voiceLife[ii]++;
+				if (voiceLife[ii] > timeLimit) {
+					release(ii);
+				}
 			}
 		}
-		for(String key : collection) {
-			actives.remove(key);
-		}
-		collection.clear();
 		current = 0;
 	}
 
+	/**
+	 * Returns the voice playing the given key
+	 *
+	 * @param key	The number of the key
+	 *
+	 * @return the voice playing the given key, or -1 if there is none
+	 */
+	private int findVoice(int key) {
+		for (int ii = 0; ii < voiceSound.length; ii++) {
+			if (voiceSound[ii] != null && voiceKey[ii] == key) {
+				return ii;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns a free voice for a sound of the given priority
+	 *
+	 * If every voice is busy, this silences the least important sound that is not
+	 * looping and has no higher a priority: the lowest priority first, then the
+	 * quietest, then the oldest.
+	 *
+	 * @param priority	The priority of the new sound
+	 *
+	 * @return a free voice, or -1 if every voice is more important
+	 */
+	private int obtainVoice(int priority) {
+		int victim = -1;
+		for (int ii = 0; ii < voiceSound.length; ii++) {
+			if (voiceSound[ii] == null) {
+				return ii;
+			}
+			if (voiceLoop[ii] || voicePriority[ii] > priority) {
+				continue;
+			}
+			if (victim < 0 || voicePriority[ii] < voicePriority[victim] ||
+				(voicePriority[ii] == voicePriority[victim] &&
+				 (voiceVolume[ii] < voiceVolume[victim] ||
+				  (voiceVolume[ii] == voiceVolume[victim] && voiceLife[ii] > voiceLife[victim])))) {
+				victim = ii;
+			}
+		}
+		if (victim >= 0) {
+			release(victim);
+		}
+		return victim;
+	}
+
+	/**
+	 * Stops the sound in the given voice, and frees the voice.
+	 *
+	 * The sound is stopped, not just muted, so that it gives back its OpenAL source.
+	 * Otherwise the pool would not bound the number of sources in use.
+	 *
+	 * @param voice	The voice to free
+	 */
+	private void release(int voice) {
+		// Muting first softens the pop that stopping a sound makes on OS X
+		voiceSound[voice].setVolume(voiceId[voice], 0.0f);
+		voiceSound[voice].stop(voiceId[voice]);
+		voiceSound[voice] = null;
+	}
+
 }
@@ -0,0 +1,292 @@
+/*
+ * EditJournalTest.java
+ *
+ * Checks that undoing and redoing editor commands puts the level back the way it was.
+ * The level is a real LevelModel with a Box2D world, but nothing is drawn or saved.
+ *
+ * Also checks that recovering an autosave replays its log onto the snapshot, but only
+ * a log written for that snapshot, and only up to a line cut off by a crash.
+ */
+package edu.cornell.gdiac.starstruck;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonValue;
+import edu.cornell.gdiac.starstruck.Obstacles.Obstacle;
+import edu.cornell.gdiac.starstruck.Obstacles.Planet;
+import edu.cornell.gdiac.starstruck.Obstacles.Star;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class EditJournalTest {
+    /** A snapshot with one anchor (id 0) and two stars (ids 1 and 2) */
+    private static final String SNAPSHOT = "{\"generation\": 7, \"win\": 0.5," +
+            " \"anchors\": [{\"x\": 5, \"y\": 6}]," +
+            " \"stars\": [{\"x\": 1, \"y\": 2}, {\"x\": 3, \"y\": 4}]," +
+            " \"astronaut 1\": {\"x\": 0, \"y\": 0}}";
+
+    private LevelModel level;
+    private EditJournal journal;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Loads the natives, and gives recover somewhere to report a bad line */
+    @BeforeClass
+    public static void startApplication() {
+        new HeadlessApplication(new ApplicationAdapter() {});
+    }
+
+    @AfterClass
+    public static void stopApplication() {
+        Gdx.app.exit();
+    }
+
+    @Before
+    public void setUp() {
+        level = new LevelModel(new Rectangle(0, 0, 32, 18), new Vector2(40, 40));
+        journal = new EditJournal(level, new BackgroundWriter());
+    }
+
+    @After
+    public void tearDown() {
+        level.dispose();
+    }
+
+    @Test
+    public void undoAddTakesObstacleOut() {
+        Star star = star(4, 5);
+        journal.add(star);
+        assertInLevel(star);
+
+        journal.undo();
+        assertNotInLevel(star);
+        assertTrue(journal.canRedo());
+
+        journal.redo();
+        assertInLevel(star);
+        assertEquals(4, star.getX(), 0);
+        assertEquals(5, star.getY(), 0);
+    }
+
+    @Test
+    public void undoRemovePutsObstacleBack() {
+        Star star = star(4, 5);
+        journal.add(star);
+        journal.remove(star);
+        assertNotInLevel(star);
+
+        journal.undo();
+        assertInLevel(star);
+        assertEquals(4, star.getX(), 0);
+        assertEquals(5, star.getY(), 0);
+    }
+
+    @Test
+    public void undoMoveRestoresPosition() {
+        Star star = star(4, 5);
+        journal.add(star);
+        level.shift(star, 3, -2);
+        journal.moved(star, 3, -2);
+
+        journal.undo();
+        assertEquals(4, star.getX(), 1e-5f);
+        assertEquals(5, star.getY(), 1e-5f);
+
+        journal.redo();
+        assertEquals(7, star.getX(), 1e-5f);
+        assertEquals(3, star.getY(), 1e-5f);
+    }
+
+    @Test
+    public void undoReplaceRestoresOriginal() {
+        Star from = star(4, 5);
+        Star to = star(4, 5);
+        journal.add(from);
+        journal.replace(from, to);
+        assertNotInLevel(from);
+        assertInLevel(to);
+
+        journal.undo();
+        assertInLevel(from);
+        assertNotInLevel(to);
+    }
+
+    @Test
+    public void groupIsUndoneTogether() {
+        Star a = star(4, 5);
+        Star b = star(8, 9);
+        journal.begin();
+        journal.add(a);
+        journal.add(b);
+        journal.end();
+
+        journal.undo();
+        assertNotInLevel(a);
+        assertNotInLevel(b);
+        assertFalse(journal.canUndo());
+
+        journal.redo();
+        assertInLevel(a);
+        assertInLevel(b);
+    }
+
+    @Test
+    public void newCommandForgetsRedo() {
+        journal.add(star(4, 5));
+        journal.undo();
+        assertTrue(journal.canRedo());
+
+        journal.add(star(8, 9));
+        assertFalse(journal.canRedo());
+    }
+
+    @Test
+    public void undoPlanetMoveRestoresGravity() {
+        Planet planet = new Planet(10, 9, 1.5f, 100, 3, new TextureRegion(), level.getWorld(),
+                                   new Vector2(40, 40), new TextureRegion(), null);
+        journal.add(planet);
+        Vector2 probe = new Vector2(12, 9);
+        Vector2 before = level.getVectorWorld().getExactForce(probe, new Vector2());
+        assertTrue(before.len() > 0);
+
+        Array<Obstacle> selection = Array.with((Obstacle) planet);
+        level.shift(selection, 10, 0);
+        journal.moved(selection, 10, 0);
+        assertEquals(0, level.getVectorWorld().getExactForce(probe, new Vector2()).len(), 0);
+
+        journal.undo();
+        assertEquals(10, planet.getX(), 1e-5f);
+        Vector2 after = level.getVectorWorld().getExactForce(probe, new Vector2());
+        assertEquals(before.x, after.x, 1e-6f);
+        assertEquals(before.y, after.y, 1e-6f);
+    }
+
+    @Test
+    public void recoverReplaysDeltasOntoSnapshot() throws IOException {
+        FileHandle log = log("{\"generation\": 7}",
+                "{\"op\": \"add\", \"id\": 3, \"section\": \"stars\", \"json\": {\"x\": 9, \"y\": 8}}",
+                "{\"op\": \"set\", \"id\": 1, \"json\": {\"x\": 10, \"y\": 11}}",
+                "{\"op\": \"remove\", \"id\": 2}",
+                "{\"op\": \"move\", \"id\": 0, \"dx\": 1.5, \"dy\": -2}",
+                "{\"op\": \"move\", \"id\": 3, \"dx\": 1, \"dy\": 1}",
+                "{\"op\": \"set\", \"key\": \"astronaut 1\", \"json\": {\"x\": 12, \"y\": 13}}");
+        JsonValue json = EditJournal.recover(snapshot(SNAPSHOT), log);
+
+        assertFalse(json.has("generation"));
+        assertEquals(0.5f, json.getFloat("win"), 0);
+        assertEntries(json.get("anchors"), 6.5f, 4);
+        assertEntries(json.get("stars"), 10, 11, 10, 9);
+        assertEquals(12, json.get("astronaut 1").getFloat("x"), 0);
+        assertEquals(13, json.get("astronaut 1").getFloat("y"), 0);
+    }
+
+    @Test
+    public void recoverIgnoresLogOfAnotherSnapshot() throws IOException {
+        FileHandle log = log("{\"generation\": 6}",
+                "{\"op\": \"remove\", \"id\": 1}",
+                "{\"op\": \"move\", \"id\": 0, \"dx\": 1, \"dy\": 1}");
+        JsonValue json = EditJournal.recover(snapshot(SNAPSHOT), log);
+
+        assertFalse(json.has("generation"));
+        assertEntries(json.get("anchors"), 5, 6);
+        assertEntries(json.get("stars"), 1, 2, 3, 4);
+    }
+
+    @Test
+    public void recoverSkipsCutOffLastLine() throws IOException {
+        FileHandle log = log("{\"generation\": 7}",
+                "{\"op\": \"move\", \"id\": 1, \"dx\": 1, \"dy\": 1}",
+                "{\"op\": \"remove\", \"i");
+        JsonValue json = EditJournal.recover(snapshot(SNAPSHOT), log);
+
+        assertEntries(json.get("anchors"), 5, 6);
+        assertEntries(json.get("stars"), 2, 3, 3, 4);
+    }
+
+    @Test
+    public void recoverWithoutLogReturnsSnapshot() throws IOException {
+        FileHandle log = new FileHandle(folder.getRoot()).child(EditJournal.LOG_FILE);
+        JsonValue json = EditJournal.recover(snapshot(SNAPSHOT), log);
+
+        assertFalse(json.has("generation"));
+        assertEntries(json.get("stars"), 1, 2, 3, 4);
+        assertNull(EditJournal.recover(log.sibling("missing.json"), log));
+    }
+
+    /**
+     * Returns a new star at the given position, not yet in the level
+     */
+    private static Star star(float x, float y) {
+        return new Star(x, y, 1, 1);
+    }
+
+    /**
+     * Returns a snapshot file with the given contents
+     */
+    private FileHandle snapshot(String text) throws IOException {
+        FileHandle file = new FileHandle(folder.newFile(EditJournal.SNAPSHOT_FILE));
+        file.writeString(text, false, "UTF-8");
+        return file;
+    }
+
+    /**
+     * Returns a log file with the given lines, the last one ending in a newline
+     * only if it is not cut off
+     */
+    private FileHandle log(String... lines) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line);
+            if (line.endsWith("}")) {
+                text.append('\n');
+            }
+        }
+        FileHandle file = new FileHandle(folder.newFile(EditJournal.LOG_FILE));
+        file.writeString(text.toString(), false, "UTF-8");
+        return file;
+    }
+
+    /**
+     * Checks the positions of the entries of a level file array, as x, y pairs in order
+     */
+    private static void assertEntries(JsonValue section, float... xy) {
+        assertEquals(xy.length / 2, section.size);
+        int ii = 0;
+        for (JsonValue entry = section.child; entry != null; entry = entry.next, ii += 2) {
+            assertEquals(xy[ii], entry.getFloat("x"), 1e-5f);
+            assertEquals(xy[ii + 1], entry.getFloat("y"), 1e-5f);
+        }
+    }
+
+    /**
+     * Checks that the obstacle is in the level and has a body
+     */
+    private void assertInLevel(Obstacle obj) {
+        assertTrue(level.objects.contains(obj));
+        assertNotNull(obj.getBody());
+    }
+
+    /**
+     * Checks that the obstacle is out of the level and has no body
+     */
+    private void assertNotInLevel(Obstacle obj) {
+        assertFalse(level.objects.contains(obj));
+        assertNull(obj.getBody());
+    }
+}
@@ -0,0 +1,123 @@
+package edu.cornell.gdiac.starstruck.Gravity;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import edu.cornell.gdiac.starstruck.Obstacles.Planet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the baked gravity field against the exact per-planet sum.
+ */
+public class GravityFieldTest {
+    /** The area the field covers */
+    private static final Rectangle AREA = new Rectangle(0, 0, 20, 12);
+    /**
+     * Extra relative error allowed at a cell center, for float rounding only.  The bake
+     * checks every cell it keeps against REL_TOLERANCE and ABS_TOLERANCE at exactly these
+     * points, but sums the planets in another order than VectorWorld.getExactForce.
+     */
+    private static final float ROUNDING = 1.0E-4f;
+
+    private World world;
+    private ArrayList<Planet> planets;
+    private VectorWorld vectorWorld;
+
+    @BeforeClass
+    public static void loadNatives() {
+        GdxNativesLoader.load();
+    }
+
+    @Before
+    public void setUp() {
+        world = new World(new Vector2(0, 0), false);
+        planets = new ArrayList<Planet>();
+        vectorWorld = new VectorWorld();
+        // Two planets whose ranges overlap
+        addPlanet(6, 6, 1.5f, 100, 3);
+        addPlanet(11, 6, 1, 200, 2.5f);
+        vectorWorld.bakeField(AREA);
+    }
+
+    @After
+    public void tearDown() {
+        world.dispose();
+    }
+
+    @Test
+    public void fieldMatchesExactSumAtCellCenters() {
+        GravityField field = vectorWorld.getField();
+        float spacing = GravityField.DEFAULT_SPACING;
+        float[] sampled = new float[2];
+        Vector2 pos = new Vector2();
+        Vector2 exact = new Vector2();
+        int hits = 0;
+        for (float y = spacing / 2; y < AREA.height; y += spacing) {
+            for (float x = spacing / 2; x < AREA.width; x += spacing) {
+                if (!field.sample(x, y, sampled, 0)) {
+                    continue;
+                }
+                hits++;
+                vectorWorld.getExactForce(pos.set(x, y), exact);
+                float error = Vector2.len(sampled[0] - exact.x, sampled[1] - exact.y);
+                assertTrue("Force at (" + x + ", " + y + ")", error <= tolerance(exact));
+            }
+        }
+        assertTrue(hits > 0);
+    }
+
+    @Test
+    public void fieldIsZeroOutsideEveryRange() {
+        Vector2 force = vectorWorld.getForce(new Vector2(18, 10), new Vector2());
+        assertEquals(0, force.x, 0);
+        assertEquals(0, force.y, 0);
+    }
+
+    @Test
+    public void parallelBakeMatchesSerialBake() {
+        GravityField serial = new GravityField(AREA, GravityField.DEFAULT_SPACING, VectorWorld.G);
+        GravityField parallel = new GravityField(AREA, GravityField.DEFAULT_SPACING, VectorWorld.G);
+        serial.bake(planets);
+        parallel.bakeParallel(planets);
+
+        float[] a = new float[2];
+        float[] b = new float[2];
+        for (float y = 0.1f; y < AREA.height; y += 0.3f) {
+            for (float x = 0.1f; x < AREA.width; x += 0.3f) {
+                boolean hitA = serial.sample(x, y, a, 0);
+                boolean hitB = parallel.sample(x, y, b, 0);
+                assertEquals(hitA, hitB);
+                if (hitA) {
+                    assertEquals(a[0], b[0], 0);
+                    assertEquals(a[1], b[1], 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the interpolation error the bake allows at a cell center with the given force
+     */
+    private static float tolerance(Vector2 exact) {
+        return (GravityField.REL_TOLERANCE + ROUNDING) * exact.len() + GravityField.ABS_TOLERANCE;
+    }
+
+    /**
+     * Adds a planet to the world and the vector world
+     */
+    private void addPlanet(float x, float y, float radius, float mass, float grange) {
+        Planet p = new Planet(x, y, radius, mass, grange, new TextureRegion(), world,
+                              new Vector2(40, 40), new TextureRegion(), null);
+        planets.add(p);
+        vectorWorld.addPlanet(p);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * LevelDataTest.java
+ *
+ * Checks that every shipped level survives the trip from JSON to the binary form and back,
+ * and that LevelData.load only uses a binary file that is up to date.
+ *
+ * Run from the assets directory (the test task does this).
+ */
+package edu.cornell.gdiac.starstruck;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LevelDataTest {
+    /** The level a binary file is made for, and the level it is swapped with */
+    private static final String LEVEL = "main/tutorial1.json", OTHER = "sombrero/levelboss.json";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void binaryRoundTripKeepsShippedLevels() throws IOException {
+        Array<String> levels = shippedLevels();
+        assertTrue(levels.size > 0);
+        for (String level : levels) {
+            LevelData json = LevelData.fromJson(parse(level));
+            LevelData binary = roundTrip(json);
+            assertSameLevel(level, json, binary);
+        }
+    }
+
+    @Test
+    public void loadPrefersUpToDateBinary() throws IOException {
+        File json = copy(LEVEL);
+        File binary = new File(json.getParentFile(), "level." + LevelData.BINARY_EXTENSION);
+        // The binary file holds another level, so it shows which file was read
+        LevelData.convert(new FileHandle(new File("levels/" + OTHER)), new FileHandle(binary));
+
+        long time = 1500000000000L;
+        assertTrue(json.setLastModified(time));
+        assertTrue(binary.setLastModified(time + 60000));
+        assertSameLevel(OTHER, LevelData.fromJson(parse(OTHER)), LevelData.load(new FileHandle(json)));
+
+        assertTrue(binary.setLastModified(time - 60000));
+        assertSameLevel(LEVEL, LevelData.fromJson(parse(LEVEL)), LevelData.load(new FileHandle(json)));
+    }
+
+    @Test(expected = IOException.class)
+    public void readRejectsJson() throws IOException {
+        byte[] json = new FileHandle(new File("levels/" + LEVEL)).readBytes();
+        LevelData.read(new ByteArrayInputStream(json));
+    }
+
+    /**
+     * Returns the level files listed in the level select screen
+     */
+    private static Array<String> shippedLevels() {
+        Array<String> levels = new Array<String>();
+        for (JsonValue level = parse("levelselect.json").get("levels").child; level != null; level = level.next) {
+            levels.add(level.getString("json file"));
+        }
+        return levels;
+    }
+
+    /**
+     * Returns the parsed level file, relative to the levels directory
+     */
+    private static JsonValue parse(String file) {
+        return new JsonReader().parse(new FileHandle(new File("levels/" + file)));
+    }
+
+    /**
+     * Returns a copy of the level file in a temporary directory, named level.json
+     */
+    private File copy(String file) throws IOException {
+        File dest = new File(folder.newFolder(), "level.json");
+        new FileHandle(new File("levels/" + file)).copyTo(new FileHandle(dest));
+        return dest;
+    }
+
+    /**
+     * Returns the level after writing it in binary form and reading it back
+     */
+    private static LevelData roundTrip(LevelData data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        data.write(out);
+        return LevelData.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    /**
+     * Checks that both levels have the same objects and the same header
+     */
+    private static void assertSameLevel(String level, LevelData expected, LevelData actual) {
+        assertArrayEquals(level, expected.planetX, actual.planetX, 0);
+        assertArrayEquals(level, expected.planetY, actual.planetY, 0);
+        assertArrayEquals(level, expected.planetType, actual.planetType);
+        assertSameStrings(level, expected, expected.planetBug, actual, actual.planetBug);
+        assertSameStrings(level, expected, expected.planetBugColor, actual, actual.planetBugColor);
+
+        assertArrayEquals(level, expected.starX, actual.starX, 0);
+        assertArrayEquals(level, expected.starY, actual.starY, 0);
+        assertSameStrings(level, expected, expected.starTexture, actual, actual.starTexture);
+        assertSameStrings(level, expected, expected.starLocation, actual, actual.starLocation);
+
+        assertArrayEquals(level, expected.anchorX, actual.anchorX, 0);
+        assertArrayEquals(level, expected.anchorY, actual.anchorY, 0);
+        assertSameStrings(level, expected, expected.anchorTexture, actual, actual.anchorTexture);
+
+        assertArrayEquals(level, expected.portalX1, actual.portalX1, 0);
+        assertArrayEquals(level, expected.portalY1, actual.portalY1, 0);
+        assertArrayEquals(level, expected.portalX2, actual.portalX2, 0);
+        assertArrayEquals(level, expected.portalY2, actual.portalY2, 0);
+        assertSameStrings(level, expected, expected.portalTexture, actual, actual.portalTexture);
+        assertSameStrings(level, expected, expected.portalName, actual, actual.portalName);
+        assertArrayEquals(level, expected.portalColor, actual.portalColor);
+        assertTrue(level, Arrays.equals(expected.portalGoal, actual.portalGoal));
+
+        assertArrayEquals(level, expected.wormX, actual.wormX, 0);
+        assertArrayEquals(level, expected.wormY, actual.wormY, 0);
+        assertSameStrings(level, expected, expected.wormTexture, actual, actual.wormTexture);
+        assertArrayEquals(level, expected.wormVelocity, actual.wormVelocity, 0);
+
+        assertArrayEquals(level, expected.urchinX, actual.urchinX, 0);
+        assertArrayEquals(level, expected.urchinY, actual.urchinY, 0);
+        assertArrayEquals(level, expected.urchinLength, actual.urchinLength);
+        assertTrue(level, Arrays.equals(expected.urchinVertical, actual.urchinVertical));
+
+        assertArrayEquals(level, expected.creamX, actual.creamX, 0);
+        assertArrayEquals(level, expected.creamY, actual.creamY, 0);
+        assertSameStrings(level, expected, expected.creamTexture, actual, actual.creamTexture);
+        assertArrayEquals(level, expected.creamVelocity, actual.creamVelocity, 0);
+
+        // The binary header leaves out the sections kept as columns
+        for (JsonValue child = actual.header.child; child != null; child = child.next) {
+            assertSameJson(level + "/" + child.name, expected.header.get(child.name), child);
+        }
+    }
+
+    /**
+     * Checks that two columns of string indices name the same strings
+     */
+    private static void assertSameStrings(String level, LevelData expected, int[] expectedColumn,
+                                          LevelData actual, int[] actualColumn) {
+        assertEquals(level, expectedColumn.length, actualColumn.length);
+        for (int ii = 0; ii < expectedColumn.length; ii++) {
+            assertEquals(level, expected.getString(expectedColumn[ii]), actual.getString(actualColumn[ii]));
+        }
+    }
+
+    /**
+     * Checks that two JSON trees hold the same values
+     *
+     * Numbers are compared by value, as the binary form may store them in another type.
+     */
+    private static void assertSameJson(String path, JsonValue expected, JsonValue actual) {
+        assertNotNull(path, expected);
+        if (expected.isNumber()) {
+            assertTrue(path, actual.isNumber());
+            assertEquals(path, expected.asDouble(), actual.asDouble(), 0);
+        } else if (expected.isObject() || expected.isArray()) {
+            assertEquals(path, expected.type(), actual.type());
+            assertEquals(path, expected.size, actual.size);
+            JsonValue a = actual.child;
+            for (JsonValue e = expected.child; e != null; e = e.next, a = a.next) {
+                assertEquals(path, e.name, a.name);
+                assertSameJson(path + "/" + (e.name != null ? e.name : "[]"), e, a);
+            }
+        } else {
+            assertEquals(path, expected.type(), actual.type());
+            assertEquals(path, expected.asString(), actual.asString());
+        }
+    }
+}
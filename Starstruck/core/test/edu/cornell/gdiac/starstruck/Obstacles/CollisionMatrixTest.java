@@ -0,0 +1,61 @@
+package edu.cornell.gdiac.starstruck.Obstacles;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the collision matrix is symmetric and that its Box2D filter bits let through
+ * every contact the game needs.
+ */
+public class CollisionMatrixTest {
+
+    @Test
+    public void pairsAreSymmetric() {
+        for (ObstacleType a : ObstacleType.values()) {
+            for (ObstacleType b : ObstacleType.values()) {
+                assertEquals(a + "/" + b, CollisionMatrix.isEnabled(a, b), CollisionMatrix.isEnabled(b, a));
+                assertEquals(a + "/" + b, CollisionMatrix.getHandlers(a, b), CollisionMatrix.getHandlers(b, a));
+            }
+        }
+    }
+
+    @Test
+    public void filterPassesReportedPairs() {
+        for (ObstacleType a : ObstacleType.values()) {
+            for (ObstacleType b : ObstacleType.values()) {
+                if (CollisionMatrix.isReported(a, b)) {
+                    // Box2D only makes a contact if each category is in the other's mask
+                    assertTrue(a + "/" + b, (CollisionMatrix.getCategory(a) & CollisionMatrix.getMask(b)) != 0);
+                    assertTrue(a + "/" + b, (CollisionMatrix.getCategory(b) & CollisionMatrix.getMask(a)) != 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sensorsNeverCollideOrNeedPreSolve() {
+        for (ObstacleType a : ObstacleType.values()) {
+            if (!CollisionMatrix.isSensor(a)) {
+                continue;
+            }
+            for (ObstacleType b : ObstacleType.values()) {
+                assertFalse(a + "/" + b, CollisionMatrix.isEnabled(a, b));
+                int handlers = CollisionMatrix.getHandlers(a, b);
+                assertEquals(a + "/" + b, 0, handlers & (CollisionMatrix.ANCHOR | CollisionMatrix.TUTORIAL));
+            }
+        }
+        assertTrue(CollisionMatrix.isSensor(ObstacleType.WORM));
+        assertTrue(CollisionMatrix.isSensor(ObstacleType.PORTAL));
+        assertTrue(CollisionMatrix.isSensor(ObstacleType.TALKING_BOSS));
+        assertFalse(CollisionMatrix.isSensor(ObstacleType.ANCHOR));
+        assertFalse(CollisionMatrix.isSensor(ObstacleType.PLAYER));
+    }
+
+    @Test
+    public void everyTypeHasCategory() {
+        for (ObstacleType t : ObstacleType.values()) {
+            assertTrue(t.toString(), CollisionMatrix.getCategory(t) != 0);
+        }
+    }
+}
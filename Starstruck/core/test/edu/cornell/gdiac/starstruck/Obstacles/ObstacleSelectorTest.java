@@ -0,0 +1,78 @@
+/*
+ * ObstacleSelectorTest.java
+ *
+ * Checks that the editor only picks and selects obstacles of the level.  A boss level
+ * has bodies in its world that are parts of the boss (the anchors on a wheel), which
+ * must never be picked on their own.
+ */
+package edu.cornell.gdiac.starstruck.Obstacles;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import edu.cornell.gdiac.starstruck.LevelModel;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ObstacleSelectorTest {
+    private LevelModel level;
+    private ObstacleSelector selector;
+    /** An anchor the level owns */
+    private Anchor anchor;
+    /** An anchor on a boss wheel, in the world but not in the level */
+    private Anchor part;
+
+    /** Loads the natives */
+    @BeforeClass
+    public static void startApplication() {
+        new HeadlessApplication(new ApplicationAdapter() {});
+    }
+
+    @AfterClass
+    public static void stopApplication() {
+        Gdx.app.exit();
+    }
+
+    @Before
+    public void setUp() {
+        level = new LevelModel(new Rectangle(0, 0, 32, 18), new Vector2(40, 40));
+        anchor = new Anchor(5, 5, 1);
+        level.add(anchor);
+        // This is what a wheel does with its anchors when it is activated
+        part = new Anchor(15, 5, 1);
+        part.activatePhysics(level.getWorld());
+        selector = new ObstacleSelector(level.getWorld(), level);
+    }
+
+    @After
+    public void tearDown() {
+        part.deactivatePhysics(level.getWorld());
+        level.dispose();
+    }
+
+    @Test
+    public void pickFindsLevelAnchor() {
+        assertSame(anchor, selector.pick(5, 5));
+    }
+
+    @Test
+    public void pickSkipsBossParts() {
+        assertNull(selector.pick(15, 5));
+    }
+
+    @Test
+    public void selectSkipsBossParts() {
+        Array<Obstacle> found = new Array<Obstacle>();
+        selector.select(new Rectangle(0, 0, 32, 18), found);
+        assertEquals(1, found.size);
+        assertSame(anchor, found.first());
+    }
+}
@@ -0,0 +1,91 @@
+package edu.cornell.gdiac.starstruck.desktop;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import edu.cornell.gdiac.starstruck.GameController;
+import edu.cornell.gdiac.starstruck.WorldController;
+import edu.cornell.gdiac.util.JsonAssetManager;
+
+/**
+ * Steps a level without a window, a GPU or an audio device, and reports how fast it ran.
+ *
+ * Usage: HeadlessLauncher LEVEL [STEPS] [SCRIPT]
+ *
+ * LEVEL is a file in assets/levels (such as "main/tutorial1.json"), STEPS is the number of
+ * fixed steps to run (default 3600), and SCRIPT is the keyboard input to replay, in the
+ * format of {@link ScriptedInput}.  Run from the assets directory, as with DesktopLauncher.
+ */
+public class HeadlessLauncher {
+	/** Number of steps to run if none are given */
+	private static final int DEFAULT_STEPS = 3600;
+	/** Size of the canvas the level is simulated for */
+	private static final int WIDTH = 1280, HEIGHT = 720;
+
+	public static void main (String[] arg) {
+		if (arg.length < 1) {
+			System.err.println("Usage: HeadlessLauncher LEVEL [STEPS] [SCRIPT]");
+			System.exit(1);
+		}
+		int steps = arg.length > 1 ? Integer.parseInt(arg[1]) : DEFAULT_STEPS;
+		String script = arg.length > 2 ? arg[2] : null;
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		new HeadlessApplication(new Simulation(arg[0], steps, script), config);
+	}
+
+	/**
+	 * Loads the assets and the level, steps it, and exits.
+	 */
+	private static class Simulation extends ApplicationAdapter {
+		/** The level file, relative to assets/levels */
+		private final String level;
+		/** The number of steps to run */
+		private final int steps;
+		/** The keyboard input to replay */
+		private final ScriptedInput input;
+		/** The controller being stepped */
+		private GameController controller;
+
+		public Simulation(String level, int steps, String script) {
+			this.level = level;
+			this.steps = steps;
+			this.input = new ScriptedInput(script);
+		}
+
+		public void create() {
+			Gdx.gl = Gdx.gl20 = HeadlessGL.create();
+			Gdx.input = input;
+
+			JsonAssetManager manager = JsonAssetManager.getInstance();
+			controller = new GameController();
+			controller.preLoadContent(manager);
+			manager.finishLoading();
+			controller.loadContent(manager);
+			controller.setHeadless(WIDTH, HEIGHT);
+			controller.setJson(level);
+			controller.reset();
+
+			long start = System.nanoTime();
+			for (int ii = 0; ii < steps; ii++) {
+				input.setStep(ii);
+				if (controller.preUpdate(WorldController.WORLD_STEP)) {
+					controller.update(WorldController.WORLD_STEP);
+					controller.postUpdate(WorldController.WORLD_STEP);
+				}
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("%s: %d steps in %.3f s (%.1f steps/s)%n", level, steps, seconds, steps / seconds);
+
+			Gdx.app.exit();
+		}
+
+		public void dispose() {
+			controller.unloadContent(JsonAssetManager.getInstance());
+			controller.dispose();
+			JsonAssetManager.getInstance().clear();
+			JsonAssetManager.getInstance().dispose();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package edu.cornell.gdiac.starstruck.desktop;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Keyboard input that replays a fixed script instead of reading a device.
+ *
+ * A script is a comma separated list of entries KEY:START-END, which hold KEY down from step
+ * START up to and including step END.  END may be left out to hold the key for the rest of
+ * the run.  Keys use the names of {@link Input.Keys}, such as "D", "Up" or "Space".  A key
+ * reads as just pressed only on the START step of an entry, so an entry such as "Up:120-120"
+ * taps the key once.
+ *
+ * Example: "D:0-299,Space:120-121,A:300-"
+ */
+public class ScriptedInput extends MockInput {
+	/** Key codes of the entries */
+	private final int[] keys;
+	/** First step of each entry */
+	private final int[] starts;
+	/** Last step of each entry */
+	private final int[] ends;
+	/** The current step */
+	private int step;
+
+	/**
+	 * Creates input that replays the given script.
+	 *
+	 * @param script The script to replay, or null for no input
+	 */
+	public ScriptedInput(String script) {
+		Array<String> entries = new Array<String>();
+		if (script != null) {
+			for (String entry : script.split(",")) {
+				if (entry.trim().length() > 0) {
+					entries.add(entry.trim());
+				}
+			}
+		}
+		keys = new int[entries.size];
+		starts = new int[entries.size];
+		ends = new int[entries.size];
+		for (int i = 0; i < entries.size; i++) {
+			String entry = entries.get(i);
+			int colon = entry.lastIndexOf(':');
+			int dash = entry.indexOf('-', colon);
+			if (colon < 0 || dash < 0) {
+				throw new GdxRuntimeException("Bad input script entry: " + entry);
+			}
+			keys[i] = keyCode(entry.substring(0, colon));
+			starts[i] = Integer.parseInt(entry.substring(colon + 1, dash));
+			String end = entry.substring(dash + 1);
+			ends[i] = end.length() == 0 ? Integer.MAX_VALUE : Integer.parseInt(end);
+		}
+	}
+
+	/**
+	 * Sets the step the script is replaying
+	 *
+	 * @param step The step the script is replaying
+	 */
+	public void setStep(int step) {
+		this.step = step;
+	}
+
+	@Override
+	public boolean isKeyPressed(int key) {
+		for (int i = 0; i < keys.length; i++) {
+			if ((keys[i] == key || key == Input.Keys.ANY_KEY) && step >= starts[i] && step <= ends[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean isKeyJustPressed(int key) {
+		for (int i = 0; i < keys.length; i++) {
+			if ((keys[i] == key || key == Input.Keys.ANY_KEY) && step == starts[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the key code with the given name.
+	 *
+	 * @param name The name of the key, as in {@link Input.Keys#toString(int)}
+	 * @return the key code with the given name
+	 */
+	private static int keyCode(String name) {
+		int code = Input.Keys.valueOf(name);
+		if (code < 0) {
+			throw new GdxRuntimeException("Unknown key in input script: " + name);
+		}
+		return code;
+	}
+}
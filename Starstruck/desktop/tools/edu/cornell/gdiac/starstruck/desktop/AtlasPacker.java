@@ -0,0 +1,99 @@
+package edu.cornell.gdiac.starstruck.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import edu.cornell.gdiac.util.JsonAssetManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Packs the texture regions and filmstrips of the asset directory into texture atlases.
+ *
+ * Usage: AtlasPacker [DIRECTORY] [OUTPUT]
+ *
+ * DIRECTORY is the asset directory (default "levels/assets.json") and OUTPUT is the folder
+ * to write the atlases to (default "atlases").  There is one atlas for each top-level
+ * folder of images, named and laid out as {@link JsonAssetManager} expects.  Repeating
+ * images, and images too large for an atlas page, are left out and loaded on their own.
+ * Run from the assets directory, as with DesktopLauncher.
+ */
+public class AtlasPacker {
+	/** Largest size of an atlas page */
+	private static final int PAGE_SIZE = 2048;
+	/** Space left around each image, so that filtering does not bleed between them */
+	private static final int PADDING = 2;
+
+	public static void main (String[] arg) throws IOException {
+		String directory = arg.length > 0 ? arg[0] : "levels/assets.json";
+		File output = new File(arg.length > 1 ? arg[1] : "atlases");
+
+		JsonValue json = new JsonReader().parse(new FileHandle(directory));
+		Map<String, TexturePacker> packers = new LinkedHashMap<String, TexturePacker>();
+		Set<String> packed = new HashSet<String>();
+		int skipped = 0;
+		for (String section : new String[] {"texture regions", "filmstrips"}) {
+			for (JsonValue entry = json.getChild(section); entry != null; entry = entry.next) {
+				String file = entry.getString("file");
+				String atlas = JsonAssetManager.getAtlasFile(file);
+				if (entry.getBoolean("wrap") || atlas == null || !packed.add(file)) {
+					continue;
+				}
+				BufferedImage image = ImageIO.read(new File(file));
+				if (image.getWidth() > PAGE_SIZE - 2*PADDING || image.getHeight() > PAGE_SIZE - 2*PADDING) {
+					System.out.println("Skipping "+file+" ("+image.getWidth()+"x"+image.getHeight()+")");
+					skipped++;
+					continue;
+				}
+				TexturePacker packer = packers.get(atlas);
+				if (packer == null) {
+					packer = new TexturePacker(settings());
+					packers.put(atlas, packer);
+				}
+				packer.addImage(image, JsonAssetManager.getAtlasName(file));
+			}
+		}
+
+		for (Map.Entry<String, TexturePacker> entry : packers.entrySet()) {
+			String name = new File(entry.getKey()).getName();
+			// The packer appends to an existing atlas, so always start over
+			new File(output, name).delete();
+			entry.getValue().pack(output, name);
+			System.out.println("Packed "+entry.getKey());
+		}
+		System.out.println("Packed "+(packed.size()-skipped)+" images into "+packers.size()+" atlases");
+	}
+
+	/**
+	 * Returns the settings for an atlas that the game can draw from unchanged.
+	 *
+	 * Images are neither rotated nor trimmed, so a packed region has the same size as
+	 * its image, and the frames of a filmstrip stay in place.
+	 *
+	 * @return the settings for an atlas
+	 */
+	private static TexturePacker.Settings settings() {
+		TexturePacker.Settings settings = new TexturePacker.Settings();
+		settings.maxWidth = PAGE_SIZE;
+		settings.maxHeight = PAGE_SIZE;
+		settings.paddingX = PADDING;
+		settings.paddingY = PADDING;
+		settings.duplicatePadding = true;
+		settings.edgePadding = true;
+		settings.rotation = false;
+		settings.stripWhitespaceX = false;
+		settings.stripWhitespaceY = false;
+		settings.filterMin = Texture.TextureFilter.Linear;
+		settings.filterMag = Texture.TextureFilter.Linear;
+		return settings;
+	}
+}
@@ -0,0 +1,62 @@
+package edu.cornell.gdiac.starstruck.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import edu.cornell.gdiac.starstruck.LevelData;
+
+/**
+ * Converts every level file in a directory to the binary form read by {@link LevelData}.
+ *
+ * Usage: LevelConverter [DIRECTORY]
+ *
+ * DIRECTORY is the folder of level files (default "levels"), searched recursively.  Each
+ * JSON level is written next to itself with the extension {@link LevelData#BINARY_EXTENSION}.
+ * Files that are not levels (such as the asset directory) are skipped, as are levels that
+ * cannot be read.  Run from the assets directory, as with DesktopLauncher.
+ */
+public class LevelConverter {
+
+	public static void main (String[] arg) {
+		FileHandle directory = new FileHandle(arg.length > 0 ? arg[0] : "levels");
+		int[] counts = new int[2];
+		convertAll(directory, counts);
+		System.out.println("Converted "+counts[0]+" levels ("+counts[1]+" failed)");
+	}
+
+	/**
+	 * Converts the levels in the given directory and its subdirectories.
+	 *
+	 * @param directory	The directory to search
+	 * @param counts	The number of levels converted and failed so far
+	 */
+	private static void convertAll (FileHandle directory, int[] counts) {
+		for (FileHandle file : directory.list()) {
+			if (file.isDirectory()) {
+				convertAll(file, counts);
+			} else if (file.extension().equals("json") && isLevel(file)) {
+				FileHandle out = file.sibling(file.nameWithoutExtension()+"."+LevelData.BINARY_EXTENSION);
+				try {
+					LevelData.convert(file, out);
+					counts[0]++;
+				} catch (Exception e) {
+					System.out.println("Could not convert "+file.path()+": "+e.getMessage());
+					out.delete();
+					counts[1]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the given file looks like a level
+	 *
+	 * This only checks the text, so that files in other formats are not parsed twice.
+	 *
+	 * @param file	The JSON file
+	 *
+	 * @return true if the given file looks like a level
+	 */
+	private static boolean isLevel (FileHandle file) {
+		String text = file.readString("UTF-8");
+		return text.contains("\"planets\"") && text.contains("\"astronaut 1\"");
+	}
+}